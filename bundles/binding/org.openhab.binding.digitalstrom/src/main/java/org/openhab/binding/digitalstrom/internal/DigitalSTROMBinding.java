@@ -12,7 +12,6 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Dictionary;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -52,7 +51,7 @@ import org.openhab.binding.digitalstrom.internal.client.job.DeviceConsumptionSen
 import org.openhab.binding.digitalstrom.internal.client.job.DeviceOutputValueSensorJob;
 import org.openhab.binding.digitalstrom.internal.client.job.DeviceSensorValueJob;
 import org.openhab.binding.digitalstrom.internal.client.job.SceneOutputValueSensorJob;
-import org.openhab.binding.digitalstrom.internal.client.job.SensorJob;
+import org.openhab.binding.digitalstrom.internal.client.job.SensorJobExecutor;
 import org.openhab.binding.digitalstrom.internal.config.ConnectionConfig;
 import org.openhab.binding.digitalstrom.internal.config.ConsumptionConfig;
 import org.openhab.binding.digitalstrom.internal.config.ContextConfig;
@@ -107,6 +106,9 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
 
     private int readTimeout = ConnectionConfig.DEFAULT_READ_TIMEOUT;
 
+    /** pause between two sensor readings on the same circuit, defaults to readTimeout */
+    private int sensorJobInterval = ConnectionConfig.DEFAULT_READ_TIMEOUT;
+
     private String user = null;
 
     private String password = null;
@@ -144,11 +146,7 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
 
     private List<String> echoBox = Collections.synchronizedList(new LinkedList<String>());
 
-    private List<SensorJob> highPrioritySensorJobs = Collections.synchronizedList(new LinkedList<SensorJob>());
-    private List<SensorJob> mediumPrioritySensorJobs = Collections.synchronizedList(new LinkedList<SensorJob>());
-    private List<SensorJob> lowPrioritySensorJobs = Collections.synchronizedList(new LinkedList<SensorJob>());
-
-    private SensorJobExecutor sensorJobExecutor = null;
+    private volatile SensorJobExecutor sensorJobExecutor = null;
 
     public DigitalSTROMBinding() {
     }
@@ -168,9 +166,10 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
             digitalSTROMEventListener = null;
         }
 
-        if (sensorJobExecutor != null) {
-            sensorJobExecutor.shutdown();
-            sensorJobExecutor = null;
+        SensorJobExecutor executor = sensorJobExecutor;
+        sensorJobExecutor = null;
+        if (executor != null) {
+            executor.shutdown();
         }
 
         removeAllDeviceListener();
@@ -302,6 +301,8 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
                 }
             }
 
+            // deactivate() may remove the executor while the refresh is running
+            SensorJobExecutor executor = sensorJobExecutor;
             for (DigitalSTROMBindingConfig itemConf : provider.getAllDeviceConsumptionItems()) {
 
                 String itemName = itemConf.itemName;
@@ -319,7 +320,7 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
                     logger.debug("item '{}' is about to be refreshed now", itemName);
 
                     Device device = getDsidToDeviceMap().get(itemConf.dsid.getValue());
-                    if (device != null) {
+                    if (device != null && executor != null) {
 
                         if (itemConf.sensor == null) {
                             SensorIndexEnum sensorIndex = null;
@@ -328,7 +329,7 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
                             } catch (Exception e) {
                                 sensorIndex = SensorIndexEnum.ACTIVE_POWER;
                             }
-                            addLowPriorityJob(new DeviceConsumptionSensorJob(device, sensorIndex));
+                            executor.addLowPriorityJob(new DeviceConsumptionSensorJob(device, sensorIndex));
                             lastUpdateMap.put(itemName, System.currentTimeMillis());
                         } else {
                             SensorIndexEnum sensorIndex = null;
@@ -337,7 +338,9 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
                             } catch (Exception e) {
 
                             }
-                            addHighPriorityJob(new DeviceSensorValueJob(device, sensorIndex));
+                            if (sensorIndex != null) {
+                                executor.addHighPriorityJob(new DeviceSensorValueJob(device, sensorIndex));
+                            }
                         }
 
                     }
@@ -403,6 +406,12 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
                 readTimeout = Integer.parseInt(readTimeoutStr);
             }
 
+            sensorJobInterval = readTimeout;
+            String sensorJobIntervalStr = (String) config.get("sensorJobInterval");
+            if (StringUtils.isNotBlank(sensorJobIntervalStr)) {
+                sensorJobInterval = Integer.parseInt(sensorJobIntervalStr);
+            }
+
             String applicationTokenStr = (String) config.get("loginToken");
             if (StringUtils.isNotBlank(applicationTokenStr)) {
                 applicationToken = applicationTokenStr;
@@ -1359,102 +1368,23 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
     }
 
     private void initDeviceOutputValue(Device device, short index) {
-        addHighPriorityJob(new DeviceOutputValueSensorJob(device, index));
-    }
-
-    private void initSceneOutputValue(Device device, short sceneId) {
-        addMediumPriorityJob(new SceneOutputValueSensorJob(device, sceneId));
-    }
-
-    private void addHighPriorityJob(DeviceOutputValueSensorJob deviceOutputValueSensorJob) {
-        synchronized (highPrioritySensorJobs) {
-            if (!highPrioritySensorJobs.contains(deviceOutputValueSensorJob)) {
-                highPrioritySensorJobs.add(deviceOutputValueSensorJob);
-            }
+        SensorJobExecutor executor = sensorJobExecutor;
+        if (executor != null) {
+            executor.addHighPriorityJob(new DeviceOutputValueSensorJob(device, index));
         }
     }
 
-    private void addHighPriorityJob(DeviceSensorValueJob deviceSensorValueJob) {
-        synchronized (highPrioritySensorJobs) {
-            if (!highPrioritySensorJobs.contains(deviceSensorValueJob)) {
-                highPrioritySensorJobs.add(deviceSensorValueJob);
-            }
-        }
-    }
-
-    private void addMediumPriorityJob(SceneOutputValueSensorJob sceneOutputValueSensorJob) {
-        synchronized (mediumPrioritySensorJobs) {
-            if (!mediumPrioritySensorJobs.contains(sceneOutputValueSensorJob)) {
-                mediumPrioritySensorJobs.add(sceneOutputValueSensorJob);
-            }
-        }
-    }
-
-    private void addLowPriorityJob(DeviceConsumptionSensorJob deviceConsumptionSensorJob) {
-        synchronized (lowPrioritySensorJobs) {
-            if (!lowPrioritySensorJobs.contains(deviceConsumptionSensorJob)) {
-                lowPrioritySensorJobs.add(deviceConsumptionSensorJob);
-            }
-        }
-    }
-
-    private SensorJob getLowPriorityJob() {
-        SensorJob job = null;
-        synchronized (lowPrioritySensorJobs) {
-            if (lowPrioritySensorJobs.size() > 0) {
-                job = lowPrioritySensorJobs.get(0);
-                lowPrioritySensorJobs.remove(job);
-            }
-        }
-        return job;
-    }
-
-    private SensorJob getMediumPriorityJob() {
-        SensorJob job = null;
-        synchronized (mediumPrioritySensorJobs) {
-            if (mediumPrioritySensorJobs.size() > 0) {
-                job = mediumPrioritySensorJobs.get(0);
-                mediumPrioritySensorJobs.remove(job);
-            }
-        }
-        return job;
-    }
-
-    private SensorJob getHighPriorityJob() {
-        SensorJob job = null;
-        synchronized (highPrioritySensorJobs) {
-            if (highPrioritySensorJobs.size() > 0) {
-                job = highPrioritySensorJobs.get(0);
-                highPrioritySensorJobs.remove(job);
-            }
+    private void initSceneOutputValue(Device device, short sceneId) {
+        SensorJobExecutor executor = sensorJobExecutor;
+        if (executor != null) {
+            executor.addMediumPriorityJob(new SceneOutputValueSensorJob(device, sceneId));
         }
-        return job;
     }
 
     private void removeSensorJobs(DSID dsid) {
-        synchronized (lowPrioritySensorJobs) {
-            for (Iterator<SensorJob> iter = lowPrioritySensorJobs.iterator(); iter.hasNext();) {
-                SensorJob job = iter.next();
-                if (job.getDsid().equals(dsid)) {
-                    iter.remove();
-                }
-            }
-        }
-        synchronized (mediumPrioritySensorJobs) {
-            for (Iterator<SensorJob> iter = mediumPrioritySensorJobs.iterator(); iter.hasNext();) {
-                SensorJob job = iter.next();
-                if (job.getDsid().equals(dsid)) {
-                    iter.remove();
-                }
-            }
-        }
-        synchronized (highPrioritySensorJobs) {
-            for (Iterator<SensorJob> iter = highPrioritySensorJobs.iterator(); iter.hasNext();) {
-                SensorJob job = iter.next();
-                if (job.getDsid().equals(dsid)) {
-                    iter.remove();
-                }
-            }
+        SensorJobExecutor executor = sensorJobExecutor;
+        if (executor != null) {
+            executor.removeSensorJobs(dsid);
         }
     }
 
@@ -1498,8 +1428,16 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
     }
 
     private void startSensorJobExecutor() {
-        this.sensorJobExecutor = new SensorJobExecutor();
-        this.sensorJobExecutor.start();
+        SensorJobExecutor oldExecutor = this.sensorJobExecutor;
+        this.sensorJobExecutor = new SensorJobExecutor(digitalSTROM, sensorJobInterval) {
+            @Override
+            protected String getSessionToken() {
+                return DigitalSTROMBinding.this.getSessionToken();
+            }
+        };
+        if (oldExecutor != null) {
+            oldExecutor.shutdown();
+        }
     }
 
     private void registerDigitalSTROMEventListener() {
@@ -1510,50 +1448,6 @@ public class DigitalSTROMBinding extends AbstractActiveBinding<DigitalSTROMBindi
         this.digitalSTROMEventListener.start();
     }
 
-    /**
-     * In order to avoid many sensor readings in a time, this thread starts the
-     * jobs, after the old one is finished
-     *
-     * @author Alexander Betker
-     * @since 1.3.0
-     *
-     */
-    private class SensorJobExecutor extends Thread {
-
-        private boolean shutdown = false;
-
-        private final int sleepTime = readTimeout;
-
-        @Override
-        public void run() {
-
-            while (!this.shutdown) {
-                SensorJob job = getHighPriorityJob();
-
-                if (job == null) {
-                    job = getMediumPriorityJob();
-                    if (job == null) {
-                        job = getLowPriorityJob();
-                    }
-                }
-                if (job != null) {
-                    job.execute(digitalSTROM, getSessionToken());
-                }
-
-                try {
-                    sleep(this.sleepTime);
-                } catch (InterruptedException e) {
-                    this.shutdown();
-                    logger.error("InterruptedException in SensorJobExecutor Thread ... " + e.getStackTrace());
-                }
-            }
-        }
-
-        public synchronized void shutdown() {
-            this.shutdown = true;
-        }
-    }
-
     /**
      * If someone turns a device or a zone etc. on, we will get a notification
      * to update the state of the item
@@ -10,6 +10,7 @@ package org.openhab.binding.digitalstrom.internal.client.connection.transport;
 
 import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
@@ -64,6 +65,7 @@ public class HttpTransport {
                         responseCode = connection.getResponseCode();
                     } catch (SocketTimeoutException e) {
                         logger.warn(e.getMessage() + " : " + request);
+                        connection.disconnect();
                         return null;
                     }
 
@@ -74,10 +76,9 @@ public class HttpTransport {
                         while ((inputLine = in.readLine()) != null) {
                             response.append(inputLine);
                         }
-
-                        in.close();
                     } else {
                         response = null;
+                        discard(connection.getErrorStream());
                     }
 
                 }
@@ -91,13 +92,41 @@ public class HttpTransport {
 
             } catch (IOException e) {
                 logger.error("IOException by executing jsonRequest: " + request + " ; " + e.getLocalizedMessage());
-            } finally {
+                // don't hand a broken connection back to the keep-alive cache
                 if (connection != null) {
                     connection.disconnect();
                 }
+            } finally {
+                // the connection is not disconnected: once the response is read
+                // completely and the stream is closed, the JVM keeps the
+                // connection open and reuses it for the next request to the dSS
+                if (in != null) {
+                    try {
+                        in.close();
+                    } catch (IOException e) {
+                        logger.debug("IOException by closing the response of jsonRequest: " + request);
+                    }
+                }
             }
         }
         return null;
     }
 
+    /**
+     * Reads and closes an error response, so the connection can be reused.
+     */
+    private void discard(InputStream stream) throws IOException {
+        if (stream == null) {
+            return;
+        }
+        try {
+            byte[] buffer = new byte[1024];
+            while (stream.read(buffer) != -1) {
+                // nothing to do
+            }
+        } finally {
+            stream.close();
+        }
+    }
+
 }
\ No newline at end of file
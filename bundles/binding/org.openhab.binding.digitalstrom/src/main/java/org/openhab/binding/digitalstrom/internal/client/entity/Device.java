@@ -27,6 +27,14 @@ public interface Device {
 
     public int getZoneId();
 
+    /**
+     * The dSM (meter) the device is connected to. Sensor readings of
+     * devices on the same meter share its circuit.
+     *
+     * @return dSID of the meter or null, if the dSS didn't tell
+     */
+    public DSID getMeterDSID();
+
     /**
      * This device is available in his zone or not.
      * Every 24h the dSM (meter) checks, if the devices are
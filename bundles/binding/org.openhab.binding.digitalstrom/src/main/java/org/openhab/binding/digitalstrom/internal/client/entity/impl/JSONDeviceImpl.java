@@ -37,6 +37,8 @@ public class JSONDeviceImpl implements Device {
 
     private DSID dsid = null;
 
+    private DSID meterDSID = null;
+
     private String name = null;
 
     private int zoneId = 0;
@@ -90,6 +92,10 @@ public class JSONDeviceImpl implements Device {
             this.dsid = new DSID(object.get(JSONApiResponseKeysEnum.DEVICE_ID_QUERY.getKey()).toString());
         }
 
+        if (object.get(JSONApiResponseKeysEnum.DEVICE_METER_ID.getKey()) != null) {
+            this.meterDSID = new DSID(object.get(JSONApiResponseKeysEnum.DEVICE_METER_ID.getKey()).toString());
+        }
+
         if (object.get(JSONApiResponseKeysEnum.DEVICE_ON.getKey()) != null) {
             this.isOn = object.get(JSONApiResponseKeysEnum.DEVICE_ON.getKey()).toString().equals("true");
         }
@@ -178,6 +184,11 @@ public class JSONDeviceImpl implements Device {
         return dsid;
     }
 
+    @Override
+    public DSID getMeterDSID() {
+        return meterDSID;
+    }
+
     @Override
     public String getName() {
         return name;
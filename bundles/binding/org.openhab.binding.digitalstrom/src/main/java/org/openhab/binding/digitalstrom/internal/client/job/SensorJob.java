@@ -19,6 +19,11 @@ import org.openhab.binding.digitalstrom.internal.client.entity.DSID;
 public interface SensorJob {
     public DSID getDsid();
 
+    /**
+     * @return dSID of the meter whose circuit the job reads from, may be null
+     */
+    public DSID getMeterDSID();
+
     public void execute(DigitalSTROMAPI digitalSTROM, String token);
 
 }
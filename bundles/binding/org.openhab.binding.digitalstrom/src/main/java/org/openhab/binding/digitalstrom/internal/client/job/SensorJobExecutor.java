@@ -0,0 +1,240 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.digitalstrom.internal.client.job;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.digitalstrom.internal.client.DigitalSTROMAPI;
+import org.openhab.binding.digitalstrom.internal.client.entity.DSID;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes the {@link SensorJob}s. The dSS only allows a limited number of
+ * sensor readings on the circuit of a dSM (meter), so there is one queue per
+ * meter: the circuits are read in parallel, but after a job the circuit waits
+ * for the configured interval before the next job on it is started. Within a
+ * circuit high priority jobs are executed first, then medium and low priority
+ * jobs. A job which is already queued with the same priority is not added
+ * twice.
+ *
+ * Jobs of devices without a known meter share one queue.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public abstract class SensorJobExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorJobExecutor.class);
+
+    /** the number of circuits which are read at the same time */
+    private static final int MAX_PARALLEL_CIRCUITS = 4;
+
+    private static final int HIGH_PRIORITY = 0;
+    private static final int MEDIUM_PRIORITY = 1;
+    private static final int LOW_PRIORITY = 2;
+
+    private static final String UNKNOWN_METER = "unknown";
+
+    private final DigitalSTROMAPI digitalSTROM;
+
+    private final long interval;
+
+    // meter dsid-String - queue of the circuit
+    private final Map<String, CircuitQueue> circuits = new HashMap<String, CircuitQueue>();
+
+    private ScheduledExecutorService scheduler = null;
+
+    private boolean shutdown = false;
+
+    /**
+     * @param digitalSTROM the api to execute the jobs with
+     * @param interval milliseconds to wait after a job, before the next job
+     *            on the same circuit is started
+     */
+    public SensorJobExecutor(DigitalSTROMAPI digitalSTROM, long interval) {
+        this.digitalSTROM = digitalSTROM;
+        this.interval = interval;
+    }
+
+    /**
+     * @return the current session token for the jobs
+     */
+    protected abstract String getSessionToken();
+
+    public void addHighPriorityJob(SensorJob job) {
+        addJob(job, HIGH_PRIORITY);
+    }
+
+    public void addMediumPriorityJob(SensorJob job) {
+        addJob(job, MEDIUM_PRIORITY);
+    }
+
+    public void addLowPriorityJob(SensorJob job) {
+        addJob(job, LOW_PRIORITY);
+    }
+
+    /**
+     * Removes all queued jobs of a device.
+     *
+     * @param dsid of the device
+     */
+    public synchronized void removeSensorJobs(DSID dsid) {
+        for (CircuitQueue circuit : circuits.values()) {
+            circuit.remove(dsid);
+        }
+    }
+
+    /**
+     * Stops the execution, queued jobs are dropped.
+     */
+    public synchronized void shutdown() {
+        shutdown = true;
+        circuits.clear();
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private synchronized void addJob(SensorJob job, int priority) {
+        if (shutdown) {
+            return;
+        }
+        DSID meterDSID = job.getMeterDSID();
+        String meter = meterDSID != null ? meterDSID.getValue() : UNKNOWN_METER;
+
+        CircuitQueue circuit = circuits.get(meter);
+        if (circuit == null) {
+            circuit = new CircuitQueue(meter);
+            circuits.put(meter, circuit);
+        }
+        if (circuit.add(job, priority)) {
+            schedule(circuit, 0);
+        }
+    }
+
+    private synchronized void schedule(CircuitQueue circuit, long delay) {
+        if (shutdown) {
+            return;
+        }
+        if (scheduler == null) {
+            scheduler = Executors.newScheduledThreadPool(MAX_PARALLEL_CIRCUITS, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "digitalSTROM sensor job executor");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        scheduler.schedule(circuit, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The jobs of one circuit. It is scheduled whenever it has jobs and no
+     * job of it is running or waiting for the interval.
+     */
+    private class CircuitQueue implements Runnable {
+
+        private final String meter;
+
+        @SuppressWarnings("unchecked")
+        private final Set<SensorJob>[] jobs = new Set[] { new LinkedHashSet<SensorJob>(),
+                new LinkedHashSet<SensorJob>(), new LinkedHashSet<SensorJob>() };
+
+        private boolean scheduled = false;
+
+        private long nextStart = 0;
+
+        CircuitQueue(String meter) {
+            this.meter = meter;
+        }
+
+        /**
+         * @return true, if the circuit has to be scheduled
+         */
+        synchronized boolean add(SensorJob job, int priority) {
+            jobs[priority].add(job);
+            if (scheduled) {
+                return false;
+            }
+            scheduled = true;
+            return true;
+        }
+
+        synchronized void remove(DSID dsid) {
+            for (Set<SensorJob> set : jobs) {
+                for (Iterator<SensorJob> iter = set.iterator(); iter.hasNext();) {
+                    if (iter.next().getDsid().equals(dsid)) {
+                        iter.remove();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            long wait = waitTime();
+            if (wait > 0) {
+                // a job was added while the circuit was idle, but within the interval
+                schedule(this, wait);
+                return;
+            }
+
+            SensorJob job = poll();
+            if (job != null) {
+                try {
+                    job.execute(digitalSTROM, getSessionToken());
+                } catch (RuntimeException e) {
+                    logger.error("sensor job for dsid " + job.getDsid() + " on meter " + meter + " failed", e);
+                }
+            }
+
+            if (reschedule()) {
+                schedule(this, interval);
+            }
+        }
+
+        private synchronized long waitTime() {
+            return nextStart - System.currentTimeMillis();
+        }
+
+        private synchronized SensorJob poll() {
+            for (Set<SensorJob> set : jobs) {
+                Iterator<SensorJob> iter = set.iterator();
+                if (iter.hasNext()) {
+                    SensorJob job = iter.next();
+                    iter.remove();
+                    return job;
+                }
+            }
+            return null;
+        }
+
+        private synchronized boolean reschedule() {
+            nextStart = System.currentTimeMillis() + interval;
+            for (Set<SensorJob> set : jobs) {
+                if (!set.isEmpty()) {
+                    return true;
+                }
+            }
+            scheduled = false;
+            return false;
+        }
+    }
+}
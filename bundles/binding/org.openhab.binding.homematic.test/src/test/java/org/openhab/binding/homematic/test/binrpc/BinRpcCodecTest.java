@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.test.binrpc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+
+import junit.framework.Assert;
+
+/**
+ * Testcases for encoding and decoding BIN-RPC messages.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcCodecTest {
+
+    @Test
+    public void testEncodeEmptyString() throws Exception {
+        BinRpcRequest request = new BinRpcRequest(null);
+        request.addArg("");
+
+        byte[] expected = { 'B', 'i', 'n', 0, 0, 0, 0, 8, 0, 0, 0, 3, 0, 0, 0, 0 };
+        Assert.assertTrue(Arrays.equals(expected, request.createMessage()));
+    }
+
+    @Test
+    public void testEncodeNegativeInteger() throws Exception {
+        BinRpcRequest request = new BinRpcRequest(null);
+        request.addArg(Integer.valueOf(-2));
+
+        byte[] expected = { 'B', 'i', 'n', 0, 0, 0, 0, 8, 0, 0, 0, 1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF,
+                (byte) 0xFE };
+        Assert.assertTrue(Arrays.equals(expected, request.createMessage()));
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        Map<String, Object> struct = new TreeMap<String, Object>();
+        struct.put("LEVEL", Double.valueOf(0.5));
+        struct.put("STATE", Boolean.TRUE);
+
+        BinRpcRequest request = new BinRpcRequest("setValue");
+        request.addArg("KEQ0123456:1");
+        request.addArg(Integer.valueOf(-123456));
+        request.addArg(Arrays.asList("a", "b"));
+        request.addArg(struct);
+
+        BinRpcResponse response = new BinRpcResponse(new ByteArrayInputStream(request.createMessage()), true);
+
+        Assert.assertEquals("setValue", response.getMethodName());
+        Object[] data = response.getResponseData();
+        Assert.assertEquals(4, data.length);
+        Assert.assertEquals("KEQ0123456:1", data[0]);
+        Assert.assertEquals(Integer.valueOf(-123456), data[1]);
+        Assert.assertTrue(Arrays.equals(new Object[] { "a", "b" }, (Object[]) data[2]));
+        Assert.assertEquals(struct, data[3]);
+    }
+
+    @Test
+    public void testBuffersAreReused() throws Exception {
+        ByteBuffer requestBuffer = ByteBuffer.allocate(16);
+        ByteBuffer responseBuffer = ByteBuffer.allocate(1024);
+
+        BinRpcRequest request = new BinRpcRequest("getDeviceDescription");
+        request.addArg("BidCoS-RF");
+
+        // the request buffer is too small and grows once
+        requestBuffer = request.encode(requestBuffer);
+        byte[] message = request.createMessage();
+        Assert.assertEquals(message.length, requestBuffer.remaining());
+        ByteBuffer grownBuffer = requestBuffer;
+        Assert.assertSame(grownBuffer, request.encode(requestBuffer));
+
+        ByteBuffer read = BinRpcResponse.readMessage(new ByteArrayInputStream(message), responseBuffer);
+        Assert.assertSame(responseBuffer, read);
+        Assert.assertEquals(message.length - 8, read.remaining());
+
+        BinRpcResponse response = new BinRpcResponse(read, true);
+        Assert.assertEquals("getDeviceDescription", response.getMethodName());
+        Assert.assertEquals("BidCoS-RF", response.getResponseData()[0]);
+    }
+}
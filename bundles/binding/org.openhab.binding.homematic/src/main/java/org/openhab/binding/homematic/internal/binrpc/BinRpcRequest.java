@@ -8,8 +8,9 @@
  */
 package org.openhab.binding.homematic.internal.binrpc;
 
-import java.io.UnsupportedEncodingException;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,8 +27,10 @@ import org.apache.commons.lang.builder.ToStringStyle;
  * @since 1.5.0
  */
 public class BinRpcRequest {
-    private byte data[];
-    private int dataoffset;
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final int HEADER_LENGTH = 8;
+
+    private ByteBuffer data;
     private String methodName;
     private Collection<Object> args = new ArrayList<Object>();
 
@@ -53,7 +56,22 @@ public class BinRpcRequest {
      * Generates the binrpc data.
      */
     public byte[] createMessage() {
-        data = new byte[256];
+        ByteBuffer message = encode(ByteBuffer.allocate(256));
+        byte fullreq[] = new byte[message.remaining()];
+        message.get(fullreq);
+        return fullreq;
+    }
+
+    /**
+     * Generates the binrpc data into the given buffer. If the buffer is too small, a larger one is allocated, so the
+     * returned buffer should be passed to the next call to reuse it.
+     *
+     * @return the buffer containing the message, ready to be read or written to a channel
+     */
+    public ByteBuffer encode(ByteBuffer buffer) {
+        data = buffer;
+        data.clear();
+        data.position(HEADER_LENGTH);
         if (methodName != null) {
             addInt(methodName.length());
             addString(methodName);
@@ -62,33 +80,34 @@ public class BinRpcRequest {
 
         addList(args);
 
-        byte fullreq[] = new byte[dataoffset + 8];
-        System.arraycopy(data, 0, fullreq, 8, dataoffset);
-        fullreq[0] = 'B';
-        fullreq[1] = 'i';
-        fullreq[2] = 'n';
-        addInt(dataoffset);
-        System.arraycopy(data, dataoffset - 4, fullreq, 4, 4);
-        return fullreq;
+        ByteBuffer message = data;
+        data = null;
+        message.put(0, (byte) 'B');
+        message.put(1, (byte) 'i');
+        message.put(2, (byte) 'n');
+        message.put(3, (byte) 0);
+        message.putInt(4, message.position() - HEADER_LENGTH);
+        message.flip();
+        return message;
     }
 
-    private void addByte(byte b) {
-        if (dataoffset == data.length) {
-            byte newdata[] = new byte[data.length * 2];
-            System.arraycopy(data, 0, newdata, 0, data.length);
+    private void ensureCapacity(int length) {
+        if (data.remaining() < length) {
+            ByteBuffer newdata = ByteBuffer.allocate(Math.max(data.capacity() * 2, data.position() + length));
+            data.flip();
+            newdata.put(data);
             data = newdata;
         }
-        data[dataoffset++] = b;
+    }
+
+    private void addByte(byte b) {
+        ensureCapacity(1);
+        data.put(b);
     }
 
     private void addInt(int n) {
-        byte d[] = BigInteger.valueOf(n).toByteArray();
-        for (int c = 0; c < 4 - d.length; c++) {
-            addByte(n < 0 ? (byte) 0xFF : (byte) 0);
-        }
-        for (byte s : d) {
-            addByte(s);
-        }
+        ensureCapacity(4);
+        data.putInt(n);
     }
 
     private void addDouble(double v) {
@@ -114,16 +133,9 @@ public class BinRpcRequest {
     }
 
     private void addString(String s) {
-        byte sd[];
-        try {
-            sd = s.getBytes("ISO-8859-1");
-        } catch (UnsupportedEncodingException use) {
-            // Really shouldn't happen, fall back silently to platform encoding
-            sd = s.getBytes();
-        }
-        for (byte ch : sd) {
-            addByte(ch);
-        }
+        byte sd[] = s.getBytes(ISO_8859_1);
+        ensureCapacity(sd.length);
+        data.put(sd);
     }
 
     private void addList(Collection<?> args) {
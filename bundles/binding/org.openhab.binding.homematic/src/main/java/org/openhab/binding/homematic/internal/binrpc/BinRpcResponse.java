@@ -13,8 +13,9 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
-import java.math.BigInteger;
 import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -35,8 +36,10 @@ import org.slf4j.LoggerFactory;
 public class BinRpcResponse {
     private final static Logger logger = LoggerFactory.getLogger(BinRpcResponse.class);
 
-    private byte data[];
-    private int dataoffset = 0;
+    private static final Charset ISO_8859_1 = Charset.forName("ISO-8859-1");
+    private static final int HEADER_LENGTH = 8;
+
+    private ByteBuffer data;
     private String methodName;
     private Object[] responseData;
 
@@ -44,44 +47,79 @@ public class BinRpcResponse {
      * Decodes a BIN-RPC message from the given InputStream.
      */
     public BinRpcResponse(InputStream is, boolean methodHeader) throws IOException, ParseException {
-        byte sig[] = new byte[4];
-        int l = is.read(sig);
-        if (l != sig.length) {
+        this(readMessage(is, null), methodHeader);
+    }
+
+    /**
+     * Decodes a BIN-RPC message from the given buffer, which contains the data of the message without the header as
+     * returned by {@link #readMessage(InputStream, ByteBuffer)}.
+     */
+    public BinRpcResponse(ByteBuffer message, boolean methodHeader) throws IOException, ParseException {
+        data = message;
+        try {
+            if (methodHeader) {
+                methodName = readString();
+                readInt();
+            }
+
+            List<Object> values = new ArrayList<Object>();
+            while (data.hasRemaining()) {
+                values.add(readRpcValue());
+            }
+            responseData = values.toArray();
+        } catch (RuntimeException e) {
+            // a truncated or corrupt message makes the buffer throw an unchecked exception
+            throw new ParseException("Invalid BIN-RPC message: " + e, data.position());
+        } finally {
+            data = null;
+        }
+    }
+
+    /**
+     * Reads a BIN-RPC message from the given InputStream into the given buffer. If the buffer is <code>null</code> or
+     * too small, a new one is allocated, so the returned buffer should be passed to the next call to reuse it.
+     *
+     * @return the buffer containing the data of the message without the header, ready to be decoded
+     */
+    public static ByteBuffer readMessage(InputStream is, ByteBuffer buffer) throws IOException {
+        byte header[] = new byte[HEADER_LENGTH];
+        int l = readFully(is, header, 0, 4);
+        if (l != 4) {
             throw new EOFException("Only " + l + " bytes received reading signature");
         }
-        if (sig[0] != 'B' || sig[1] != 'i' || sig[2] != 'n') {
+        if (header[0] != 'B' || header[1] != 'i' || header[2] != 'n') {
             throw new UnsupportedEncodingException("No BinX signature");
         }
-        l = is.read(sig);
-        if (l != sig.length) {
+        l = readFully(is, header, 4, 4);
+        if (l != 4) {
             throw new EOFException("Only " + l + " bytes received reading length");
         }
-        int datasize = (new BigInteger(sig)).intValue();
-        data = new byte[datasize];
-        int offset = 0;
-        while (datasize > 0) {
-            int r = is.read(data, offset, datasize);
-            if (r < 1) {
-                throw new EOFException("EOF while reading data");
-            }
-            datasize -= r;
-            offset += r;
+        int datasize = ByteBuffer.wrap(header, 4, 4).getInt();
+        if (datasize < 0) {
+            throw new UnsupportedEncodingException("Invalid message length " + datasize);
         }
 
-        if (methodHeader) {
-            int slen = readInt();
-            methodName = new String(data, dataoffset, slen, "ISO-8859-1");
-            dataoffset += slen;
-            readInt();
+        if (buffer == null || buffer.capacity() < datasize || !buffer.hasArray()) {
+            buffer = ByteBuffer.allocate(datasize);
+        }
+        buffer.clear();
+        if (readFully(is, buffer.array(), buffer.arrayOffset(), datasize) != datasize) {
+            throw new EOFException("EOF while reading data");
         }
+        buffer.limit(datasize);
+        return buffer;
+    }
 
-        List<Object> values = new ArrayList<Object>();
-        while (dataoffset < data.length) {
-            values.add(readRpcValue());
+    private static int readFully(InputStream is, byte[] b, int offset, int length) throws IOException {
+        int count = 0;
+        while (count < length) {
+            int r = is.read(b, offset + count, length - count);
+            if (r < 0) {
+                break;
+            }
+            count += r;
         }
-        responseData = values.toArray();
-        values.clear();
-        data = null;
+        return count;
     }
 
     /**
@@ -99,10 +137,21 @@ public class BinRpcResponse {
     }
 
     private int readInt() {
-        byte bi[] = new byte[4];
-        System.arraycopy(data, dataoffset, bi, 0, 4);
-        dataoffset += 4;
-        return (new BigInteger(bi)).intValue();
+        return data.getInt();
+    }
+
+    private String readString() {
+        int len = readInt();
+        String value;
+        if (data.hasArray()) {
+            value = new String(data.array(), data.arrayOffset() + data.position(), len, ISO_8859_1);
+            data.position(data.position() + len);
+        } else {
+            byte bytes[] = new byte[len];
+            data.get(bytes);
+            value = new String(bytes, ISO_8859_1);
+        }
+        return value;
     }
 
     private Object readRpcValue() throws UnsupportedEncodingException, ParseException {
@@ -111,11 +160,9 @@ public class BinRpcResponse {
             case 1:
                 return new Integer(readInt());
             case 2:
-                return data[dataoffset++] != 0 ? Boolean.TRUE : Boolean.FALSE;
+                return data.get() != 0 ? Boolean.TRUE : Boolean.FALSE;
             case 3:
-                int len = readInt();
-                dataoffset += len;
-                return new String(data, dataoffset - len, len, "ISO-8859-1");
+                return readString();
             case 4:
                 int mantissa = readInt();
                 int exponent = readInt();
@@ -136,16 +183,14 @@ public class BinRpcResponse {
                 numElements = readInt();
                 Map<String, Object> struct = new TreeMap<String, Object>();
                 while (numElements-- > 0) {
-                    int slen = readInt();
-                    String name = new String(data, dataoffset, slen, "ISO-8859-1");
-                    dataoffset += slen;
+                    String name = readString();
                     struct.put(name, readRpcValue());
                 }
                 return struct;
 
             default:
-                for (int x = 0; x < data.length; x++) {
-                    logger.info(Integer.toHexString(data[x]) + " " + (char) data[x]);
+                for (int x = 0; x < data.limit(); x++) {
+                    logger.info(Integer.toHexString(data.get(x)) + " " + (char) data.get(x));
                 }
                 throw new ParseException("Unknown data type " + type, type);
         }
@@ -190,7 +190,7 @@ public class HomematicBinding extends AbstractActiveBinding<HomematicBindingProv
     }
 
     /**
-     * Restarts the Homematic communicator if no messages arrive within a
+     * Resynchronizes the Homematic communicator if no messages arrive within a
      * configured time or the reconnect interval is reached.
      */
     @Override
@@ -199,15 +199,13 @@ public class HomematicBinding extends AbstractActiveBinding<HomematicBindingProv
             long timeSinceLastEvent = (System.currentTimeMillis() - communicator.getLastEventTime()) / 1000;
             if (timeSinceLastEvent >= context.getConfig().getAliveInterval()) {
                 logger.info("No event since {} seconds, refreshing Homematic server connections", timeSinceLastEvent);
-                communicator.stop();
-                communicator.start();
+                communicator.resync();
             }
         } else {
             long timeSinceLastReconnect = (System.currentTimeMillis() - communicator.getLastReconnectTime()) / 1000;
             if (timeSinceLastReconnect >= context.getConfig().getReconnectInterval()) {
                 logger.info("Reconnect interval reached, refreshing Homematic server connections");
-                communicator.stop();
-                communicator.start();
+                communicator.resync();
             }
         }
     }
@@ -10,9 +10,12 @@ package org.openhab.binding.homematic.internal.communicator;
 
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.TimerTask;
 
+import org.apache.commons.lang.StringUtils;
+import org.openhab.binding.homematic.HomematicBindingProvider;
 import org.openhab.binding.homematic.internal.common.HomematicContext;
 import org.openhab.binding.homematic.internal.communicator.ProviderItemIterator.ProviderItemIteratorCallback;
 import org.openhab.binding.homematic.internal.communicator.client.BinRpcClient;
@@ -122,6 +125,48 @@ public class HomematicCommunicator implements HomematicCallbackReceiver {
         }, 61000); // 61 seconds to prevent reload at a reconnect
     }
 
+    /**
+     * Resynchronizes with the Homematic server after events may have been
+     * missed, e.g. after a connection gap. The callback is registered again
+     * and only the datapoints of the devices bound to items are reloaded. If
+     * this fails, the communicator is restarted.
+     */
+    public void resync() {
+        if (homematicCallbackServer == null) {
+            start();
+            return;
+        }
+        logger.info("Resynchronizing Homematic communicator");
+        try {
+            homematicClient.registerCallback();
+            lastReconnectTime = System.currentTimeMillis();
+            lastEventTime = lastReconnectTime;
+
+            context.getStateHolder().reloadDatapoints(getBoundDeviceAddresses());
+            context.getStateHolder().reloadVariables();
+        } catch (Exception e) {
+            logger.warn("Could not resynchronize Homematic communicator, restarting: {}", e.getMessage());
+            stop();
+            start();
+        }
+    }
+
+    /**
+     * Returns the addresses of all devices with datapoints bound to an item.
+     */
+    private Set<String> getBoundDeviceAddresses() {
+        Set<String> deviceAddresses = new HashSet<String>();
+        for (HomematicBindingProvider provider : context.getProviders()) {
+            for (String itemName : provider.getItemNames()) {
+                HomematicBindingConfig bindingConfig = provider.getBindingFor(itemName);
+                if (bindingConfig instanceof DatapointConfig) {
+                    deviceAddresses.add(((DatapointConfig) bindingConfig).getAddress());
+                }
+            }
+        }
+        return deviceAddresses;
+    }
+
     /**
      * Stops the communicator.
      */
@@ -288,8 +333,12 @@ public class HomematicCommunicator implements HomematicCallbackReceiver {
                     }
                 } catch (Exception ex) {
                     logger.error(ex.getMessage(), ex);
-                    context.getStateHolder().reloadDatapoints();
-                    context.getStateHolder().reloadVariables();
+                    if (event.getBindingConfig() instanceof DatapointConfig) {
+                        String address = ((DatapointConfig) event.getBindingConfig()).getAddress();
+                        context.getStateHolder().reloadDatapoints(Collections.singleton(address));
+                    } else {
+                        context.getStateHolder().reloadVariables();
+                    }
                 }
             }
         }
@@ -369,8 +418,8 @@ public class HomematicCommunicator implements HomematicCallbackReceiver {
     }
 
     /**
-     * Called when the Homematic server detects a new device, datapoints are
-     * refreshed to have the new device in the cache.
+     * Called when the Homematic server detects a new device, the datapoints of
+     * the new devices are loaded into the cache.
      */
     @Override
     public void newDevices(String interfaceId, Object[] deviceDescriptions) {
@@ -380,9 +429,34 @@ public class HomematicCommunicator implements HomematicCallbackReceiver {
 
         // prevent from duplicate loading at startup
         if (newDevicesCounter > 2) {
-            logger.info("New device(s) detected, refreshing datapoints");
-            context.getStateHolder().reloadDatapoints();
+            Set<String> deviceAddresses = getDeviceAddresses(deviceDescriptions);
+            if (deviceAddresses.isEmpty()) {
+                logger.info("New device(s) detected, refreshing datapoints");
+                context.getStateHolder().reloadDatapoints();
+            } else {
+                logger.info("New device(s) {} detected, loading datapoints", deviceAddresses);
+                context.getStateHolder().reloadDatapoints(deviceAddresses);
+            }
+        }
+    }
+
+    /**
+     * Extracts the device addresses from the device descriptions sent by the
+     * Homematic server, channel descriptions are mapped to their device.
+     */
+    private Set<String> getDeviceAddresses(Object[] deviceDescriptions) {
+        Set<String> deviceAddresses = new HashSet<String>();
+        if (deviceDescriptions != null) {
+            for (Object deviceDescription : deviceDescriptions) {
+                if (deviceDescription instanceof Map) {
+                    Object address = ((Map<?, ?>) deviceDescription).get("ADDRESS");
+                    if (address != null) {
+                        deviceAddresses.add(StringUtils.substringBefore(address.toString(), ":"));
+                    }
+                }
+            }
         }
+        return deviceAddresses;
     }
 
     /**
@@ -8,10 +8,21 @@
  */
 package org.openhab.binding.homematic.internal.communicator;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.openhab.binding.homematic.internal.common.HomematicContext;
 import org.openhab.binding.homematic.internal.communicator.ProviderItemIterator.ProviderItemIteratorCallback;
@@ -39,12 +50,19 @@ public class StateHolder {
 
     private HomematicContext context;
 
+    /** the number of devices whose RSSI values are published by one task */
+    private static final int RSSI_CHUNK_SIZE = 50;
+
     private ExecutorService reloadExecutorPool;
 
-    private boolean datapointReloadInProgress = false;
-    private Map<HomematicBindingConfig, Object> refreshCache = new HashMap<HomematicBindingConfig, Object>();
-    private Map<HomematicBindingConfig, HmValueItem> datapoints = new HashMap<HomematicBindingConfig, HmValueItem>();
-    private Map<HomematicBindingConfig, HmValueItem> variables = new HashMap<HomematicBindingConfig, HmValueItem>();
+    private AtomicInteger datapointReloadsInProgress = new AtomicInteger();
+    private Map<HomematicBindingConfig, Object> refreshCache = new ConcurrentHashMap<HomematicBindingConfig, Object>();
+    private Map<HomematicBindingConfig, HmValueItem> datapoints = new ConcurrentHashMap<HomematicBindingConfig, HmValueItem>();
+    private Map<HomematicBindingConfig, HmValueItem> variables = new ConcurrentHashMap<HomematicBindingConfig, HmValueItem>();
+
+    private Set<String> pendingDeviceAddresses = Collections
+            .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+    private AtomicBoolean deviceReloadScheduled = new AtomicBoolean();
 
     public StateHolder(HomematicContext context) {
         this.context = context;
@@ -54,7 +72,7 @@ public class StateHolder {
      * If a datapoint reload is currently running, this returns true.
      */
     public boolean isDatapointReloadInProgress() {
-        return datapointReloadInProgress;
+        return datapointReloadsInProgress.get() > 0;
     }
 
     /**
@@ -62,7 +80,9 @@ public class StateHolder {
      * receives from the Homematic server during the reload.
      */
     public void addToRefreshCache(HomematicBindingConfig bindingConfig, Object value) {
-        refreshCache.put(bindingConfig, value);
+        if (value != null) {
+            refreshCache.put(bindingConfig, value);
+        }
     }
 
     /**
@@ -100,46 +120,88 @@ public class StateHolder {
 
             @Override
             public void run() {
+                logger.debug("Reloading Homematic server datapoints");
+                reloadDatapoints(null, "Homematic server datapoints");
+            }
+        });
+    }
 
-                try {
-                    logger.debug("Reloading Homematic server datapoints");
-                    datapointReloadInProgress = true;
-                    context.getHomematicClient().iterateAllDatapoints(new HmValueItemIteratorCallback() {
-                        @Override
-                        public void iterate(HomematicBindingConfig bindingConfig, HmValueItem hmValueItem) {
-                            if (!datapoints.containsKey(bindingConfig)) {
-                                logger.info("Adding new {}", bindingConfig);
-                                datapoints.put(bindingConfig, hmValueItem);
-                            } else {
-                                Object cachedValue = refreshCache.get(bindingConfig);
-                                if (cachedValue != null) {
-                                    logger.debug("Value changed while refreshing from '{}' to '{}' for binding {}",
-                                            hmValueItem.getValue(), cachedValue, bindingConfig);
-                                    hmValueItem.setValue(cachedValue);
-                                }
+    /**
+     * Reloads the datapoints of the devices with the given addresses from the
+     * Homematic server and publishes only changed values to the openHAB bus.
+     * Requests for further devices which arrive before the reload has started
+     * are merged into the same reload.
+     */
+    public void reloadDatapoints(Collection<String> deviceAddresses) {
+        if (deviceAddresses.isEmpty()) {
+            return;
+        }
+        pendingDeviceAddresses.addAll(deviceAddresses);
+        if (deviceReloadScheduled.compareAndSet(false, true)) {
+            reloadExecutorPool.execute(new Runnable() {
 
-                                if (hasChanged(bindingConfig, datapoints.get(bindingConfig), hmValueItem)) {
-                                    datapoints.put(bindingConfig, hmValueItem);
-                                    publish(bindingConfig, hmValueItem);
-                                }
-                            }
-                        }
-                    });
-                    logger.debug("Finished reloading {} Homematic server datapoints", datapoints.size());
-                } catch (HomematicClientException ex) {
-                    logger.error(ex.getMessage(), ex);
-                } finally {
-                    datapointReloadInProgress = false;
-                    refreshCache.clear();
+                @Override
+                public void run() {
+                    deviceReloadScheduled.set(false);
+                    Set<String> addresses = new HashSet<String>();
+                    Iterator<String> it = pendingDeviceAddresses.iterator();
+                    while (it.hasNext()) {
+                        addresses.add(it.next());
+                        it.remove();
+                    }
+                    if (!addresses.isEmpty()) {
+                        logger.debug("Reloading datapoints of Homematic devices {}", addresses);
+                        reloadDatapoints(addresses, "datapoints of " + addresses.size() + " Homematic devices");
+                    }
                 }
+            });
+        }
+    }
 
+    /**
+     * Reloads the datapoints of the given devices, or of all devices if the
+     * addresses are null, and merges them into the cache.
+     */
+    private void reloadDatapoints(Set<String> deviceAddresses, String description) {
+        datapointReloadsInProgress.incrementAndGet();
+        try {
+            final AtomicInteger count = new AtomicInteger();
+            context.getHomematicClient().iterateDatapoints(deviceAddresses, new HmValueItemIteratorCallback() {
+                @Override
+                public void iterate(HomematicBindingConfig bindingConfig, HmValueItem hmValueItem) {
+                    count.incrementAndGet();
+                    if (!datapoints.containsKey(bindingConfig)) {
+                        logger.info("Adding new {}", bindingConfig);
+                        datapoints.put(bindingConfig, hmValueItem);
+                    } else {
+                        Object cachedValue = refreshCache.get(bindingConfig);
+                        if (cachedValue != null) {
+                            logger.debug("Value changed while refreshing from '{}' to '{}' for binding {}",
+                                    hmValueItem.getValue(), cachedValue, bindingConfig);
+                            hmValueItem.setValue(cachedValue);
+                        }
+
+                        if (hasChanged(bindingConfig, datapoints.get(bindingConfig), hmValueItem)) {
+                            datapoints.put(bindingConfig, hmValueItem);
+                            publish(bindingConfig, hmValueItem);
+                        }
+                    }
+                }
+            });
+            logger.debug("Finished reloading {} {}", count.get(), description);
+        } catch (HomematicClientException ex) {
+            logger.error(ex.getMessage(), ex);
+        } finally {
+            if (datapointReloadsInProgress.decrementAndGet() == 0) {
+                refreshCache.clear();
             }
-        });
+        }
     }
 
     /**
      * Reloads all RSSI values from the Homematic server and publishes only
-     * changed values to the openHAB bus.
+     * changed values to the openHAB bus. The values are published in parallel
+     * chunks of devices.
      */
     public void reloadRssi() {
         reloadExecutorPool.execute(new Runnable() {
@@ -149,14 +211,37 @@ public class StateHolder {
                 try {
                     logger.debug("Reloading Homematic server RSSI values");
                     Map<String, HmRssiInfo> rssiList = context.getHomematicClient().getRssiInfo();
-                    for (String address : rssiList.keySet()) {
-                        HmRssiInfo rssiInfo = rssiList.get(address);
-                        updateRssiInfo(new DatapointConfig(address, "0", "RSSI_DEVICE"), rssiInfo.getDevice());
-                        updateRssiInfo(new DatapointConfig(address, "0", "RSSI_PEER"), rssiInfo.getPeer());
+                    List<Map.Entry<String, HmRssiInfo>> entries = new ArrayList<Map.Entry<String, HmRssiInfo>>(
+                            rssiList.entrySet());
+
+                    List<Future<?>> chunks = new ArrayList<Future<?>>();
+                    for (int i = 0; i < entries.size(); i += RSSI_CHUNK_SIZE) {
+                        final List<Map.Entry<String, HmRssiInfo>> chunk = entries.subList(i,
+                                Math.min(i + RSSI_CHUNK_SIZE, entries.size()));
+                        chunks.add(reloadExecutorPool.submit(new Runnable() {
+
+                            @Override
+                            public void run() {
+                                for (Map.Entry<String, HmRssiInfo> entry : chunk) {
+                                    String address = entry.getKey();
+                                    HmRssiInfo rssiInfo = entry.getValue();
+                                    updateRssiInfo(new DatapointConfig(address, "0", "RSSI_DEVICE"),
+                                            rssiInfo.getDevice());
+                                    updateRssiInfo(new DatapointConfig(address, "0", "RSSI_PEER"), rssiInfo.getPeer());
+                                }
+                            }
+                        }));
+                    }
+                    for (Future<?> chunk : chunks) {
+                        chunk.get();
                     }
                     logger.debug("Finished reloading {} Homematic server RSSI values", rssiList.size());
                 } catch (HomematicClientException ex) {
                     logger.error(ex.getMessage(), ex);
+                } catch (ExecutionException ex) {
+                    logger.error(ex.getMessage(), ex.getCause());
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
                 }
             }
         });
@@ -241,7 +326,9 @@ public class StateHolder {
      * Destroys the cache.
      */
     public void destroy() {
-        datapointReloadInProgress = false;
+        datapointReloadsInProgress.set(0);
+        pendingDeviceAddresses.clear();
+        deviceReloadScheduled.set(false);
         if (reloadExecutorPool != null) {
             reloadExecutorPool.shutdownNow();
             reloadExecutorPool = null;
@@ -10,7 +10,8 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.io.IOException;
 import java.net.ConnectException;
-import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.text.ParseException;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,7 +26,8 @@ import org.slf4j.LoggerFactory;
 
 /**
  * Client implementation for sending messages via BIN-RPC to the Homematic
- * server.
+ * server. The connection to each interface is kept open and reused for the
+ * following messages, as long as it is not idle for too long.
  *
  * @author Gerhard Riegler
  * @since 1.5.0
@@ -34,8 +36,14 @@ public class BinRpcClient implements RpcClient {
     private final static Logger logger = LoggerFactory.getLogger(BinRpcClient.class);
     private final static boolean TRACE_ENABLED = logger.isTraceEnabled();
 
+    /** connections which have been idle for longer are closed instead of being reused */
+    private final static long MAX_IDLE_TIME = 30000;
+
     private HomematicContext context = HomematicContext.getInstance();
 
+    /** the open connections by host and interface port */
+    private Map<String, BinRpcConnection> connections = new HashMap<String, BinRpcConnection>();
+
     /**
      * {@inheritDoc}
      */
@@ -48,8 +56,11 @@ public class BinRpcClient implements RpcClient {
      * {@inheritDoc}
      */
     @Override
-    public void shutdown() throws HomematicClientException {
-        // nothing todo
+    public synchronized void shutdown() throws HomematicClientException {
+        for (BinRpcConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
     }
 
     /**
@@ -187,15 +198,11 @@ public class BinRpcClient implements RpcClient {
      */
     private synchronized Object[] sendMessage(HmInterface hmInterface, BinRpcRequest request)
             throws HomematicClientException {
-        Socket socket = null;
         try {
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcRequest {}", request);
             }
-            socket = new Socket(context.getConfig().getHost(), hmInterface.getPort());
-            socket.setSoTimeout(context.getConfig().getTimeout() * 1000);
-            socket.getOutputStream().write(request.createMessage());
-            BinRpcResponse resp = new BinRpcResponse(socket.getInputStream(), false);
+            BinRpcResponse resp = execute(hmInterface, request);
 
             if (TRACE_ENABLED) {
                 logger.trace("Client BinRpcResponse: {}", resp.toString());
@@ -224,13 +231,54 @@ public class BinRpcClient implements RpcClient {
                     cex);
         } catch (Exception ex) {
             throw new HomematicClientException(ex.getMessage() + " (sending " + request + ")", ex);
-        } finally {
+        }
+    }
+
+    /**
+     * Sends the request over the open connection to the interface, or a new one
+     * if there is none. If a reused connection fails, it may have been closed
+     * by the server in the meantime, so the request is sent once more over a
+     * new connection.
+     */
+    private BinRpcResponse execute(HmInterface hmInterface, BinRpcRequest request) throws Exception {
+        String host = context.getConfig().getHost();
+        int port = hmInterface.getPort();
+        String key = host + ":" + port;
+        BinRpcConnection connection = connections.remove(key);
+        if (connection != null && (connection.isIdle(MAX_IDLE_TIME) || !connection.isOpen())) {
+            connection.close();
+            connection = null;
+        }
+
+        if (connection != null) {
             try {
-                if (socket != null) {
-                    socket.close();
-                }
+                BinRpcResponse response = connection.execute(request);
+                connections.put(key, connection);
+                return response;
+            } catch (SocketTimeoutException ex) {
+                // the server may still process the request, so it must not be sent again
+                connection.close();
+                throw ex;
             } catch (IOException ex) {
-                // ignore
+                logger.debug("Reused connection to {} failed ({}), reconnecting", connection, ex.getMessage());
+                connection.close();
+            } catch (ParseException ex) {
+                connection.close();
+                throw ex;
+            }
+        }
+
+        connection = new BinRpcConnection(host, port, context.getConfig().getTimeout() * 1000);
+        boolean success = false;
+        try {
+            BinRpcResponse response = connection.execute(request);
+            success = true;
+            return response;
+        } finally {
+            if (success) {
+                connections.put(key, connection);
+            } else {
+                connection.close();
             }
         }
     }
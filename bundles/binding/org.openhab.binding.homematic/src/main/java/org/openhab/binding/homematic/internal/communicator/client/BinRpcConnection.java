@@ -0,0 +1,106 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.homematic.internal.communicator.client;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.text.ParseException;
+
+import org.openhab.binding.homematic.internal.binrpc.BinRpcRequest;
+import org.openhab.binding.homematic.internal.binrpc.BinRpcResponse;
+
+/**
+ * A BIN-RPC connection to an interface of the Homematic server which is kept open for further requests. The buffers
+ * for encoding the requests and reading the responses are reused for all messages of the connection.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class BinRpcConnection {
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final String host;
+    private final int port;
+    private final Socket socket;
+    private final InputStream in;
+    private final OutputStream out;
+
+    private ByteBuffer requestBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private ByteBuffer responseBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+    private long lastUsed;
+
+    /**
+     * Opens a connection to the given host and port.
+     *
+     * @param timeout the connect and read timeout in milliseconds
+     */
+    public BinRpcConnection(String host, int port, int timeout) throws IOException {
+        this.host = host;
+        this.port = port;
+        socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setKeepAlive(true);
+            socket.setSoTimeout(timeout);
+            socket.connect(new InetSocketAddress(host, port), timeout);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = socket.getOutputStream();
+        } catch (IOException ex) {
+            close();
+            throw ex;
+        }
+        lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Sends the request and reads the response.
+     */
+    public BinRpcResponse execute(BinRpcRequest request) throws IOException, ParseException {
+        requestBuffer = request.encode(requestBuffer);
+        out.write(requestBuffer.array(), requestBuffer.arrayOffset(), requestBuffer.remaining());
+        out.flush();
+
+        responseBuffer = BinRpcResponse.readMessage(in, responseBuffer);
+        BinRpcResponse response = new BinRpcResponse(responseBuffer, false);
+        lastUsed = System.currentTimeMillis();
+        return response;
+    }
+
+    /**
+     * Returns true, if the connection has been idle for longer than the given time.
+     */
+    public boolean isIdle(long maxIdleTime) {
+        return System.currentTimeMillis() - lastUsed > maxIdleTime;
+    }
+
+    public boolean isOpen() {
+        return !socket.isClosed() && socket.isConnected();
+    }
+
+    /**
+     * Closes the connection.
+     */
+    public void close() {
+        try {
+            socket.close();
+        } catch (IOException ex) {
+            // ignore
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+}
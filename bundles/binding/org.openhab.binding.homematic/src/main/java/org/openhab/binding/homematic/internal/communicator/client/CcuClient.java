@@ -13,13 +13,15 @@ import java.io.StringReader;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import javax.xml.bind.JAXBContext;
 import javax.xml.bind.JAXBException;
 import javax.xml.bind.Unmarshaller;
 
 import org.apache.commons.httpclient.HttpClient;
-import org.apache.commons.httpclient.SimpleHttpConnectionManager;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.methods.ByteArrayRequestEntity;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.RequestEntity;
@@ -55,8 +57,15 @@ public class CcuClient extends BaseHomematicClient {
     private static final Logger logger = LoggerFactory.getLogger(CcuClient.class);
     private static final boolean TRACE_ENABLED = logger.isTraceEnabled();
 
+    /** the number of scripts which may run on the CCU at the same time */
+    private static final int MAX_CONCURRENT_SCRIPTS = 4;
+
     private Map<String, String> tclregaScripts;
     private HttpClient httpClient;
+    private MultiThreadedHttpConnectionManager connectionManager;
+
+    /** creating a JAXBContext is expensive, so they are created once per result class */
+    private Map<Class<?>, JAXBContext> jaxbContexts = new ConcurrentHashMap<Class<?>, JAXBContext>();
 
     public CcuClient(RpcClient rpcClient) {
         super(rpcClient);
@@ -80,7 +89,10 @@ public class CcuClient extends BaseHomematicClient {
 
         tclregaScripts = loadTclRegaScripts();
 
-        httpClient = new HttpClient(new SimpleHttpConnectionManager(true));
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        connectionManager.getParams().setDefaultMaxConnectionsPerHost(MAX_CONCURRENT_SCRIPTS);
+        connectionManager.getParams().setMaxTotalConnections(MAX_CONCURRENT_SCRIPTS);
+        httpClient = new HttpClient(connectionManager);
         HttpClientParams params = httpClient.getParams();
         Long timeout = context.getConfig().getTimeout() * 1000L;
         params.setConnectionManagerTimeout(timeout);
@@ -96,6 +108,10 @@ public class CcuClient extends BaseHomematicClient {
         super.shutdown();
         tclregaScripts = null;
         httpClient = null;
+        if (connectionManager != null) {
+            connectionManager.shutdown();
+            connectionManager = null;
+        }
     }
 
     /**
@@ -123,7 +139,24 @@ public class CcuClient extends BaseHomematicClient {
      */
     @Override
     public void iterateAllDatapoints(HmValueItemIteratorCallback callback) throws HomematicClientException {
-        List<HmDevice> devices = sendScriptByName("getAllDevices", HmDeviceList.class).getDevices();
+        iterateDatapoints(null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void iterateDatapoints(Set<String> deviceAddresses, HmValueItemIteratorCallback callback)
+            throws HomematicClientException {
+        String deviceFilter = "";
+        if (deviceAddresses != null) {
+            if (deviceAddresses.isEmpty()) {
+                return;
+            }
+            deviceFilter = "\\t" + StringUtils.join(deviceAddresses, "\\t") + "\\t";
+        }
+        List<HmDevice> devices = sendScriptByName("getAllDevices", HmDeviceList.class,
+                new String[] { "device_addresses" }, new String[] { deviceFilter }).getDevices();
         Map<String, HmRssiInfo> rssiList = rpcClient.getRssiInfo(HmInterface.RF);
         for (HmDevice device : devices) {
             addBatteryInfo(device);
@@ -292,9 +325,12 @@ public class CcuClient extends BaseHomematicClient {
 
     /**
      * Main method for sending a TclRega script and parsing the XML result.
+     * Scripts may be sent concurrently, so a long running script like a
+     * datapoint reload doesn't block setting a variable.
      */
     @SuppressWarnings("unchecked")
-    private synchronized <T> T sendScript(String script, Class<T> clazz) throws HomematicClientException {
+    private <T> T sendScript(String script, Class<T> clazz) throws HomematicClientException {
+        HttpClient httpClient = this.httpClient;
         PostMethod post = null;
         try {
             script = StringUtils.trim(script);
@@ -316,7 +352,7 @@ public class CcuClient extends BaseHomematicClient {
                 logger.trace("Result TclRegaScript: {}", result);
             }
 
-            Unmarshaller um = JAXBContext.newInstance(clazz).createUnmarshaller();
+            Unmarshaller um = getJaxbContext(clazz).createUnmarshaller();
             um.setListener(new CommonUnmarshallerListener());
             return (T) um.unmarshal(new StringReader(result));
         } catch (Exception ex) {
@@ -328,6 +364,15 @@ public class CcuClient extends BaseHomematicClient {
         }
     }
 
+    private JAXBContext getJaxbContext(Class<?> clazz) throws JAXBException {
+        JAXBContext jaxbContext = jaxbContexts.get(clazz);
+        if (jaxbContext == null) {
+            jaxbContext = JAXBContext.newInstance(clazz);
+            jaxbContexts.put(clazz, jaxbContext);
+        }
+        return jaxbContext;
+    }
+
     /**
      * Load predefined scripts from an XML file.
      */
@@ -10,6 +10,7 @@ package org.openhab.binding.homematic.internal.communicator.client;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
@@ -91,6 +92,21 @@ public class HomegearClient extends BaseHomematicClient {
      */
     @Override
     public void iterateAllDatapoints(HmValueItemIteratorCallback callback) throws HomematicClientException {
+        iterateDatapoints(null, callback);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * Homegear has no method to fetch the values of single devices, so all
+     * values are fetched and filtered.
+     */
+    @Override
+    public void iterateDatapoints(Set<String> deviceAddresses, HmValueItemIteratorCallback callback)
+            throws HomematicClientException {
+        if (deviceAddresses != null && deviceAddresses.isEmpty()) {
+            return;
+        }
         Object[] result = rpcClient.getAllValues(getDefaultInterface());
 
         try {
@@ -98,6 +114,9 @@ public class HomegearClient extends BaseHomematicClient {
                 @SuppressWarnings("unchecked")
                 Map<String, ?> entryMap = (Map<String, ?>) result[i];
                 HmDevice device = parseDevice(entryMap);
+                if (deviceAddresses != null && !deviceAddresses.contains(device.getAddress())) {
+                    continue;
+                }
                 addBatteryInfo(device);
                 logger.trace("{}", device);
 
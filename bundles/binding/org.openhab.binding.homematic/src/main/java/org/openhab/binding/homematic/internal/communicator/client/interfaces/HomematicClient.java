@@ -9,6 +9,7 @@
 package org.openhab.binding.homematic.internal.communicator.client.interfaces;
 
 import java.util.Map;
+import java.util.Set;
 
 import org.openhab.binding.homematic.internal.communicator.client.BaseHomematicClient.HmValueItemIteratorCallback;
 import org.openhab.binding.homematic.internal.communicator.client.HomematicClientException;
@@ -65,6 +66,13 @@ public interface HomematicClient {
      */
     public void iterateAllDatapoints(HmValueItemIteratorCallback callback) throws HomematicClientException;
 
+    /**
+     * Retrieves the datapoints of the devices with the given addresses from
+     * the Homematic server.
+     */
+    public void iterateDatapoints(Set<String> deviceAddresses, HmValueItemIteratorCallback callback)
+            throws HomematicClientException;
+
     /**
      * Execute a program/script on the Homematic server.
      */
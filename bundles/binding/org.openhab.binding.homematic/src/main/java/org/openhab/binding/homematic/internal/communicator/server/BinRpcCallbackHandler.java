@@ -82,7 +82,10 @@ public class BinRpcCallbackHandler implements Runnable {
                 || "updateDevice".equals(methodName)) {
             return BIN_EMPTY_ARRAY;
         } else if ("newDevices".equals(methodName)) {
-            callbackReceiver.newDevices(null, null);
+            String interfaceId = responseData.length > 0 ? String.valueOf(responseData[0]) : null;
+            Object[] deviceDescriptions = responseData.length > 1 && responseData[1] instanceof Object[]
+                    ? (Object[]) responseData[1] : null;
+            callbackReceiver.newDevices(interfaceId, deviceDescriptions);
             return BIN_EMPTY_ARRAY;
         } else if ("system.listMethods".equals(methodName)) {
             return BIN_LIST_METHODS_RESPONSE;
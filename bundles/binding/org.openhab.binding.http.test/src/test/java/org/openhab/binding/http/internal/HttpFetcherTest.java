@@ -0,0 +1,279 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.binding.http.internal.HttpFetcher.Document;
+
+import junit.framework.Assert;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpFetcherTest {
+
+    private TestServer server;
+    private HttpFetcher fetcher;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new TestServer();
+        fetcher = new HttpFetcher(5000, 2, 2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        fetcher.shutdown();
+        server.close();
+    }
+
+    @Test
+    public void testRequestKey() {
+        String url = "http://www.domain.org/status";
+        Assert.assertEquals(url, HttpFetcher.getRequestKey(url, null));
+        Assert.assertEquals(url, HttpFetcher.getRequestKey(url, new Properties()));
+
+        Properties headers1 = new Properties();
+        headers1.setProperty("Accept", "text/xml");
+        headers1.setProperty("Authorization", "Basic abc");
+        Properties headers2 = new Properties();
+        headers2.setProperty("Authorization", "Basic abc");
+        headers2.setProperty("Accept", "text/xml");
+        Properties headers3 = new Properties();
+        headers3.setProperty("Accept", "application/json");
+
+        Assert.assertEquals(HttpFetcher.getRequestKey(url, headers1), HttpFetcher.getRequestKey(url, headers2));
+        Assert.assertFalse(HttpFetcher.getRequestKey(url, headers1).equals(HttpFetcher.getRequestKey(url, headers3)));
+        Assert.assertFalse(url.equals(HttpFetcher.getRequestKey(url, headers1)));
+    }
+
+    @Test
+    public void testFetchAfterShutdownFails() {
+        fetcher.shutdown();
+
+        final boolean[] failed = new boolean[1];
+        fetcher.fetch("http://www.domain.org/status", null, new HttpFetcher.Callback() {
+            @Override
+            public void completed(Document document) {
+                Assert.fail("no document expected");
+            }
+
+            @Override
+            public void failed() {
+                failed[0] = true;
+            }
+        });
+
+        Assert.assertTrue(failed[0]);
+        Assert.assertEquals(0, fetcher.getInFlightCount());
+    }
+
+    @Test
+    public void testRequestInFlightIsNotSentAgain() throws Exception {
+        server.body = "{\"temperature\":21}";
+        server.block = new CountDownLatch(1);
+
+        DocumentCallback callback1 = new DocumentCallback();
+        DocumentCallback callback2 = new DocumentCallback();
+        fetcher.fetch(server.url, null, callback1);
+        Assert.assertTrue(server.received.await(5, TimeUnit.SECONDS));
+        fetcher.fetch(server.url, null, callback2);
+        Assert.assertEquals(1, fetcher.getInFlightCount());
+
+        server.block.countDown();
+        Document document1 = callback1.await();
+        Document document2 = callback2.await();
+
+        Assert.assertEquals(1, server.requestCount());
+        Assert.assertEquals("{\"temperature\":21}", document1.getBody());
+        Assert.assertSame(document1, document2);
+        Assert.assertEquals(0, fetcher.getInFlightCount());
+    }
+
+    @Test
+    public void testNotModifiedReturnsLastDocument() throws Exception {
+        server.body = "ON";
+        server.etag = "\"1\"";
+
+        Document first = fetch();
+        Assert.assertEquals("ON", first.getBody());
+        Assert.assertNull(server.lastIfNoneMatch);
+
+        Document notModified = fetch();
+        Assert.assertEquals("\"1\"", server.lastIfNoneMatch);
+        Assert.assertEquals(304, server.lastStatus);
+        Assert.assertEquals("ON", notModified.getBody());
+        Assert.assertEquals(first.getVersion(), notModified.getVersion());
+
+        server.body = "OFF";
+        server.etag = "\"2\"";
+        Document changed = fetch();
+        Assert.assertEquals("OFF", changed.getBody());
+        Assert.assertFalse(first.getVersion() == changed.getVersion());
+    }
+
+    @Test
+    public void testUnchangedBodyKeepsVersion() throws Exception {
+        server.body = "42";
+
+        Document first = fetch();
+        Document second = fetch();
+
+        Assert.assertEquals(2, server.requestCount());
+        Assert.assertEquals(200, server.lastStatus);
+        Assert.assertEquals(first.getVersion(), second.getVersion());
+    }
+
+    private Document fetch() throws InterruptedException {
+        DocumentCallback callback = new DocumentCallback();
+        fetcher.fetch(server.url, null, callback);
+        return callback.await();
+    }
+
+    private static class DocumentCallback implements HttpFetcher.Callback {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Document document;
+
+        @Override
+        public void completed(Document document) {
+            this.document = document;
+            done.countDown();
+        }
+
+        @Override
+        public void failed() {
+            done.countDown();
+        }
+
+        Document await() throws InterruptedException {
+            Assert.assertTrue(done.await(5, TimeUnit.SECONDS));
+            Assert.assertNotNull("fetch failed", document);
+            return document;
+        }
+    }
+
+    /**
+     * A minimal HTTP server which answers every request with the current body, or with <code>304 Not
+     * Modified</code> if the request carries the current ETag.
+     */
+    private static class TestServer implements Runnable {
+
+        final ServerSocket serverSocket;
+        final String url;
+        final CountDownLatch received = new CountDownLatch(1);
+        final List<String> requests = new ArrayList<String>();
+
+        volatile String body = "";
+        volatile String etag;
+        volatile CountDownLatch block;
+        volatile String lastIfNoneMatch;
+        volatile int lastStatus;
+
+        TestServer() throws IOException {
+            serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+            url = "http://127.0.0.1:" + serverSocket.getLocalPort() + "/status";
+            Thread thread = new Thread(this, "HTTP Fetcher test server");
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        int requestCount() {
+            synchronized (requests) {
+                return requests.size();
+            }
+        }
+
+        @Override
+        public void run() {
+            while (!serverSocket.isClosed()) {
+                try {
+                    Socket socket = serverSocket.accept();
+                    try {
+                        handle(socket);
+                    } finally {
+                        socket.close();
+                    }
+                } catch (IOException e) {
+                    // closed
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        private void handle(Socket socket) throws IOException, InterruptedException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "ISO-8859-1"));
+            String requestLine = reader.readLine();
+            String ifNoneMatch = null;
+            String line;
+            while ((line = reader.readLine()) != null && !line.isEmpty()) {
+                if (line.toLowerCase().startsWith("if-none-match:")) {
+                    ifNoneMatch = line.substring("if-none-match:".length()).trim();
+                }
+            }
+            synchronized (requests) {
+                requests.add(requestLine);
+            }
+            lastIfNoneMatch = ifNoneMatch;
+            received.countDown();
+
+            CountDownLatch latch = block;
+            if (latch != null) {
+                latch.await(5, TimeUnit.SECONDS);
+            }
+
+            String currentEtag = etag;
+            StringBuilder response = new StringBuilder();
+            if (currentEtag != null && currentEtag.equals(ifNoneMatch)) {
+                lastStatus = 304;
+                response.append("HTTP/1.1 304 Not Modified\r\n");
+                response.append("ETag: ").append(currentEtag).append("\r\n");
+                response.append("Connection: close\r\n\r\n");
+            } else {
+                lastStatus = 200;
+                byte[] content = body.getBytes("UTF-8");
+                response.append("HTTP/1.1 200 OK\r\n");
+                response.append("Content-Type: text/plain; charset=UTF-8\r\n");
+                response.append("Content-Length: ").append(content.length).append("\r\n");
+                if (currentEtag != null) {
+                    response.append("ETag: ").append(currentEtag).append("\r\n");
+                }
+                response.append("Connection: close\r\n\r\n").append(body);
+            }
+            OutputStream out = socket.getOutputStream();
+            out.write(response.toString().getBytes("UTF-8"));
+            out.flush();
+        }
+
+        void close() throws IOException {
+            CountDownLatch latch = block;
+            if (latch != null) {
+                latch.countDown();
+            }
+            serverSocket.close();
+        }
+    }
+}
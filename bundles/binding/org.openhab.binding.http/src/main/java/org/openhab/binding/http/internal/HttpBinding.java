@@ -12,17 +12,22 @@ import static org.apache.commons.lang.StringUtils.isNotBlank;
 import static org.openhab.binding.http.internal.HttpGenericBindingProvider.CHANGED_COMMAND_KEY;
 
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.http.HttpBindingProvider;
+import org.openhab.binding.http.internal.HttpFetcher.Document;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.items.Item;
 import org.openhab.core.library.items.ContactItem;
 import org.openhab.core.library.items.DateTimeItem;
@@ -63,6 +68,8 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
     protected static final String CONFIG_TIMEOUT = "timeout";
     protected static final String CONFIG_GRANULARITY = "granularity";
+    protected static final String CONFIG_MAX_CONNECTIONS_PER_HOST = "maxconnectionsperhost";
+    protected static final String CONFIG_FETCH_THREADS = "fetchthreads";
 
     /** the timeout to use for connecting to a given host (defaults to 5000 milliseconds) */
     private int timeout = 5000;
@@ -70,7 +77,23 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
     /** the interval to find new refresh candidates (defaults to 1000 milliseconds) */
     private int granularity = 1000;
 
-    private Map<String, Long> lastUpdateMap = new HashMap<String, Long>();
+    /** the maximum number of concurrent requests to the same host (defaults to 2) */
+    private int maxConnectionsPerHost = HttpFetcher.DEFAULT_MAX_CONNECTIONS_PER_HOST;
+
+    /** the maximum number of concurrent requests (defaults to 5) */
+    private int fetchThreads = HttpFetcher.DEFAULT_THREADS;
+
+    /** fetches the in-binding URLs asynchronously, created lazily */
+    private HttpFetcher fetcher;
+    private final Object fetcherLock = new Object();
+
+    private Map<String, Long> lastUpdateMap = new ConcurrentHashMap<String, Long>();
+
+    /** the items which are waiting for a response */
+    private Set<String> pendingItems = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /** the version of the document which has been transformed last, by item name */
+    private Map<String, Long> itemVersions = new ConcurrentHashMap<String, Long>();
 
     /** RegEx to extract a parse a function String <code>'(.*?)\((.*)\)'</code> */
     private static final Pattern EXTRACT_FUNCTION_PATTERN = Pattern.compile("(.*?)\\((.*)\\)");
@@ -107,6 +130,26 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         setProperlyConfigured(true);
     }
 
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        synchronized (fetcherLock) {
+            if (fetcher != null) {
+                fetcher.shutdown();
+                fetcher = null;
+            }
+        }
+    }
+
+    private HttpFetcher getFetcher() {
+        synchronized (fetcherLock) {
+            if (fetcher == null) {
+                fetcher = new HttpFetcher(timeout, maxConnectionsPerHost, fetchThreads);
+            }
+            return fetcher;
+        }
+    }
+
     protected void addBindingProvider(HttpBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
     }
@@ -115,6 +158,25 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         super.removeBindingProvider(bindingProvider);
     }
 
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        super.bindingChanged(provider, itemName);
+        // transform the next response again, even if the document is still the same
+        itemVersions.remove(itemName);
+    }
+
+    /**
+     * @{inheritDoc}
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        super.allBindingsChanged(provider);
+        itemVersions.clear();
+    }
+
     /**
      * @{inheritDoc}
      */
@@ -133,6 +195,9 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
     /**
      * @{inheritDoc}
+     *
+     * The URLs are fetched asynchronously, so a slow host doesn't delay the refresh of the other items. The
+     * responses are transformed and posted on the threads of the {@link HttpFetcher}.
      */
     @Override
     public void execute() {
@@ -140,6 +205,11 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         for (HttpBindingProvider provider : providers) {
             for (String itemName : provider.getInBindingItemNames()) {
 
+                if (pendingItems.contains(itemName)) {
+                    logger.trace("item '{}' is still waiting for a response", itemName);
+                    continue;
+                }
+
                 String url = provider.getUrl(itemName);
                 url = String.format(url, Calendar.getInstance().getTime());
 
@@ -157,63 +227,83 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
                 if (needsUpdate) {
 
-                    String response = null;
+                    ItemRefresh refresh = new ItemRefresh(provider, itemName, url, transformation);
 
                     // check if special URL is used and data should get from
                     // cache rather than directly from server
                     if (isCacheConfig(url)) {
                         logger.debug("item '{}' is fetched from cache", itemName);
-                        response = getCacheData(url);
+                        pendingItems.add(itemName);
+                        fetchCacheData(url, refresh);
                     } else if (isValidUrl(url)) {
                         logger.debug("item '{}' is about to be refreshed now", itemName);
-                        response = HttpUtil.executeUrl("GET", url, headers, null, null, timeout);
+                        pendingItems.add(itemName);
+                        getFetcher().fetch(url, headers, refresh);
                     } else {
                         logger.debug("item '{}' is not a valid URL or is a cache id yet to be initialised ({})",
                                 itemName, url);
                         continue;
                     }
+                }
+            }
+        }
+    }
 
-                    if (response == null) {
-                        logger.error("No response received from '{}'", url);
-                    } else {
-                        String transformedResponse;
-                        try {
-                            String[] parts = splitTransformationConfig(transformation);
-                            String transformationType = parts[0];
-                            String transformationFunction = parts[1];
-
-                            TransformationService transformationService = TransformationHelper
-                                    .getTransformationService(HttpActivator.getContext(), transformationType);
-                            if (transformationService != null) {
-                                transformedResponse = transformationService.transform(transformationFunction, response);
-                            } else {
-                                transformedResponse = response;
-                                logger.warn(
-                                        "couldn't transform response because transformationService of type '{}' is unavailable",
-                                        transformationType);
-                            }
-                        } catch (TransformationException te) {
-                            logger.error("transformation throws exception [transformation=" + transformation
-                                    + ", response=" + response + "]", te);
-
-                            // in case of an error we return the response without any
-                            // transformation
-                            transformedResponse = response;
-                        }
+    /**
+     * Transforms the response for an item and posts the resulting state. Does nothing if the response is the same
+     * document which has already been transformed for the item.
+     */
+    private void processResponse(HttpBindingProvider provider, String itemName, String transformation,
+            Document document) {
+
+        Long lastVersion = itemVersions.get(itemName);
+        if (lastVersion != null && lastVersion.longValue() == document.getVersion()) {
+            logger.debug("response for item '{}' has not changed, skipping transformation", itemName);
+            return;
+        }
+
+        String response = document.getBody();
+        String transformedResponse;
+        boolean transformed = false;
+        try {
+            String[] parts = splitTransformationConfig(transformation);
+            String transformationType = parts[0];
+            String transformationFunction = parts[1];
+
+            TransformationService transformationService = TransformationHelper
+                    .getTransformationService(HttpActivator.getContext(), transformationType);
+            if (transformationService != null) {
+                transformedResponse = transformationService.transform(transformationFunction, response);
+                transformed = true;
+            } else {
+                transformedResponse = response;
+                logger.warn("couldn't transform response because transformationService of type '{}' is unavailable",
+                        transformationType);
+            }
+        } catch (TransformationException te) {
+            logger.error("transformation throws exception [transformation=" + transformation + ", response="
+                    + response + "]", te);
 
-                        logger.debug("transformed response is '{}'", transformedResponse);
+            // in case of an error we return the response without any
+            // transformation
+            transformedResponse = response;
+        }
 
-                        Class<? extends Item> itemType = provider.getItemType(itemName);
-                        State state = createState(itemType, transformedResponse);
+        logger.debug("transformed response is '{}'", transformedResponse);
 
-                        if (state != null) {
-                            eventPublisher.postUpdate(itemName, state);
-                        }
-                    }
+        Class<? extends Item> itemType = provider.getItemType(itemName);
+        State state = createState(itemType, transformedResponse);
 
-                    lastUpdateMap.put(itemName, System.currentTimeMillis());
-                }
-            }
+        if (state != null) {
+            eventPublisher.postUpdate(itemName, state);
+        }
+
+        // only skip the same document next time if it has been transformed properly with the current binding,
+        // otherwise the item would keep the raw response until the document changes
+        if (transformed && transformation.equals(provider.getTransformation(itemName))) {
+            itemVersions.put(itemName, document.getVersion());
+        } else {
+            itemVersions.remove(itemName);
         }
     }
 
@@ -356,38 +446,59 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
     /**
      * Synchronized access to the item cache. Checks the <code>cacheId</code>
-     * is a cached item and returns the cached value. If the cache has
-     * expired, refresh the cache value by making a new HTTP request.
+     * is a cached item and passes the cached document to the callback. If the
+     * cache has expired, the cache is refreshed by a new HTTP request first.
      *
      * @param cacheId
-     * @return the cached (or refreshed) dats
+     * @param callback the callback to notify with the cached (or refreshed) document
      */
-    private String getCacheData(String cacheId) {
+    private void fetchCacheData(String cacheId, final HttpFetcher.Callback callback) {
+        final CacheConfig cacheConfig;
+        Document document = null;
         synchronized (itemCacheLock) {
             // check again in case the cache was cleared in between taking
             // the lock when checking in isCacheConfig() and now
-            if (!itemCache.containsKey(cacheId)) {
-                return null;
+            cacheConfig = itemCache.get(cacheId);
+            if (cacheConfig != null) {
+                long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
+                boolean cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
+                if (!cacheNeedsUpdate) {
+                    document = cacheConfig.document;
+                }
             }
+        }
 
-            CacheConfig cacheConfig = itemCache.get(cacheId);
-
-            long cacheAge = System.currentTimeMillis() - cacheConfig.lastUpdate;
-            boolean cacheNeedsUpdate = cacheAge >= cacheConfig.updateInterval;
-
-            if (cacheNeedsUpdate) {
-
-                // update and store data on cache
-                logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
-                cacheConfig.data = HttpUtil.executeUrl("GET", cacheConfig.url, cacheConfig.headers, null, null,
-                        timeout);
-
-                if (cacheConfig.data != null) {
-                    cacheConfig.lastUpdate = System.currentTimeMillis();
+        if (cacheConfig == null) {
+            callback.failed();
+        } else if (document != null) {
+            callback.completed(document);
+        } else {
+            // update and store data on cache, items sharing the cache wait for the same request
+            logger.debug("updating cache for '{}' ('{}')", cacheId, cacheConfig.url);
+            getFetcher().fetch(cacheConfig.url, cacheConfig.headers, new HttpFetcher.Callback() {
+                @Override
+                public void completed(Document document) {
+                    synchronized (itemCacheLock) {
+                        cacheConfig.document = document;
+                        cacheConfig.lastUpdate = System.currentTimeMillis();
+                    }
+                    callback.completed(document);
                 }
-            }
 
-            return cacheConfig.data;
+                @Override
+                public void failed() {
+                    Document document;
+                    synchronized (itemCacheLock) {
+                        document = cacheConfig.document;
+                    }
+                    if (document != null) {
+                        // keep serving the last data, the next refresh will try again
+                        callback.completed(document);
+                    } else {
+                        callback.failed();
+                    }
+                }
+            });
         }
     }
 
@@ -412,6 +523,16 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
                     granularity = Integer.parseInt(granularityString);
                 }
 
+                String maxConnectionsPerHostString = (String) config.get(CONFIG_MAX_CONNECTIONS_PER_HOST);
+                if (StringUtils.isNotBlank(maxConnectionsPerHostString)) {
+                    maxConnectionsPerHost = Integer.parseInt(maxConnectionsPerHostString);
+                }
+
+                String fetchThreadsString = (String) config.get(CONFIG_FETCH_THREADS);
+                if (StringUtils.isNotBlank(fetchThreadsString)) {
+                    fetchThreads = Integer.parseInt(fetchThreadsString);
+                }
+
                 // Parse page cache config
 
                 @SuppressWarnings("unchecked")
@@ -422,7 +543,9 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
 
                     // the config-key enumeration contains additional keys that we
                     // don't want to process here ...
-                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key) || "service.pid".equals(key)) {
+                    if (CONFIG_TIMEOUT.equals(key) || CONFIG_GRANULARITY.equals(key)
+                            || CONFIG_MAX_CONNECTIONS_PER_HOST.equals(key) || CONFIG_FETCH_THREADS.equals(key)
+                            || "service.pid".equals(key)) {
                         continue;
                     }
 
@@ -466,6 +589,14 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
                 }
             }
         }
+
+        // the fetcher is created again with the new settings on the next refresh
+        synchronized (fetcherLock) {
+            if (fetcher != null) {
+                fetcher.shutdown();
+                fetcher = null;
+            }
+        }
     }
 
     private Properties parseHttpHeaders(String group) {
@@ -488,6 +619,44 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         return headers;
     }
 
+    /**
+     * Processes the response of an in-binding item refresh.
+     */
+    private class ItemRefresh implements HttpFetcher.Callback {
+
+        private final HttpBindingProvider provider;
+        private final String itemName;
+        private final String url;
+        private final String transformation;
+
+        ItemRefresh(HttpBindingProvider provider, String itemName, String url, String transformation) {
+            this.provider = provider;
+            this.itemName = itemName;
+            this.url = url;
+            this.transformation = transformation;
+        }
+
+        @Override
+        public void completed(Document document) {
+            try {
+                processResponse(provider, itemName, transformation, document);
+            } finally {
+                done();
+            }
+        }
+
+        @Override
+        public void failed() {
+            logger.error("No response received from '{}'", url);
+            done();
+        }
+
+        private void done() {
+            lastUpdateMap.put(itemName, System.currentTimeMillis());
+            pendingItems.remove(itemName);
+        }
+    }
+
     /**
      * Internal data structure for data cache purposes
      *
@@ -507,7 +676,7 @@ public class HttpBinding extends AbstractActiveBinding<HttpBindingProvider>imple
         int updateInterval = 0;
 
         /** Variable to store cached data */
-        String data;
+        Document document;
 
         /** Last time when data is updated */
         long lastUpdate;
@@ -0,0 +1,490 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.http.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+import org.apache.commons.httpclient.DefaultHttpMethodRetryHandler;
+import org.apache.commons.httpclient.Header;
+import org.apache.commons.httpclient.HostConfiguration;
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.HttpState;
+import org.apache.commons.httpclient.HttpStatus;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.UsernamePasswordCredentials;
+import org.apache.commons.httpclient.auth.AuthScope;
+import org.apache.commons.httpclient.methods.GetMethod;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
+import org.apache.commons.httpclient.params.HttpMethodParams;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Fetches documents by HTTP GET on a small pool of worker threads, so that a slow host doesn't delay the other ones.
+ *
+ * <ul>
+ * <li>Requests to the same host are limited to a configurable number of concurrent connections, further requests
+ * are queued until a connection is done.</li>
+ * <li>A request for a URL (with the same headers) that is still in flight is not sent again, its callback is
+ * notified with the result of the request in flight.</li>
+ * <li>The <code>ETag</code> and <code>Last-Modified</code> headers of the last response for a URL are sent with the
+ * next request as <code>If-None-Match</code> and <code>If-Modified-Since</code>. If the server answers with
+ * <code>304 Not Modified</code> the last document is returned again.</li>
+ * </ul>
+ *
+ * Every document carries a version which only changes if the content of the document changes, so callers can
+ * cheaply find out whether they have already processed it.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HttpFetcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(HttpFetcher.class);
+
+    /** the default number of concurrent connections per host */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_HOST = 2;
+
+    /** the default number of worker threads */
+    public static final int DEFAULT_THREADS = 5;
+
+    /** the maximum number of documents kept for conditional requests */
+    private static final int MAX_DOCUMENTS = 500;
+
+    /**
+     * Gets notified when a fetch is done. Callbacks are called on the worker thread and should not block.
+     */
+    public interface Callback {
+
+        /**
+         * @param document the fetched document
+         */
+        void completed(Document document);
+
+        /**
+         * Called if no response could be received.
+         */
+        void failed();
+    }
+
+    /**
+     * A fetched document.
+     */
+    public static class Document {
+
+        /** the body of the response */
+        final String body;
+
+        /** the version of the document, changes only if the body changes */
+        final long version;
+
+        final String etag;
+        final String lastModified;
+
+        Document(String body, long version, String etag, String lastModified) {
+            this.body = body;
+            this.version = version;
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getBody() {
+            return body;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    private final int timeout;
+    private final int maxConnectionsPerHost;
+
+    private final MultiThreadedHttpConnectionManager connectionManager;
+    private final HttpClient httpClient;
+    private final ExecutorService executor;
+
+    private final AtomicLong versionCounter = new AtomicLong();
+
+    /** guards hosts, inFlight and shutdown */
+    private final Object lock = new Object();
+    private final Map<String, HostQueue> hosts = new HashMap<String, HostQueue>();
+    private final Map<String, Fetch> inFlight = new HashMap<String, Fetch>();
+    private boolean shutdown = false;
+
+    /** the last document by request key, least recently used first */
+    private final Map<String, Document> documents = new LinkedHashMap<String, Document>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Document> eldest) {
+            return size() > MAX_DOCUMENTS;
+        }
+    };
+
+    /**
+     * @param timeout the connect and read timeout in milliseconds
+     * @param maxConnectionsPerHost the maximum number of concurrent requests to the same host
+     * @param threads the number of worker threads, i.e. the maximum number of concurrent requests
+     */
+    public HttpFetcher(int timeout, int maxConnectionsPerHost, int threads) {
+        this.timeout = timeout;
+        this.maxConnectionsPerHost = Math.max(maxConnectionsPerHost, 1);
+        threads = Math.max(threads, 1);
+
+        connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams params = connectionManager.getParams();
+        params.setDefaultMaxConnectionsPerHost(this.maxConnectionsPerHost);
+        params.setMaxTotalConnections(threads);
+        params.setConnectionTimeout(timeout);
+        params.setSoTimeout(timeout);
+        httpClient = new HttpClient(connectionManager);
+        httpClient.getParams().setAuthenticationPreemptive(true);
+
+        final AtomicInteger threadCount = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "HTTP Fetcher " + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+        ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Fetches the given URL asynchronously.
+     *
+     * @param url the URL to fetch
+     * @param headers the HTTP headers to send, may be <code>null</code>
+     * @param callback the callback to notify when the fetch is done
+     */
+    public void fetch(String url, Properties headers, Callback callback) {
+        String key = getRequestKey(url, headers);
+        Fetch fetch;
+        synchronized (lock) {
+            if (shutdown) {
+                fetch = null;
+            } else {
+                fetch = inFlight.get(key);
+                if (fetch != null) {
+                    logger.trace("'{}' is already being fetched", url);
+                    fetch.callbacks.add(callback);
+                    return;
+                }
+
+                fetch = new Fetch(key, url, headers);
+                fetch.callbacks.add(callback);
+                inFlight.put(key, fetch);
+
+                HostQueue hostQueue = hosts.get(fetch.host);
+                if (hostQueue == null) {
+                    hostQueue = new HostQueue();
+                    hosts.put(fetch.host, hostQueue);
+                }
+                if (hostQueue.active < maxConnectionsPerHost) {
+                    hostQueue.active++;
+                    submit(fetch);
+                } else {
+                    logger.trace("queueing '{}', host '{}' is busy", url, fetch.host);
+                    hostQueue.waiting.add(fetch);
+                }
+                return;
+            }
+        }
+        callback.failed();
+    }
+
+    /**
+     * Stops the worker threads and closes all connections. The callbacks of fetches which are still running or
+     * queued are notified as failed.
+     */
+    public void shutdown() {
+        List<Callback> callbacks = new ArrayList<Callback>();
+        synchronized (lock) {
+            shutdown = true;
+            for (Fetch fetch : inFlight.values()) {
+                fetch.done = true;
+                callbacks.addAll(fetch.callbacks);
+            }
+            hosts.clear();
+            inFlight.clear();
+        }
+        executor.shutdownNow();
+        connectionManager.shutdown();
+
+        for (Callback callback : callbacks) {
+            callback.failed();
+        }
+    }
+
+    /**
+     * @return the number of fetches which are running or queued
+     */
+    int getInFlightCount() {
+        synchronized (lock) {
+            return inFlight.size();
+        }
+    }
+
+    /** must be called with the lock held */
+    private void submit(final Fetch fetch) {
+        try {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    complete(fetch, execute(fetch));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            logger.debug("couldn't fetch '{}', fetcher is shut down", fetch.url);
+        }
+    }
+
+    private void complete(Fetch fetch, Document document) {
+        List<Callback> callbacks;
+        synchronized (lock) {
+            if (fetch.done) {
+                // the fetcher has been shut down in the meantime and has already notified the callbacks
+                return;
+            }
+            fetch.done = true;
+            inFlight.remove(fetch.key);
+            callbacks = new ArrayList<Callback>(fetch.callbacks);
+
+            HostQueue hostQueue = hosts.get(fetch.host);
+            if (hostQueue != null) {
+                Fetch next = hostQueue.waiting.poll();
+                if (next != null) {
+                    submit(next);
+                } else if (--hostQueue.active <= 0) {
+                    hosts.remove(fetch.host);
+                }
+            }
+        }
+
+        for (Callback callback : callbacks) {
+            try {
+                if (document != null) {
+                    callback.completed(document);
+                } else {
+                    callback.failed();
+                }
+            } catch (RuntimeException e) {
+                logger.error("error while processing the response of '" + fetch.url + "'", e);
+            }
+        }
+    }
+
+    private Document execute(Fetch fetch) {
+        Document cached;
+        synchronized (documents) {
+            cached = documents.get(fetch.key);
+        }
+
+        GetMethod method = null;
+        try {
+            method = new GetMethod(fetch.url);
+            method.getParams().setSoTimeout(timeout);
+            method.getParams().setParameter(HttpMethodParams.RETRY_HANDLER,
+                    new DefaultHttpMethodRetryHandler(3, false));
+            if (fetch.headers != null) {
+                for (String name : fetch.headers.stringPropertyNames()) {
+                    method.addRequestHeader(name, fetch.headers.getProperty(name));
+                }
+            }
+            if (cached != null) {
+                if (cached.etag != null) {
+                    method.setRequestHeader("If-None-Match", cached.etag);
+                }
+                if (cached.lastModified != null) {
+                    method.setRequestHeader("If-Modified-Since", cached.lastModified);
+                }
+            }
+
+            HttpState state = new HttpState();
+            UsernamePasswordCredentials credentials = extractCredentials(fetch.url);
+            if (credentials != null) {
+                state.setCredentials(AuthScope.ANY, credentials);
+                method.setDoAuthentication(true);
+            }
+
+            int statusCode = httpClient.executeMethod(createHostConfiguration(fetch.url), method, state);
+
+            if (statusCode == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                logger.debug("'{}' has not been modified", fetch.url);
+                return cached;
+            }
+            if (statusCode != HttpStatus.SC_OK) {
+                logger.warn("Method failed: {}", method.getStatusLine());
+            }
+
+            String body = readBody(method);
+            if (body == null) {
+                return null;
+            }
+
+            long version = cached != null && body.equals(cached.body) ? cached.version
+                    : versionCounter.incrementAndGet();
+            Document document = new Document(body, version, getHeaderValue(method, "ETag"),
+                    getHeaderValue(method, "Last-Modified"));
+            if (statusCode == HttpStatus.SC_OK) {
+                synchronized (documents) {
+                    documents.put(fetch.key, document);
+                }
+            }
+            return document;
+        } catch (IOException e) {
+            logger.error("Fatal transport error: {}", e.getMessage());
+            return null;
+        } catch (IllegalArgumentException e) {
+            logger.error("Invalid URL '{}': {}", fetch.url, e.getMessage());
+            return null;
+        } catch (IllegalStateException e) {
+            logger.error("Invalid URL '{}': {}", fetch.url, e.getMessage());
+            return null;
+        } finally {
+            if (method != null) {
+                method.releaseConnection();
+            }
+        }
+    }
+
+    private String readBody(GetMethod method) throws IOException {
+        InputStream stream = method.getResponseBodyAsStream();
+        if (stream == null) {
+            return null;
+        }
+        try {
+            Header encodingHeader = method.getResponseHeader("Content-Encoding");
+            if (encodingHeader != null && "gzip".equalsIgnoreCase(encodingHeader.getValue())) {
+                stream = new GZIPInputStream(stream);
+            }
+            return IOUtils.toString(stream, method.getResponseCharSet());
+        } finally {
+            IOUtils.closeQuietly(stream);
+        }
+    }
+
+    private static String getHeaderValue(GetMethod method, String name) {
+        Header header = method.getResponseHeader(name);
+        return header != null ? header.getValue() : null;
+    }
+
+    /**
+     * Creates the host configuration for the given URL, using the proxy from the <code>http.proxy*</code> system
+     * properties in the same way as the blocking requests do.
+     */
+    private static HostConfiguration createHostConfiguration(String url) {
+        HostConfiguration hostConfiguration = new HostConfiguration();
+        if ("true".equalsIgnoreCase(System.getProperty("http.proxySet"))) {
+            String proxyHost = System.getProperty("http.proxyHost");
+            if (StringUtils.isNotBlank(proxyHost) && shouldUseProxy(url, System.getProperty("http.nonProxyHosts"))) {
+                int proxyPort = 80;
+                String proxyPortString = System.getProperty("http.proxyPort");
+                if (StringUtils.isNumeric(proxyPortString) && StringUtils.isNotBlank(proxyPortString)) {
+                    proxyPort = Integer.parseInt(proxyPortString);
+                }
+                hostConfiguration.setProxy(proxyHost, proxyPort);
+            }
+        }
+        return hostConfiguration;
+    }
+
+    private static boolean shouldUseProxy(String url, String nonProxyHosts) {
+        if (StringUtils.isBlank(nonProxyHosts)) {
+            return true;
+        }
+        String host = getHost(url);
+        for (String pattern : nonProxyHosts.split("\\|")) {
+            String regex = pattern.trim().replace(".", "\\.").replace("*", ".*");
+            if (host.matches(regex)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static UsernamePasswordCredentials extractCredentials(String url) {
+        try {
+            String userInfo = new URI(url).getUserInfo();
+            if (StringUtils.isNotBlank(userInfo)) {
+                String[] parts = userInfo.split(":", 2);
+                return new UsernamePasswordCredentials(parts[0], parts.length > 1 ? parts[1] : "");
+            }
+        } catch (URISyntaxException e) {
+            // the request itself will report the invalid URL
+        }
+        return null;
+    }
+
+    private static String getHost(String url) {
+        try {
+            String host = new URI(url).getHost();
+            if (host != null) {
+                return host.toLowerCase();
+            }
+        } catch (URISyntaxException e) {
+            // fall through, the request itself will report the invalid URL
+        }
+        return "";
+    }
+
+    static String getRequestKey(String url, Properties headers) {
+        if (headers == null || headers.isEmpty()) {
+            return url;
+        }
+        return url + " " + new TreeMap<Object, Object>(headers);
+    }
+
+    private static class HostQueue {
+        private int active = 0;
+        private final ArrayDeque<Fetch> waiting = new ArrayDeque<Fetch>();
+    }
+
+    private static class Fetch {
+        private final String key;
+        private final String url;
+        private final Properties headers;
+        private final String host;
+        private final List<Callback> callbacks = new ArrayList<Callback>(1);
+        private boolean done = false;
+
+        Fetch(String key, String url, Properties headers) {
+            this.key = key;
+            this.url = url;
+            this.headers = headers;
+            this.host = getHost(url);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hue.internal.hardware;
+
+import static org.junit.Assert.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class HueCommandQueueTest {
+
+    @Test
+    public void testMergeKeepsValuesOfSameColorMode() {
+        Map<String, Object> waiting = stateChange("on", true, "bri", 100, "hue", 1000, "sat", 200);
+        HueCommandQueue.merge(waiting, stateChange("hue", 2000));
+
+        assertEquals(stateChange("on", true, "bri", 100, "hue", 2000, "sat", 200), waiting);
+    }
+
+    @Test
+    public void testMergeColorAfterColorTemperature() {
+        Map<String, Object> waiting = stateChange("ct", 300);
+        HueCommandQueue.merge(waiting, stateChange("hue", 1000, "sat", 200, "bri", 100, "on", true));
+
+        assertEquals(stateChange("hue", 1000, "sat", 200, "bri", 100, "on", true), waiting);
+    }
+
+    @Test
+    public void testMergeColorTemperatureAfterColor() {
+        Map<String, Object> waiting = stateChange("hue", 1000, "sat", 200, "bri", 100, "on", true);
+        HueCommandQueue.merge(waiting, stateChange("ct", 300));
+
+        assertEquals(stateChange("bri", 100, "on", true, "ct", 300), waiting);
+    }
+
+    @Test
+    public void testMergeColorAfterXy() {
+        Map<String, Object> waiting = stateChange("xy", "[0.3,0.3]", "bri", 100);
+        HueCommandQueue.merge(waiting, stateChange("sat", 200));
+
+        assertEquals(stateChange("bri", 100, "sat", 200), waiting);
+    }
+
+    private static Map<String, Object> stateChange(Object... keysAndValues) {
+        Map<String, Object> stateChange = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            stateChange.put((String) keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return stateChange;
+    }
+}
@@ -9,18 +9,22 @@
 package org.openhab.binding.hue.internal;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
-import java.util.Set;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.binding.hue.HueBindingProvider;
 import org.openhab.binding.hue.internal.HueBindingConfig.BindingType;
+import org.openhab.binding.hue.internal.data.HueLightState;
 import org.openhab.binding.hue.internal.data.HueSettings;
 import org.openhab.binding.hue.internal.hardware.HueBridge;
 import org.openhab.binding.hue.internal.hardware.HueBulb;
 import org.openhab.binding.hue.internal.tools.SsdpDiscovery;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.HSBType;
 import org.openhab.core.library.types.IncreaseDecreaseType;
@@ -60,6 +64,15 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
     // expensive.
     private HashMap<String, HueBulb> bulbCache = new HashMap<String, HueBulb>();
 
+    // The states of the bulbs at the last refresh, only the items of bulbs
+    // whose state has changed since then are updated.
+    private Map<String, HueLightState> lastStates = new HashMap<String, HueLightState>();
+
+    // The names of the items linked with a bulb by device id, rebuilt at the
+    // next refresh when a binding has changed.
+    private Map<String, List<String>> itemsByDeviceId = new HashMap<String, List<String>>();
+    private volatile boolean bindingsChanged = true;
+
     /**
      * Default constructor for the Hue binding.
      */
@@ -101,85 +114,150 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
                 logger.warn("openHAB not authorized to access Hue bridge");
                 return;
             }
-            Set<String> keys = settings.getKeys();
-            for (String key : keys) {
-                try {
-                    HueBulb bulb = bulbCache.get(key);
-                    if (bulb == null) {
-                        bulb = new HueBulb(activeBridge, key, settings);
-                        bulbCache.put(key, bulb);
+            if (bindingsChanged) {
+                bindingsChanged = false;
+                itemsByDeviceId = buildItemIndex();
+                // publish the states of all bulbs to the new items
+                lastStates.clear();
+            }
+
+            int changedBulbs = 0;
+            for (Map.Entry<String, HueLightState> entry : settings.getLights().entrySet()) {
+                String deviceId = entry.getKey();
+                HueLightState state = entry.getValue();
+                if (state.equals(lastStates.put(deviceId, state))) {
+                    continue;
+                }
+                changedBulbs++;
+
+                HueBulb bulb = bulbCache.get(deviceId);
+                if (bulb == null) {
+                    bulb = new HueBulb(activeBridge, deviceId, settings);
+                    bulbCache.put(deviceId, bulb);
+                } else {
+                    bulb.getStatus(state);
+                }
+
+                // Update the items that are linked with the bulb.
+                // Multiple items of different types can be linked to one bulb.
+                List<String> itemNames = itemsByDeviceId.get(deviceId);
+                if (itemNames != null) {
+                    for (String itemName : itemNames) {
+                        HueBindingConfig deviceConfig = getConfigForItemName(itemName);
+                        if (deviceConfig != null) {
+                            updateItem(itemName, deviceConfig, bulb);
+                        }
                     }
-                    bulb.getStatus(settings);
-                } catch (NumberFormatException e) {
-                    logger.warn("lights index {} is not a number", key);
                 }
             }
+            logger.debug("Done Hue data refresh, {} bulb(s) changed.", changedBulbs);
+        }
+    }
 
-            // Update the items that are linked with the bulbs.
-            // Multiple items of different types can be linked to one bulb.
-            for (HueBindingProvider provider : this.providers) {
-                for (String hueItemName : provider.getInBindingItemNames()) {
-                    HueBindingConfig deviceConfig = getConfigForItemName(hueItemName);
-
-                    if (deviceConfig != null) {
-                        HueBulb bulb = bulbCache.get(deviceConfig.getDeviceId());
-                        if (bulb != null) {
-
-                            // Enhancement: only send a postUpdate for items that have changed.
-                            // Tried to use item.getState() as found in enOcean binding, but the state value was always
-                            // uninitialized
-                            // State actualState = provider.getItem(itemName).getState(); --> always return
-                            // Uninitialized
-                            // Workaround for now, store the OnOff state in deviceConfig
-                            //
-                            if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
-                                if ((deviceConfig.itemStateOnOffType == null)
-                                        || (deviceConfig.itemStateOnOffType.equals(OnOffType.ON) == false)) {
-                                    eventPublisher.postUpdate(hueItemName, OnOffType.ON);
-                                    deviceConfig.itemStateOnOffType = OnOffType.ON;
-                                }
-                            } else {
-                                if ((deviceConfig.itemStateOnOffType == null)
-                                        || (deviceConfig.itemStateOnOffType.equals(OnOffType.OFF) == false)) {
-                                    eventPublisher.postUpdate(hueItemName, OnOffType.OFF);
-                                    deviceConfig.itemStateOnOffType = OnOffType.OFF;
-                                }
-                            }
-
-                            if (deviceConfig.getType().equals(BindingType.brightness)) {
-                                if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
-                                    // Only postUpdate when bulb is on, otherwise dimmer item is not retaining state and
-                                    // shows to max brightness value
-                                    PercentType newPercent = new PercentType((int) Math
-                                            .round((bulb.getBrightness() * (double) 100) / HueBulb.MAX_BRIGHTNESS));
-                                    if ((deviceConfig.itemStatePercentType == null)
-                                            || (deviceConfig.itemStatePercentType.equals(newPercent) == false)) {
-                                        eventPublisher.postUpdate(hueItemName, newPercent);
-                                        deviceConfig.itemStatePercentType = newPercent;
-                                    }
-                                }
-                            } else if (deviceConfig.getType().equals(BindingType.rgb)) {
-                                if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
-                                    // Only postUpdate when bulb is on, otherwise color item is not retaining state and
-                                    // shows to max brightness value
-                                    DecimalType decimalHue = new DecimalType(bulb.getHue() / (double) 182);
-                                    PercentType percentBrightness = new PercentType((int) Math
-                                            .round((bulb.getBrightness() * (double) 100) / HueBulb.MAX_BRIGHTNESS));
-                                    PercentType percentSaturation = new PercentType((int) Math
-                                            .round((bulb.getSaturation() * (double) 100) / HueBulb.MAX_SATURATION));
-                                    HSBType newHsb = new HSBType(decimalHue, percentSaturation, percentBrightness);
-                                    if ((deviceConfig.itemStateHSBType == null)
-                                            || (deviceConfig.itemStateHSBType.equals(newHsb) == false)) {
-                                        eventPublisher.postUpdate(hueItemName, newHsb);
-                                        deviceConfig.itemStateHSBType = newHsb;
-                                    }
-                                }
-                            }
-                        }
+    /**
+     * Posts the state of the bulb to the item, if it differs from the last
+     * state posted to the item.
+     */
+    private void updateItem(String hueItemName, HueBindingConfig deviceConfig, HueBulb bulb) {
+        // Enhancement: only send a postUpdate for items that have changed.
+        // Tried to use item.getState() as found in enOcean binding, but the state value was always
+        // uninitialized
+        // State actualState = provider.getItem(itemName).getState(); --> always return
+        // Uninitialized
+        // Workaround for now, store the OnOff state in deviceConfig
+        //
+        if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
+            if ((deviceConfig.itemStateOnOffType == null)
+                    || (deviceConfig.itemStateOnOffType.equals(OnOffType.ON) == false)) {
+                eventPublisher.postUpdate(hueItemName, OnOffType.ON);
+                deviceConfig.itemStateOnOffType = OnOffType.ON;
+            }
+        } else {
+            if ((deviceConfig.itemStateOnOffType == null)
+                    || (deviceConfig.itemStateOnOffType.equals(OnOffType.OFF) == false)) {
+                eventPublisher.postUpdate(hueItemName, OnOffType.OFF);
+                deviceConfig.itemStateOnOffType = OnOffType.OFF;
+            }
+        }
+
+        if (deviceConfig.getType().equals(BindingType.brightness)) {
+            if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
+                // Only postUpdate when bulb is on, otherwise dimmer item is not retaining state and
+                // shows to max brightness value
+                PercentType newPercent = new PercentType(
+                        (int) Math.round((bulb.getBrightness() * (double) 100) / HueBulb.MAX_BRIGHTNESS));
+                if ((deviceConfig.itemStatePercentType == null)
+                        || (deviceConfig.itemStatePercentType.equals(newPercent) == false)) {
+                    eventPublisher.postUpdate(hueItemName, newPercent);
+                    deviceConfig.itemStatePercentType = newPercent;
+                }
+            }
+        } else if (deviceConfig.getType().equals(BindingType.rgb)) {
+            if ((bulb.getIsOn() == true) && (bulb.getIsReachable() == true)) {
+                // Only postUpdate when bulb is on, otherwise color item is not retaining state and
+                // shows to max brightness value
+                DecimalType decimalHue = new DecimalType(bulb.getHue() / (double) 182);
+                PercentType percentBrightness = new PercentType(
+                        (int) Math.round((bulb.getBrightness() * (double) 100) / HueBulb.MAX_BRIGHTNESS));
+                PercentType percentSaturation = new PercentType(
+                        (int) Math.round((bulb.getSaturation() * (double) 100) / HueBulb.MAX_SATURATION));
+                HSBType newHsb = new HSBType(decimalHue, percentSaturation, percentBrightness);
+                if ((deviceConfig.itemStateHSBType == null)
+                        || (deviceConfig.itemStateHSBType.equals(newHsb) == false)) {
+                    eventPublisher.postUpdate(hueItemName, newHsb);
+                    deviceConfig.itemStateHSBType = newHsb;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the index of the items linked with a bulb by device id.
+     */
+    private Map<String, List<String>> buildItemIndex() {
+        Map<String, List<String>> index = new HashMap<String, List<String>>();
+        for (HueBindingProvider provider : this.providers) {
+            for (String itemName : provider.getInBindingItemNames()) {
+                HueBindingConfig deviceConfig = provider.getItemConfig(itemName);
+                if (deviceConfig != null) {
+                    List<String> itemNames = index.get(deviceConfig.getDeviceId());
+                    if (itemNames == null) {
+                        itemNames = new ArrayList<String>();
+                        index.put(deviceConfig.getDeviceId(), itemNames);
                     }
+                    itemNames.add(itemName);
                 }
             }
-            logger.debug("Done Hue data refresh.");
+        }
+        return index;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void bindingChanged(BindingProvider provider, String itemName) {
+        super.bindingChanged(provider, itemName);
+        bindingsChanged = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        super.allBindingsChanged(provider);
+        bindingsChanged = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        if (activeBridge != null) {
+            activeBridge.shutdown();
         }
     }
 
@@ -295,7 +373,13 @@ public class HueBinding extends AbstractActiveBinding<HueBindingProvider>impleme
 
             // connect the Hue bridge with the new configs
             if (this.bridgeIP != null) {
+                if (activeBridge != null) {
+                    activeBridge.shutdown();
+                }
                 activeBridge = null;
+                // the cached bulbs send their commands to the old bridge
+                bulbCache.clear();
+                bindingsChanged = true;
                 String secret = (String) config.get("secret");
                 HueBridge bridge = new HueBridge(bridgeIP, secret);
                 if (bridge.isAuthorized()) {
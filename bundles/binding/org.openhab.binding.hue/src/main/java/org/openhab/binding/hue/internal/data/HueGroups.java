@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hue.internal.data;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.codehaus.jackson.JsonFactory;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Contains the groups defined on the Hue bridge and the bulbs they consist
+ * of, as returned by the groups resource of the bridge.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HueGroups {
+
+    static final Logger logger = LoggerFactory.getLogger(HueGroups.class);
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private Map<String, Set<String>> groups = new HashMap<String, Set<String>>();
+
+    /**
+     * Constructor of HueGroups.
+     *
+     * @param groupsJson
+     *            This is the groups string in Json format returned by the Hue bridge.
+     */
+    public HueGroups(String groupsJson) {
+        try {
+            JsonParser parser = JSON_FACTORY.createJsonParser(groupsJson);
+            try {
+                if (parser.nextToken() == JsonToken.START_OBJECT) {
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        String groupId = parser.getCurrentName();
+                        if (parser.nextToken() == JsonToken.START_OBJECT) {
+                            groups.put(groupId, parseLights(parser));
+                        } else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+            } finally {
+                parser.close();
+            }
+        } catch (IOException e) {
+            logger.error("Could not read Groups-Json from Hue Bridge.", e);
+        }
+    }
+
+    /**
+     * Parses the lights of a group object, the parser is positioned at its
+     * start.
+     */
+    private static Set<String> parseLights(JsonParser parser) throws IOException {
+        Set<String> lights = new HashSet<String>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("lights".equals(field) && token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.VALUE_STRING) {
+                    lights.add(parser.getText());
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return lights;
+    }
+
+    /**
+     * @return the device ids of the bulbs by group id
+     */
+    public Map<String, Set<String>> getGroups() {
+        return Collections.unmodifiableMap(groups);
+    }
+}
@@ -0,0 +1,117 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hue.internal.data;
+
+import org.apache.commons.lang.ObjectUtils;
+
+/**
+ * The state of a single bulb as reported by the Hue bridge. Two states are
+ * equal if all reported values are equal, so a poll can detect which bulbs
+ * have changed since the previous poll.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HueLightState {
+
+    private final boolean on;
+    private final boolean reachable;
+    private final int brightness;
+    private final int colorTemperature;
+    private final int hue;
+    private final int saturation;
+    private final String modelId;
+
+    /**
+     * @param on
+     *            true if the bulb is switched on
+     * @param reachable
+     *            true if the bridge can reach the bulb
+     * @param brightness
+     *            the brightness from 0 - 254
+     * @param colorTemperature
+     *            the color temperature from 154 - 500
+     * @param hue
+     *            the hue from 0 - 65535
+     * @param saturation
+     *            the saturation from 0 - 254
+     * @param modelId
+     *            the model id of the bulb
+     */
+    public HueLightState(boolean on, boolean reachable, int brightness, int colorTemperature, int hue,
+            int saturation, String modelId) {
+        this.on = on;
+        this.reachable = reachable;
+        this.brightness = brightness;
+        this.colorTemperature = colorTemperature;
+        this.hue = hue;
+        this.saturation = saturation;
+        this.modelId = modelId;
+    }
+
+    public boolean isOn() {
+        return on;
+    }
+
+    public boolean isReachable() {
+        return reachable;
+    }
+
+    public int getBrightness() {
+        return brightness;
+    }
+
+    public int getColorTemperature() {
+        return colorTemperature;
+    }
+
+    public int getHue() {
+        return hue;
+    }
+
+    public int getSaturation() {
+        return saturation;
+    }
+
+    public String getModelId() {
+        return modelId;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof HueLightState)) {
+            return false;
+        }
+        HueLightState other = (HueLightState) obj;
+        return on == other.on && reachable == other.reachable && brightness == other.brightness
+                && colorTemperature == other.colorTemperature && hue == other.hue && saturation == other.saturation
+                && ObjectUtils.equals(modelId, other.modelId);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = on ? 1 : 0;
+        result = 31 * result + (reachable ? 1 : 0);
+        result = 31 * result + brightness;
+        result = 31 * result + colorTemperature;
+        result = 31 * result + hue;
+        result = 31 * result + saturation;
+        result = 31 * result + ObjectUtils.hashCode(modelId);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HueLightState [on=" + on + ", reachable=" + reachable + ", bri=" + brightness + ", ct="
+                + colorTemperature + ", hue=" + hue + ", sat=" + saturation + ", modelid=" + modelId + "]";
+    }
+}
@@ -9,18 +9,24 @@
 package org.openhab.binding.hue.internal.data;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
 
+import org.codehaus.jackson.JsonFactory;
 import org.codehaus.jackson.JsonNode;
+import org.codehaus.jackson.JsonParser;
+import org.codehaus.jackson.JsonToken;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.openhab.binding.hue.internal.hardware.HueBulb;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Contains all information that is provided by the Hue bridge. There are
- * different information that can be requested about the connected bulbs.
+ * Contains the state of all bulbs connected to the Hue bridge, as returned by
+ * the lights resource of the bridge. There are different information that can
+ * be requested about the connected bulbs.
  * <ul>
  * <li>Is a bulb switched on?</li>
  * <li>How is a bulb's color temperature?</li>
@@ -28,6 +34,8 @@ import org.slf4j.LoggerFactory;
  * <li>How is the hue of a given bulb?</li>
  * <li>How is the saturation of a given bulb?</li>
  * </ul>
+ * The Json is parsed with a streaming parser directly into a
+ * {@link HueLightState} per bulb, all other values are skipped.
  *
  * @author Roman Hartmann
  * @author Jos Schering
@@ -38,31 +46,111 @@ public class HueSettings {
 
     static final Logger logger = LoggerFactory.getLogger(HueSettings.class);
 
-    private SettingsTree settingsData = null;
+    /** the mapper is thread-safe and expensive to create, so it is shared */
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final JsonFactory JSON_FACTORY = MAPPER.getJsonFactory();
+
+    private Map<String, HueLightState> lights = null;
     private static final int ERROR_TYPE_UNAUTHORIZED_USER = 1;
     private boolean isAuthorized = false;
 
     /**
-     * Constructor of HueSettings. It takes the settings of the Hue bridge to enable the HueSettings to determine the
+     * Constructor of HueSettings. It takes the lights of the Hue bridge to enable the HueSettings to determine the
      * needed information about the bulbs.
      * 
      * @param settings
-     *            This is the settings string in Json format returned by the Hue bridge.
+     *            This is the lights string in Json format returned by the Hue bridge.
      */
-    @SuppressWarnings("unchecked")
     public HueSettings(String settings) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            JsonNode rootNode = mapper.readTree(settings);
-            if (!isAuthorizationError(rootNode)) {
-                settingsData = new SettingsTree(mapper.readValue(rootNode, Map.class));
-                isAuthorized = true;
+            JsonParser parser = JSON_FACTORY.createJsonParser(settings);
+            try {
+                JsonToken token = parser.nextToken();
+                if (token == JsonToken.START_OBJECT) {
+                    lights = parseLights(parser);
+                    isAuthorized = true;
+                } else if (token == JsonToken.START_ARRAY) {
+                    JsonNode rootNode = MAPPER.readTree(parser);
+                    if (!isAuthorizationError(rootNode)) {
+                        logger.warn("Unexpected response from Hue bridge: {}", rootNode);
+                    }
+                }
+            } finally {
+                parser.close();
             }
         } catch (IOException e) {
             logger.error("Could not read Settings-Json from Hue Bridge.", e);
         }
     }
 
+    /**
+     * Parses the lights object into a map of bulb states by device id.
+     */
+    private static Map<String, HueLightState> parseLights(JsonParser parser) throws IOException {
+        Map<String, HueLightState> lights = new HashMap<String, HueLightState>();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String deviceId = parser.getCurrentName();
+            if (parser.nextToken() == JsonToken.START_OBJECT) {
+                lights.put(deviceId, parseLight(parser));
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return lights;
+    }
+
+    /**
+     * Parses a single light object, the parser is positioned at its start.
+     */
+    private static HueLightState parseLight(JsonParser parser) throws IOException {
+        boolean on = false;
+        // older firmwares don't report the reachability
+        boolean reachable = true;
+        Integer brightness = null;
+        int colorTemperature = 154;
+        int hue = 0;
+        int saturation = 0;
+        String modelId = null;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            if ("state".equals(field) && token == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String stateField = parser.getCurrentName();
+                    token = parser.nextToken();
+                    if ("on".equals(stateField)) {
+                        on = token == JsonToken.VALUE_TRUE;
+                    } else if ("reachable".equals(stateField)) {
+                        reachable = token == JsonToken.VALUE_TRUE;
+                    } else if (token == JsonToken.VALUE_NUMBER_INT) {
+                        if ("bri".equals(stateField)) {
+                            brightness = parser.getIntValue();
+                        } else if ("ct".equals(stateField)) {
+                            colorTemperature = parser.getIntValue();
+                        } else if ("hue".equals(stateField)) {
+                            hue = parser.getIntValue();
+                        } else if ("sat".equals(stateField)) {
+                            saturation = parser.getIntValue();
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("modelid".equals(field) && token == JsonToken.VALUE_STRING) {
+                modelId = parser.getText();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (brightness == null) {
+            // probably not dimmable, use the on state
+            brightness = on ? HueBulb.MAX_BRIGHTNESS : 0;
+        }
+        return new HueLightState(on, reachable, brightness, colorTemperature, hue, saturation, modelId);
+    }
+
     /**
      * Determines if the Hue Bridge reported an authorization error.
      * 
@@ -73,7 +161,7 @@ public class HueSettings {
         // While normal answers from the bridge are of type object, the error message is of type array
         if (rootNode.isArray()) {
             JsonNode node = rootNode.get(0);
-            if (node.has("error")) {
+            if (node != null && node.has("error")) {
                 if (node.get("error").get("type").getIntValue() == ERROR_TYPE_UNAUTHORIZED_USER) {
                     isAuthorizationError = true;
                 }
@@ -89,12 +177,8 @@ public class HueSettings {
      * @return The model-ID. Null if Hue bridge is not initialized correctly or if the ID was not parsed correctly
      */
     public String getModelId(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return null;
-        }
-        Object modelId = settingsData.node("lights").node(deviceId).value("modelid");
-        return modelId != null ? modelId.toString() : null;
+        HueLightState state = getLightState(deviceId);
+        return state != null ? state.getModelId() : null;
     }
 
     /**
@@ -110,11 +194,38 @@ public class HueSettings {
      * @return the keys of lights connected to Hue hub
      */
     public Set<String> getKeys() {
-        if (settingsData == null) {
+        if (lights == null) {
+            logger.error("Hue bridge settings not initialized correctly.");
+            return null;
+        }
+        return lights.keySet();
+    }
+
+    /**
+     * Returns the states of all bulbs by their device id.
+     * 
+     * @return the states of all bulbs, empty if the settings could not be read
+     */
+    public Map<String, HueLightState> getLights() {
+        if (lights == null) {
+            return Collections.emptyMap();
+        }
+        return Collections.unmodifiableMap(lights);
+    }
+
+    /**
+     * Returns the state of the given bulb.
+     * 
+     * @param deviceId
+     *            The bulb id the bridge has filed the bulb under.
+     * @return the state of the bulb, null if the bulb is unknown
+     */
+    public HueLightState getLightState(String deviceId) {
+        if (lights == null) {
             logger.error("Hue bridge settings not initialized correctly.");
             return null;
         }
-        return settingsData.node("lights").getKeys();
+        return lights.get(deviceId);
     }
 
     /**
@@ -125,11 +236,7 @@ public class HueSettings {
      * @return true if the bulb is turned on, false otherwise.
      */
     public boolean isValidId(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return false;
-        }
-        return settingsData.node("lights").node(deviceId) != null;
+        return getLightState(deviceId) != null;
     }
 
     /**
@@ -140,11 +247,8 @@ public class HueSettings {
      * @return true if the bulb is turned on, false otherwise.
      */
     public boolean isBulbOn(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return false;
-        }
-        return (Boolean) settingsData.node("lights").node(deviceId).node("state").value("on");
+        HueLightState state = getLightState(deviceId);
+        return state != null && state.isOn();
     }
 
     /**
@@ -157,11 +261,8 @@ public class HueSettings {
      * @return true if the bulb is reachable, false otherwise.
      */
     public boolean isReachable(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return false;
-        }
-        return (Boolean) settingsData.node("lights").node(deviceId).node("state").value("reachable");
+        HueLightState state = getLightState(deviceId);
+        return state != null && state.isReachable();
     }
 
     /**
@@ -172,16 +273,8 @@ public class HueSettings {
      * @return The color temperature as a value from 154 - 500
      */
     public int getColorTemperature(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return 154;
-        }
-        Object ct = settingsData.node("lights").node(deviceId).node("state").value("ct");
-        if (ct instanceof Integer) {
-            return (Integer) ct;
-        } else {
-            return 154;
-        }
+        HueLightState state = getLightState(deviceId);
+        return state != null ? state.getColorTemperature() : 154;
     }
 
     /**
@@ -192,17 +285,8 @@ public class HueSettings {
      * @return The brightness as a value from 0 - {@link HueBulb#MAX_BRIGHTNESS}
      */
     public int getBrightness(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return 0;
-        }
-        Object bri = settingsData.node("lights").node(deviceId).node("state").value("bri");
-        if (bri instanceof Integer) {
-            return (Integer) bri;
-        } else {
-            // probably not dimmable, return on state
-            return isBulbOn(deviceId) ? 254 : 0;
-        }
+        HueLightState state = getLightState(deviceId);
+        return state != null ? state.getBrightness() : 0;
     }
 
     /**
@@ -213,17 +297,8 @@ public class HueSettings {
      * @return The hue as a value from 0 - 65535
      */
     public int getHue(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return 0;
-        }
-
-        Object hue = settingsData.node("lights").node(deviceId).node("state").value("hue");
-        if (hue instanceof Integer) {
-            return (Integer) hue;
-        } else {
-            return 0;
-        }
+        HueLightState state = getLightState(deviceId);
+        return state != null ? state.getHue() : 0;
     }
 
     /**
@@ -234,68 +309,8 @@ public class HueSettings {
      * @return The saturation as a value from 0 - {@link HueBulb#MAX_BRIGHTNESS}
      */
     public int getSaturation(String deviceId) {
-        if (settingsData == null) {
-            logger.error("Hue bridge settings not initialized correctly.");
-            return 0;
-        }
-
-        Object sat = settingsData.node("lights").node(deviceId).node("state").value("sat");
-        if (sat instanceof Integer) {
-            return (Integer) sat;
-        } else {
-            return 0;
-        }
-    }
-
-    /**
-     * The SettingsTree represents the settings Json as a tree with some
-     * convenience methods to get subtrees and the values of interest easily.
-     */
-    class SettingsTree {
-
-        private Map<String, Object> dataMap;
-
-        /**
-         * Constructor of the SettingsTree.
-         * 
-         * @param treeData
-         *            The Json data as it has been returned by the Json object
-         *            mapper.
-         */
-        public SettingsTree(Map<String, Object> treeData) {
-            this.dataMap = treeData;
-        }
-
-        /**
-         * @param nodeName
-         *            The name of the child node.
-         * @return The child node named like nodeName. This will be a sub tree.
-         */
-        @SuppressWarnings("unchecked")
-        protected SettingsTree node(String nodeName) {
-            return new SettingsTree((Map<String, Object>) dataMap.get(nodeName));
-        }
-
-        /**
-         * @return the amount of lights connected to Hue hub
-         */
-        protected int count() {
-            return dataMap.size();
-        }
-
-        protected Set<String> getKeys() {
-            return dataMap.keySet();
-        }
-
-        /**
-         * @param valueName
-         *            The name of the child node.
-         * @return The child node named like nodeName. This will be an object.
-         */
-        protected Object value(String valueName) {
-            return dataMap.get(valueName);
-        }
-
+        HueLightState state = getLightState(deviceId);
+        return state != null ? state.getSaturation() : 0;
     }
 
 }
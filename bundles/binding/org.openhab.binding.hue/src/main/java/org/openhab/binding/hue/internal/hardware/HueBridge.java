@@ -9,10 +9,13 @@
 package org.openhab.binding.hue.internal.hardware;
 
 import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.codehaus.jackson.JsonNode;
 import org.codehaus.jackson.map.ObjectMapper;
+import org.openhab.binding.hue.internal.data.HueGroups;
 import org.openhab.binding.hue.internal.data.HueSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,9 +41,16 @@ public class HueBridge {
     private final String ip;
     private final String secret;
 
+    /**
+     * The client is shared by the bridge and all its bulbs, so the
+     * connections to the bridge are kept alive and reused.
+     */
     private Client client;
 
+    private final HueCommandQueue commandQueue = new HueCommandQueue(this);
+
     private static final int RETRY_INTERVAL_IN_SEC = 5;
+    private static final int TIMEOUT_IN_MS = 5000;
 
     /**
      * Constructor for the HueBridge.
@@ -57,7 +67,29 @@ public class HueBridge {
         this.ip = ip;
         this.secret = secret;
         client = Client.create();
-        client.setConnectTimeout(5000);
+        client.setConnectTimeout(TIMEOUT_IN_MS);
+        client.setReadTimeout(TIMEOUT_IN_MS);
+    }
+
+    /**
+     * @return The HTTP client used for all requests to this bridge.
+     */
+    public Client getClient() {
+        return client;
+    }
+
+    /**
+     * @return The queue for the state changes sent to the bulbs of this bridge.
+     */
+    public HueCommandQueue getCommandQueue() {
+        return commandQueue;
+    }
+
+    /**
+     * Stops sending state changes to this bridge.
+     */
+    public void shutdown() {
+        commandQueue.shutdown();
     }
 
     /**
@@ -82,8 +114,7 @@ public class HueBridge {
     }
 
     /**
-     * Requests the settings of the Hue bridge that also contains the settings
-     * of all connected Hue devices.
+     * Requests the settings of all Hue devices connected to the Hue bridge.
      *
      * @return The settings determined from the bridge. Null if they could not
      *         be requested.
@@ -93,6 +124,31 @@ public class HueBridge {
         return json != null ? new HueSettings(json) : null;
     }
 
+    /**
+     * Requests the groups defined on the Hue bridge.
+     *
+     * @return The device ids of the bulbs by group id. Null if they could not
+     *         be requested.
+     */
+    public Map<String, Set<String>> getGroups() {
+        WebResource webResource = client.resource(getUrl() + "groups");
+
+        try {
+            ClientResponse response = webResource.accept("application/json").get(ClientResponse.class);
+            String groupsString = response.getEntity(String.class);
+
+            if (response.getStatus() != 200) {
+                logger.warn("Failed to connect to Hue bridge: HTTP error code: " + response.getStatus());
+                return null;
+            }
+            logger.trace("Received Hue Bridge Groups: {}", groupsString);
+            return new HueGroups(groupsString).getGroups();
+        } catch (ClientHandlerException e) {
+            logger.warn("Failed to connect to Hue bridge: HTTP request timed out.");
+            return null;
+        }
+    }
+
     /**
      * Pings the Hue bridge for 100 seconds to establish a first pairing
      * connection to the bridge. This requires the button on the Hue bridge to
@@ -167,13 +223,15 @@ public class HueBridge {
     }
 
     /**
-     * Determines the settings of the Hue bridge as a Json raw data String.
+     * Determines the settings of the lights connected to the Hue bridge as a
+     * Json raw data String. Only the lights are requested, as the complete
+     * settings also contain groups, schedules, scenes etc.
      *
-     * @return The settings of the bridge if they could be determined. Null
+     * @return The settings of the lights if they could be determined. Null
      *         otherwise.
      */
     private String getSettingsJson() {
-        WebResource webResource = client.resource(getUrl());
+        WebResource webResource = client.resource(getUrl() + "lights");
 
         try {
             ClientResponse response = webResource.accept("application/json").get(ClientResponse.class);
@@ -8,14 +8,14 @@
  */
 package org.openhab.binding.hue.internal.hardware;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.openhab.binding.hue.internal.data.HueLightState;
 import org.openhab.binding.hue.internal.data.HueSettings;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import com.sun.jersey.api.client.Client;
-import com.sun.jersey.api.client.ClientResponse;
-import com.sun.jersey.api.client.WebResource;
-
 /**
  * The representation of a physical Hue bulb, providing control of the bulbs
  * features.
@@ -58,8 +58,6 @@ public class HueBulb {
     /** The maximum saturation value of the Hue bulb */
     public static final int MAX_SATURATION = 254;
 
-    private Client client;
-
     public HueBulb(HueBridge connectedBridge, String deviceId) {
         this(connectedBridge, deviceId, connectedBridge.getSettings());
     }
@@ -76,10 +74,6 @@ public class HueBulb {
         this.bridge = connectedBridge;
         this.deviceId = deviceId;
         getStatus(settings);
-
-        this.client = Client.create();
-        this.client.setReadTimeout(1000);
-        this.client.setConnectTimeout(2000);
     }
 
     /**
@@ -88,22 +82,32 @@ public class HueBulb {
      * @param HueSettings retrieved from hub
      */
     public void getStatus(HueSettings settings) {
-        if (settings.isValidId(deviceId)) {
-            this.isOn = settings.isBulbOn(this.deviceId);
-            this.isReachable = settings.isReachable(this.deviceId);
-            this.colorTemperature = settings.getColorTemperature(this.deviceId);
-            this.brightness = settings.getBrightness(this.deviceId);
-            this.hue = settings.getHue(this.deviceId);
-            this.saturation = settings.getSaturation(this.deviceId);
-            // set isOsram16 to true if the bulb is of that special type
-            if (settings.getModelId(this.deviceId).equalsIgnoreCase(OSRAM_PAR16_MODELID)) {
-                this.isOsramPar16 = true;
-            }
+        HueLightState state = settings != null ? settings.getLightState(deviceId) : null;
+        if (state != null) {
+            getStatus(state);
         } else {
             logger.warn("Not a valid id on the bridge: " + deviceId);
         }
     }
 
+    /**
+     * Update the internal bulb status according to the state reported by the Philips hub
+     * 
+     * @param state the state of this bulb
+     */
+    public void getStatus(HueLightState state) {
+        this.isOn = state.isOn();
+        this.isReachable = state.isReachable();
+        this.colorTemperature = state.getColorTemperature();
+        this.brightness = state.getBrightness();
+        this.hue = state.getHue();
+        this.saturation = state.getSaturation();
+        // set isOsram16 to true if the bulb is of that special type
+        if (OSRAM_PAR16_MODELID.equalsIgnoreCase(state.getModelId())) {
+            this.isOsramPar16 = true;
+        }
+    }
+
     /**
      * Changes the color of the bulb to the color defined in the HSB format.
      * 
@@ -163,7 +167,7 @@ public class HueBulb {
 
         if (this.brightness > 0) {
             this.isOn = true;
-            executeMessage("{\"bri\":" + this.brightness + ",\"on\":true}");
+            executeMessage(stateChange("bri", this.brightness, "on", true));
         } else {
             // Call the switchOn method to take care of Osram bulb while dimming
             this.switchOn(false);
@@ -186,15 +190,15 @@ public class HueBulb {
         this.isOn = powerOn;
         if (powerOn) {
             if (this.isOsramPar16) {
-                executeMessage("{\"on\":true,\"bri\":254}");
+                executeMessage(stateChange("on", true, "bri", MAX_BRIGHTNESS));
             } else {
-                executeMessage("{\"on\":true}");
+                executeMessage(stateChange("on", true));
             }
         } else {
             if (this.isOsramPar16) {
-                executeMessage("{\"on\":false,\"transitiontime\":0}");
+                executeMessage(stateChange("on", false, "transitiontime", 0));
             } else {
-                executeMessage("{\"on\":false}");
+                executeMessage(stateChange("on", false));
             }
         }
         return true;
@@ -234,7 +238,7 @@ public class HueBulb {
         this.colorTemperature = this.colorTemperature < 154 ? 154 : this.colorTemperature;
         this.colorTemperature = this.colorTemperature > 500 ? 500 : this.colorTemperature;
 
-        executeMessage("{\"ct\":" + this.colorTemperature + "}");
+        executeMessage(stateChange("ct", this.colorTemperature));
     }
 
     /**
@@ -269,29 +273,30 @@ public class HueBulb {
         this.brightness = brightness;
         this.isOn = true;
 
-        String input = "{\"hue\":" + this.hue + ",\"sat\":" + this.saturation + ",\"bri\":" + this.brightness
-                + ",\"on\":" + this.isOn + "}";
-        executeMessage(input);
+        executeMessage(stateChange("hue", this.hue, "sat", this.saturation, "bri", this.brightness, "on", this.isOn));
     }
 
     /**
-     * Sends the message to the bulb for execution.
+     * Queues the state change for the bulb. It is sent by the command queue
+     * of the bridge, possibly merged with other changes.
      * 
-     * @param message
-     *            A Json message with the information that should be send to the
-     *            bulb.
+     * @param stateChange
+     *            The state values that should be send to the bulb.
      */
-    private void executeMessage(String message) {
-        String targetURL = bridge.getUrl() + "lights/" + deviceId + "/state";
-        WebResource webResource = client.resource(targetURL);
-
-        ClientResponse response = webResource.type("application/json").put(ClientResponse.class, message);
-
-        logger.debug("Sent message: '" + message + "' to " + targetURL);
+    private void executeMessage(Map<String, Object> stateChange) {
+        logger.debug("Queueing state change {} for bulb {}", stateChange, deviceId);
+        bridge.getCommandQueue().enqueue(deviceId, stateChange);
+    }
 
-        if (response.getStatus() != 200) {
-            logger.error("Failed to connect to Hue bridge: HTTP error code: " + response.getStatus());
+    /**
+     * Creates a state change from pairs of state names and values.
+     */
+    private static Map<String, Object> stateChange(Object... namesAndValues) {
+        Map<String, Object> stateChange = new LinkedHashMap<String, Object>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            stateChange.put((String) namesAndValues[i], namesAndValues[i + 1]);
         }
+        return stateChange;
     }
 
     /**
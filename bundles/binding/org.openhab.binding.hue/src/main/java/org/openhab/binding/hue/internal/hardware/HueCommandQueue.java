@@ -0,0 +1,302 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.hue.internal.hardware;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.sun.jersey.api.client.ClientHandlerException;
+import com.sun.jersey.api.client.ClientResponse;
+import com.sun.jersey.api.client.WebResource;
+
+/**
+ * Queues the state changes for the bulbs of a Hue bridge and sends them at
+ * the rate the bridge can handle.
+ *
+ * A state change for a bulb which has not been sent yet is merged with newer
+ * changes for the same bulb, so e.g. a fast moving slider results in one
+ * request with the latest value. If all bulbs of a group defined on the bridge
+ * are waiting for the same change, a single group action is sent instead of a
+ * request per bulb.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class HueCommandQueue {
+
+    static final Logger logger = LoggerFactory.getLogger(HueCommandQueue.class);
+
+    /** the bridge handles about 10 light commands per second */
+    private static final long LIGHT_COMMAND_INTERVAL_IN_MS = 100;
+
+    /** the bridge handles about 1 group command per second */
+    private static final long GROUP_COMMAND_INTERVAL_IN_MS = 1000;
+
+    /** time to wait for further commands after the queue has been idle */
+    private static final long COALESCE_DELAY_IN_MS = 50;
+
+    /** the groups are reloaded from the bridge after this time */
+    private static final long GROUP_REFRESH_INTERVAL_IN_MS = 300000;
+
+    /** the state values of the color modes, the bridge ignores all but one mode of a request */
+    private static final List<List<String>> COLOR_MODES = Arrays.asList(Arrays.asList("ct"),
+            Arrays.asList("hue", "sat"), Arrays.asList("xy"));
+
+    private final HueBridge bridge;
+
+    /** the pending state changes by device id, in the order of the first change */
+    private final Map<String, Map<String, Object>> pending = new LinkedHashMap<String, Map<String, Object>>();
+
+    private volatile Map<String, Set<String>> groups = Collections.emptyMap();
+    private long groupsLoaded = 0;
+    private long lastGroupCommand = 0;
+
+    private Thread senderThread = null;
+    private boolean running = true;
+
+    /**
+     * Constructor for the HueCommandQueue.
+     *
+     * @param bridge
+     *            The bridge the state changes are sent to.
+     */
+    public HueCommandQueue(HueBridge bridge) {
+        this.bridge = bridge;
+    }
+
+    /**
+     * Queues a state change for a bulb. If a change for the bulb is already
+     * waiting, the changes are merged. Switching a bulb off replaces all
+     * waiting changes, as they couldn't be applied to a switched off bulb.
+     * A new color replaces a waiting color of another color mode.
+     *
+     * @param deviceId
+     *            The bulb id the bridge has filed the bulb under.
+     * @param stateChange
+     *            The state values to set, e.g. on, bri, ct.
+     */
+    public synchronized void enqueue(String deviceId, Map<String, Object> stateChange) {
+        if (!running) {
+            logger.debug("Hue command queue is shut down, ignoring state change for bulb {}", deviceId);
+            return;
+        }
+        Map<String, Object> waiting = pending.get(deviceId);
+        if (waiting == null || Boolean.FALSE.equals(stateChange.get("on"))) {
+            waiting = new LinkedHashMap<String, Object>();
+            if (pending.put(deviceId, waiting) != null) {
+                logger.trace("State change for bulb {} replaces the waiting one", deviceId);
+            }
+        } else {
+            logger.trace("State change for bulb {} is merged with the waiting one", deviceId);
+        }
+        merge(waiting, stateChange);
+
+        if (senderThread == null) {
+            senderThread = new Thread(new Sender(), "Hue command queue");
+            senderThread.setDaemon(true);
+            senderThread.start();
+        }
+        notifyAll();
+    }
+
+    /**
+     * Merges a state change into a waiting one. The values of the other color
+     * modes are removed from the waiting change, so the last color wins.
+     */
+    static void merge(Map<String, Object> waiting, Map<String, Object> stateChange) {
+        for (List<String> colorMode : COLOR_MODES) {
+            if (!Collections.disjoint(colorMode, stateChange.keySet())) {
+                for (List<String> otherColorMode : COLOR_MODES) {
+                    if (otherColorMode != colorMode) {
+                        waiting.keySet().removeAll(otherColorMode);
+                    }
+                }
+            }
+        }
+        waiting.putAll(stateChange);
+    }
+
+    /**
+     * @return the number of bulbs with waiting state changes
+     */
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Stops sending, all waiting state changes are discarded.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        pending.clear();
+        notifyAll();
+    }
+
+    /**
+     * Removes the next request from the queue. Prefers a group action for
+     * the largest group whose bulbs are all waiting for the same change.
+     */
+    private synchronized Request nextRequest(long now) {
+        if (pending.isEmpty()) {
+            return null;
+        }
+
+        if (now - lastGroupCommand >= GROUP_COMMAND_INTERVAL_IN_MS) {
+            List<Map.Entry<String, Set<String>>> candidates = new ArrayList<Map.Entry<String, Set<String>>>();
+            for (Map.Entry<String, Set<String>> group : groups.entrySet()) {
+                if (group.getValue().size() > 1 && group.getValue().size() <= pending.size()) {
+                    candidates.add(group);
+                }
+            }
+            Collections.sort(candidates, new Comparator<Map.Entry<String, Set<String>>>() {
+                @Override
+                public int compare(Map.Entry<String, Set<String>> g1, Map.Entry<String, Set<String>> g2) {
+                    return g2.getValue().size() - g1.getValue().size();
+                }
+            });
+            for (Map.Entry<String, Set<String>> group : candidates) {
+                Map<String, Object> change = getCommonChange(group.getValue());
+                if (change != null) {
+                    pending.keySet().removeAll(group.getValue());
+                    lastGroupCommand = now;
+                    return new Request("groups/" + group.getKey() + "/action", change);
+                }
+            }
+        }
+
+        Iterator<Map.Entry<String, Map<String, Object>>> it = pending.entrySet().iterator();
+        Map.Entry<String, Map<String, Object>> first = it.next();
+        it.remove();
+        return new Request("lights/" + first.getKey() + "/state", first.getValue());
+    }
+
+    /**
+     * Returns the change all given bulbs are waiting for, or null if at least
+     * one of them is waiting for a different or no change.
+     */
+    private Map<String, Object> getCommonChange(Set<String> deviceIds) {
+        Map<String, Object> common = null;
+        for (String deviceId : deviceIds) {
+            Map<String, Object> change = pending.get(deviceId);
+            if (change == null || (common != null && !common.equals(change))) {
+                return null;
+            }
+            common = change;
+        }
+        return common;
+    }
+
+    private synchronized boolean awaitPending() throws InterruptedException {
+        while (running && pending.isEmpty()) {
+            wait();
+        }
+        return running;
+    }
+
+    private void refreshGroups(long now) {
+        if (groupsLoaded == 0 || now - groupsLoaded >= GROUP_REFRESH_INTERVAL_IN_MS) {
+            groupsLoaded = now;
+            Map<String, Set<String>> loadedGroups = bridge.getGroups();
+            if (loadedGroups != null) {
+                groups = loadedGroups;
+            }
+        }
+    }
+
+    /**
+     * Sends the request to the bridge.
+     */
+    private void send(Request request) {
+        String targetURL = bridge.getUrl() + request.path;
+        String message = request.toJson();
+        try {
+            WebResource webResource = bridge.getClient().resource(targetURL);
+            ClientResponse response = webResource.type("application/json").put(ClientResponse.class, message);
+
+            logger.debug("Sent message: '" + message + "' to " + targetURL);
+
+            if (response.getStatus() != 200) {
+                logger.error("Failed to connect to Hue bridge: HTTP error code: " + response.getStatus());
+            } else if (logger.isTraceEnabled()) {
+                logger.trace("Received response: {}", response.getEntity(String.class));
+            }
+            response.close();
+        } catch (ClientHandlerException e) {
+            logger.warn("Failed to send message '" + message + "' to Hue bridge: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Sends the waiting requests, at most one every
+     * {@link #LIGHT_COMMAND_INTERVAL_IN_MS}.
+     */
+    private class Sender implements Runnable {
+
+        @Override
+        public void run() {
+            try {
+                while (awaitPending()) {
+                    // give the commands of a scene the chance to arrive
+                    Thread.sleep(COALESCE_DELAY_IN_MS);
+
+                    Request request;
+                    do {
+                        long now = System.currentTimeMillis();
+                        refreshGroups(now);
+                        request = nextRequest(now);
+                        if (request != null) {
+                            send(request);
+                            Thread.sleep(LIGHT_COMMAND_INTERVAL_IN_MS);
+                        }
+                    } while (request != null);
+                }
+            } catch (InterruptedException e) {
+                logger.debug("Hue command queue interrupted");
+            }
+        }
+    }
+
+    /**
+     * A request for a bulb or a group.
+     */
+    private static class Request {
+        private final String path;
+        private final Map<String, Object> stateChange;
+
+        Request(String path, Map<String, Object> stateChange) {
+            this.path = path;
+            this.stateChange = stateChange;
+        }
+
+        /**
+         * The values are numbers and booleans only, so they are written as
+         * they are.
+         */
+        String toJson() {
+            StringBuilder json = new StringBuilder("{");
+            for (Map.Entry<String, Object> entry : stateChange.entrySet()) {
+                if (json.length() > 1) {
+                    json.append(',');
+                }
+                json.append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            }
+            return json.append('}').toString();
+        }
+    }
+}
@@ -35,6 +35,7 @@ import org.openhab.binding.insteonplm.internal.driver.Poller;
 import org.openhab.binding.insteonplm.internal.message.FieldException;
 import org.openhab.binding.insteonplm.internal.message.Msg;
 import org.openhab.binding.insteonplm.internal.message.MsgListener;
+import org.openhab.binding.insteonplm.internal.utils.TimerWheel;
 import org.openhab.binding.insteonplm.internal.utils.Utils;
 import org.openhab.core.binding.AbstractActiveBinding;
 import org.openhab.core.binding.BindingProvider;
@@ -400,6 +401,7 @@ public class InsteonPLMActiveBinding extends AbstractActiveBinding<InsteonPLMBin
         m_devices.clear();
         RequestQueueManager.s_destroyInstance();
         Poller.s_instance().stop();
+        TimerWheel.s_destroyInstance();
     }
 
     /**
@@ -684,6 +686,7 @@ public class InsteonPLMActiveBinding extends AbstractActiveBinding<InsteonPLMBin
         logger.info(String.format("devices: %3d configured, %3d polling, msgs received: %5d", m_devices.size(),
                 Poller.s_instance().getSizeOfQueue(), m_messagesReceived));
         m_messagesReceived = 0;
+        Poller.s_instance().logStatistics();
         for (InsteonDevice dev : m_devices.values()) {
             if (dev.isModem()) {
                 continue;
@@ -59,6 +59,7 @@ public class InsteonDevice {
     /** how far to space out poll messages */
     private static final int TIME_BETWEEN_POLL_MESSAGES = 1500;
     private long m_lastQueryTime = 0L;
+    private long m_quietTimeEnd = 0L;
     private boolean m_hasModemDBEntry = false;
     private DeviceStatus m_status = DeviceStatus.INITIALIZED;
 
@@ -103,6 +104,15 @@ public class InsteonDevice {
         return m_pollInterval;
     }
 
+    /**
+     * @return time before which no further message must be sent to the device
+     */
+    public long getQuietTimeEnd() {
+        synchronized (m_requestQueue) {
+            return m_quietTimeEnd;
+        }
+    }
+
     public boolean isModem() {
         return m_isModem;
     }
@@ -466,6 +476,7 @@ public class InsteonDevice {
                 logger.debug("qe taken off bcast: {} {}", qe.getFeature(), qe.getMsg());
             }
             long quietTime = qe.getMsg().getQuietTime();
+            m_quietTimeEnd = timeNow + quietTime;
             qe.getMsg().setQuietTime(500L); // rate limiting downstream!
             try {
                 writeMessage(qe.getMsg());
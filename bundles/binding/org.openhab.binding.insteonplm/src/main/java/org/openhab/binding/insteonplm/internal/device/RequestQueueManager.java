@@ -8,22 +8,23 @@
  */
 package org.openhab.binding.insteonplm.internal.device;
 
-import java.util.HashMap;
-import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
 
+import org.openhab.binding.insteonplm.internal.utils.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * Class that manages all the per-device request queues using a single thread.
+ * Class that manages all the per-device request queues.
  *
- * - Each device has its own request queue, and the RequestQueueManager keeps a
- * queue of queues.
+ * - Each device has its own request queue (its lane), which is processed by
+ * the shared TimerWheel thread.
  * - Each entry in m_requestQueues corresponds to a single device's request queue.
- * A device should never be more than once in m_requestQueues.
- * - A hash map (m_requestQueueHash) is kept in sync with m_requestQueues for
- * faster lookup in case a request queue is modified and needs to be
- * rescheduled.
+ * A device has at most one pending timeout on the wheel.
+ * - Scheduling a queue only locks the queue of that device, so devices don't
+ * contend with each other or with the wheel thread.
+ * - The queue of a device is never processed before the quiet time of the
+ * last message sent to the device has passed.
  *
  * @author Bernd Pfrommer
  * @since 1.6.0
@@ -31,14 +32,11 @@ import org.slf4j.LoggerFactory;
 public class RequestQueueManager {
     private static RequestQueueManager s_instance = null;
     private static final Logger logger = LoggerFactory.getLogger(RequestQueueManager.class);
-    private Thread m_queueThread = null;
-    private PriorityQueue<RequestQueue> m_requestQueues = new PriorityQueue<RequestQueue>();
-    private HashMap<InsteonDevice, RequestQueue> m_requestQueueHash = new HashMap<InsteonDevice, RequestQueue>();
-    private boolean m_keepRunning = true;
+    private ConcurrentHashMap<InsteonDevice, RequestQueue> m_requestQueues =
+            new ConcurrentHashMap<InsteonDevice, RequestQueue>();
+    private volatile boolean m_keepRunning = true;
 
     private RequestQueueManager() {
-        m_queueThread = new Thread(new RequestQueueReader());
-        m_queueThread.start();
     }
 
     /**
@@ -48,131 +46,105 @@ public class RequestQueueManager {
      * @param time the time when the queue should be processed
      */
     public void addQueue(InsteonDevice dev, long time) {
-        synchronized (m_requestQueues) {
-            RequestQueue q = m_requestQueueHash.get(dev);
+        if (!m_keepRunning) {
+            return;
+        }
+        RequestQueue q = m_requestQueues.get(dev);
+        if (q == null) {
+            RequestQueue nq = new RequestQueue(dev);
+            q = m_requestQueues.putIfAbsent(dev, nq);
             if (q == null) {
-                logger.trace("scheduling request for device {} in {} msec", dev.getAddress(),
-                        time - System.currentTimeMillis());
-                q = new RequestQueue(dev, time);
-            } else {
-                logger.trace("queue for dev {} is already scheduled in {} msec", dev.getAddress(),
-                        q.getExpirationTime() - System.currentTimeMillis());
-                if (!m_requestQueues.remove(q)) {
-                    logger.error("queue for {} should be there, report as bug!", dev);
-                }
-                m_requestQueueHash.remove(dev);
+                q = nq;
             }
-            long expTime = q.getExpirationTime();
-            if (expTime > time) {
-                q.setExpirationTime(time);
-            }
-            // add the queue back in after (maybe) having modified
-            // the expiration time
-            m_requestQueues.add(q);
-            m_requestQueueHash.put(dev, q);
-            m_requestQueues.notify();
         }
+        q.schedule(time);
     }
 
     /**
-     * Stops request queue thread
+     * Stops processing the request queues
      */
     private void stopThread() {
-        logger.debug("stopping thread");
-        if (m_queueThread != null) {
-            synchronized (m_requestQueues) {
-                m_keepRunning = false;
-                m_requestQueues.notifyAll();
-            }
-            try {
-                logger.debug("waiting for thread to join");
-                m_queueThread.join();
-                logger.debug("request queue thread exited!");
-            } catch (InterruptedException e) {
-                logger.error("got interrupted waiting for thread exit ", e);
-            }
-            m_queueThread = null;
-        }
-    }
-
-    class RequestQueueReader implements Runnable {
-        @Override
-        public void run() {
-            logger.debug("starting request queue thread");
-            synchronized (m_requestQueues) {
-                while (m_keepRunning) {
-                    try {
-                        while (m_keepRunning && !m_requestQueues.isEmpty()) {
-                            RequestQueue q = m_requestQueues.peek();
-                            long now = System.currentTimeMillis();
-                            long expTime = q.getExpirationTime();
-                            InsteonDevice dev = q.getDevice();
-                            if (expTime > now) {
-                                //
-                                // The head of the queue is not up for processing yet, wait().
-                                //
-                                logger.trace("request queue head: {} must wait for {} msec", dev.getAddress(),
-                                        expTime - now);
-                                m_requestQueues.wait(expTime - now);
-                                //
-                                // note that the wait() can also return because of changes to
-                                // the queue, not just because the time expired!
-                                //
-                                continue;
-                            }
-                            //
-                            // The head of the queue has expired and can be processed!
-                            //
-                            q = m_requestQueues.poll(); // remove front element
-                            m_requestQueueHash.remove(dev); // and remove from hash map
-                            long nextExp = dev.processRequestQueue(now);
-                            if (nextExp > 0) {
-                                q = new RequestQueue(dev, nextExp);
-                                m_requestQueues.add(q);
-                                m_requestQueueHash.put(dev, q);
-                                logger.trace("device queue for {} rescheduled in {} msec", dev.getAddress(),
-                                        nextExp - now);
-                            } else {
-                                // remove from hash since queue is no longer scheduled
-                                logger.debug("device queue for {} is empty!", dev.getAddress());
-                            }
-                        }
-                        logger.trace("waiting for request queues to fill");
-                        m_requestQueues.wait();
-                    } catch (InterruptedException e) {
-                        logger.error("request queue thread got interrupted, breaking..", e);
-                        break;
-                    }
-                }
-            }
-            logger.debug("exiting request queue thread!");
+        logger.debug("stopping request queues");
+        m_keepRunning = false;
+        for (RequestQueue q : m_requestQueues.values()) {
+            q.cancel();
         }
+        m_requestQueues.clear();
     }
 
-    public static class RequestQueue implements Comparable<RequestQueue> {
+    public class RequestQueue implements Runnable {
         private InsteonDevice m_device = null;
-        private long m_expirationTime = 0L;
+        private TimerWheel.Timeout m_timeout = null;
 
-        RequestQueue(InsteonDevice dev, long expirationTime) {
+        RequestQueue(InsteonDevice dev) {
             m_device = dev;
-            m_expirationTime = expirationTime;
         }
 
         public InsteonDevice getDevice() {
             return m_device;
         }
 
-        public long getExpirationTime() {
-            return m_expirationTime;
+        /**
+         * @return the time when the queue is processed next, or 0 if it is not scheduled
+         */
+        public synchronized long getExpirationTime() {
+            return m_timeout == null ? 0L : m_timeout.getDeadline();
         }
 
-        public void setExpirationTime(long t) {
-            m_expirationTime = t;
+        /**
+         * Schedules processing of the queue, unless it is scheduled earlier already
+         *
+         * @param time the desired time
+         */
+        synchronized void schedule(long time) {
+            long t = Math.max(time, m_device.getQuietTimeEnd());
+            if (m_timeout != null) {
+                if (m_timeout.getDeadline() <= t) {
+                    logger.trace("queue for dev {} is already scheduled in {} msec", m_device.getAddress(),
+                            m_timeout.getDeadline() - System.currentTimeMillis());
+                    return;
+                }
+                m_timeout.cancel();
+            }
+            logger.trace("scheduling request for device {} in {} msec", m_device.getAddress(),
+                    t - System.currentTimeMillis());
+            m_timeout = TimerWheel.s_instance().schedule(this, t);
+        }
+
+        synchronized void cancel() {
+            if (m_timeout != null) {
+                m_timeout.cancel();
+                m_timeout = null;
+            }
+        }
+
+        /**
+         * Called by the timer wheel when the queue has expired
+         */
+        @Override
+        public synchronized void run() {
+            // rely on the wheel rather than comparing the deadline with the wall clock, which may have been
+            // set back in the meantime
+            if (!m_keepRunning || m_timeout == null || !m_timeout.isExpired()) {
+                // superseded by an earlier timeout that has already been processed, the current one is still
+                // on the wheel
+                return;
+            }
+            long now = System.currentTimeMillis();
+            m_timeout.cancel();
+            m_timeout = null;
+            long nextExp = m_device.processRequestQueue(now);
+            if (nextExp > 0) {
+                m_timeout = TimerWheel.s_instance().schedule(this, nextExp);
+                logger.trace("device queue for {} rescheduled in {} msec", m_device.getAddress(), nextExp - now);
+            } else {
+                logger.debug("device queue for {} is empty!", m_device.getAddress());
+            }
         }
 
         @Override
-        public int compareTo(RequestQueue a) {
-            return (int) (m_expirationTime - a.m_expirationTime);
+        public String toString() {
+            return "request queue " + m_device.getAddress();
         }
     }
 
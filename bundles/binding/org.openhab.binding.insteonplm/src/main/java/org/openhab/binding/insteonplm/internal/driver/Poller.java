@@ -9,11 +9,12 @@
 package org.openhab.binding.insteonplm.internal.driver;
 
 import java.sql.Date;
-import java.util.Iterator;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.HashMap;
+import java.util.Random;
 
+import org.openhab.binding.insteonplm.internal.device.InsteonAddress;
 import org.openhab.binding.insteonplm.internal.device.InsteonDevice;
+import org.openhab.binding.insteonplm.internal.utils.TimerWheel;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +27,10 @@ import org.slf4j.LoggerFactory;
  * - An entry in the poll queue corresponds to a single device, i.e. each device should
  * have exactly one entry in the poll queue. That entry is created when startPolling()
  * is called, and then re-enqueued whenever it expires.
+ * - Time is divided into slots of MIN_MSEC_BETWEEN_POLLS, and each slot holds at most
+ * one poll. The polls are run by the shared TimerWheel.
+ * - A random jitter is added to the poll interval, so devices with the same interval
+ * drift apart instead of competing for the same slots.
  * - When a device comes up for polling, its doPoll() method is called, which in turn
  * puts an entry into that devices request queue. So the Poller class actually never
  * sends out messages directly. That is done by the device itself via its request
@@ -39,10 +44,17 @@ public class Poller {
     private static final Logger logger = LoggerFactory.getLogger(Poller.class);
     private static Poller s_poller; // for singleton
 
-    private Thread m_pollThread = null;
-    private TreeSet<PQEntry> m_pollQueue = new TreeSet<PQEntry>();
+    private HashMap<InsteonAddress, PQEntry> m_pollQueue = new HashMap<InsteonAddress, PQEntry>();
+    private HashMap<Long, PQEntry> m_pollSlots = new HashMap<Long, PQEntry>();
     private final long MIN_MSEC_BETWEEN_POLLS = 2000L;
+    /** maximum jitter as fraction of the poll interval */
+    private final double MAX_POLL_JITTER = 0.05;
+    private final Random m_random = new Random();
     private boolean m_keepRunning = true;
+    // how late the polls ran since the statistics were last logged
+    private long m_pollCount = 0L;
+    private long m_totalLateness = 0L;
+    private long m_maxLateness = 0L;
 
     /**
      * Constructor
@@ -56,7 +68,9 @@ public class Poller {
      * @return number of devices being polled
      */
     public int getSizeOfQueue() {
-        return (m_pollQueue.size());
+        synchronized (m_pollQueue) {
+            return (m_pollQueue.size());
+        }
     }
 
     /**
@@ -73,7 +87,6 @@ public class Poller {
             int n = m_pollQueue.size();
             long pollDelay = n * d.getPollInterval() / (aNumDev > 0 ? aNumDev : 1);
             addToPollQueue(d, System.currentTimeMillis() + pollDelay);
-            m_pollQueue.notify();
         }
     }
 
@@ -84,47 +97,55 @@ public class Poller {
      */
     public void stopPolling(InsteonDevice d) {
         synchronized (m_pollQueue) {
-            for (Iterator<PQEntry> i = m_pollQueue.iterator(); i.hasNext();) {
-                if (i.next().getDevice().getAddress().equals(d.getAddress())) {
-                    i.remove();
-                    logger.debug("stopped polling device {}", d);
-                }
+            PQEntry pqe = m_pollQueue.remove(d.getAddress());
+            if (pqe != null) {
+                removeEntry(pqe);
+                logger.debug("stopped polling device {}", d);
             }
         }
     }
 
     /**
-     * Starts the poller thread
+     * Starts polling
      */
     public void start() {
-        if (m_pollThread == null) {
-            m_pollThread = new Thread(new PollQueueReader());
-            m_pollThread.start();
+        synchronized (m_pollQueue) {
+            m_keepRunning = true;
         }
     }
 
     /**
-     * Stops the poller thread
+     * Stops polling all devices
      */
     public void stop() {
         logger.debug("stopping poller!");
         synchronized (m_pollQueue) {
+            for (PQEntry pqe : m_pollQueue.values()) {
+                pqe.getTimeout().cancel();
+            }
             m_pollQueue.clear();
+            m_pollSlots.clear();
             m_keepRunning = false;
-            m_pollQueue.notify();
         }
-        try {
-            m_pollThread.join();
-            m_keepRunning = true;
-            m_pollThread = null;
-        } catch (InterruptedException e) {
-            logger.debug("got interrupted on exit: {}", e.getMessage());
+    }
+
+    /**
+     * Logs how late the polls ran compared to their scheduled time, and resets the statistics.
+     */
+    public void logStatistics() {
+        synchronized (m_pollQueue) {
+            logger.info(String.format("polls: %5d, late by avg: %5d msec, max: %5d msec", m_pollCount,
+                    m_pollCount > 0 ? m_totalLateness / m_pollCount : 0L, m_maxLateness));
+            m_pollCount = 0L;
+            m_totalLateness = 0L;
+            m_maxLateness = 0L;
         }
     }
 
     /**
      * Adds a device to the poll queue. After this call, the device's doPoll() method
      * will be called according to the polling frequency set.
+     * Must be called with the poll queue locked.
      * 
      * @param d the device to poll periodically
      * @param time the target time for the next poll to happen. Note that this time is merely
@@ -132,111 +153,69 @@ public class Poller {
      */
 
     private void addToPollQueue(InsteonDevice d, long time) {
-        long texp = findNextExpirationTime(d, time);
-        PQEntry ne = new PQEntry(d, texp);
+        if (!m_keepRunning) {
+            return;
+        }
+        PQEntry old = m_pollQueue.remove(d.getAddress());
+        if (old != null) {
+            removeEntry(old);
+        }
+        long jitter = (long) (m_random.nextDouble() * MAX_POLL_JITTER * d.getPollInterval());
+        long slot = findFreeSlot(d, time + jitter);
+        PQEntry ne = new PQEntry(d, slot * MIN_MSEC_BETWEEN_POLLS);
+        m_pollSlots.put(slot, ne);
+        m_pollQueue.put(d.getAddress(), ne);
+        ne.setTimeout(TimerWheel.s_instance().schedule(ne, ne.getExpirationTime()));
         logger.trace("added entry {} originally aimed at time {}", ne, String.format("%tc", new Date(time)));
-        m_pollQueue.add(ne);
+    }
+
+    private void removeEntry(PQEntry pqe) {
+        pqe.getTimeout().cancel();
+        long slot = pqe.getExpirationTime() / MIN_MSEC_BETWEEN_POLLS;
+        if (m_pollSlots.get(slot) == pqe) {
+            m_pollSlots.remove(slot);
+        }
     }
 
     /**
-     * Finds the best expiration time for a poll queue, i.e. a time slot that is after the
-     * desired expiration time, but does not collide with any of the already scheduled
-     * polls.
+     * Finds the best poll slot, i.e. the first slot that starts after the
+     * desired expiration time and is not taken by an already scheduled poll.
      *
      * @param d device to poll (for logging)
      * @param aTime desired time after which the device should be polled
-     * @return the suggested time to poll
+     * @return the suggested slot to poll in
      */
 
-    private long findNextExpirationTime(InsteonDevice d, long aTime) {
-        long expTime = aTime;
-        // tailSet finds all those that expire after aTime - buffer
-        SortedSet<PQEntry> ts = m_pollQueue.tailSet(new PQEntry(d, aTime - MIN_MSEC_BETWEEN_POLLS));
-        if (ts.isEmpty()) {
-            // all entries in the poll queue are ahead of the new element,
-            // go ahead and simply add it to the end
-            expTime = aTime;
-        } else {
-            Iterator<PQEntry> pqi = ts.iterator();
-            PQEntry prev = pqi.next();
-            if (prev.getExpirationTime() > aTime + MIN_MSEC_BETWEEN_POLLS) {
-                // there is a time slot free before the head of the tail set
-                expTime = aTime;
-            } else {
-                // look for a gap where we can squeeze in
-                // a new poll while maintaining MIN_MSEC_BETWEEN_POLLS
-                while (pqi.hasNext()) {
-                    PQEntry pqe = pqi.next();
-                    long tcurr = pqe.getExpirationTime();
-                    long tprev = prev.getExpirationTime();
-                    if (tcurr - tprev >= 2 * MIN_MSEC_BETWEEN_POLLS) {
-                        // found gap
-                        logger.trace("dev {} time {} found slot between {} and {}", d, aTime, tprev, tcurr);
-                        break;
-                    }
-                    prev = pqe;
-                }
-                expTime = prev.getExpirationTime() + MIN_MSEC_BETWEEN_POLLS;
-            }
+    private long findFreeSlot(InsteonDevice d, long aTime) {
+        long slot = (aTime + MIN_MSEC_BETWEEN_POLLS - 1) / MIN_MSEC_BETWEEN_POLLS;
+        while (m_pollSlots.containsKey(slot)) {
+            slot++;
         }
-        return expTime;
+        logger.trace("dev {} time {} found slot at {}", d, aTime, slot * MIN_MSEC_BETWEEN_POLLS);
+        return slot;
     }
 
-    private class PollQueueReader implements Runnable {
-        @Override
-        public void run() {
-            logger.debug("starting poll thread.");
-            synchronized (m_pollQueue) {
-                while (m_keepRunning) {
-                    try {
-                        readPollQueue();
-                    } catch (InterruptedException e) {
-                        logger.warn("poll queue reader thread interrupted!");
-                        break;
-                    }
-                }
-            }
-            logger.debug("poll thread exiting");
-        }
-
-        /**
-         * Waits for first element of poll queue to become current,
-         * then process it.
-         * 
-         * @throws InterruptedException
-         */
-        private void readPollQueue() throws InterruptedException {
-            while (m_pollQueue.isEmpty() && m_keepRunning) {
-                m_pollQueue.wait();
-            }
-            if (!m_keepRunning) {
-                return;
-            }
-            // something is in the queue
-            long now = System.currentTimeMillis();
-            PQEntry pqe = m_pollQueue.first();
-            long tfirst = pqe.getExpirationTime();
-            long dt = tfirst - now;
-            if (dt > 0) { // must wait for this item to expire
-                logger.trace("waiting for {} msec until {} comes due", dt, pqe);
-                m_pollQueue.wait(dt);
-            } else { // queue entry has expired, process it!
-                logger.trace("entry {} expired at time {}", pqe, now);
-                processQueue(now);
+    /**
+     * Polls the device of an expired entry, and puts the device back into the poll
+     * queue to be polled again later.
+     * 
+     * @param pqe the expired entry
+     */
+    private void processEntry(PQEntry pqe) {
+        long now = System.currentTimeMillis();
+        InsteonDevice d = pqe.getDevice();
+        synchronized (m_pollQueue) {
+            if (!m_keepRunning || m_pollQueue.get(d.getAddress()) != pqe) {
+                return; // polling of the device has been stopped meanwhile
             }
+            long lateness = now - pqe.getExpirationTime();
+            m_pollCount++;
+            m_totalLateness += lateness;
+            m_maxLateness = Math.max(m_maxLateness, lateness);
+            logger.trace("entry {} expired, polling {} msec late", pqe, lateness);
+            addToPollQueue(d, now + d.getPollInterval());
         }
-
-        /**
-         * Takes first element off the poll queue, polls the corresponding device,
-         * and puts the device back into the poll queue to be polled again later.
-         * 
-         * @param now the current time
-         */
-        private void processQueue(long now) {
-            PQEntry pqe = m_pollQueue.pollFirst();
-            pqe.getDevice().doPoll(0);
-            addToPollQueue(pqe.getDevice(), now + pqe.getDevice().getPollInterval());
-        }
+        d.doPoll(0);
     }
 
     /**
@@ -246,9 +225,10 @@ public class Poller {
      * @author Bernd Pfrommer
      *
      */
-    private static class PQEntry implements Comparable<PQEntry> {
+    private class PQEntry implements Runnable {
         private InsteonDevice m_dev = null;
         private long m_expirationTime = 0L;
+        private TimerWheel.Timeout m_timeout = null;
 
         PQEntry(InsteonDevice dev, long time) {
             m_dev = dev;
@@ -263,9 +243,17 @@ public class Poller {
             return m_dev;
         }
 
+        TimerWheel.Timeout getTimeout() {
+            return m_timeout;
+        }
+
+        void setTimeout(TimerWheel.Timeout t) {
+            m_timeout = t;
+        }
+
         @Override
-        public int compareTo(PQEntry b) {
-            return (int) (m_expirationTime - b.m_expirationTime);
+        public void run() {
+            processEntry(this);
         }
 
         @Override
@@ -11,9 +11,7 @@ package org.openhab.binding.insteonplm.internal.message;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.HashMap;
-import java.util.TreeSet;
 
 import org.openhab.binding.insteonplm.internal.device.InsteonAddress;
 import org.openhab.binding.insteonplm.internal.utils.Utils;
@@ -66,14 +64,14 @@ public class Msg {
 
     // has the structure of all known messages
     private static final HashMap<String, Msg> s_msgMap = new HashMap<String, Msg>();
-    // maps between command number and the length of the header
-    private static final HashMap<Integer, Integer> s_headerMap = new HashMap<Integer, Integer>();
-    // has templates for all message from modem to host
-    private static final HashMap<Integer, Msg> s_replyMap = new HashMap<Integer, Msg>();
+    // maps between command number and the length of the header, -1 if unknown
+    private static final int[] s_headerLengths = new int[256];
+    // has templates for all message from modem to host, indexed by s_cmdToKey()
+    private static final Msg[] s_replyTemplates = new Msg[512];
 
     private int m_headerLength = -1;
     private byte[] m_data = null;
-    private MsgDefinition m_definition = new MsgDefinition();
+    private MsgDefinition m_definition = MsgDefinition.EMPTY;
     private Direction m_direction = Direction.TO_MODEM;
     private long m_quietTime = 0;
 
@@ -91,6 +89,20 @@ public class Msg {
         initialize(data, 0, dataLength);
     }
 
+    /**
+     * Constructor
+     * 
+     * @param headerLength length of message header (in bytes)
+     * @param data byte array with message
+     * @param dataLength length of byte array data (in bytes)
+     * @param dir direction of the message (from/to modem)
+     * @param definition the (shared) layout of the message
+     */
+    Msg(int headerLength, byte[] data, int dataLength, Direction dir, MsgDefinition definition) {
+        this(headerLength, data, dataLength, dir);
+        m_definition = definition;
+    }
+
     /**
      * Copy constructor, needed to make a copy of the templates when
      * generating messages from them.
@@ -100,8 +112,8 @@ public class Msg {
     public Msg(Msg m) {
         m_headerLength = m.m_headerLength;
         m_data = m.m_data.clone();
-        // the message definition usually doesn't change, but just to be sure...
-        m_definition = new MsgDefinition(m.m_definition);
+        // the message definition is immutable and can be shared
+        m_definition = m.m_definition;
         m_direction = m.m_direction;
     }
 
@@ -174,25 +186,18 @@ public class Msg {
         if (m_data == null || getLength() < 2) {
             return false;
         }
-        if (m_definition == null) {
-            return false;
-        }
-        if (!m_definition.containsField("messageFlags")) {
+        int offset = getMessageFlagsOffset();
+        if (offset < 0) {
             return (false);
         }
-        try {
-            byte flags = getByte("messageFlags");
-            return ((flags & 0x10) == 0x10);
-        } catch (FieldException e) {
-            // do nothing
-        }
-        return false;
+        byte flags = m_data[offset];
+        return ((flags & 0x10) == 0x10);
     }
 
     public boolean isUnsolicited() {
         // if the message has an ACK/NACK, it is in response to our message,
         // otherwise it is out-of-band, i.e. unsolicited
-        return (m_definition != null) && (!m_definition.containsField("ACK/NACK"));
+        return (m_definition != null) && (!m_definition.hasAckNack());
     }
 
     public boolean isEcho() {
@@ -200,12 +205,11 @@ public class Msg {
     }
 
     public boolean isOfType(MsgType mt) {
-        try {
-            MsgType t = MsgType.s_fromValue(getByte("messageFlags"));
-            return (t == mt);
-        } catch (FieldException e) {
+        int offset = getMessageFlagsOffset();
+        if (offset < 0) {
             return false;
         }
+        return (MsgType.s_fromValue(m_data[offset]) == mt);
     }
 
     public boolean isBroadcast() {
@@ -229,14 +233,12 @@ public class Msg {
     }
 
     public boolean isX10() {
-        try {
-            int cmd = getByte("Cmd") & 0xff;
-            if (cmd == 0x63 || cmd == 0x52) {
-                return true;
-            }
-        } catch (FieldException e) {
+        int offset = (m_definition == null) ? -1 : m_definition.getCmdOffset();
+        if (offset < 0 || offset >= m_data.length) {
+            return false;
         }
-        return false;
+        int cmd = m_data[offset] & 0xff;
+        return (cmd == 0x63 || cmd == 0x52);
     }
 
     public void setDefinition(MsgDefinition d) {
@@ -247,13 +249,6 @@ public class Msg {
         m_quietTime = t;
     }
 
-    public void addField(Field f) {
-        if (m_definition == null) {
-            return;
-        }
-        m_definition.addField(f);
-    }
-
     public InsteonAddress getAddr(String name) {
         if (m_definition == null) {
             return null;
@@ -268,10 +263,26 @@ public class Msg {
     }
 
     public int getHopsLeft() throws FieldException {
-        int hops = (getByte("messageFlags") & 0x0c) >> 2;
+        int offset = getMessageFlagsOffset();
+        if (offset < 0) {
+            throw new FieldException("field messageFlags not found");
+        }
+        int hops = (m_data[offset] & 0x0c) >> 2;
         return hops;
     }
 
+    /**
+     * @return offset of the message flags within the data, or -1 if the
+     *         message has no (complete) message flags
+     */
+    private int getMessageFlagsOffset() {
+        if (m_definition == null || m_data == null) {
+            return -1;
+        }
+        int offset = m_definition.getMessageFlagsOffset();
+        return (offset < m_data.length) ? offset : -1;
+    }
+
     /**
      * Will initialize the message with a byte[], an offset, and a length
      * 
@@ -484,18 +495,8 @@ public class Msg {
         if (m_definition == null || m_data == null) {
             return toHexString();
         }
-        // need to first sort the fields by offset
-        Comparator<Field> cmp = new Comparator<Field>() {
-            @Override
-            public int compare(Field f1, Field f2) {
-                return f1.getOffset() - f2.getOffset();
-            }
-        };
-        TreeSet<Field> fields = new TreeSet<Field>(cmp);
-        for (Field f : m_definition.getFields().values()) {
-            fields.add(f);
-        }
-        for (Field f : fields) {
+        // the definition has the fields sorted by offset
+        for (Field f : m_definition.getFieldsByOffset()) {
             if (f.getName().equals("messageFlags")) {
                 byte b;
                 try {
@@ -527,7 +528,7 @@ public class Msg {
         if (m_buf == null || m_buf.length < 2) {
             return null;
         }
-        Msg template = s_replyMap.get(s_cmdToKey(m_buf[1], isExtended));
+        Msg template = s_replyTemplates[s_cmdToKey(m_buf[1], isExtended)];
         if (template == null) {
             return null; // cannot find lookup map
         }
@@ -535,9 +536,8 @@ public class Msg {
             logger.error("expected msg {} len {}, got {}", template.getCommandNumber(), template.getLength(), msgLen);
             return null;
         }
-        Msg msg = new Msg(template.getHeaderLength(), m_buf, msgLen, Direction.FROM_MODEM);
-        msg.setDefinition(template.getDefinition());
-        return (msg);
+        // all messages of the same type share the definition of the template
+        return new Msg(template.getHeaderLength(), m_buf, msgLen, Direction.FROM_MODEM, template.getDefinition());
     }
 
     /**
@@ -547,11 +547,7 @@ public class Msg {
      * @return the length of the header to expect
      */
     public static int s_getHeaderLength(byte cmd) {
-        Integer len = s_headerMap.get(new Integer(cmd));
-        if (len == null) {
-            return (-1); // not found
-        }
-        return len;
+        return s_headerLengths[cmd & 0xff]; // -1 if not found
     }
 
     /**
@@ -562,8 +558,7 @@ public class Msg {
      * @return message length, or -1 if length cannot be determined
      */
     public static int s_getMessageLength(byte b, boolean isExtended) {
-        int key = s_cmdToKey(b, isExtended);
-        Msg msg = s_replyMap.get(key);
+        Msg msg = s_replyTemplates[s_cmdToKey(b, isExtended)];
         if (msg == null) {
             return -1;
         }
@@ -608,13 +603,14 @@ public class Msg {
     }
 
     private static int s_cmdToKey(byte cmd, boolean isExtended) {
-        return (cmd + (isExtended ? 256 : 0));
+        return ((cmd & 0xff) + (isExtended ? 256 : 0));
     }
 
     private static void s_buildHeaderMap() {
+        Arrays.fill(s_headerLengths, -1);
         for (Msg m : s_msgMap.values()) {
             if (m.getDirection() == Direction.FROM_MODEM) {
-                s_headerMap.put(new Integer(m.getCommandNumber()), m.getHeaderLength());
+                s_headerLengths[m.getCommandNumber() & 0xff] = m.getHeaderLength();
             }
         }
     }
@@ -622,8 +618,7 @@ public class Msg {
     private static void s_buildLengthMap() {
         for (Msg m : s_msgMap.values()) {
             if (m.getDirection() == Direction.FROM_MODEM) {
-                Integer key = new Integer(s_cmdToKey(m.getCommandNumber(), m.isExtended()));
-                s_replyMap.put(key, m);
+                s_replyTemplates[s_cmdToKey(m.getCommandNumber(), m.isExtended())] = m;
             }
         }
     }
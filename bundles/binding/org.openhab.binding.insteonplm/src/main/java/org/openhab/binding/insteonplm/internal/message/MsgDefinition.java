@@ -8,47 +8,95 @@
  */
 package org.openhab.binding.insteonplm.internal.message;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Map;
 
 /**
  * Definition (layout) of an Insteon message. Says which bytes go where.
  * For more info, see the public Insteon Developer's Guide, 2nd edition,
  * and the Insteon Modem Developer's Guide.
  *
+ * A definition is immutable once it has been read from the xml file, so
+ * all messages of the same type share a single instance. The offsets of
+ * the fields needed for every incoming message are looked up once here.
+ *
  * @author Daniel Pfrommer
  * @since 1.5.0
  */
 
 public class MsgDefinition {
-    private HashMap<String, Field> m_fields = new HashMap<String, Field>();
+    /** definition without any fields */
+    static final MsgDefinition EMPTY = new MsgDefinition(Collections.<Field> emptyList());
 
-    MsgDefinition() {
-    }
+    private final Map<String, Field> m_fields;
+    private final Field[] m_fieldsByOffset;
+    private final int m_messageFlagsOffset;
+    private final int m_cmdOffset;
+    private final boolean m_hasAckNack;
 
-    /*
-     * Copy constructor, needed to make a copy of a message
-     * 
-     * @param m the definition to copy
+    /**
+     * Constructor
+     *
+     * @param fields the fields of the message
      */
-    MsgDefinition(MsgDefinition m) {
-        m_fields = new HashMap<String, Field>(m.m_fields);
+    MsgDefinition(Collection<Field> fields) {
+        HashMap<String, Field> fieldMap = new HashMap<String, Field>();
+        for (Field f : fields) {
+            fieldMap.put(f.getName(), f);
+        }
+        m_fields = Collections.unmodifiableMap(fieldMap);
+        m_fieldsByOffset = fieldMap.values().toArray(new Field[fieldMap.size()]);
+        Arrays.sort(m_fieldsByOffset, new Comparator<Field>() {
+            @Override
+            public int compare(Field f1, Field f2) {
+                return f1.getOffset() - f2.getOffset();
+            }
+        });
+        m_messageFlagsOffset = s_getByteOffset(fieldMap.get("messageFlags"));
+        m_cmdOffset = s_getByteOffset(fieldMap.get("Cmd"));
+        m_hasAckNack = fieldMap.containsKey("ACK/NACK");
     }
 
-    public HashMap<String, Field> getFields() {
+    public Map<String, Field> getFields() {
         return m_fields;
     }
 
+    /**
+     * @return the fields sorted by their offset in the message
+     */
+    Field[] getFieldsByOffset() {
+        return m_fieldsByOffset;
+    }
+
     public boolean containsField(String name) {
         return m_fields.containsKey(name);
     }
 
-    public void addField(Field field) {
-        m_fields.put(field.getName(), field);
+    /**
+     * @return offset of the messageFlags byte, or -1 if the message has none
+     */
+    int getMessageFlagsOffset() {
+        return m_messageFlagsOffset;
+    }
+
+    /**
+     * @return offset of the Cmd byte, or -1 if the message has none
+     */
+    int getCmdOffset() {
+        return m_cmdOffset;
+    }
+
+    boolean hasAckNack() {
+        return m_hasAckNack;
     }
 
     /**
      * Finds field of a given name
-     * 
+     *
      * @param name name of the field to search for
      * @return reference to field
      * @throws FieldException if no such field can be found
@@ -60,4 +108,8 @@ public class MsgDefinition {
         }
         return f;
     }
+
+    private static int s_getByteOffset(Field f) {
+        return (f != null && f.getType() == DataType.BYTE) ? f.getOffset() : -1;
+    }
 }
@@ -12,6 +12,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.Map.Entry;
@@ -157,15 +158,17 @@ public class XMLMessageReader {
 
     private static Msg s_createMsg(HashMap<Field, Object> values, int length, int headerLength, Msg.Direction dir)
             throws FieldException {
-        Msg msg = new Msg(headerLength, new byte[length], length, dir);
+        byte[] data = new byte[length];
+        ArrayList<Field> fields = new ArrayList<Field>();
         for (Entry<Field, Object> e : values.entrySet()) {
             Field f = e.getKey();
-            f.set(msg.getData(), e.getValue());
+            f.set(data, e.getValue());
             if (f.getName() != null && !f.getName().equals("")) {
-                msg.addField(f);
+                fields.add(f);
             }
         }
-        return msg;
+        // the definition is compiled once and shared by all messages of this type
+        return new Msg(headerLength, data, length, dir, new MsgDefinition(fields));
     }
 
     public static void main(String[] args) throws Exception {
@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.insteonplm.internal.utils;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Hashed timer wheel that runs all timed tasks of the binding (device polls
+ * and request queues) on a single thread.
+ *
+ * - The wheel consists of WHEEL_SIZE buckets, each covering TICK_MSEC. A task is
+ * put into the bucket its deadline falls into, together with the number of full
+ * rotations left before it is due. Scheduling and cancelling are O(1).
+ * - Newly scheduled tasks are handed to the wheel thread through a lock-free queue,
+ * so callers never contend with the wheel thread or with each other.
+ * - Cancelled tasks are simply marked, and dropped when their bucket comes up.
+ * - Tasks run on the wheel thread and must not block for long.
+ * - The deadlines are given as wall clock time, but the wheel itself is driven
+ * by System.nanoTime(), so a step of the system clock doesn't stall it.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class TimerWheel {
+    private static final Logger logger = LoggerFactory.getLogger(TimerWheel.class);
+    private static TimerWheel s_instance = null;
+
+    /** resolution of the wheel */
+    public static final long TICK_MSEC = 25L;
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MSEC);
+    /** number of buckets, must be a power of two. One rotation takes about 25 seconds */
+    private static final int WHEEL_SIZE = 1024;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+
+    private final Timeout[] m_wheel = new Timeout[WHEEL_SIZE];
+    private final ConcurrentLinkedQueue<Timeout> m_newTimeouts = new ConcurrentLinkedQueue<Timeout>();
+    private Thread m_wheelThread = null;
+    private volatile boolean m_keepRunning = true;
+    private long m_startNanos = 0L;
+    private long m_tick = 0L;
+
+    private TimerWheel() {
+    }
+
+    /**
+     * Schedules a task
+     *
+     * @param task the task to run
+     * @param time the time (in msec since epoch) at which to run the task
+     * @return handle by which the task can be cancelled
+     */
+    public Timeout schedule(Runnable task, long time) {
+        long dueNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(time - System.currentTimeMillis());
+        Timeout t = new Timeout(task, time, dueNanos);
+        if (m_keepRunning) {
+            m_newTimeouts.add(t);
+        } else {
+            logger.debug("timer wheel is stopped, not scheduling task");
+            t.cancel();
+        }
+        return t;
+    }
+
+    private synchronized void start() {
+        if (m_wheelThread == null) {
+            m_startNanos = System.nanoTime();
+            m_wheelThread = new Thread(new WheelReader(), "Insteon timer wheel");
+            m_wheelThread.setDaemon(true);
+            m_wheelThread.start();
+        }
+    }
+
+    private void stop() {
+        logger.debug("stopping timer wheel");
+        m_keepRunning = false;
+        Thread t = m_wheelThread;
+        if (t != null) {
+            t.interrupt();
+            try {
+                t.join();
+                logger.debug("timer wheel thread exited!");
+            } catch (InterruptedException e) {
+                logger.error("got interrupted waiting for timer wheel thread exit ", e);
+            }
+            m_wheelThread = null;
+        }
+        m_newTimeouts.clear();
+    }
+
+    /**
+     * Moves the newly scheduled tasks into their buckets. Only called from the wheel thread.
+     */
+    private void transferNewTimeouts() {
+        Timeout t;
+        while ((t = m_newTimeouts.poll()) != null) {
+            if (t.isCancelled()) {
+                continue;
+            }
+            // tasks which are already due go into the current bucket
+            long ticks = Math.max(m_tick, (t.m_dueNanos - m_startNanos + TICK_NANOS - 1) / TICK_NANOS);
+            t.m_remainingRounds = (ticks - m_tick) / WHEEL_SIZE;
+            int bucket = (int) (ticks & WHEEL_MASK);
+            t.m_next = m_wheel[bucket];
+            m_wheel[bucket] = t;
+        }
+    }
+
+    /**
+     * Runs all tasks of the current bucket that are due in this rotation
+     */
+    private void expireBucket() {
+        int bucket = (int) (m_tick & WHEEL_MASK);
+        Timeout t = m_wheel[bucket];
+        m_wheel[bucket] = null;
+        while (t != null) {
+            Timeout next = t.m_next;
+            t.m_next = null;
+            if (t.isCancelled()) {
+                // drop it
+            } else if (t.m_remainingRounds <= 0) {
+                t.expire();
+            } else {
+                t.m_remainingRounds--;
+                t.m_next = m_wheel[bucket];
+                m_wheel[bucket] = t;
+            }
+            t = next;
+        }
+    }
+
+    private class WheelReader implements Runnable {
+        @Override
+        public void run() {
+            logger.debug("starting timer wheel thread");
+            while (m_keepRunning) {
+                long sleepTime = m_startNanos + (m_tick + 1) * TICK_NANOS - System.nanoTime();
+                if (sleepTime > 0) {
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(sleepTime);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+                transferNewTimeouts();
+                expireBucket();
+                m_tick++;
+            }
+            logger.debug("exiting timer wheel thread!");
+        }
+    }
+
+    /**
+     * Handle for a scheduled task
+     */
+    public static class Timeout {
+        private final Runnable m_task;
+        private final long m_deadline;
+        private final long m_dueNanos;
+        private volatile boolean m_cancelled = false;
+        private volatile boolean m_expired = false;
+        // only accessed by the wheel thread
+        private long m_remainingRounds = 0L;
+        private Timeout m_next = null;
+
+        Timeout(Runnable task, long deadline, long dueNanos) {
+            m_task = task;
+            m_deadline = deadline;
+            m_dueNanos = dueNanos;
+        }
+
+        /**
+         * @return the time at which the task is supposed to run
+         */
+        public long getDeadline() {
+            return m_deadline;
+        }
+
+        public boolean isCancelled() {
+            return m_cancelled;
+        }
+
+        /**
+         * @return true if the wheel has started to run the task
+         */
+        public boolean isExpired() {
+            return m_expired;
+        }
+
+        /**
+         * Cancels the task. Has no effect if the task is already running.
+         */
+        public void cancel() {
+            m_cancelled = true;
+        }
+
+        private void expire() {
+            m_expired = true;
+            try {
+                m_task.run();
+            } catch (RuntimeException e) {
+                logger.error("timer task {} failed", m_task, e);
+            }
+        }
+    }
+
+    /**
+     * Singleton pattern instance() method. Starts the wheel thread
+     * on first use.
+     *
+     * @return the timer wheel instance
+     */
+    public static synchronized TimerWheel s_instance() {
+        if (s_instance == null) {
+            s_instance = new TimerWheel();
+            s_instance.start();
+        }
+        return (s_instance);
+    }
+
+    /**
+     * Stops the wheel thread. All scheduled tasks are dropped.
+     */
+    public static synchronized void s_destroyInstance() {
+        if (s_instance != null) {
+            s_instance.stop();
+            s_instance = null;
+        }
+    }
+}
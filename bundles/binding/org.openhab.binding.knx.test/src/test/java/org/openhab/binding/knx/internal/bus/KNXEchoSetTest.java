@@ -0,0 +1,72 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.bus;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.StringType;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class KNXEchoSetTest {
+
+    @Test
+    public void testRemoveOnce() {
+        KNXEchoSet echoSet = new KNXEchoSet();
+        echoSet.add("item1", OnOffType.ON);
+        echoSet.add("item1", OnOffType.ON);
+
+        assertFalse(echoSet.remove("item1", OnOffType.OFF));
+        assertFalse(echoSet.remove("item2", OnOffType.ON));
+        assertTrue(echoSet.remove("item1", OnOffType.ON));
+        assertTrue(echoSet.remove("item1", OnOffType.ON));
+        assertFalse(echoSet.remove("item1", OnOffType.ON));
+        assertEquals(0, echoSet.size());
+    }
+
+    @Test
+    public void testMatchByValue() {
+        KNXEchoSet echoSet = new KNXEchoSet();
+        echoSet.add("item1", new DecimalType(21));
+        echoSet.add("item2", OnOffType.ON);
+
+        assertTrue(echoSet.remove("item1", new DecimalType(21)));
+        assertTrue(echoSet.remove("item2", new StringType("ON")));
+    }
+
+    @Test
+    public void testCapacity() {
+        KNXEchoSet echoSet = new KNXEchoSet(2, 60000);
+        echoSet.add("item1", OnOffType.ON);
+        echoSet.add("item2", OnOffType.ON);
+        echoSet.add("item3", OnOffType.ON);
+
+        assertEquals(2, echoSet.size());
+        assertFalse(echoSet.remove("item1", OnOffType.ON));
+        assertTrue(echoSet.remove("item2", OnOffType.ON));
+        assertTrue(echoSet.remove("item3", OnOffType.ON));
+    }
+
+    @Test
+    public void testExpiry() throws InterruptedException {
+        KNXEchoSet echoSet = new KNXEchoSet(10, 50);
+        echoSet.add("item1", OnOffType.ON);
+        Thread.sleep(100);
+        echoSet.add("item2", OnOffType.ON);
+
+        assertEquals(1, echoSet.size());
+        assertFalse(echoSet.remove("item1", OnOffType.ON));
+        assertTrue(echoSet.remove("item2", OnOffType.ON));
+    }
+}
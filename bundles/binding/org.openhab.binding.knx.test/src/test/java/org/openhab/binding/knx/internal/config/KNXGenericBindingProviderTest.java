@@ -111,6 +111,35 @@ public class KNXGenericBindingProviderTest {
         assertEquals(false, provider.isCommandGA(new GroupAddress("4/2/12")));
     }
 
+    @Test
+    public void testGetListeningItemNames() throws BindingConfigParseException, KNXFormatException {
+
+        provider.processBindingConfiguration("text", item1, "<4/2/10+0/2/10, 5.005:4/2/11+0/2/11, +4/2/12, 4/2/13");
+        provider.processBindingConfiguration("text", item2, "4/2/10, 5.005:4/2/20+0/2/11");
+
+        // method under Test
+        List<String> itemNames = new ArrayList<String>();
+        for (String itemName : provider.getListeningItemNames(new GroupAddress("0/2/11"))) {
+            itemNames.add(itemName);
+        }
+        assertEquals(2, itemNames.size());
+        assertTrue(itemNames.contains("item1"));
+        assertTrue(itemNames.contains("item2"));
+
+        assertEquals("item2", provider.getListeningItemNames(new GroupAddress("4/2/20")).iterator().next());
+        assertEquals(false, provider.getListeningItemNames(new GroupAddress("1/1/1")).iterator().hasNext());
+
+        Iterator<Datapoint> datapoints = provider.getDatapoints("item1", new GroupAddress("0/2/11")).iterator();
+        assertEquals(true, datapoints.hasNext());
+        assertEquals(new GroupAddress("4/2/11"), datapoints.next().getMainAddress());
+        assertEquals(false, datapoints.hasNext());
+
+        // a changed binding replaces the old group addresses
+        provider.processBindingConfiguration("text", item2, "4/2/30");
+        assertEquals(false, provider.getListeningItemNames(new GroupAddress("4/2/20")).iterator().hasNext());
+        assertEquals("item2", provider.getListeningItemNames(new GroupAddress("4/2/30")).iterator().next());
+    }
+
     @Test
     public void testReadFlagWithDPT() throws BindingConfigParseException, KNXFormatException {
 
@@ -10,7 +10,6 @@ package org.openhab.binding.knx.internal.bus;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -60,7 +59,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
     /**
      * used to store events that we have sent ourselves; we need to remember them for not reacting to them
      */
-    private List<String> ignoreEventList = Collections.synchronizedList(new ArrayList<String>());
+    private KNXEchoSet ignoreEventList = new KNXEchoSet();
 
     private KNXBusReaderScheduler mKNXBusReaderScheduler = new KNXBusReaderScheduler();
 
@@ -82,6 +81,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
         }
         providers.clear();
         mKNXBusReaderScheduler.stop();
+        ignoreEventList.clear();
         KNXConnection.disconnect();
     }
 
@@ -122,8 +122,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
     }
 
     private boolean isEcho(String itemName, Type type) {
-        String ignoreEventListKey = itemName + type.toString();
-        if (ignoreEventList.remove(ignoreEventListKey)) {
+        if (ignoreEventList.remove(itemName, type)) {
             logger.trace(
                     "We received this event (item='{}', state='{}') from KNX, so we don't send it back again -> ignore!",
                     itemName, type.toString());
@@ -222,7 +221,7 @@ public class KNXBinding extends AbstractBinding<KNXBindingProvider>implements Pr
                         if (type != null) {
                             // we need to make sure that we won't send out this event to
                             // the knx bus again, when receiving it on the openHAB bus
-                            ignoreEventList.add(itemName + type.toString());
+                            ignoreEventList.add(itemName, type);
                             logger.trace("Added event (item='{}', type='{}') to the ignore event list", itemName,
                                     type.toString());
 
@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.knx.internal.bus;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.openhab.core.types.Type;
+
+/**
+ * Remembers the events that the binding has received from KNX and posted to the openHAB event bus, so that they are
+ * not sent back to KNX when they come back from the event bus.
+ *
+ * The events are stored per item, so that a lookup only has to compare the few events of one item. The set is
+ * bounded: if it is full, the oldest event is dropped. Events that did not come back within the expiry time are
+ * dropped as well.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class KNXEchoSet {
+
+    /** the default maximum number of remembered events */
+    public static final int DEFAULT_CAPACITY = 10000;
+
+    /** the default time in milliseconds after which a remembered event is dropped */
+    public static final long DEFAULT_EXPIRY = 30000;
+
+    private final int capacity;
+    private final long expiry;
+
+    /** the remembered events by item name */
+    private final Map<String, ArrayDeque<Echo>> echosByItem = new HashMap<String, ArrayDeque<Echo>>();
+
+    /** all remembered events in the order they have been added, including the ones already consumed */
+    private final ArrayDeque<Echo> echos = new ArrayDeque<Echo>();
+
+    private int size = 0;
+
+    public KNXEchoSet() {
+        this(DEFAULT_CAPACITY, DEFAULT_EXPIRY);
+    }
+
+    public KNXEchoSet(int capacity, long expiry) {
+        this.capacity = Math.max(capacity, 1);
+        this.expiry = expiry;
+    }
+
+    /**
+     * Remembers an event that has been received from KNX.
+     *
+     * @param itemName the name of the item the event has been posted to
+     * @param type the command or state that has been posted
+     */
+    public synchronized void add(String itemName, Type type) {
+        long now = System.currentTimeMillis();
+        removeExpired(now);
+        while (size >= capacity) {
+            removeOldest();
+        }
+
+        Echo echo = new Echo(itemName, type, now + expiry);
+        ArrayDeque<Echo> itemEchos = echosByItem.get(itemName);
+        if (itemEchos == null) {
+            itemEchos = new ArrayDeque<Echo>(2);
+            echosByItem.put(itemName, itemEchos);
+        }
+        itemEchos.addLast(echo);
+        echos.addLast(echo);
+        size++;
+    }
+
+    /**
+     * Checks whether the given event has been received from KNX and forgets about it.
+     *
+     * @param itemName the name of the item the event has been received for
+     * @param type the command or state that has been received
+     * @return true, if the event has been received from KNX
+     */
+    public synchronized boolean remove(String itemName, Type type) {
+        removeExpired(System.currentTimeMillis());
+
+        ArrayDeque<Echo> itemEchos = echosByItem.get(itemName);
+        if (itemEchos == null) {
+            return false;
+        }
+        for (Echo echo : itemEchos) {
+            if (echo.matches(type)) {
+                itemEchos.remove(echo);
+                if (itemEchos.isEmpty()) {
+                    echosByItem.remove(itemName);
+                }
+                echo.consumed = true;
+                size--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of remembered events
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Forgets all remembered events.
+     */
+    public synchronized void clear() {
+        echosByItem.clear();
+        echos.clear();
+        size = 0;
+    }
+
+    private void removeExpired(long now) {
+        Echo oldest;
+        while ((oldest = echos.peekFirst()) != null && (oldest.consumed || oldest.expires <= now)) {
+            removeOldest();
+        }
+    }
+
+    private void removeOldest() {
+        Echo oldest = echos.pollFirst();
+        if (oldest == null || oldest.consumed) {
+            return;
+        }
+        // the events of an item are in the same order as all events, so the oldest one is the first of its item
+        ArrayDeque<Echo> itemEchos = echosByItem.get(oldest.itemName);
+        itemEchos.pollFirst();
+        if (itemEchos.isEmpty()) {
+            echosByItem.remove(oldest.itemName);
+        }
+        size--;
+    }
+
+    private static class Echo {
+        private final String itemName;
+        private final Type type;
+        private final long expires;
+        private boolean consumed = false;
+
+        Echo(String itemName, Type type, long expires) {
+            this.itemName = itemName;
+            this.type = type;
+            this.expires = expires;
+        }
+
+        boolean matches(Type other) {
+            // the string comparison covers types of different classes with the same value
+            return type.equals(other) || type.toString().equals(other.toString());
+        }
+    }
+}
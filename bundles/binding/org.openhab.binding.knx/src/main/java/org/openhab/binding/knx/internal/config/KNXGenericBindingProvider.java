@@ -8,9 +8,13 @@
  */
 package org.openhab.binding.knx.internal.config;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
-import java.util.NoSuchElementException;
+import java.util.List;
+import java.util.Map;
 
 import org.openhab.binding.knx.config.KNXBindingProvider;
 import org.openhab.binding.knx.internal.dpt.KNXCoreTypeMapper;
@@ -28,7 +32,6 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Function;
 import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Lists;
 
 import tuwien.auto.calimero.GroupAddress;
 import tuwien.auto.calimero.datapoint.CommandDP;
@@ -99,6 +102,12 @@ public class KNXGenericBindingProvider extends AbstractGenericBindingProvider
     //Logger
     private static Logger logger = LoggerFactory.getLogger(KNXGenericBindingProvider.class);
 
+    /**
+     * the binding config items by group address, built lazily from the binding configs and discarded whenever the
+     * binding configs change
+     */
+    private volatile Map<GroupAddress, GroupAddressBinding> groupAddressIndex = null;
+
     /**
      * {@inheritDoc}
      */
@@ -131,112 +140,73 @@ public class KNXGenericBindingProvider extends AbstractGenericBindingProvider
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
-    public Iterable<Datapoint> getDatapoints(final String itemName, final GroupAddress groupAddress) {
+    protected void addBindingConfig(Item item, BindingConfig config) {
         synchronized (bindingConfigs) {
-            try {
-                Iterable<KNXBindingConfig> configList = Iterables.filter(Iterables.concat(bindingConfigs.values()),
-                        KNXBindingConfig.class);
-                Iterable<KNXBindingConfigItem> configItemList = Iterables.filter(Iterables.concat(configList),
-                        KNXBindingConfigItem.class);
-
-                Iterable<KNXBindingConfigItem> bindingConfigs = Iterables.filter(configItemList,
-                        new Predicate<KNXBindingConfigItem>() {
-                            @Override
-                            public boolean apply(KNXBindingConfigItem input) {
-                                return input.itemName.equals(itemName) && input.allDataPoints.contains(groupAddress);
-                            }
-                        });
+            groupAddressIndex = null;
+            super.addBindingConfig(item, config);
+            groupAddressIndex = null;
+        }
+    }
 
-                Iterable<Datapoint> datapoints = Iterables.transform(bindingConfigs,
-                        new Function<KNXBindingConfigItem, Datapoint>() {
-                            @Override
-                            public Datapoint apply(KNXBindingConfigItem configItem) {
-                                return configItem.mainDataPoint;
-                            }
-                        });
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void removeConfigurations(String context) {
+        synchronized (bindingConfigs) {
+            groupAddressIndex = null;
+            super.removeConfigurations(context);
+            groupAddressIndex = null;
+        }
+    }
 
-                return datapoints;
-            } catch (NoSuchElementException e) {
-                return null;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterable<Datapoint> getDatapoints(final String itemName, final GroupAddress groupAddress) {
+        GroupAddressBinding binding = getGroupAddressIndex().get(groupAddress);
+        if (binding == null) {
+            return Collections.emptyList();
+        }
+        List<Datapoint> datapoints = new ArrayList<Datapoint>(1);
+        for (KNXBindingConfigItem configItem : binding.configItems) {
+            if (configItem.itemName.equals(itemName)) {
+                datapoints.add(configItem.mainDataPoint);
             }
         }
+        return datapoints;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     public Iterable<Datapoint> getDatapoints(final String itemName, final Class<? extends Type> typeClass) {
-        synchronized (bindingConfigs) {
-            try {
-                Iterable<KNXBindingConfig> configList = Iterables.filter(Iterables.concat(bindingConfigs.values()),
-                        KNXBindingConfig.class);
-                Iterable<KNXBindingConfigItem> configItemList = Iterables.filter(Iterables.concat(configList),
-                        KNXBindingConfigItem.class);
-                Iterable<KNXBindingConfigItem> bindingConfigs = Iterables.filter(configItemList,
-                        new Predicate<KNXBindingConfigItem>() {
-                            @Override
-                            public boolean apply(KNXBindingConfigItem input) {
-                                if (input == null) {
-                                    return false;
-                                }
-                                if (input.itemName.equals(itemName)) {
-                                    Class<?> dptTypeClass = KNXCoreTypeMapper.toTypeClass(input.mainDataPoint.getDPT());
-                                    return dptTypeClass != null && dptTypeClass.equals(typeClass);
-                                }
-                                return false;
-                            }
-                        });
-
-                Iterable<Datapoint> datapoints = Iterables.transform(bindingConfigs,
-                        new Function<KNXBindingConfigItem, Datapoint>() {
-                            @Override
-                            public Datapoint apply(KNXBindingConfigItem configItem) {
-                                return configItem.mainDataPoint;
-                            }
-                        });
-
-                return Lists.newArrayList(datapoints);
-            } catch (NoSuchElementException e) {
-                // ignore and return null
-                return null;
+        BindingConfig config = bindingConfigs.get(itemName);
+        if (!(config instanceof KNXBindingConfig)) {
+            return Collections.emptyList();
+        }
+        List<Datapoint> datapoints = new ArrayList<Datapoint>();
+        for (KNXBindingConfigItem configItem : (KNXBindingConfig) config) {
+            Class<?> dptTypeClass = KNXCoreTypeMapper.toTypeClass(configItem.mainDataPoint.getDPT());
+            if (dptTypeClass != null && dptTypeClass.equals(typeClass)) {
+                datapoints.add(configItem.mainDataPoint);
             }
         }
+        return datapoints;
     }
 
     /**
      * {@inheritDoc}
      */
     @Override
-    @SuppressWarnings("unchecked")
     public Iterable<String> getListeningItemNames(final GroupAddress groupAddress) {
-        synchronized (bindingConfigs) {
-            Iterable<KNXBindingConfig> configList = Iterables.filter(Iterables.concat(bindingConfigs.values()),
-                    KNXBindingConfig.class);
-            Iterable<KNXBindingConfigItem> configItemList = Iterables.filter(Iterables.concat(configList),
-                    KNXBindingConfigItem.class);
-            Iterable<KNXBindingConfigItem> filteredBindingConfigs = Iterables.filter(configItemList,
-                    new Predicate<KNXBindingConfigItem>() {
-                        @Override
-                        public boolean apply(KNXBindingConfigItem input) {
-                            if (input == null) {
-                                return false;
-                            }
-                            return input.allDataPoints.contains(groupAddress);
-                        }
-                    });
-            return Iterables.transform(filteredBindingConfigs, new Function<KNXBindingConfigItem, String>() {
-                @Override
-                public String apply(KNXBindingConfigItem from) {
-                    if (from == null) {
-                        return null;
-                    }
-                    return from.itemName;
-                }
-            });
+        GroupAddressBinding binding = getGroupAddressIndex().get(groupAddress);
+        if (binding == null) {
+            return Collections.emptyList();
         }
+        return binding.itemNames;
     }
 
     /*
@@ -246,27 +216,8 @@ public class KNXGenericBindingProvider extends AbstractGenericBindingProvider
      */
     @Override
     public boolean isCommandGA(final GroupAddress groupAddress) {
-        synchronized (bindingConfigs) {
-            for (BindingConfig config : bindingConfigs.values()) {
-                KNXBindingConfig knxConfig = (KNXBindingConfig) config;
-                for (KNXBindingConfigItem configItem : knxConfig) {
-                    if (configItem.allDataPoints.contains(groupAddress)) {
-                        if (configItem.mainDataPoint instanceof CommandDP) {
-                            if (configItem.mainDataPoint.getMainAddress().equals(groupAddress)) {
-                                // the first GA in a CommandDP is always a command GA
-                                return true;
-                            } else {
-                                return false;
-                            }
-                        } else {
-                            // it is a StateDP, so the GA cannot be a command GA
-                            return false;
-                        }
-                    }
-                }
-            }
-        }
-        return false;
+        GroupAddressBinding binding = getGroupAddressIndex().get(groupAddress);
+        return binding != null && binding.commandGA;
     }
 
     /*
@@ -359,6 +310,47 @@ public class KNXGenericBindingProvider extends AbstractGenericBindingProvider
         return null;
     }
 
+    /**
+     * Returns the binding config items by group address. The index is built on the first call after the binding
+     * configs have changed, so telegrams can be dispatched without iterating over all binding configs.
+     *
+     * @return the binding config items by group address
+     */
+    private Map<GroupAddress, GroupAddressBinding> getGroupAddressIndex() {
+        Map<GroupAddress, GroupAddressBinding> index = groupAddressIndex;
+        if (index != null) {
+            return index;
+        }
+        synchronized (bindingConfigs) {
+            if (groupAddressIndex == null) {
+                index = new HashMap<GroupAddress, GroupAddressBinding>();
+                for (BindingConfig config : bindingConfigs.values()) {
+                    if (!(config instanceof KNXBindingConfig)) {
+                        continue;
+                    }
+                    for (KNXBindingConfigItem configItem : (KNXBindingConfig) config) {
+                        for (Object datapoint : configItem.allDataPoints.getDatapoints()) {
+                            GroupAddress groupAddress = ((Datapoint) datapoint).getMainAddress();
+                            GroupAddressBinding binding = index.get(groupAddress);
+                            if (binding == null) {
+                                // the first datapoint found for a group address decides whether it is a command GA
+                                binding = new GroupAddressBinding();
+                                binding.commandGA = configItem.mainDataPoint instanceof CommandDP
+                                        && configItem.mainDataPoint.getMainAddress().equals(groupAddress);
+                                index.put(groupAddress, binding);
+                            }
+                            binding.configItems.add(configItem);
+                            binding.itemNames.add(configItem.itemName);
+                        }
+                    }
+                }
+                groupAddressIndex = index;
+                logger.trace("Built group address index with {} group addresses", index.size());
+            }
+            return groupAddressIndex;
+        }
+    }
+
     /**
      * This is the main method that takes care of parsing a binding configuration
      * string for a given item. It returns a collection of {@link BindingConfig}
@@ -530,4 +522,16 @@ public class KNXGenericBindingProvider extends AbstractGenericBindingProvider
         public DatapointMap allDataPoints = new DatapointMap();
         public int autoRefreshInSecs = 0;
     }
+
+    /**
+     * This is an internal data structure to store all binding config items listening to one group address.
+     *
+     * @author agent
+     *
+     */
+    private static class GroupAddressBinding {
+        public List<KNXBindingConfigItem> configItems = new ArrayList<KNXBindingConfigItem>(1);
+        public List<String> itemNames = new ArrayList<String>(1);
+        public boolean commandGA;
+    }
 }
@@ -8,13 +8,11 @@
  */
 package org.openhab.binding.milight.internal;
 
-import java.net.DatagramPacket;
-import java.net.DatagramSocket;
-import java.net.InetAddress;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -63,6 +61,9 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
 
     protected Map<String, PercentType> dimmerState = new HashMap<String, PercentType>();
 
+    /** the senders by bridge id, they pace the packets for their bridge */
+    protected Map<String, MilightBridgeSender> bridgeSenders = new ConcurrentHashMap<String, MilightBridgeSender>();
+
     public MilightBinding() {
     }
 
@@ -72,6 +73,7 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
 
     @Override
     public void deactivate() {
+        shutdownBridgeSenders();
     }
 
     /**
@@ -92,200 +94,173 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
             int rgbwSteps = deviceConfig.getSteps();
             String bridgeId = deviceConfig.getDeviceId();
 
+            MilightBridgeSender sender = bridgeSenders.get(bridgeId);
+            if (sender == null) {
+                logger.warn("milight: no host configured for bridge '{}'", bridgeId);
+                return;
+            }
+            // the packets are queued and sent by the sender of the bridge
+            MilightSequence sequence = new MilightSequence(bulb);
+
             if (deviceConfig.getCommandType().equals(BindingType.brightness)) {
                 logger.debug("milight: item is of type brightness");
                 if (OnOffType.ON.equals(command)) {
-                    sendOn(bulb, bridgeId);
+                    sendOn(bulb, bridgeId, sequence);
                 } else if (OnOffType.OFF.equals(command)) {
-                    sendOff(bulb, bridgeId);
+                    sendOff(bulb, bridgeId, sequence);
                 }
                 if (IncreaseDecreaseType.INCREASE.equals(command)) {
-                    sendOn(bulb, bridgeId);
-                    Thread.sleep(100);
-                    PercentType newValue = sendIncrease(bulb, rgbwSteps, bridgeId);
+                    sendOn(bulb, bridgeId, sequence);
+                    PercentType newValue = sendIncrease(bulb, rgbwSteps, bridgeId, sequence);
                     eventPublisher.postUpdate(itemName, newValue);
                 } else if (IncreaseDecreaseType.DECREASE.equals(command)) {
-                    PercentType newValue = sendDecrease(bulb, rgbwSteps, bridgeId);
+                    PercentType newValue = sendDecrease(bulb, rgbwSteps, bridgeId, sequence);
                     eventPublisher.postUpdate(itemName, newValue);
                 } else if (command instanceof PercentType) {
                     logger.debug("milight: command is of type PercentType");
-                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.brightness);
+                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.brightness, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.nightMode)) {
                 logger.debug("milight: item is of type nightMode");
                 if (OnOffType.ON.equals(command)) {
-                    sendNightMode(bulb, bridgeId);
+                    sendNightMode(bulb, bridgeId, sequence);
                 }
                 if (OnOffType.OFF.equals(command)) {
-                    sendOff(bulb, bridgeId);
+                    sendOff(bulb, bridgeId, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.whiteMode)) {
                 logger.debug("milight: item is of type whiteMode");
                 if (OnOffType.ON.equals(command)) {
-                    sendOn(bulb, bridgeId);
-                    Thread.sleep(100);
-                    sendWhiteMode(bulb, bridgeId);
+                    sendOn(bulb, bridgeId, sequence);
+                    sendWhiteMode(bulb, bridgeId, sequence);
                 }
                 if (OnOffType.OFF.equals(command)) {
-                    sendOff(bulb, bridgeId);
+                    sendOff(bulb, bridgeId, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.colorTemperature)) {
                 logger.debug("milight: item is of type warm/cold white");
                 if (OnOffType.ON.equals(command)) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, PercentType.HUNDRED, BindingType.colorTemperature);
+                    sendPercent(bulb, rgbwSteps, bridgeId, PercentType.HUNDRED, BindingType.colorTemperature, sequence);
                 } else if (OnOffType.OFF.equals(command)) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, PercentType.ZERO, BindingType.colorTemperature);
+                    sendPercent(bulb, rgbwSteps, bridgeId, PercentType.ZERO, BindingType.colorTemperature, sequence);
                 } else if (IncreaseDecreaseType.INCREASE.equals(command)) {
-                    PercentType newValue = sendWarmer(bulb, bridgeId);
+                    PercentType newValue = sendWarmer(bulb, bridgeId, sequence);
                     eventPublisher.postUpdate(itemName, newValue);
                 } else if (IncreaseDecreaseType.DECREASE.equals(command)) {
-                    PercentType newValue = sendCooler(bulb, bridgeId);
+                    PercentType newValue = sendCooler(bulb, bridgeId, sequence);
                     eventPublisher.postUpdate(itemName, newValue);
                 } else if (command instanceof PercentType) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.colorTemperature);
+                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command,
+                            BindingType.colorTemperature, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.discoMode)) {
                 logger.debug("milight: item is of type discoMode");
                 if (IncreaseDecreaseType.INCREASE.equals(command)) {
-                    sendDiscoModeUp(bulb, bridgeId);
+                    sendDiscoModeUp(bulb, bridgeId, sequence);
                 } else if (IncreaseDecreaseType.DECREASE.equals(command)) {
-                    sendDiscoModeDown(bulb, bridgeId);
+                    sendDiscoModeDown(bulb, bridgeId, sequence);
                 } else if (command instanceof PercentType) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.discoMode);
+                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.discoMode, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.discoSpeed)) {
                 logger.debug("milight: item is of type discoSpeed");
                 if (IncreaseDecreaseType.INCREASE.equals(command)) {
-                    sendOn(bulb, bridgeId);
-                    Thread.sleep(100);
-                    sendIncreaseSpeed(bulb, bridgeId);
+                    sendOn(bulb, bridgeId, sequence);
+                    sendIncreaseSpeed(bulb, bridgeId, sequence);
                 } else if (IncreaseDecreaseType.DECREASE.equals(command)) {
-                    sendOn(bulb, bridgeId);
-                    Thread.sleep(100);
-                    sendDecreaseSpeed(bulb, bridgeId);
+                    sendOn(bulb, bridgeId, sequence);
+                    sendDecreaseSpeed(bulb, bridgeId, sequence);
                 } else if (command instanceof PercentType) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.discoSpeed);
+                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.discoSpeed, sequence);
                 }
             } else if (deviceConfig.getCommandType().equals(BindingType.rgb)) {
                 logger.debug("milight: item is of type rgb");
                 if (command instanceof HSBType) {
                     HSBType hsbCommand = (HSBType) command;
                     DecimalType saturation = hsbCommand.getSaturation();
+                    sequence.setSupersededType(BindingType.rgb);
                     if (saturation.equals(0)) {
-                        sendOn(bulb, bridgeId);
-                        Thread.sleep(100);
-                        sendWhiteMode(bulb, bridgeId);
+                        sendOn(bulb, bridgeId, sequence);
+                        sendWhiteMode(bulb, bridgeId, sequence);
                     } else {
-                        sendColor(command, bridgeId, bulb);
+                        sendColor(command, bridgeId, bulb, sequence);
                     }
                 } else if (command instanceof PercentType) {
-                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.brightness);
+                    sendPercent(bulb, rgbwSteps, bridgeId, (PercentType) command, BindingType.brightness, sequence);
                 }
             }
+
+            sender.send(sequence);
         } catch (Exception e) {
             logger.error("milight: Failed to send {} command ", deviceConfig.getCommandType(), e);
         }
     }
 
     private void sendPercent(int bulb, int rgbwSteps, String bridgeId, PercentType command,
-            MilightBindingConfig.BindingType type) {
+            MilightBindingConfig.BindingType type, MilightSequence sequence) {
         logger.debug("milight: sendPercent");
         if (BindingType.brightness.equals(type) && command.equals(PercentType.ZERO)) {
-            sendOff(bulb, bridgeId);
+            sendOff(bulb, bridgeId, sequence);
             return;
         }
         if (BindingType.brightness.equals(type) && command.equals(PercentType.HUNDRED)) {
-            sendFull(bulb, rgbwSteps, bridgeId);
+            sendFull(bulb, rgbwSteps, bridgeId, sequence);
             return;
         }
         PercentType oldPercent = getCurrentState(bulb, bridgeId, type);
 
+        // A newer value replaces this one if it has not been sent yet
+        sequence.setSupersededType(type);
         // Make sure lights are on and engage current bulb via a preceding ON command:
-        sendOn(bulb, bridgeId);
-        try {
-            // White Bulbs: 10 levels of brightness + Off.
-            if (bulb < 5) {
-                double stepSize = 9.090909090909091;
+        sendOn(bulb, bridgeId, sequence);
+        // White Bulbs: 10 levels of brightness + Off.
+        if (bulb < 5) {
+            double stepSize = 9.090909090909091;
 
-                // Assume lowest brightness level (about 9%) if just powered on.
-                if (oldPercent.equals(PercentType.ZERO)) {
-                    oldPercent = new PercentType(9);
-                }
+            // Assume lowest brightness level (about 9%) if just powered on.
+            if (oldPercent.equals(PercentType.ZERO)) {
+                oldPercent = new PercentType(9);
+            }
 
-                int repeatCount = Math.abs((int) Math.round(command.intValue() / stepSize)
-                        - (int) Math.round(oldPercent.intValue() / stepSize));
-                logger.debug("milight: dim from '{}' with command '{}' via '{}' steps.", oldPercent.toString(),
-                        command.toString(), repeatCount);
-                if (command.compareTo(oldPercent) > 0) {
-                    for (int i = 0; i < repeatCount; i++) {
-                        Thread.sleep(100);
-                        if (BindingType.brightness.equals(type)) {
-                            sendIncrease(bulb, rgbwSteps, bridgeId);
-                        } else if (BindingType.colorTemperature.equals(type)) {
-                            sendWarmer(bulb, bridgeId);
-                        }
-                    }
-                } else if (command.compareTo(oldPercent) < 0) {
-                    for (int i = 0; i < repeatCount; i++) {
-                        Thread.sleep(100);
-                        if (BindingType.brightness.equals(type)) {
-                            sendDecrease(bulb, rgbwSteps, bridgeId);
-                        } else if (BindingType.colorTemperature.equals(type)) {
-                            sendCooler(bulb, bridgeId);
-                        }
-                    }
-                }
-                // Old RGB Bulbs: 9 levels of brightness + Off.
-            } else if (bulb == 5) {
-                if (command.compareTo(oldPercent) > 0) {
-                    int repeatCount = (command.intValue() - oldPercent.intValue()) / 10;
-                    for (int i = 0; i < repeatCount; i++) {
-                        Thread.sleep(100);
-                        if (BindingType.brightness.equals(type) && bulb < 6) {
-                            sendIncrease(bulb, rgbwSteps, bridgeId);
-                        } else if (BindingType.colorTemperature.equals(type)) {
-                            sendWarmer(bulb, bridgeId);
-                        } else if (BindingType.discoSpeed.equals(type)) {
-
-                            sendIncreaseSpeed(bulb, bridgeId);
-                        } else if (BindingType.discoMode.equals(type)) {
-                            sendDiscoModeUp(bulb, bridgeId);
-                        }
-                    }
-                } else if (command.compareTo(oldPercent) < 0) {
-                    int repeatCount = (oldPercent.intValue() - command.intValue()) / 10;
-                    for (int i = 0; i < repeatCount; i++) {
-                        Thread.sleep(100);
-                        if (BindingType.brightness.equals(type) && bulb < 6) {
-                            sendDecrease(bulb, rgbwSteps, bridgeId);
-                        } else if (BindingType.colorTemperature.equals(type)) {
-                            sendCooler(bulb, bridgeId);
-                        } else if (BindingType.discoSpeed.equals(type)) {
-                            sendDecreaseSpeed(bulb, bridgeId);
-                        } else if (BindingType.discoMode.equals(type)) {
-                            sendDiscoModeDown(bulb, bridgeId);
-                        }
-                    }
-                }
-                // RGBW Bulbs:
-            } else if (bulb > 5) {
-                if (command.intValue() > 0 && command.intValue() < 100) {
-                    int newCommand = (command.intValue() * (rgbwSteps - 2) / 100 + 2);
-                    Thread.sleep(100);
-                    String messageBytes = "4E:" + Integer.toHexString(newCommand) + ":55";
-                    logger.debug("milight: send dimming packet '{}' to RGBW bulb channel '{}'", messageBytes, bulb);
-                    sendMessage(messageBytes, bridgeId);
-                } else if (command.intValue() > 99) {
-                    sendFull(bulb, rgbwSteps, bridgeId);
-                } else if (command.intValue() < 1) {
-                    sendOff(bulb, bridgeId);
-                }
+            int repeatCount = Math.abs((int) Math.round(command.intValue() / stepSize)
+                    - (int) Math.round(oldPercent.intValue() / stepSize));
+            logger.debug("milight: dim from '{}' with command '{}' via '{}' steps.", oldPercent.toString(),
+                    command.toString(), repeatCount);
+            if (command.compareTo(oldPercent) < 0) {
+                repeatCount = -repeatCount;
+            }
+            if (BindingType.brightness.equals(type)) {
+                sequence.addSteps("3C:00:55", "34:00:55", repeatCount);
+            } else if (BindingType.colorTemperature.equals(type)) {
+                sequence.addSteps("3E:00:55", "3F:00:55", repeatCount);
+            }
+            // Old RGB Bulbs: 9 levels of brightness + Off.
+        } else if (bulb == 5) {
+            int repeatCount = (command.intValue() - oldPercent.intValue()) / 10;
+            if (BindingType.brightness.equals(type)) {
+                sequence.addSteps("23:00:55", "24:00:55", repeatCount);
+            } else if (BindingType.colorTemperature.equals(type)) {
+                sequence.addSteps("3E:00:55", "3F:00:55", repeatCount);
+            } else if (BindingType.discoSpeed.equals(type)) {
+                sequence.addSteps("25:00:55", "26:00:55", repeatCount);
+            } else if (BindingType.discoMode.equals(type)) {
+                sequence.addSteps("27:00:55", "28:00:55", repeatCount);
+            }
+            // RGBW Bulbs:
+        } else if (bulb > 5) {
+            if (command.intValue() > 0 && command.intValue() < 100) {
+                int newCommand = (command.intValue() * (rgbwSteps - 2) / 100 + 2);
+                String messageBytes = "4E:" + Integer.toHexString(newCommand) + ":55";
+                logger.debug("milight: send dimming packet '{}' to RGBW bulb channel '{}'", messageBytes, bulb);
+                sequence.add(messageBytes);
+            } else if (command.intValue() > 99) {
+                sendFull(bulb, rgbwSteps, bridgeId, sequence);
+            } else if (command.intValue() < 1) {
+                sendOff(bulb, bridgeId, sequence);
             }
-            // store dimmerValue
-            setCurrentState(bulb, bridgeId, command, type);
-        } catch (InterruptedException e) {
-            logger.debug("Sleeping thread has been interrupted.");
         }
+        // store dimmerValue
+        setCurrentState(bulb, bridgeId, command, type);
     }
 
     private PercentType getCurrentState(int bulb, String bridgeId, BindingType type) {
@@ -300,7 +275,7 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         dimmerState.put(bridgeId + bulb + type, command);
     }
 
-    private PercentType sendIncrease(int bulb, int rgbwSteps, String bridgeId) {
+    private PercentType sendIncrease(int bulb, int rgbwSteps, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendIncrease");
         String messageBytes = null;
         switch (bulb) {
@@ -319,11 +294,7 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         }
         int currentPercent = getCurrentState(bulb, bridgeId, BindingType.brightness).intValue();
         if (currentPercent == 0) {
-            try {
-                sendOn(bulb, bridgeId);
-                Thread.sleep(100);
-            } catch (InterruptedException e) {
-            }
+            sendOn(bulb, bridgeId, sequence);
         }
         int newPercent = currentPercent + 10;
         if (newPercent > 100) {
@@ -341,12 +312,12 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
             newValue = new PercentType(newPercent);
             logger.debug("milight: Bulb '{}' getting increased to '{}'", bulb, newPercent);
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
         setCurrentState(bulb, bridgeId, newValue, BindingType.brightness);
         return newValue;
     }
 
-    private PercentType sendDecrease(int bulb, int rgbwSteps, String bridgeId) {
+    private PercentType sendDecrease(int bulb, int rgbwSteps, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendDecrease");
         String messageBytes = null;
         switch (bulb) {
@@ -369,7 +340,7 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         }
         PercentType newValue = new PercentType(newPercent);
         if (newValue.equals(PercentType.ZERO)) {
-            sendOff(bulb, bridgeId);
+            sendOff(bulb, bridgeId, sequence);
         } else {
             if (bulb > 5) {
                 int decreasePercent = newPercent * (rgbwSteps - 2) / 100 + 2;
@@ -382,13 +353,13 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 newValue = new PercentType(newPercent);
                 logger.debug("milight: Bulb '{}' getting decreased to '{}'", bulb, newPercent);
             }
-            sendMessage(messageBytes, bridgeId);
+            sequence.add(messageBytes);
         }
         setCurrentState(bulb, bridgeId, newValue, BindingType.brightness);
         return newValue;
     }
 
-    private PercentType sendWarmer(int bulb, String bridgeId) {
+    private PercentType sendWarmer(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendWarmer");
         int newPercent = getCurrentState(bulb, bridgeId, BindingType.brightness).intValue() + 10;
         if (newPercent > 100) {
@@ -396,12 +367,12 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         }
         PercentType newValue = new PercentType(newPercent);
         String messageBytes = "3E:00:55";
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
         setCurrentState(bulb, bridgeId, newValue, BindingType.brightness);
         return newValue;
     }
 
-    private PercentType sendCooler(int bulb, String bridgeId) {
+    private PercentType sendCooler(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendCooler");
         int newPercent = getCurrentState(bulb, bridgeId, BindingType.brightness).intValue() - 10;
         if (newPercent < 0) {
@@ -409,30 +380,30 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         }
         PercentType newValue = new PercentType(newPercent);
         String messageBytes = "3F:00:55";
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
         setCurrentState(bulb, bridgeId, newValue, BindingType.brightness);
         return newValue;
     }
 
-    private void sendDiscoModeUp(int bulb, String bridgeId) {
+    private void sendDiscoModeUp(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendDiscoModeUp");
         if (bulb < 6) {
             String messageBytes = "27:00:55";
-            sendMessage(messageBytes, bridgeId);
+            sequence.add(messageBytes);
         }
         if (bulb > 5) {
             String messageBytes = "4D:00:55";
-            sendMessage(messageBytes, bridgeId);
+            sequence.add(messageBytes);
         }
     }
 
-    private void sendDiscoModeDown(int bulb, String bridgeId) {
+    private void sendDiscoModeDown(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendDiscoModeDown");
         String messageBytes = "28:00:55";
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
     }
 
-    private void sendIncreaseSpeed(int bulb, String bridgeId) {
+    private void sendIncreaseSpeed(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendIncreaseSpeed");
         String messageBytes = null;
         switch (bulb) {
@@ -449,10 +420,10 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 messageBytes = "44:00:55";
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
     }
 
-    private void sendDecreaseSpeed(int bulb, String bridgeId) {
+    private void sendDecreaseSpeed(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendDecreaseSpeed");
         String messageBytes = null;
         switch (bulb) {
@@ -469,10 +440,10 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 messageBytes = "43:00:55";
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
     }
 
-    private void sendNightMode(int bulb, String bridgeId) {
+    private void sendNightMode(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendNightMode");
         String messageBytes = null;
         String messageBytes2 = null;
@@ -523,21 +494,16 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 messageBytes2 = "CC:00:55";
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
 
         // nightMode for RGBW bulbs requires second message 100ms later.
         if (bulb >= 6 && bulb <= 10) {
-            try {
-                Thread.sleep(100);
-                sendMessage(messageBytes2, bridgeId);
-            } catch (InterruptedException e) {
-                logger.debug("Sleeping thread has been interrupted.");
-            }
+            sequence.add(messageBytes2);
         }
 
     }
 
-    private void sendWhiteMode(int bulb, String bridgeId) {
+    private void sendWhiteMode(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendWhiteMode");
         String messageBytes = null;
         switch (bulb) {
@@ -562,10 +528,10 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 messageBytes = "CB:00:55";
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
     }
 
-    private void sendFull(int bulb, int rgbwSteps, String bridgeId) {
+    private void sendFull(int bulb, int rgbwSteps, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendFull");
         String messageBytes = null;
         switch (bulb) {
@@ -594,21 +560,17 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
             case 8:
             case 9:
             case 10:
-                try {
-                    sendOn(bulb, bridgeId);
-                    Thread.sleep(100);
-                    messageBytes = "4E:" + Integer.toHexString(rgbwSteps) + ":55";
-                    logger.debug("Bulb '{}' set to '{}' dimming Steps", bulb, rgbwSteps);
-                } catch (InterruptedException e) {
-                    logger.debug("Sleeping thread has been interrupted.");
-                }
+                sendOn(bulb, bridgeId, sequence);
+                messageBytes = "4E:" + Integer.toHexString(rgbwSteps) + ":55";
+                logger.debug("Bulb '{}' set to '{}' dimming Steps", bulb, rgbwSteps);
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.setSupersededType(BindingType.brightness);
+        sequence.add(messageBytes);
         setCurrentState(bulb, bridgeId, PercentType.HUNDRED, BindingType.brightness);
     }
 
-    private void sendOn(int bulb, String bridgeId) {
+    private void sendOn(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendOn");
         String messageBytes = null;
         switch (bulb) {
@@ -657,10 +619,10 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                 messageBytes = "4B:00:55";
                 break;
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.add(messageBytes);
     }
 
-    private void sendOff(int bulb, String bridgeId) {
+    private void sendOff(int bulb, String bridgeId, MilightSequence sequence) {
         logger.debug("milight: sendOff");
         String messageBytes = null;
         switch (bulb) {
@@ -713,37 +675,29 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         if (bulb < 5) {
             setCurrentState(bulb, bridgeId, PercentType.HUNDRED, BindingType.brightness);
             for (int i = 0; i < 10; i++) {
-                sendDecrease(bulb, 27, bridgeId);
-                try {
-                    Thread.sleep(100);
-                } catch (InterruptedException e) {
-                }
+                sendDecrease(bulb, 27, bridgeId, sequence);
             }
         }
-        sendMessage(messageBytes, bridgeId);
+        sequence.setSupersededType(BindingType.brightness);
+        sequence.add(messageBytes);
         setCurrentState(bulb, bridgeId, PercentType.ZERO, BindingType.brightness);
     }
 
-    private void sendColor(Command command, String bridgeId, int bulb) {
+    private void sendColor(Command command, String bridgeId, int bulb, MilightSequence sequence) {
         logger.debug("milight: sendColor");
         HSBType hsbCommand = (HSBType) command;
         DecimalType hue = hsbCommand.getHue();
 
         // we have to map [0,360] to [0,0xFF], where red equals hue=0 and the milight color 0xB0 (=176)
         Integer milightColorNo = (256 + 176 - (int) (hue.floatValue() / 360.0 * 255.0)) % 256;
-        try {
-            if (bulb == 5) {
-                String messageBytes = "20:" + Integer.toHexString(milightColorNo) + ":55";
-                sendMessage(messageBytes, bridgeId);
-            }
-            if (bulb > 5) {
-                sendOn(bulb, bridgeId);
-                Thread.sleep(100);
-                String messageBytes = "40:" + Integer.toHexString(milightColorNo) + ":55";
-                sendMessage(messageBytes, bridgeId);
-            }
-        } catch (InterruptedException e) {
-            logger.debug("Sleeping thread has been interrupted.");
+        if (bulb == 5) {
+            String messageBytes = "20:" + Integer.toHexString(milightColorNo) + ":55";
+            sequence.add(messageBytes);
+        }
+        if (bulb > 5) {
+            sendOn(bulb, bridgeId, sequence);
+            String messageBytes = "40:" + Integer.toHexString(milightColorNo) + ":55";
+            sequence.add(messageBytes);
         }
     }
 
@@ -758,46 +712,6 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
         logger.debug("internalReceiveUpdate() is called!");
     }
 
-    protected void sendMessage(String messageBytes, String bridgeId) {
-
-        String bridgeIp = bridgeIpConfig.get(bridgeId);
-        Integer bridgePort = bridgePortConfig.get(bridgeId);
-
-        if (bridgePort == null) {
-            bridgePort = DEFAULT_PORT;
-        }
-
-        try {
-            byte[] buffer = getMessageBytes(messageBytes);
-
-            InetAddress IPAddress = InetAddress.getByName(bridgeIp);
-            DatagramPacket packet = new DatagramPacket(buffer, buffer.length, IPAddress, bridgePort);
-            DatagramSocket datagramSocket = new DatagramSocket();
-            datagramSocket.send(packet);
-            datagramSocket.close();
-            logger.debug("Sent packet '{}' to bridge '{}' ({}:{})",
-                    new Object[] { messageBytes, bridgeId, bridgeIp, bridgePort });
-        } catch (Exception e) {
-            logger.error("Failed to send Message to '{}': ", new Object[] { bridgeIp, e.getMessage() });
-        }
-    }
-
-    private byte[] getMessageBytes(String messageBytes) {
-        logger.debug("milight: messageBytes to transform: '{}'", messageBytes);
-        if (messageBytes == null) {
-            logger.error("messageBytes must not be null");
-        }
-
-        byte[] buffer = new byte[3];
-        String[] hex = messageBytes.split("(\\:|\\-)");
-
-        int hexIndex = 0;
-        for (hexIndex = 0; hexIndex < 3; hexIndex++) {
-            buffer[hexIndex] = (byte) Integer.parseInt(hex[hexIndex], 16);
-        }
-        return buffer;
-    }
-
     /**
      * Lookup of the configuration of the named item.
      *
@@ -871,7 +785,29 @@ public class MilightBinding extends AbstractBinding<MilightBindingProvider>imple
                     throw new ConfigurationException(configKey, "the given configKey '" + configKey + "' is unknown");
                 }
             }
+            updateBridgeSenders();
+        }
+    }
+
+    /**
+     * Creates a sender for every bridge with a configured host, the senders
+     * of the previous configuration are shut down.
+     */
+    private void updateBridgeSenders() {
+        shutdownBridgeSenders();
+        for (DeviceConfig deviceConfig : deviceConfigs.values()) {
+            if (deviceConfig.host != null) {
+                bridgeSenders.put(deviceConfig.deviceId,
+                        new MilightBridgeSender(deviceConfig.deviceId, deviceConfig.host, deviceConfig.port));
+            }
+        }
+    }
+
+    private void shutdownBridgeSenders() {
+        for (MilightBridgeSender sender : bridgeSenders.values()) {
+            sender.shutdown();
         }
+        bridgeSenders.clear();
     }
 
     /**
@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.milight.internal;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sends the packets for one Milight bridge. The bridge drops packets which
+ * arrive too fast, so the packets are sent one by one with a pause in
+ * between by a scheduler of its own, without blocking the caller. Every
+ * bridge has its own sender, so commands to different bridges are sent in
+ * parallel.
+ *
+ * A queued sequence which hasn't been started yet is replaced or merged with
+ * a newer sequence for the same value of the same bulb, see
+ * {@link MilightSequence}.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MilightBridgeSender {
+
+    private static final Logger logger = LoggerFactory.getLogger(MilightBridgeSender.class);
+
+    /** the pause the bridge needs between two packets */
+    private static final long PACKET_INTERVAL_IN_MS = 100;
+
+    private final String bridgeId;
+    private final String host;
+    private final int port;
+
+    private final ScheduledExecutorService scheduler;
+    private final LinkedList<MilightSequence> queue = new LinkedList<MilightSequence>();
+
+    private DatagramSocket socket;
+    private InetAddress address;
+
+    private Iterator<String> currentMessages;
+    private boolean sending = false;
+    private volatile boolean running = true;
+    private long lastSent = 0;
+
+    private final Runnable sendTask = new Runnable() {
+        @Override
+        public void run() {
+            sendNext();
+        }
+    };
+
+    public MilightBridgeSender(final String bridgeId, String host, int port) {
+        this.bridgeId = bridgeId;
+        this.host = host;
+        this.port = port;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "Milight bridge " + bridgeId);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Queues the packets of a sequence. Returns immediately, the packets are
+     * sent in the background.
+     */
+    public synchronized void send(MilightSequence sequence) {
+        if (!running || sequence.isEmpty()) {
+            return;
+        }
+        ListIterator<MilightSequence> it = queue.listIterator(queue.size());
+        while (it.hasPrevious()) {
+            MilightSequence queued = it.previous();
+            if (!queued.conflictsWith(sequence)) {
+                continue;
+            }
+            // only the latest queued sequence for the bulb may be replaced,
+            // otherwise the order of the commands would change
+            if (sequence.supersedes(queued)) {
+                if (sequence.hasSteps()) {
+                    queued.mergeSteps(sequence);
+                    logger.debug("milight: merged {} into queued sequence for bridge '{}'", sequence, bridgeId);
+                } else {
+                    it.set(sequence);
+                    logger.debug("milight: {} replaces queued {} for bridge '{}'",
+                            new Object[] { sequence, queued, bridgeId });
+                }
+                return;
+            }
+            break;
+        }
+        queue.add(sequence);
+        if (!sending) {
+            sending = true;
+            long delay = Math.max(0, lastSent + PACKET_INTERVAL_IN_MS - System.currentTimeMillis());
+            scheduler.schedule(sendTask, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Discards the queued packets and closes the socket.
+     */
+    public synchronized void shutdown() {
+        running = false;
+        queue.clear();
+        currentMessages = null;
+        scheduler.shutdownNow();
+        if (socket != null) {
+            socket.close();
+            socket = null;
+        }
+    }
+
+    private void sendNext() {
+        String messageBytes = null;
+        synchronized (this) {
+            while (running && (currentMessages == null || !currentMessages.hasNext())) {
+                MilightSequence next = queue.poll();
+                if (next == null) {
+                    currentMessages = null;
+                    break;
+                }
+                currentMessages = next.getMessages().iterator();
+            }
+            if (currentMessages == null) {
+                sending = false;
+                return;
+            }
+            messageBytes = currentMessages.next();
+        }
+
+        sendPacket(messageBytes);
+
+        synchronized (this) {
+            lastSent = System.currentTimeMillis();
+            if (running) {
+                scheduler.schedule(sendTask, PACKET_INTERVAL_IN_MS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    private void sendPacket(String messageBytes) {
+        try {
+            byte[] buffer = getMessageBytes(messageBytes);
+            DatagramPacket packet = new DatagramPacket(buffer, buffer.length, getAddress(), port);
+            getSocket().send(packet);
+            logger.debug("Sent packet '{}' to bridge '{}' ({}:{})",
+                    new Object[] { messageBytes, bridgeId, host, port });
+        } catch (IOException e) {
+            // resolve the host again with the next packet
+            address = null;
+            if (running) {
+                logger.error("Failed to send Message to '{}': {}", host, e.getMessage());
+            }
+        } catch (RuntimeException e) {
+            logger.error("Failed to send Message to '{}': {}", host, e.getMessage());
+        }
+    }
+
+    private InetAddress getAddress() throws IOException {
+        if (address == null) {
+            address = InetAddress.getByName(host);
+        }
+        return address;
+    }
+
+    private synchronized DatagramSocket getSocket() throws IOException {
+        if (!running) {
+            throw new IOException("the sender has been shut down");
+        }
+        if (socket == null) {
+            socket = new DatagramSocket();
+        }
+        return socket;
+    }
+
+    static byte[] getMessageBytes(String messageBytes) {
+        byte[] buffer = new byte[3];
+        String[] hex = messageBytes.split("(\\:|\\-)");
+
+        int hexIndex = 0;
+        for (hexIndex = 0; hexIndex < 3; hexIndex++) {
+            buffer[hexIndex] = (byte) Integer.parseInt(hex[hexIndex], 16);
+        }
+        return buffer;
+    }
+}
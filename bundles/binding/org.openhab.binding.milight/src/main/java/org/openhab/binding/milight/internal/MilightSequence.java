@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.milight.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.openhab.binding.milight.internal.MilightBindingConfig.BindingType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The packets which are sent to a bridge for one command. The packets of a
+ * sequence are sent one after another without packets of other sequences in
+ * between, as e.g. the brightness packets of white bulbs apply to the bulb
+ * which has been switched on last.
+ *
+ * A sequence which sets an absolute value replaces a queued sequence setting
+ * the same value of the same bulb. A sequence which dims step by step is
+ * merged with a queued one for the same value of the same bulb, so opposite
+ * steps cancel out.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MilightSequence {
+
+    private static final Logger logger = LoggerFactory.getLogger(MilightSequence.class);
+
+    private final int bulb;
+    private final List<String> messages = new ArrayList<String>();
+
+    private BindingType supersededType;
+
+    private String increaseMessage;
+    private String decreaseMessage;
+    private int steps;
+
+    /**
+     * @param bulb
+     *            the channel number of the bulb the packets are sent to
+     */
+    public MilightSequence(int bulb) {
+        this.bulb = bulb;
+    }
+
+    /**
+     * Appends a packet.
+     *
+     * @param messageBytes
+     *            the packet in the form <code>'4E:1B:55'</code>
+     */
+    public void add(String messageBytes) {
+        if (messageBytes == null) {
+            logger.error("messageBytes must not be null");
+            return;
+        }
+        messages.add(messageBytes);
+    }
+
+    /**
+     * Appends steps to increase or decrease a value. The steps are always sent
+     * after the packets added with {@link #add(String)}.
+     *
+     * @param increaseMessage
+     *            the packet for one step up
+     * @param decreaseMessage
+     *            the packet for one step down
+     * @param steps
+     *            the number of steps, negative for steps down
+     */
+    public void addSteps(String increaseMessage, String decreaseMessage, int steps) {
+        this.increaseMessage = increaseMessage;
+        this.decreaseMessage = decreaseMessage;
+        this.steps += steps;
+    }
+
+    /**
+     * Marks this sequence to set the given value of the bulb, so it replaces
+     * or is merged with a queued sequence setting the same value.
+     */
+    public void setSupersededType(BindingType type) {
+        this.supersededType = type;
+    }
+
+    public int getBulb() {
+        return bulb;
+    }
+
+    public boolean isEmpty() {
+        return messages.isEmpty() && steps == 0;
+    }
+
+    boolean hasSteps() {
+        return increaseMessage != null;
+    }
+
+    /**
+     * @return true if this sequence can replace or be merged into the given
+     *         queued sequence
+     */
+    boolean supersedes(MilightSequence queued) {
+        return supersededType != null && supersededType == queued.supersededType && bulb == queued.bulb
+                && (!hasSteps() || queued.hasSteps());
+    }
+
+    /**
+     * Adds the steps of a newer sequence for the same value to this one.
+     */
+    void mergeSteps(MilightSequence newer) {
+        addSteps(newer.increaseMessage, newer.decreaseMessage, newer.steps);
+    }
+
+    /**
+     * @return true if both sequences address the same bulb, or one addresses
+     *         all bulbs of the type of the other
+     */
+    boolean conflictsWith(MilightSequence other) {
+        if (bulb == other.bulb) {
+            return true;
+        }
+        return getBulbFamily(bulb) == getBulbFamily(other.bulb) && (isAllBulbs(bulb) || isAllBulbs(other.bulb));
+    }
+
+    /**
+     * @return the packets to send, including the steps
+     */
+    List<String> getMessages() {
+        if (steps == 0) {
+            return Collections.unmodifiableList(messages);
+        }
+        List<String> allMessages = new ArrayList<String>(messages);
+        String stepMessage = steps > 0 ? increaseMessage : decreaseMessage;
+        for (int i = 0; i < Math.abs(steps); i++) {
+            allMessages.add(stepMessage);
+        }
+        return allMessages;
+    }
+
+    private static int getBulbFamily(int bulb) {
+        // white bulbs 0 - 4, rgb bulbs 5, rgbw bulbs 6 - 10
+        if (bulb < 5) {
+            return 0;
+        }
+        return bulb == 5 ? 5 : 6;
+    }
+
+    private static boolean isAllBulbs(int bulb) {
+        return bulb == 0 || bulb == 6;
+    }
+
+    @Override
+    public String toString() {
+        return "MilightSequence [bulb=" + bulb + ", messages=" + getMessages() + "]";
+    }
+}
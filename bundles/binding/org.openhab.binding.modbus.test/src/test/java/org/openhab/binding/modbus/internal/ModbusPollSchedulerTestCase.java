@@ -0,0 +1,135 @@
+/**
+ * Copyright (c) 2010-2016, openHAB.org and others.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openhab.binding.modbus.ModbusBindingProvider;
+
+import net.wimpi.modbus.procimg.InputRegister;
+import net.wimpi.modbus.procimg.SimpleRegister;
+import net.wimpi.modbus.util.BitVector;
+
+public class ModbusPollSchedulerTestCase {
+
+    private static ModbusSlave newSlave(String name, String type, int id, int start, int length) {
+        ModbusSlave slave = new ModbusTcpSlave(name, null);
+        slave.setType(type);
+        slave.setId(id);
+        slave.setStart(start);
+        slave.setLength(length);
+        return slave;
+    }
+
+    private static ModbusSlave newCountingSlave(String host, final AtomicInteger updates) {
+        ModbusTcpSlave slave = new ModbusTcpSlave(host, null) {
+            @Override
+            public void update(ModbusBinding binding) {
+                updates.incrementAndGet();
+            }
+        };
+        slave.setHost(host);
+        return slave;
+    }
+
+    @Test
+    public void testPollEndpointsConcurrently() {
+        AtomicInteger updates = new AtomicInteger();
+        ModbusPollScheduler scheduler = new ModbusPollScheduler(2, false);
+
+        scheduler.poll(null, Arrays.asList(newCountingSlave("host1", updates), newCountingSlave("host2", updates)));
+        scheduler.shutdown();
+
+        Assert.assertEquals(2, updates.get());
+    }
+
+    @Test
+    public void testPollAfterShutdownDoesNothing() {
+        AtomicInteger updates = new AtomicInteger();
+        ModbusPollScheduler scheduler = new ModbusPollScheduler(2, false);
+        scheduler.shutdown();
+
+        scheduler.poll(null, Arrays.asList(newCountingSlave("host1", updates), newCountingSlave("host2", updates)));
+
+        Assert.assertEquals(0, updates.get());
+    }
+
+    @Test
+    public void testGroupOverlappingAndAdjacentReads() {
+        ModbusSlave s1 = newSlave("s1", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 10);
+        ModbusSlave s2 = newSlave("s2", ModbusBindingProvider.TYPE_HOLDING, 1, 10, 5);
+        ModbusSlave s3 = newSlave("s3", ModbusBindingProvider.TYPE_HOLDING, 1, 12, 2);
+        ModbusSlave s4 = newSlave("s4", ModbusBindingProvider.TYPE_HOLDING, 1, 20, 2);
+
+        List<List<ModbusSlave>> groups = ModbusPollScheduler.groupReads(Arrays.asList(s4, s3, s2, s1));
+
+        Assert.assertEquals(2, groups.size());
+        Assert.assertEquals(Arrays.asList(s1, s2, s3), groups.get(0));
+        Assert.assertEquals(Arrays.asList(s4), groups.get(1));
+    }
+
+    @Test
+    public void testDoNotGroupDifferentTypesOrIds() {
+        ModbusSlave s1 = newSlave("s1", ModbusBindingProvider.TYPE_HOLDING, 1, 0, 10);
+        ModbusSlave s2 = newSlave("s2", ModbusBindingProvider.TYPE_INPUT, 1, 10, 5);
+        ModbusSlave s3 = newSlave("s3", ModbusBindingProvider.TYPE_HOLDING, 2, 10, 5);
+
+        List<List<ModbusSlave>> groups = ModbusPollScheduler.groupReads(Arrays.asList(s1, s2, s3));
+
+        Assert.assertEquals(3, groups.size());
+    }
+
+    @Test
+    public void testGroupRespectsProtocolLimit() {
+        ModbusSlave s1 = newSlave("s1", ModbusBindingProvider.TYPE_INPUT, 1, 0, 100);
+        ModbusSlave s2 = newSlave("s2", ModbusBindingProvider.TYPE_INPUT, 1, 100, 30);
+        ModbusSlave c1 = newSlave("c1", ModbusBindingProvider.TYPE_COIL, 1, 0, 100);
+        ModbusSlave c2 = newSlave("c2", ModbusBindingProvider.TYPE_COIL, 1, 100, 30);
+
+        List<List<ModbusSlave>> groups = ModbusPollScheduler.groupReads(Arrays.asList(s1, s2, c1, c2));
+
+        Assert.assertEquals(3, groups.size());
+        Assert.assertEquals(Arrays.asList(c1, c2), groups.get(0));
+        Assert.assertEquals(Arrays.asList(s1), groups.get(1));
+        Assert.assertEquals(Arrays.asList(s2), groups.get(2));
+    }
+
+    @Test
+    public void testSliceRegisters() {
+        InputRegister[] registers = new InputRegister[] { new SimpleRegister(1), new SimpleRegister(2),
+                new SimpleRegister(3), new SimpleRegister(4) };
+
+        InputRegister[] slice = (InputRegister[]) ModbusPollScheduler.slice(registers, 1, 2);
+
+        Assert.assertEquals(2, slice.length);
+        Assert.assertEquals(2, slice[0].getValue());
+        Assert.assertEquals(3, slice[1].getValue());
+        Assert.assertNull(ModbusPollScheduler.slice(registers, 3, 2));
+    }
+
+    @Test
+    public void testSliceBits() {
+        BitVector bits = new BitVector(16);
+        bits.setBit(9, true);
+        bits.setBit(11, true);
+
+        BitVector slice = (BitVector) ModbusPollScheduler.slice(bits, 8, 4);
+
+        Assert.assertEquals(4, slice.size());
+        Assert.assertFalse(slice.getBit(0));
+        Assert.assertTrue(slice.getBit(1));
+        Assert.assertFalse(slice.getBit(2));
+        Assert.assertTrue(slice.getBit(3));
+        Assert.assertNull(ModbusPollScheduler.slice(bits, 14, 4));
+    }
+}
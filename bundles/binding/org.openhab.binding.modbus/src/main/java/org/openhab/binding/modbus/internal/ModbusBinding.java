@@ -154,6 +154,11 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
     /** slaves update interval in milliseconds */
     public static long pollInterval = DEFAULT_POLL_INTERVAL;
 
+    private static final int DEFAULT_POLL_THREADS = 5;
+
+    /** polls the slaves of different endpoints concurrently */
+    private volatile ModbusPollScheduler pollScheduler = new ModbusPollScheduler(DEFAULT_POLL_THREADS, false);
+
     @Override
     public void activate() {
     }
@@ -161,6 +166,7 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
     @Override
     public void deactivate() {
         clear();
+        pollScheduler.shutdown();
     }
 
     @Override
@@ -358,9 +364,16 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
         synchronized (slaves) {
             slaves.addAll(modbusSlaves.values());
         }
-        for (ModbusSlave slave : slaves) {
-            slave.update(this);
-        }
+        pollScheduler.poll(this, slaves);
+    }
+
+    /**
+     * Returns the poll cycle statistics of each endpoint
+     *
+     * @return statistics by endpoint
+     */
+    public Map<ModbusSlaveEndpoint, ModbusPollScheduler.EndpointStatistics> getPollStatistics() {
+        return pollScheduler.getStatistics();
     }
 
     /**
@@ -392,6 +405,8 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
             Enumeration<String> keys = config.keys();
             Map<String, EndpointPoolConfiguration> slavePoolConfigs = new HashMap<String, EndpointPoolConfiguration>();
             Map<ModbusSlaveEndpoint, EndpointPoolConfiguration> endpointPoolConfigs = new HashMap<ModbusSlaveEndpoint, EndpointPoolConfiguration>();
+            int pollThreads = DEFAULT_POLL_THREADS;
+            boolean coalesceReads = false;
             while (keys.hasMoreElements()) {
                 final String key = keys.nextElement();
                 final String value = (String) config.get(key);
@@ -408,6 +423,15 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
                             if (StringUtils.isNotBlank((String) config.get(key))) {
                                 pollInterval = Integer.valueOf((String) config.get(key));
                             }
+                        } else if ("pollthreads".equals(key)) {
+                            if (StringUtils.isNotBlank((String) config.get(key))) {
+                                pollThreads = Integer.valueOf((String) config.get(key));
+                                if (pollThreads < 1) {
+                                    throw new ConfigurationException(key, "pollthreads has to be at least 1");
+                                }
+                            }
+                        } else if ("coalescereads".equals(key)) {
+                            coalesceReads = Boolean.valueOf(config.get(key).toString());
                         } else if ("writemultipleregisters".equals(key)) {
                             // XXX: ugly to touch base class but kept here for backwards compat
                             // FIXME: should this be deprecated as introduced as slave specific parameter?
@@ -589,6 +613,9 @@ public class ModbusBinding extends AbstractActiveBinding<ModbusBindingProvider>i
                 endpointPoolConfigs.put(endpoint, poolConfiguration);
             }
             connectionFactory.applyEndpointPoolConfigs(endpointPoolConfigs);
+            ModbusPollScheduler oldScheduler = pollScheduler;
+            pollScheduler = new ModbusPollScheduler(pollThreads, coalesceReads);
+            oldScheduler.shutdown();
             logger.debug("Parsed the following slave->endpoint configurations: {}. If the endpoint is same, "
                     + "connections are shared between the instances.", slavePoolConfigs);
             logger.debug("Parsed the following pool configurations: {}", endpointPoolConfigs);
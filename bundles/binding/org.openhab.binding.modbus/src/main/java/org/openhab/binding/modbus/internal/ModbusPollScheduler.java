@@ -0,0 +1,386 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openhab.binding.modbus.ModbusBindingProvider;
+import org.openhab.binding.modbus.internal.pooling.ModbusSlaveEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import net.wimpi.modbus.procimg.InputRegister;
+import net.wimpi.modbus.util.BitVector;
+
+/**
+ * Polls the Modbus slaves, one task per endpoint (i.e. same ip:port pair or same serial device). The endpoints are
+ * polled concurrently, the slaves of one endpoint one after another, so that there is still only one transaction per
+ * endpoint at a time (which is also enforced by the connection pool).
+ *
+ * Optionally, slaves of one endpoint that read overlapping or adjacent ranges of the same type with the same unit id
+ * are read with a single request, as long as the combined range does not exceed the limit of the Modbus protocol.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ModbusPollScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModbusPollScheduler.class);
+
+    /** maximum number of registers that can be read with one request (FC03, FC04) */
+    private static final int MAX_REGISTERS_PER_READ = 125;
+
+    /** maximum number of coils or discrete inputs that can be read with one request (FC01, FC02) */
+    private static final int MAX_BITS_PER_READ = 2000;
+
+    /** interval in which the statistics of each endpoint are logged */
+    private static final long STATISTICS_LOG_INTERVAL_MILLIS = 60000;
+
+    private static final Comparator<ModbusSlave> SLAVE_ORDER = new Comparator<ModbusSlave>() {
+        @Override
+        public int compare(ModbusSlave s1, ModbusSlave s2) {
+            int c = String.valueOf(s1.getType()).compareTo(String.valueOf(s2.getType()));
+            if (c == 0) {
+                c = s1.getId() - s2.getId();
+            }
+            if (c == 0) {
+                c = s1.getStart() - s2.getStart();
+            }
+            return c;
+        }
+    };
+
+    private final int pollThreads;
+    private final boolean coalesceReads;
+    private final ConcurrentHashMap<ModbusSlaveEndpoint, EndpointStatistics> statistics = new ConcurrentHashMap<ModbusSlaveEndpoint, EndpointStatistics>();
+    private ThreadPoolExecutor executor;
+    private boolean isShutdown;
+
+    /**
+     * @param pollThreads maximum number of endpoints that are polled at the same time
+     * @param coalesceReads whether to combine the reads of slaves of the same endpoint
+     */
+    public ModbusPollScheduler(int pollThreads, boolean coalesceReads) {
+        this.pollThreads = pollThreads;
+        this.coalesceReads = coalesceReads;
+    }
+
+    /**
+     * Polls all slaves once and returns when all endpoints have been polled.
+     *
+     * @param binding binding that receives the data read from the slaves
+     * @param slaves slaves to poll
+     */
+    public void poll(final ModbusBinding binding, Collection<ModbusSlave> slaves) {
+        if (isShutdown()) {
+            return;
+        }
+        Map<ModbusSlaveEndpoint, List<ModbusSlave>> slavesByEndpoint = new LinkedHashMap<ModbusSlaveEndpoint, List<ModbusSlave>>();
+        for (ModbusSlave slave : slaves) {
+            List<ModbusSlave> endpointSlaves = slavesByEndpoint.get(slave.getEndpoint());
+            if (endpointSlaves == null) {
+                endpointSlaves = new ArrayList<ModbusSlave>();
+                slavesByEndpoint.put(slave.getEndpoint(), endpointSlaves);
+            }
+            endpointSlaves.add(slave);
+        }
+
+        // nothing to gain from other threads with a single endpoint
+        if (pollThreads <= 1 || slavesByEndpoint.size() <= 1) {
+            for (Map.Entry<ModbusSlaveEndpoint, List<ModbusSlave>> entry : slavesByEndpoint.entrySet()) {
+                pollEndpoint(binding, entry.getKey(), entry.getValue());
+            }
+            return;
+        }
+
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>(slavesByEndpoint.size());
+        for (final Map.Entry<ModbusSlaveEndpoint, List<ModbusSlave>> entry : slavesByEndpoint.entrySet()) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    pollEndpoint(binding, entry.getKey(), entry.getValue());
+                    return null;
+                }
+            });
+        }
+        ThreadPoolExecutor pollExecutor = getExecutor();
+        if (pollExecutor == null) {
+            return;
+        }
+        try {
+            for (Future<Void> future : pollExecutor.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    logger.error("Error polling Modbus endpoint", e.getCause());
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // shut down meanwhile by a configuration update, the next poll uses the new scheduler
+            logger.debug("Poll scheduler has been shut down, skipping poll");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the poll threads once the transactions in progress are done. The scheduler cannot be used afterwards.
+     */
+    public synchronized void shutdown() {
+        isShutdown = true;
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private synchronized boolean isShutdown() {
+        return isShutdown;
+    }
+
+    /**
+     * @return poll cycle statistics per endpoint
+     */
+    public Map<ModbusSlaveEndpoint, EndpointStatistics> getStatistics() {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * @return the executor, or null if the scheduler has been shut down
+     */
+    private synchronized ThreadPoolExecutor getExecutor() {
+        if (executor == null && !isShutdown) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+            executor = new ThreadPoolExecutor(pollThreads, pollThreads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                        @Override
+                        public Thread newThread(Runnable r) {
+                            Thread thread = new Thread(r, "Modbus poller " + threadNumber.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+
+    private void pollEndpoint(ModbusBinding binding, ModbusSlaveEndpoint endpoint, List<ModbusSlave> slaves) {
+        long start = System.currentTimeMillis();
+        int requests = 0;
+        if (coalesceReads && slaves.size() > 1) {
+            for (List<ModbusSlave> group : groupReads(slaves)) {
+                if (group.size() == 1) {
+                    group.get(0).update(binding);
+                } else {
+                    updateGroup(binding, group);
+                }
+                requests++;
+            }
+        } else {
+            for (ModbusSlave slave : slaves) {
+                slave.update(binding);
+                requests++;
+            }
+        }
+        long cycleTime = System.currentTimeMillis() - start;
+
+        EndpointStatistics endpointStatistics = statistics.get(endpoint);
+        if (endpointStatistics == null) {
+            statistics.putIfAbsent(endpoint, new EndpointStatistics());
+            endpointStatistics = statistics.get(endpoint);
+        }
+        logger.trace("Polled endpoint {} with {} requests in {} ms", endpoint, requests, cycleTime);
+        if (endpointStatistics.record(cycleTime, requests, STATISTICS_LOG_INTERVAL_MILLIS)) {
+            logger.debug("Poll statistics for endpoint {}: {}", endpoint, endpointStatistics);
+        }
+    }
+
+    /**
+     * Splits the slaves of an endpoint into groups that can be read with one request.
+     */
+    static List<List<ModbusSlave>> groupReads(List<ModbusSlave> slaves) {
+        List<ModbusSlave> sorted = new ArrayList<ModbusSlave>(slaves);
+        Collections.sort(sorted, SLAVE_ORDER);
+
+        List<List<ModbusSlave>> groups = new ArrayList<List<ModbusSlave>>();
+        List<ModbusSlave> group = null;
+        int groupStart = 0;
+        int groupEnd = 0;
+        for (ModbusSlave slave : sorted) {
+            int slaveEnd = slave.getStart() + slave.getLength();
+            if (group != null && canCombine(group.get(0), slave) && slave.getStart() <= groupEnd
+                    && Math.max(groupEnd, slaveEnd) - groupStart <= getMaxReadLength(slave.getType())) {
+                group.add(slave);
+                groupEnd = Math.max(groupEnd, slaveEnd);
+            } else {
+                group = new ArrayList<ModbusSlave>();
+                group.add(slave);
+                groups.add(group);
+                groupStart = slave.getStart();
+                groupEnd = slaveEnd;
+            }
+        }
+        return groups;
+    }
+
+    private static boolean canCombine(ModbusSlave first, ModbusSlave slave) {
+        return first.getType() != null && first.getType().equals(slave.getType()) && first.getId() == slave.getId();
+    }
+
+    private static int getMaxReadLength(String type) {
+        if (ModbusBindingProvider.TYPE_HOLDING.equals(type) || ModbusBindingProvider.TYPE_INPUT.equals(type)) {
+            return MAX_REGISTERS_PER_READ;
+        }
+        return MAX_BITS_PER_READ;
+    }
+
+    /**
+     * Reads the combined range of a group of slaves with one request and passes each slave its part of the data.
+     */
+    private void updateGroup(ModbusBinding binding, List<ModbusSlave> group) {
+        int groupStart = group.get(0).getStart();
+        int groupEnd = groupStart;
+        for (ModbusSlave slave : group) {
+            groupEnd = Math.max(groupEnd, slave.getStart() + slave.getLength());
+        }
+
+        Object data;
+        try {
+            data = group.get(0).readData(groupStart, groupEnd - groupStart);
+        } catch (Exception e) {
+            logger.error("Error getting response for slaves {}", getNames(group), e);
+            return;
+        }
+        if (data == null) {
+            // use debug level logging since the slave has already logged the reason
+            logger.debug("Could not read from the slaves {}", getNames(group));
+            return;
+        }
+
+        for (ModbusSlave slave : group) {
+            try {
+                Object local = slice(data, slave.getStart() - groupStart, slave.getLength());
+                if (local == null) {
+                    logger.warn("ModbusSlave ({}): response for slaves {} is too short", slave.getName(),
+                            getNames(group));
+                    continue;
+                }
+                slave.updateData(binding, local);
+            } catch (Exception e) {
+                logger.error("ModbusSlave ({}) error processing response from slave", slave.getName(), e);
+            }
+        }
+    }
+
+    /**
+     * Returns a part of the data read from a device, or null if the data is too short.
+     */
+    static Object slice(Object data, int offset, int length) {
+        if (data instanceof InputRegister[]) {
+            InputRegister[] registers = (InputRegister[]) data;
+            if (offset + length > registers.length) {
+                return null;
+            }
+            return Arrays.copyOfRange(registers, offset, offset + length);
+        } else if (data instanceof BitVector) {
+            BitVector bits = (BitVector) data;
+            if (offset + length > bits.size()) {
+                return null;
+            }
+            BitVector local = new BitVector(length);
+            for (int i = 0; i < length; i++) {
+                local.setBit(i, bits.getBit(offset + i));
+            }
+            return local;
+        }
+        return null;
+    }
+
+    private static String getNames(List<ModbusSlave> group) {
+        List<String> names = new ArrayList<String>(group.size());
+        for (ModbusSlave slave : group) {
+            names.add(slave.getName());
+        }
+        return names.toString();
+    }
+
+    /**
+     * Poll cycle statistics of one endpoint.
+     */
+    public static class EndpointStatistics {
+        private long cycles;
+        private long lastCycleMillis;
+        private long maxCycleMillis;
+        private long totalCycleMillis;
+        private int lastRequests;
+        private long lastLogged = System.currentTimeMillis();
+
+        /**
+         * @return true if the statistics should be logged
+         */
+        private synchronized boolean record(long cycleMillis, int requests, long logInterval) {
+            cycles++;
+            lastCycleMillis = cycleMillis;
+            maxCycleMillis = Math.max(maxCycleMillis, cycleMillis);
+            totalCycleMillis += cycleMillis;
+            lastRequests = requests;
+
+            long now = System.currentTimeMillis();
+            if (now - lastLogged >= logInterval) {
+                lastLogged = now;
+                return true;
+            }
+            return false;
+        }
+
+        public synchronized long getCycles() {
+            return cycles;
+        }
+
+        public synchronized long getLastCycleMillis() {
+            return lastCycleMillis;
+        }
+
+        public synchronized long getMaxCycleMillis() {
+            return maxCycleMillis;
+        }
+
+        public synchronized long getAverageCycleMillis() {
+            return cycles == 0 ? 0 : totalCycleMillis / cycles;
+        }
+
+        public synchronized int getLastRequests() {
+            return lastRequests;
+        }
+
+        @Override
+        public synchronized String toString() {
+            return String.format("cycles=%d, last=%dms, avg=%dms, max=%dms, requests=%d", cycles, lastCycleMillis,
+                    getAverageCycleMillis(), maxCycleMillis, lastRequests);
+        }
+    }
+}
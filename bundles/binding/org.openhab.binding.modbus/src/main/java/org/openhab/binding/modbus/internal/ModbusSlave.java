@@ -359,65 +359,70 @@ public abstract class ModbusSlave {
      */
     public void update(ModbusBinding binding) {
         try {
-
-            Object local = null;
-
-            if (ModbusBindingProvider.TYPE_COIL.equals(getType())) {
-                ModbusRequest request = new ReadCoilsRequest(getStart(), getLength());
-                if (this instanceof ModbusSerialSlave) {
-                    request.setHeadless();
-                }
-                request.setUnitID(id);
-                ReadCoilsResponse response = (ReadCoilsResponse) getModbusData(request);
-                if (response == null) {
-                    // use debug level logging since getModbusData has already logged the reason
-                    logger.debug("Could not read from the slave");
-                    return;
-                }
-                local = response.getCoils();
-            } else if (ModbusBindingProvider.TYPE_DISCRETE.equals(getType())) {
-                ModbusRequest request = new ReadInputDiscretesRequest(getStart(), getLength());
-                ReadInputDiscretesResponse response = (ReadInputDiscretesResponse) getModbusData(request);
-                // use debug level logging since getModbusData has already logged the reason
-                if (response == null) {
-                    logger.debug("Could not read from the slave");
-                    return;
-                }
-                local = response.getDiscretes();
-            } else if (ModbusBindingProvider.TYPE_HOLDING.equals(getType())) {
-                ModbusRequest request = new ReadMultipleRegistersRequest(getStart(), getLength());
-                ReadMultipleRegistersResponse response = (ReadMultipleRegistersResponse) getModbusData(request);
+            Object local = readData(getStart(), getLength());
+            if (local == null) {
                 // use debug level logging since getModbusData has already logged the reason
-                if (response == null) {
-                    logger.debug("Could not read from the slave");
-                    return;
-                }
-                local = response.getRegisters();
-            } else if (ModbusBindingProvider.TYPE_INPUT.equals(getType())) {
-                ModbusRequest request = new ReadInputRegistersRequest(getStart(), getLength());
-                ReadInputRegistersResponse response = (ReadInputRegistersResponse) getModbusData(request);
-                // use debug level logging since getModbusData has already logged the reason
-                if (response == null) {
-                    logger.debug("Could not read from the slave");
-                    return;
-                }
-                local = response.getRegisters();
-            }
-            if (storage == null) {
-                storage = local;
-            } else {
-                synchronized (storage) {
-                    storage = local;
-                }
-            }
-            Collection<String> items = binding.getItemNames();
-            for (String item : items) {
-                updateItem(binding, item);
+                logger.debug("Could not read from the slave");
+                return;
             }
+            updateData(binding, local);
         } catch (Exception e) {
             logger.error("ModbusSlave ({}) error getting response from slave", name, e);
         }
+    }
+
+    /**
+     * Reads a range of coils, discrete inputs or registers from the connected device, depending on the type of this
+     * slave. Used by {@link #update(ModbusBinding)} and to read the data of several slaves in one request.
+     *
+     * @param start reference of the first coil or register to read
+     * @param length number of coils or registers to read
+     * @return {@link BitVector} for "coil" and "discrete", {@link InputRegister} array for "holding" and "input", or
+     *         null if the data could not be read
+     */
+    Object readData(int start, int length) {
+        if (ModbusBindingProvider.TYPE_COIL.equals(getType())) {
+            ModbusRequest request = new ReadCoilsRequest(start, length);
+            if (this instanceof ModbusSerialSlave) {
+                request.setHeadless();
+            }
+            request.setUnitID(id);
+            ReadCoilsResponse response = (ReadCoilsResponse) getModbusData(request);
+            return response == null ? null : response.getCoils();
+        } else if (ModbusBindingProvider.TYPE_DISCRETE.equals(getType())) {
+            ModbusRequest request = new ReadInputDiscretesRequest(start, length);
+            ReadInputDiscretesResponse response = (ReadInputDiscretesResponse) getModbusData(request);
+            return response == null ? null : response.getDiscretes();
+        } else if (ModbusBindingProvider.TYPE_HOLDING.equals(getType())) {
+            ModbusRequest request = new ReadMultipleRegistersRequest(start, length);
+            ReadMultipleRegistersResponse response = (ReadMultipleRegistersResponse) getModbusData(request);
+            return response == null ? null : response.getRegisters();
+        } else if (ModbusBindingProvider.TYPE_INPUT.equals(getType())) {
+            ModbusRequest request = new ReadInputRegistersRequest(start, length);
+            ReadInputRegistersResponse response = (ReadInputRegistersResponse) getModbusData(request);
+            return response == null ? null : response.getRegisters();
+        }
+        return null;
+    }
 
+    /**
+     * Stores data read from the device and updates items with the new data
+     *
+     * @param binding ModbusBindig that stores providers information
+     * @param local {@link BitVector} or {@link InputRegister} array read from the device
+     */
+    void updateData(ModbusBinding binding, Object local) {
+        if (storage == null) {
+            storage = local;
+        } else {
+            synchronized (storage) {
+                storage = local;
+            }
+        }
+        Collection<String> items = binding.getItemNames();
+        for (String item : items) {
+            updateItem(binding, item);
+        }
     }
 
     /**
@@ -8,16 +8,21 @@
  */
 package org.openhab.binding.networkhealth.internal;
 
-import java.io.IOException;
-import java.net.SocketTimeoutException;
+import java.util.ArrayList;
 import java.util.Dictionary;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.openhab.binding.networkhealth.NetworkHealthBindingProvider;
+import org.openhab.binding.networkhealth.internal.NetworkHealthProber.Target;
 import org.openhab.core.binding.AbstractActiveBinding;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.OnOffType;
-import org.openhab.io.net.actions.Ping;
+import org.openhab.core.types.UnDefType;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
@@ -51,6 +56,9 @@ public class NetworkHealthBinding extends AbstractActiveBinding<NetworkHealthBin
     /** Cached state of all devices for which a binding exists. */
     private final Map<String, Boolean> cachedStates = new HashMap<String, Boolean>();
 
+    /** checks all configured hosts at once */
+    private final NetworkHealthProber prober = new NetworkHealthProber();
+
     @Override
     protected String getName() {
         return "NetworkHealth Refresh Service";
@@ -70,42 +78,67 @@ public class NetworkHealthBinding extends AbstractActiveBinding<NetworkHealthBin
     }
 
 
+    @Override
+    public void deactivate() {
+        super.deactivate();
+        prober.shutdown();
+    }
+
     /**
      * @{inheritDoc}
+     *
+     * All hosts are checked at once by the {@link NetworkHealthProber}, a host which is bound to several items is
+     * only checked once.
      */
     @Override
     public void execute() {
+        Map<String, Target> targets = new LinkedHashMap<String, Target>();
+        List<ItemTarget> itemTargets = new ArrayList<ItemTarget>();
+
         for (NetworkHealthBindingProvider provider : providers) {
             for (String itemName : provider.getItemNames()) {
 
                 String hostname = provider.getHostname(itemName);
                 int port = provider.getPort(itemName);
 
+                int itemTimeout = timeout;
                 if (provider.getTimeout(itemName) > 0) {
-                    timeout = provider.getTimeout(itemName);
+                    itemTimeout = provider.getTimeout(itemName);
                 }
 
-                boolean success = false;
+                String key = hostname + ":" + port + ":" + itemTimeout;
+                Target target = targets.get(key);
+                if (target == null) {
+                    target = new Target(hostname, port, itemTimeout);
+                    targets.put(key, target);
+                }
+                itemTargets.add(new ItemTarget(itemName, provider.getItemType(itemName), target));
+            }
+        }
+
+        if (targets.isEmpty()) {
+            return;
+        }
 
-                try {
-                    success = Ping.checkVitality(hostname, port, timeout);
+        long start = System.currentTimeMillis();
+        prober.probe(targets.values());
+        logger.debug("checked {} hosts in {}ms", targets.size(), System.currentTimeMillis() - start);
 
-                    logger.debug("established connection [host '{}' port '{}' timeout '{}']",
-                            new Object[] { hostname, port, timeout });
-                } catch (SocketTimeoutException se) {
-                    logger.debug("timed out while connecting to host '{}' port '{}' timeout '{}'",
-                            new Object[] { hostname, port, timeout });
-                } catch (IOException ioe) {
-                    logger.debug("couldn't establish network connection [host '{}' port '{}' timeout '{}']",
-                            new Object[] { hostname, port, timeout });
-                }
-                if (eventPublisher != null) {
+        if (eventPublisher == null) {
+            return;
+        }
 
-                    // check cached state and update only if state differs
-                    if (shouldPostUpdate(hostname, port, success)) {
-                        eventPublisher.postUpdate(itemName, success ? OnOffType.ON : OnOffType.OFF);
-                    }
-                }
+        for (ItemTarget itemTarget : itemTargets) {
+            Target target = itemTarget.target;
+            boolean success = target.isReachable();
+
+            if (itemTarget.itemType != null && NumberItem.class.isAssignableFrom(itemTarget.itemType)) {
+                // the latency changes on every check, so it is always posted
+                eventPublisher.postUpdate(itemTarget.itemName,
+                        success ? new DecimalType(target.getLatency()) : UnDefType.UNDEF);
+            } else if (shouldPostUpdate(target.hostname, target.port, success)) {
+                // check cached state and update only if state differs
+                eventPublisher.postUpdate(itemTarget.itemName, success ? OnOffType.ON : OnOffType.OFF);
             }
         }
     }
@@ -144,6 +177,21 @@ public class NetworkHealthBinding extends AbstractActiveBinding<NetworkHealthBin
         return false;
     }
 
+    /**
+     * An item and the target which is checked for it.
+     */
+    private static class ItemTarget {
+        private final String itemName;
+        private final Class<? extends Item> itemType;
+        private final Target target;
+
+        ItemTarget(String itemName, Class<? extends Item> itemType, Target target) {
+            this.itemName = itemName;
+            this.itemType = itemType;
+            this.target = target;
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -11,6 +11,7 @@ package org.openhab.binding.networkhealth.internal;
 import org.openhab.binding.networkhealth.NetworkHealthBindingProvider;
 import org.openhab.core.binding.BindingConfig;
 import org.openhab.core.items.Item;
+import org.openhab.core.library.items.NumberItem;
 import org.openhab.core.library.items.StringItem;
 import org.openhab.core.library.items.SwitchItem;
 import org.openhab.model.item.binding.AbstractGenericBindingProvider;
@@ -35,6 +36,9 @@ import org.openhab.model.item.binding.BindingConfigParseException;
  * </li>
  * </ul>
  *
+ * Bound to a Number item, the binding posts the time in milliseconds it took to connect, or {@code UNDEF} if the
+ * host could not be reached.
+ *
  * @author Thomas.Eichstaedt-Engelen
  * @author Kai Kreuzer
  *
@@ -56,10 +60,10 @@ public class NetworkHealthGenericBindingProvider extends AbstractGenericBindingP
      */
     @Override
     public void validateItemType(Item item, String bindingConfig) throws BindingConfigParseException {
-        if (!(item instanceof SwitchItem || item instanceof StringItem)) {
-            throw new BindingConfigParseException(
-                    "item '" + item.getName() + "' is of type '" + item.getClass().getSimpleName()
-                            + "', only Switch- and StringItems are allowed - please check your *.items configuration");
+        if (!(item instanceof SwitchItem || item instanceof StringItem || item instanceof NumberItem)) {
+            throw new BindingConfigParseException("item '" + item.getName() + "' is of type '"
+                    + item.getClass().getSimpleName()
+                    + "', only Switch-, String- and NumberItems are allowed - please check your *.items configuration");
         }
     }
 
@@ -79,7 +83,7 @@ public class NetworkHealthGenericBindingProvider extends AbstractGenericBindingP
 
         NhBindingConfig config = new NhBindingConfig();
 
-        item.getName();
+        config.itemType = item.getClass();
         config.hostname = configParts[0];
         if (configParts.length > 1) {
             config.port = Integer.valueOf(configParts[1]);
@@ -117,6 +121,15 @@ public class NetworkHealthGenericBindingProvider extends AbstractGenericBindingP
         return config != null ? config.timeout : 0;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<? extends Item> getItemType(String itemName) {
+        NhBindingConfig config = (NhBindingConfig) bindingConfigs.get(itemName);
+        return config != null ? config.itemType : null;
+    }
+
     /**
      * This is an internal data structure to store information from the binding
      * config strings and use it to answer the requests to the NetworkHealth
@@ -126,6 +139,7 @@ public class NetworkHealthGenericBindingProvider extends AbstractGenericBindingP
         public String hostname;
         public int port;
         public int timeout;
+        public Class<? extends Item> itemType;
     }
 
 }
@@ -0,0 +1,446 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.networkhealth.internal;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Checks the reachability of many hosts at once.
+ *
+ * TCP targets are probed by non-blocking connects which are all handled by a single {@link Selector}, so a
+ * cycle takes about as long as the longest timeout instead of the sum of all timeouts. The host names are resolved
+ * on a few worker threads, so a slow name server doesn't hold up the other targets, and the time spent resolving
+ * counts against the timeout of the target. Targets without a port are checked by
+ * {@link InetAddress#isReachable(int)} on a few worker threads, as there is no non-blocking way to send an ICMP
+ * echo request in Java.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class NetworkHealthProber {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetworkHealthProber.class);
+
+    /** the default maximum number of connects in progress at the same time */
+    public static final int DEFAULT_MAX_PENDING_CONNECTS = 256;
+
+    /** the number of threads used for the targets without a port */
+    private static final int ICMP_THREADS = 4;
+
+    /** the number of threads used to resolve the host names of the TCP targets */
+    private static final int RESOLVER_THREADS = 4;
+
+    /**
+     * A host to check, and the result of the last check.
+     */
+    public static class Target {
+
+        final String hostname;
+        final int port;
+        final int timeout;
+
+        private volatile boolean reachable;
+        private volatile long latency = -1;
+
+        /**
+         * @param hostname the host to check
+         * @param port the TCP port to connect to, or 0 to send an ICMP echo request
+         * @param timeout the timeout in milliseconds
+         */
+        public Target(String hostname, int port, int timeout) {
+            this.hostname = hostname;
+            this.port = port;
+            this.timeout = timeout;
+        }
+
+        /**
+         * @return true, if the host has been reachable on the last check
+         */
+        public boolean isReachable() {
+            return reachable;
+        }
+
+        /**
+         * @return the round trip time of the last check in milliseconds, or -1 if the host was not reachable
+         */
+        public long getLatency() {
+            return latency;
+        }
+
+        void setResult(boolean reachable, long startNanos) {
+            this.reachable = reachable;
+            this.latency = reachable ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos) : -1;
+        }
+
+        @Override
+        public String toString() {
+            return "host '" + hostname + "' port '" + port + "' timeout '" + timeout + "'";
+        }
+    }
+
+    private final int maxPendingConnects;
+
+    private ExecutorService icmpExecutor;
+
+    private ExecutorService resolverExecutor;
+
+    public NetworkHealthProber() {
+        this(DEFAULT_MAX_PENDING_CONNECTS);
+    }
+
+    /**
+     * @param maxPendingConnects the maximum number of connects in progress at the same time, further targets are
+     *            started when a pending connect is done
+     */
+    public NetworkHealthProber(int maxPendingConnects) {
+        this.maxPendingConnects = Math.max(maxPendingConnects, 1);
+    }
+
+    /**
+     * Checks all given targets and blocks until every target has been reached or has timed out. The results are
+     * stored in the targets.
+     *
+     * @param targets the targets to check
+     */
+    public void probe(Collection<Target> targets) {
+        List<Target> tcpTargets = new ArrayList<Target>(targets.size());
+        List<Future<?>> icmpResults = new ArrayList<Future<?>>();
+
+        for (Target target : targets) {
+            if (target.hostname == null || target.timeout <= 0) {
+                target.setResult(false, 0);
+            } else if (target.port > 0) {
+                tcpTargets.add(target);
+            } else {
+                icmpResults.add(getIcmpExecutor().submit(new IcmpCheck(target)));
+            }
+        }
+
+        if (!tcpTargets.isEmpty()) {
+            probeTcp(tcpTargets);
+        }
+
+        for (Future<?> result : icmpResults) {
+            try {
+                result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                logger.debug("ICMP check failed", e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Stops the worker threads of the ICMP checks and the name resolution.
+     */
+    public synchronized void shutdown() {
+        if (icmpExecutor != null) {
+            icmpExecutor.shutdownNow();
+            icmpExecutor = null;
+        }
+        if (resolverExecutor != null) {
+            resolverExecutor.shutdownNow();
+            resolverExecutor = null;
+        }
+    }
+
+    private synchronized ExecutorService getIcmpExecutor() {
+        if (icmpExecutor == null) {
+            icmpExecutor = createExecutor("NetworkHealth ICMP ", ICMP_THREADS);
+        }
+        return icmpExecutor;
+    }
+
+    private synchronized ExecutorService getResolverExecutor() {
+        if (resolverExecutor == null) {
+            resolverExecutor = createExecutor("NetworkHealth resolver ", RESOLVER_THREADS);
+        }
+        return resolverExecutor;
+    }
+
+    private static ExecutorService createExecutor(final String namePrefix, int threads) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return Executors.newFixedThreadPool(threads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, namePrefix + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    private void probeTcp(List<Target> targets) {
+        Selector selector;
+        try {
+            selector = Selector.open();
+        } catch (IOException e) {
+            logger.error("couldn't open selector: {}", e.getMessage());
+            for (Target target : targets) {
+                target.setResult(false, 0);
+            }
+            return;
+        }
+
+        // the names are resolved on the worker threads, which hand the results back to this thread
+        long start = System.nanoTime();
+        ConcurrentLinkedQueue<Resolve> resolved = new ConcurrentLinkedQueue<Resolve>();
+        List<Resolve> resolving = new ArrayList<Resolve>(targets.size());
+        ExecutorService resolver = getResolverExecutor();
+        for (Target target : targets) {
+            Resolve resolve = new Resolve(target, start, selector, resolved);
+            resolving.add(resolve);
+            resolver.execute(resolve);
+        }
+
+        ArrayDeque<Resolve> waiting = new ArrayDeque<Resolve>();
+        List<Connect> pending = new ArrayList<Connect>();
+        try {
+            while (!resolving.isEmpty() || !waiting.isEmpty() || !pending.isEmpty()) {
+                Resolve done;
+                while ((done = resolved.poll()) != null) {
+                    if (!done.abandoned) {
+                        done.handedOver = true;
+                        waiting.add(done);
+                    }
+                }
+                while (!waiting.isEmpty() && pending.size() < maxPendingConnects) {
+                    Connect connect = startConnect(selector, waiting.poll());
+                    if (connect != null) {
+                        pending.add(connect);
+                    }
+                }
+
+                long now = System.nanoTime();
+                Iterator<Resolve> unresolved = resolving.iterator();
+                while (unresolved.hasNext()) {
+                    Resolve resolve = unresolved.next();
+                    if (resolve.handedOver) {
+                        unresolved.remove();
+                    } else if (now - resolve.deadline >= 0) {
+                        logger.debug("timed out while resolving {}", resolve.target);
+                        resolve.abandoned = true;
+                        resolve.target.setResult(false, start);
+                        unresolved.remove();
+                    }
+                }
+                if (pending.isEmpty() && resolving.isEmpty()) {
+                    continue;
+                }
+
+                long nextDeadline = Long.MAX_VALUE;
+                for (Connect connect : pending) {
+                    nextDeadline = Math.min(nextDeadline, connect.deadline);
+                }
+                for (Resolve resolve : resolving) {
+                    nextDeadline = Math.min(nextDeadline, resolve.deadline);
+                }
+                long waitMillis = TimeUnit.NANOSECONDS.toMillis(nextDeadline - now);
+
+                if (waitMillis > 0) {
+                    selector.select(waitMillis);
+                } else {
+                    selector.selectNow();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    finishConnect((Connect) key.attachment());
+                }
+
+                now = System.nanoTime();
+                Iterator<Connect> it = pending.iterator();
+                while (it.hasNext()) {
+                    Connect connect = it.next();
+                    if (connect.done) {
+                        it.remove();
+                    } else if (now - connect.deadline >= 0) {
+                        logger.debug("timed out while connecting to {}", connect.target);
+                        connect.close(false);
+                        it.remove();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.error("error while checking the vitality of the configured hosts: {}", e.getMessage());
+            for (Connect connect : pending) {
+                connect.close(false);
+            }
+            for (Resolve resolve : waiting) {
+                resolve.target.setResult(false, 0);
+            }
+            for (Resolve resolve : resolving) {
+                if (!resolve.handedOver) {
+                    resolve.abandoned = true;
+                    resolve.target.setResult(false, 0);
+                }
+            }
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                logger.debug("couldn't close selector: {}", e.getMessage());
+            }
+        }
+    }
+
+    private Connect startConnect(Selector selector, Resolve resolve) {
+        Target target = resolve.target;
+        long start = System.nanoTime();
+        if (resolve.address.isUnresolved()) {
+            logger.debug("couldn't resolve {}", target);
+            target.setResult(false, start);
+            return null;
+        }
+
+        SocketChannel channel = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            Connect connect = new Connect(target, channel, start, resolve.deadline);
+            if (channel.connect(resolve.address)) {
+                connect.close(true);
+                return null;
+            }
+            channel.register(selector, SelectionKey.OP_CONNECT, connect);
+            return connect;
+        } catch (IOException e) {
+            logger.debug("couldn't establish network connection [{}]: {}", target, e.getMessage());
+            closeQuietly(channel);
+            target.setResult(false, start);
+            return null;
+        }
+    }
+
+    private void finishConnect(Connect connect) {
+        try {
+            connect.close(connect.channel.finishConnect());
+        } catch (IOException e) {
+            logger.debug("couldn't establish network connection [{}]: {}", connect.target, e.getMessage());
+            connect.close(false);
+        }
+    }
+
+    private static void closeQuietly(SocketChannel channel) {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // nothing to do
+            }
+        }
+    }
+
+    /**
+     * A connect in progress.
+     */
+    private static class Connect {
+        private final Target target;
+        private final SocketChannel channel;
+        private final long start;
+        private final long deadline;
+        private boolean done = false;
+
+        Connect(Target target, SocketChannel channel, long start, long deadline) {
+            this.target = target;
+            this.channel = channel;
+            this.start = start;
+            this.deadline = deadline;
+        }
+
+        void close(boolean reachable) {
+            if (done) {
+                return;
+            }
+            done = true;
+            target.setResult(reachable, start);
+            if (reachable) {
+                logger.debug("established connection [{}]", target);
+            }
+            // closing the channel cancels its key
+            closeQuietly(channel);
+        }
+    }
+
+    /**
+     * Resolves the address of a TCP target on a worker thread. The flags are only accessed by the probing thread.
+     */
+    private static class Resolve implements Runnable {
+        private final Target target;
+        private final long deadline;
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Resolve> resolved;
+        private volatile InetSocketAddress address;
+        private boolean handedOver = false;
+        private boolean abandoned = false;
+
+        Resolve(Target target, long start, Selector selector, ConcurrentLinkedQueue<Resolve> resolved) {
+            this.target = target;
+            this.deadline = start + TimeUnit.MILLISECONDS.toNanos(target.timeout);
+            this.selector = selector;
+            this.resolved = resolved;
+        }
+
+        @Override
+        public void run() {
+            address = new InetSocketAddress(target.hostname, target.port);
+            resolved.add(this);
+            selector.wakeup();
+        }
+    }
+
+    private static class IcmpCheck implements Callable<Void> {
+        private final Target target;
+
+        IcmpCheck(Target target) {
+            this.target = target;
+        }
+
+        @Override
+        public Void call() {
+            long start = System.nanoTime();
+            try {
+                InetAddress address = InetAddress.getByName(target.hostname);
+                // the time spent resolving the name counts against the timeout
+                int remaining = target.timeout - (int) TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                target.setResult(remaining > 0 && address.isReachable(remaining), start);
+            } catch (IOException e) {
+                logger.debug("couldn't reach {}: {}", target, e.getMessage());
+                target.setResult(false, start);
+            }
+            return null;
+        }
+    }
+}
@@ -16,16 +16,19 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.DatagramChannel;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.binding.AbstractActiveBinding;
@@ -81,14 +84,28 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     protected boolean directionsShareChannels = false;
     // allow *:* host:port definitions
     protected boolean useAddressMask = true;
-    // refresh interval for the worker thread
+    // refresh interval for the worker thread that sets up the channels
     protected long refreshInterval = 250;
 
     protected DatagramChannel listenerChannel = null;
     protected SelectionKey listenerKey = null;
 
-    // Queue to store BufferElements that need to be written to the network
-    protected List<WriteBufferElement> writeQueue = Collections.synchronizedList(new ArrayList<WriteBufferElement>());
+    // Threads registering channels with the selector hold this lock, so that the I/O thread does not re-enter
+    // select() before the registration is done
+    protected final Object selectorGuard = new Object();
+
+    // DatagramChannels that have data queued and have to be registered for write operations
+    private final Queue<DatagramChannel> pendingWriteChannels = new ConcurrentLinkedQueue<DatagramChannel>();
+
+    // Sequence number to preserve the order of writes of different Channels sharing a DatagramChannel
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    // Buffer to read data from the network, reused by the I/O thread for every read operation
+    private ByteBuffer directReadBuffer;
+
+    // The thread that waits for and processes the I/O events of the selector
+    private Thread selectorThread;
+    private volatile boolean selectorRunning = false;
 
     // Simple datastructure to track the state of Channels
     protected ChannelTracker<Channel> channels = new ChannelTracker<Channel>();
@@ -110,9 +127,9 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
         // the direction, in our out, of this channel
         public Direction direction;
         // flag to indicate if the channel is in a blocking write/read operation
-        public boolean isBlocking;
+        public volatile boolean isBlocking;
         // placeholder to store the received data as the result of a blocking write/read operation
-        public ByteBuffer buffer;
+        public volatile ByteBuffer buffer;
         // flag to indicate if the channel is reconnecting / recovering from a previous communication error
         public boolean isReconnecting;
         // reference to the underlying Java NIO DatagramChannel that represents this UDP/IP connection
@@ -123,6 +140,8 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
         public String port;
         // the address of the last remote host:ip that this Channel received data from
         public InetSocketAddress lastRemote;
+        // data that needs to be written to the network for this channel
+        public Queue<WriteBufferElement> writeQueue = new ConcurrentLinkedQueue<WriteBufferElement>();
 
         public Channel(String item, Command command, InetSocketAddress remote, Direction direction, boolean isBlocking,
                 ByteBuffer buffer, boolean isReconnecting, DatagramChannel channel) {
@@ -648,12 +667,14 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
         public Channel channel;
         public ByteBuffer buffer;
         public boolean isBlocking;
+        public final long sequence;
 
         public WriteBufferElement(Channel channel, ByteBuffer buffer, boolean isBlocking) {
             super();
             this.channel = channel;
             this.buffer = buffer;
             this.isBlocking = isBlocking;
+            this.sequence = writeSequence.incrementAndGet();
         }
 
         @Override
@@ -687,10 +708,10 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
             logger.info("Listening for incoming data on {}", listenerChannel.getLocalAddress());
 
-            synchronized (selector) {
+            synchronized (selectorGuard) {
                 selector.wakeup();
                 try {
-                    listenerKey = listenerChannel.register(selector, listenerChannel.validOps());
+                    listenerKey = listenerChannel.register(selector, SelectionKey.OP_READ);
                 } catch (ClosedChannelException e1) {
                     logger.error("An exception occurred while registering a selector: {}", e1.getMessage());
                 }
@@ -712,7 +733,13 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
             selector = Selector.open();
         } catch (IOException e) {
             logger.error("An exception occurred while registering the selector: {}", e.getMessage());
+            return;
         }
+
+        selectorRunning = true;
+        selectorThread = new Thread(new SelectorLoop(), "DatagramChannel I/O " + getClass().getSimpleName());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
     }
 
     /**
@@ -721,6 +748,17 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
     @Override
     public void deactivate() {
 
+        selectorRunning = false;
+        if (selectorThread != null) {
+            selector.wakeup();
+            try {
+                selectorThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            selectorThread = null;
+        }
+
         try {
             selector.close();
         } catch (IOException e) {
@@ -1039,15 +1077,21 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
         if (isBlockingWriteRead) {
 
             if (theBuffer != null) {
-                writeQueue.add(new WriteBufferElement(theChannel, theBuffer, true));
-
-                long currentElapsedTimeMillis = System.currentTimeMillis();
+                queueWriteBuffer(new WriteBufferElement(theChannel, theBuffer, true));
 
-                while (theChannel.buffer == null && (System.currentTimeMillis() - currentElapsedTimeMillis) < timeOut) {
-                    try {
-                        Thread.sleep(50);
-                    } catch (InterruptedException e) {
-                        logger.warn("An Exception occurred while waiting during a blocking buffer write");
+                // the I/O thread notifies us as soon as the response has been received
+                long deadline = System.currentTimeMillis() + timeOut;
+                synchronized (theChannel) {
+                    long remaining = timeOut;
+                    while (theChannel.buffer == null && remaining > 0) {
+                        try {
+                            theChannel.wait(remaining);
+                        } catch (InterruptedException e) {
+                            logger.warn("An Exception occurred while waiting during a blocking buffer write");
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        remaining = deadline - System.currentTimeMillis();
                     }
                 }
 
@@ -1057,6 +1101,10 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                     theChannel.buffer = null;
                     theChannel.isBlocking = false;
                 }
+
+                // resume writing data that was queued while we were waiting
+                requestWrite(theChannel.channel);
+
                 return responseBuffer;
             } else {
                 return theBuffer;
@@ -1065,13 +1113,136 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
         } else {
 
             if (theBuffer != null) {
-                writeQueue.add(new WriteBufferElement(theChannel, theBuffer, false));
+                queueWriteBuffer(new WriteBufferElement(theChannel, theBuffer, false));
             }
 
             return theBuffer;
         }
     }
 
+    /**
+     * Adds an element to the write queue of its channel and wakes up the I/O thread
+     *
+     * @param theElement the element to write
+     */
+    private void queueWriteBuffer(WriteBufferElement theElement) {
+        theElement.buffer.rewind();
+        theElement.channel.writeQueue.add(theElement);
+        requestWrite(theElement.channel.channel);
+    }
+
+    /**
+     * Asks the I/O thread to register the given channel for write operations
+     *
+     * @param theDatagramChannel the channel that has data to write
+     */
+    private void requestWrite(DatagramChannel theDatagramChannel) {
+        if (theDatagramChannel != null && selector != null) {
+            pendingWriteChannels.add(theDatagramChannel);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Registers the channels for which data has been queued for write operations. Must be called from the I/O
+     * thread
+     */
+    private void registerPendingWrites() {
+        DatagramChannel theDatagramChannel;
+        while ((theDatagramChannel = pendingWriteChannels.poll()) != null) {
+            SelectionKey selKey = theDatagramChannel.keyFor(selector);
+            if (selKey != null) {
+                updateWriteInterest(selKey, theDatagramChannel);
+            }
+        }
+    }
+
+    /**
+     * Sets or clears the interest in write operations of a key, depending on whether there is data to write for its
+     * channel. Must be called from the I/O thread
+     */
+    private void updateWriteInterest(SelectionKey selKey, DatagramChannel theDatagramChannel) {
+        if (!selKey.isValid()) {
+            return;
+        }
+        boolean hasData = !channels.isBlocking(theDatagramChannel)
+                && nextWriteBufferElement(theDatagramChannel) != null;
+        if (hasData) {
+            selKey.interestOps(selKey.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Returns the oldest element queued by any of the Channels that use the given DatagramChannel
+     */
+    private WriteBufferElement nextWriteBufferElement(DatagramChannel theDatagramChannel) {
+        WriteBufferElement theElement = null;
+        for (Channel aChannel : channels.getAll(theDatagramChannel)) {
+            WriteBufferElement anElement = aChannel.writeQueue.peek();
+            if (anElement != null && (theElement == null || anElement.sequence < theElement.sequence)) {
+                theElement = anElement;
+            }
+        }
+        return theElement;
+    }
+
+    /**
+     * Returns the reusable direct buffer to read data from the network into
+     */
+    private ByteBuffer getDirectReadBuffer() {
+        if (directReadBuffer == null || directReadBuffer.capacity() != maximumBufferSize) {
+            directReadBuffer = ByteBuffer.allocateDirect(maximumBufferSize);
+        }
+        directReadBuffer.clear();
+        return directReadBuffer;
+    }
+
+    /**
+     * Returns a copy of the data read into the direct buffer, sized to the number of bytes read
+     */
+    private ByteBuffer copyDirectReadBuffer() {
+        directReadBuffer.flip();
+        ByteBuffer readBuffer = ByteBuffer.allocate(directReadBuffer.remaining());
+        readBuffer.put(directReadBuffer);
+        readBuffer.flip();
+        return readBuffer;
+    }
+
+    /**
+     * The I/O thread. It blocks on the selector until a channel is ready or until another thread wakes it up to
+     * register a channel or to write data
+     */
+    private class SelectorLoop implements Runnable {
+
+        @Override
+        public void run() {
+            while (selectorRunning) {
+                // wait until other threads are done registering channels with the selector
+                synchronized (selectorGuard) {
+                    registerPendingWrites();
+                }
+
+                try {
+                    selector.select();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("An exception occurred while Selecting ({})", e.getMessage());
+                }
+
+                try {
+                    processSelectedKeys();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (RuntimeException e) {
+                    logger.error("An exception occurred while processing the selected channels", e);
+                }
+            }
+        }
+    }
+
     /**
      * Quartz Job to reconnect a channel
      * 
@@ -1121,11 +1292,11 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                             logger.error("An exception occurred while configuring a channel: {}", e.getMessage());
                         }
 
-                        synchronized (theBinding.selector) {
+                        synchronized (theBinding.selectorGuard) {
                             theBinding.selector.wakeup();
                             try {
                                 if (theChannel.channel != null) {
-                                    theChannel.channel.register(theBinding.selector, theChannel.channel.validOps());
+                                    theChannel.channel.register(theBinding.selector, SelectionKey.OP_READ);
                                 }
                             } catch (ClosedChannelException e1) {
                                 logger.error("An exception occurred while registering a selector: {}", e1.getMessage());
@@ -1154,6 +1325,9 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                                 theChannel.channel.connect(theChannel.remote);
                                 logger.info("Attempting to reconnect the channel for {}", theChannel.remote);
+
+                                // send the data that was queued while the channel was down
+                                theBinding.requestWrite(theChannel.channel);
                             }
                         } catch (Exception e) {
                             logger.error("An exception occurred while connecting a channel: {}", e.getMessage());
@@ -1349,10 +1523,10 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                                                     e.getMessage());
                                         }
 
-                                        synchronized (selector) {
+                                        synchronized (selectorGuard) {
                                             selector.wakeup();
                                             try {
-                                                newDatagramChannel.register(selector, newDatagramChannel.validOps());
+                                                newDatagramChannel.register(selector, SelectionKey.OP_READ);
                                             } catch (ClosedChannelException e1) {
                                                 logger.error("An exception occurred while registering a selector: {}",
                                                         e1.getMessage());
@@ -1381,15 +1555,12 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
             }
         }
 
-        // Check on channels for which we have to process data
-        synchronized (selector) {
-            try {
-                // Wait for an event
-                selector.selectNow();
-            } catch (IOException e) {
-                logger.error("An exception occurred while Selecting ({})", e.getMessage());
-            }
-        }
+    }
+
+    /**
+     * Processes the keys selected by the I/O thread
+     */
+    private void processSelectedKeys() {
 
         // Get list of selection keys with pending events
         Iterator<SelectionKey> it = selector.selectedKeys().iterator();
@@ -1405,16 +1576,17 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                 if (selKey.isReadable()) {
                     InetSocketAddress clientAddress = null;
-                    ByteBuffer readBuffer = ByteBuffer.allocate(maximumBufferSize);
+                    ByteBuffer readBuffer = null;
                     int numberBytesRead = 0;
                     boolean error = false;
 
                     if (selKey == listenerKey) {
                         try {
-                            clientAddress = (InetSocketAddress) theDatagramChannel.receive(readBuffer);
+                            clientAddress = (InetSocketAddress) theDatagramChannel.receive(getDirectReadBuffer());
+                            readBuffer = copyDirectReadBuffer();
                             logger.debug("Received {} on the listener port from {}", new String(readBuffer.array()),
                                     clientAddress);
-                            numberBytesRead = readBuffer.position();
+                            numberBytesRead = readBuffer.limit();
                         } catch (Exception e) {
                             error = true;
                         }
@@ -1426,7 +1598,8 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                             // remote end is not correctly fragemented. Could be handed of to implementation class if
                             // for example, the buffer needs to be split based on a special character like line feed or
                             // carriage return
-                            numberBytesRead = theDatagramChannel.read(readBuffer);
+                            numberBytesRead = theDatagramChannel.read(getDirectReadBuffer());
+                            readBuffer = copyDirectReadBuffer();
                             logger.debug("Received {} bytes ({}) on the channel {}->{}",
                                     new Object[] { numberBytesRead, new String(readBuffer.array()),
                                             theDatagramChannel.getLocalAddress(),
@@ -1531,8 +1704,6 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                         if (channelsToServe.size() > 0) {
 
-                            readBuffer.flip();
-
                             if (channels.isBlocking(theDatagramChannel)) {
                                 // if we are in a blocking operation, we get are now finished and we have to reset the
                                 // flag. The read buffer will be returned to the instance
@@ -1541,6 +1712,9 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                                 // find the Channel with this DGC that is holding a Blocking flag
                                 theChannel = channels.getBlocking(theDatagramChannel);
                                 theChannel.buffer = readBuffer;
+                                synchronized (theChannel) {
+                                    theChannel.notifyAll();
+                                }
 
                             } else {
                                 for (Channel aChannel : channelsToServe) {
@@ -1571,37 +1745,17 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                     }
                 } else if (selKey.isWritable()) {
 
-                    WriteBufferElement theElement = null;
-
-                    if (selKey == listenerKey) {
-                        Iterator<WriteBufferElement> iterator = writeQueue.iterator();
-                        while (iterator.hasNext()) {
-                            WriteBufferElement anElement = iterator.next();
-                            if (anElement.channel.channel.equals(listenerChannel)) {
-                                theElement = anElement;
-                                break;
-                            }
-                        }
-                    }
-
                     // check if any of the Channel using the DatagramChannel is blocking the DGC in a R/W operation
                     boolean isBlocking = channels.isBlocking(theDatagramChannel);
 
                     if (isBlocking) {
                         // if this channel is already flagged as being in a blocked write/read operation, we skip this
-                        // selKey
+                        // selKey until the operation has finished
+                        selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
                     } else {
 
-                        if (selKey != listenerKey) {
-                            Iterator<WriteBufferElement> iterator = writeQueue.iterator();
-                            while (iterator.hasNext()) {
-                                WriteBufferElement anElement = iterator.next();
-                                if (anElement.channel.channel.equals(theDatagramChannel)) {
-                                    theElement = anElement;
-                                    break;
-                                }
-                            }
-                        }
+                        // pick up the oldest QueueElement for this channel, if any
+                        WriteBufferElement theElement = nextWriteBufferElement(theDatagramChannel);
 
                         if (theElement != null && theElement.buffer != null) {
 
@@ -1613,8 +1767,6 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                             boolean error = false;
 
-                            theElement.buffer.rewind();
-
                             if (selKey == listenerKey) {
                                 try {
                                     if (useAddressMask && theElement.channel.remote == null) {
@@ -1675,6 +1827,10 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
 
                             if (error) {
 
+                                // the data will be sent again once the channel is reconnected
+                                theElement.buffer.rewind();
+                                selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+
                                 if (selKey != listenerKey) {
 
                                     Scheduler scheduler = null;
@@ -1720,11 +1876,12 @@ public abstract class AbstractDatagramChannelBinding<P extends ChannelBindingPro
                                     }
                                 }
                             } else {
-                                if (theElement != null) {
-                                    writeQueue.remove(theElement);
-                                }
-
+                                // datagrams that could not be sent on the listener channel are not retried
+                                theElement.channel.writeQueue.remove(theElement);
+                                updateWriteInterest(selKey, theDatagramChannel);
                             }
+                        } else {
+                            updateWriteInterest(selKey, theDatagramChannel);
                         }
                     }
                 }
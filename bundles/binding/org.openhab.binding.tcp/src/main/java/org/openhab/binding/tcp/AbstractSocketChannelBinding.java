@@ -17,6 +17,7 @@ import java.io.IOException;
 import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
 import java.nio.channels.NoConnectionPendingException;
 import java.nio.channels.NotYetConnectedException;
 import java.nio.channels.SelectionKey;
@@ -24,10 +25,12 @@ import java.nio.channels.Selector;
 import java.nio.channels.ServerSocketChannel;
 import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Dictionary;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.binding.AbstractActiveBinding;
@@ -85,14 +88,28 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     protected boolean directionsShareChannels = false;
     // allow *:* host:port definitions
     protected boolean useAddressMask = true;
-    // refresh interval for the worker thread
+    // refresh interval for the worker thread that sets up the channels
     protected long refreshInterval = 250;
 
     protected ServerSocketChannel listenerChannel = null;
     protected SelectionKey listenerKey = null;
 
-    // Queue to store BufferElements that need to be written to the network
-    protected List<WriteBufferElement> writeQueue = Collections.synchronizedList(new ArrayList<WriteBufferElement>());
+    // Threads registering channels with the selector hold this lock, so that the I/O thread does not re-enter
+    // select() before the registration is done
+    protected final Object selectorGuard = new Object();
+
+    // SocketChannels that have data queued and have to be registered for write operations
+    private final Queue<SocketChannel> pendingWriteChannels = new ConcurrentLinkedQueue<SocketChannel>();
+
+    // Sequence number to preserve the order of writes of different Channels sharing a SocketChannel
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    // Buffer to read data from the network, reused by the I/O thread for every read operation
+    private ByteBuffer directReadBuffer;
+
+    // The thread that waits for and processes the I/O events of the selector
+    private Thread selectorThread;
+    private volatile boolean selectorRunning = false;
 
     // Simple datastructure to track the state of Channels
     protected ChannelTracker<Channel> channels = new ChannelTracker<Channel>();
@@ -114,9 +131,9 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
         // the direction, in our out, of this channel
         public Direction direction;
         // flag to indicate if the channel is in a blocking write/read operation
-        public boolean isBlocking;
+        public volatile boolean isBlocking;
         // placeholder to store the received data as the result of a blocking write/read operation
-        public ByteBuffer buffer;
+        public volatile ByteBuffer buffer;
         // flag to indicate if the channel is reconnecting / recovering from a previous communication error
         public boolean isReconnecting;
         // reference to the underlying Java NIO SocketChannel that represents this TCP/IP connection
@@ -125,6 +142,8 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
         public String host;
         // remote port number to use. Could be "*" when using masked addresses
         public String port;
+        // data that needs to be written to the network for this channel
+        public Queue<WriteBufferElement> writeQueue = new ConcurrentLinkedQueue<WriteBufferElement>();
 
         public Channel(String item, Command command, InetSocketAddress remote, Direction direction, boolean isBlocking,
                 ByteBuffer buffer, boolean isReconnecting, SocketChannel channel) {
@@ -642,12 +661,14 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
         public Channel channel;
         public ByteBuffer buffer;
         public boolean isBlocking;
+        public final long sequence;
 
         public WriteBufferElement(Channel channel, ByteBuffer buffer, boolean isBlocking) {
             super();
             this.channel = channel;
             this.buffer = buffer;
             this.isBlocking = isBlocking;
+            this.sequence = writeSequence.incrementAndGet();
         }
 
         @Override
@@ -682,7 +703,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
             logger.info("Listening for incoming connections on {}", listenerChannel.getLocalAddress());
 
-            synchronized (selector) {
+            synchronized (selectorGuard) {
                 selector.wakeup();
                 try {
                     listenerKey = listenerChannel.register(selector, SelectionKey.OP_ACCEPT);
@@ -708,7 +729,13 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             selector = Selector.open();
         } catch (IOException e) {
             logger.error("An exception occurred while registering the selector: {}", e.getMessage());
+            return;
         }
+
+        selectorRunning = true;
+        selectorThread = new Thread(new SelectorLoop(), "SocketChannel I/O " + getClass().getSimpleName());
+        selectorThread.setDaemon(true);
+        selectorThread.start();
     }
 
     /**
@@ -717,6 +744,17 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
     @Override
     public void deactivate() {
 
+        selectorRunning = false;
+        if (selectorThread != null) {
+            selector.wakeup();
+            try {
+                selectorThread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            selectorThread = null;
+        }
+
         try {
             selector.close();
         } catch (IOException e) {
@@ -1058,16 +1096,22 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
             if (theBuffer != null) {
                 if (theSocketChannel.isConnected() || queueUntilConnected) {
-                    writeQueue.add(new WriteBufferElement(theChannel, theBuffer, true));
+                    queueWriteBuffer(new WriteBufferElement(theChannel, theBuffer, true));
                 }
 
-                long currentElapsedTimeMillis = System.currentTimeMillis();
-
-                while (theChannel.buffer == null && (System.currentTimeMillis() - currentElapsedTimeMillis) < timeOut) {
-                    try {
-                        Thread.sleep(100);
-                    } catch (InterruptedException e) {
-                        logger.warn("Exception occurred while waiting during a blocking buffer write");
+                // the I/O thread notifies us as soon as the response has been received
+                long deadline = System.currentTimeMillis() + timeOut;
+                synchronized (theChannel) {
+                    long remaining = timeOut;
+                    while (theChannel.buffer == null && remaining > 0) {
+                        try {
+                            theChannel.wait(remaining);
+                        } catch (InterruptedException e) {
+                            logger.warn("Exception occurred while waiting during a blocking buffer write");
+                            Thread.currentThread().interrupt();
+                            break;
+                        }
+                        remaining = deadline - System.currentTimeMillis();
                     }
                 }
 
@@ -1077,6 +1121,10 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                     theChannel.buffer = null;
                     theChannel.isBlocking = false;
                 }
+
+                // resume writing data that was queued while we were waiting
+                requestWrite(theChannel.channel);
+
                 return responseBuffer;
             } else {
                 return theBuffer;
@@ -1086,7 +1134,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
             if (theBuffer != null) {
                 if (theSocketChannel.isConnected() || queueUntilConnected) {
-                    writeQueue.add(new WriteBufferElement(theChannel, theBuffer, false));
+                    queueWriteBuffer(new WriteBufferElement(theChannel, theBuffer, false));
                 }
             }
 
@@ -1094,6 +1142,125 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
         }
     }
 
+    /**
+     * Adds an element to the write queue of its channel and wakes up the I/O thread
+     *
+     * @param theElement the element to write
+     */
+    private void queueWriteBuffer(WriteBufferElement theElement) {
+        theElement.buffer.rewind();
+        theElement.channel.writeQueue.add(theElement);
+        requestWrite(theElement.channel.channel);
+    }
+
+    /**
+     * Asks the I/O thread to register the given channel for write operations
+     *
+     * @param theSocketChannel the channel that has data to write
+     */
+    private void requestWrite(SocketChannel theSocketChannel) {
+        if (theSocketChannel != null && selector != null) {
+            pendingWriteChannels.add(theSocketChannel);
+            selector.wakeup();
+        }
+    }
+
+    /**
+     * Registers the channels for which data has been queued for write operations. Must be called from the I/O
+     * thread
+     */
+    private void registerPendingWrites() {
+        SocketChannel theSocketChannel;
+        while ((theSocketChannel = pendingWriteChannels.poll()) != null) {
+            SelectionKey selKey = theSocketChannel.keyFor(selector);
+            if (selKey != null) {
+                updateWriteInterest(selKey, theSocketChannel);
+            }
+        }
+    }
+
+    /**
+     * Sets or clears the interest in write operations of a key, depending on whether there is data to write for its
+     * channel. Must be called from the I/O thread
+     */
+    private void updateWriteInterest(SelectionKey selKey, SocketChannel theSocketChannel) {
+        if (!selKey.isValid()) {
+            return;
+        }
+        boolean hasData = !channels.isBlocking(theSocketChannel) && nextWriteBufferElement(theSocketChannel) != null;
+        if (hasData) {
+            selKey.interestOps(selKey.interestOps() | SelectionKey.OP_WRITE);
+        } else {
+            selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+        }
+    }
+
+    /**
+     * Returns the oldest element queued by any of the Channels that use the given SocketChannel
+     */
+    private WriteBufferElement nextWriteBufferElement(SocketChannel theSocketChannel) {
+        WriteBufferElement theElement = null;
+        for (Channel aChannel : channels.getAll(theSocketChannel)) {
+            WriteBufferElement anElement = aChannel.writeQueue.peek();
+            if (anElement != null && (theElement == null || anElement.sequence < theElement.sequence)) {
+                theElement = anElement;
+            }
+        }
+        return theElement;
+    }
+
+    /**
+     * Reads the data available on a channel into the reusable direct buffer and returns a copy of it, sized to the
+     * number of bytes read, or <code>null</code> if the channel was closed by the remote end.
+     */
+    private ByteBuffer readChannel(SocketChannel theSocketChannel) throws IOException {
+        if (directReadBuffer == null || directReadBuffer.capacity() != maximumBufferSize) {
+            directReadBuffer = ByteBuffer.allocateDirect(maximumBufferSize);
+        }
+        directReadBuffer.clear();
+        if (theSocketChannel.read(directReadBuffer) == -1) {
+            return null;
+        }
+        directReadBuffer.flip();
+        ByteBuffer readBuffer = ByteBuffer.allocate(directReadBuffer.remaining());
+        readBuffer.put(directReadBuffer);
+        readBuffer.flip();
+        return readBuffer;
+    }
+
+    /**
+     * The I/O thread. It blocks on the selector until a channel is ready or until another thread wakes it up to
+     * register a channel or to write data
+     */
+    private class SelectorLoop implements Runnable {
+
+        @Override
+        public void run() {
+            while (selectorRunning) {
+                // wait until other threads are done registering channels with the selector
+                synchronized (selectorGuard) {
+                    registerPendingWrites();
+                }
+
+                try {
+                    selector.select();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (IOException e) {
+                    logger.error("An exception occurred while Selecting ({})", e.getMessage());
+                }
+
+                try {
+                    processSelectedKeys();
+                } catch (ClosedSelectorException e) {
+                    break;
+                } catch (RuntimeException e) {
+                    logger.error("An exception occurred while processing the selected channels", e);
+                }
+            }
+        }
+    }
+
     /**
      * Quartz Job to reconnect a channel
      * 
@@ -1142,9 +1309,9 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                         logger.error("An exception occurred while configuring a channel: {}", e.getMessage());
                     }
 
-                    synchronized (theBinding.selector) {
+                    synchronized (theBinding.selectorGuard) {
                         theBinding.selector.wakeup();
-                        int interestSet = SelectionKey.OP_READ | SelectionKey.OP_WRITE | SelectionKey.OP_CONNECT;
+                        int interestSet = SelectionKey.OP_READ | SelectionKey.OP_CONNECT;
                         try {
                             if (theChannel.channel != null) {
                                 theChannel.channel.register(theBinding.selector, interestSet);
@@ -1340,10 +1507,9 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                                         e.getMessage());
                                             }
 
-                                            synchronized (selector) {
+                                            synchronized (selectorGuard) {
                                                 selector.wakeup();
-                                                int interestSet = SelectionKey.OP_READ | SelectionKey.OP_WRITE
-                                                        | SelectionKey.OP_CONNECT;
+                                                int interestSet = SelectionKey.OP_READ | SelectionKey.OP_CONNECT;
                                                 try {
                                                     newSocketChannel.register(selector, interestSet);
                                                 } catch (ClosedChannelException e1) {
@@ -1376,15 +1542,12 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
             }
         }
 
-        // Check on channels for which we have to process data
-        synchronized (selector) {
-            try {
-                // Wait for an event
-                selector.selectNow();
-            } catch (IOException e) {
-                logger.error("An exception occurred while Selecting ({})", e.getMessage());
-            }
-        }
+    }
+
+    /**
+     * Processes the keys selected by the I/O thread
+     */
+    private void processSelectedKeys() {
 
         // Get list of selection keys with pending events
         Iterator<SelectionKey> it = selector.selectedKeys().iterator();
@@ -1450,14 +1613,15 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                                     e.getMessage());
                                         }
 
-                                        synchronized (selector) {
-                                            selector.wakeup();
-                                            try {
-                                                newChannel.register(selector, newChannel.validOps());
-                                            } catch (ClosedChannelException e1) {
-                                                logger.error("An exception occurred while registering a selector: {}",
-                                                        e1.getMessage());
-                                            }
+                                        try {
+                                            newChannel.register(selector, SelectionKey.OP_READ);
+                                        } catch (ClosedChannelException e1) {
+                                            logger.error("An exception occurred while registering a selector: {}",
+                                                    e1.getMessage());
+                                        }
+                                        SelectionKey newKey = newChannel.keyFor(selector);
+                                        if (newKey != null) {
+                                            updateWriteInterest(newKey, newChannel);
                                         }
 
                                         Scheduler scheduler = null;
@@ -1608,6 +1772,10 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                     channels.replace(remote, theChannel.channel);
                                 }
 
+                                // we are connected, now start writing the data that was queued in the meantime
+                                selKey.interestOps(SelectionKey.OP_READ);
+                                updateWriteInterest(selKey, theSocketChannel);
+
                                 Scheduler scheduler = null;
                                 try {
                                     scheduler = StdSchedulerFactory.getDefaultScheduler();
@@ -1664,7 +1832,7 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                     } else if (selKey.isReadable()) {
 
-                        ByteBuffer readBuffer = ByteBuffer.allocate(maximumBufferSize);
+                        ByteBuffer readBuffer = null;
                         int numberBytesRead = 0;
                         boolean error = false;
 
@@ -1673,7 +1841,8 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                             // remote end is not correctly fragemented. Could be handed of to implementation class if
                             // for example, the buffer needs to be split based on a special character like line feed or
                             // carriage return
-                            numberBytesRead = theSocketChannel.read(readBuffer);
+                            readBuffer = readChannel(theSocketChannel);
+                            numberBytesRead = readBuffer != null ? readBuffer.limit() : -1;
                         } catch (NotYetConnectedException e) {
                             logger.warn("The channel for {} has no connection pending ({})", theChannel.remote,
                                     e.getMessage());
@@ -1747,8 +1916,6 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                             if (channelsToServe.size() > 0) {
 
-                                readBuffer.flip();
-
                                 boolean isBlocking = channels.isBlocking(theSocketChannel);
 
                                 if (isBlocking) {
@@ -1759,6 +1926,12 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                     theChannel = channels.getBlocking(theSocketChannel);
                                     theChannel.buffer = readBuffer;
                                     theChannel.isBlocking = false;
+                                    synchronized (theChannel) {
+                                        theChannel.notifyAll();
+                                    }
+
+                                    // writes that were held back during the blocking operation can continue
+                                    updateWriteInterest(selKey, theSocketChannel);
 
                                 } else {
                                     for (Channel aChannel : channelsToServe) {
@@ -1785,21 +1958,12 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                         if (isBlocking) {
                             // if this channel is already flagged as being in a blocked write/read operation, we skip
-                            // this selKey
+                            // this selKey until the operation has finished
+                            selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
                         } else {
 
-                            // pick up a QueueElement for this channel, if any
-
-                            WriteBufferElement theElement = null;
-
-                            Iterator<WriteBufferElement> iterator = writeQueue.iterator();
-                            while (iterator.hasNext()) {
-                                WriteBufferElement anElement = iterator.next();
-                                if (anElement.channel.channel.equals(theSocketChannel)) {
-                                    theElement = anElement;
-                                    break;
-                                }
-                            }
+                            // pick up the oldest QueueElement for this channel, if any
+                            WriteBufferElement theElement = nextWriteBufferElement(theSocketChannel);
 
                             if (theElement != null && theElement.buffer != null) {
 
@@ -1811,7 +1975,6 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                                 boolean error = false;
 
-                                theElement.buffer.rewind();
                                 try {
                                     logger.debug("Sending {} for the outbound channel {}->{}",
                                             new Object[] { new String(theElement.buffer.array()),
@@ -1837,6 +2000,10 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
 
                                 if (error) {
 
+                                    // the data will be sent again once the channel is reconnected
+                                    theElement.buffer.rewind();
+                                    selKey.interestOps(selKey.interestOps() & ~SelectionKey.OP_WRITE);
+
                                     if (theElement.channel.direction == Direction.OUT) {
 
                                         Scheduler scheduler = null;
@@ -1880,11 +2047,13 @@ public abstract class AbstractSocketChannelBinding<P extends ChannelBindingProvi
                                         theElement.channel.channel = null;
                                     }
                                 } else {
-                                    if (theElement != null) {
-                                        writeQueue.remove(theElement);
+                                    if (!theElement.buffer.hasRemaining()) {
+                                        theElement.channel.writeQueue.remove(theElement);
                                     }
-
+                                    updateWriteInterest(selKey, theSocketChannel);
                                 }
+                            } else {
+                                updateWriteInterest(selKey, theSocketChannel);
                             }
                         }
                     }
@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.tinkerforge.TinkerforgeBindingProvider;
+import org.openhab.binding.tinkerforge.internal.model.OHConfig;
+import org.openhab.binding.tinkerforge.internal.model.OHTFDevice;
+import org.openhab.core.items.Item;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Maps the uid and subid of a device to the items bound to it, together with the
+ * {@link ItemStateConverter} for each item.
+ *
+ * The table is built from the binding providers and the symbolic device names of the
+ * openhab.cfg, so finding the items for a device value is a lookup in two maps. The table is
+ * immutable, the binding builds a new one if the item bindings or the configuration change.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ItemDispatchTable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ItemDispatchTable.class);
+
+    private final Map<String, Map<String, List<ItemTarget>>> targetsByUid =
+            new HashMap<String, Map<String, List<ItemTarget>>>();
+
+    /**
+     * Builds the table for all items of the providers.
+     *
+     * @param providers The {@link TinkerforgeBindingProvider}s of the binding.
+     * @param ohConfig The {@link OHConfig} with the symbolic device names, may be {@code null}.
+     */
+    public ItemDispatchTable(Collection<TinkerforgeBindingProvider> providers, OHConfig ohConfig) {
+        for (TinkerforgeBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                String deviceUid = provider.getUid(itemName);
+                String subDeviceId = provider.getSubId(itemName);
+                String deviceName = provider.getName(itemName);
+                if (deviceName != null) {
+                    OHTFDevice<?, ?> ohtfDevice = ohConfig == null ? null : ohConfig.getConfigByOHId(deviceName);
+                    if (ohtfDevice == null) {
+                        logger.debug("{} no device configured for name {} of item {}", LoggerConstants.CONFIG,
+                                deviceName, itemName);
+                        continue;
+                    }
+                    deviceUid = ohtfDevice.getUid();
+                    subDeviceId = ohtfDevice.getSubid();
+                    logger.trace("found deviceName {}, uid={}, subId {}", deviceName, deviceUid, subDeviceId);
+                }
+                if (deviceUid == null) {
+                    continue;
+                }
+                Class<? extends Item> itemType = provider.getItemType(itemName);
+                if (itemType == null) {
+                    continue;
+                }
+                addTarget(deviceUid, subDeviceId, new ItemTarget(itemName, ItemStateConverter.getConverter(itemType)));
+            }
+        }
+    }
+
+    private void addTarget(String uid, String subId, ItemTarget target) {
+        Map<String, List<ItemTarget>> targetsBySubId = targetsByUid.get(uid);
+        if (targetsBySubId == null) {
+            targetsBySubId = new HashMap<String, List<ItemTarget>>();
+            targetsByUid.put(uid, targetsBySubId);
+        }
+        List<ItemTarget> targets = targetsBySubId.get(subId);
+        if (targets == null) {
+            targets = new ArrayList<ItemTarget>(1);
+            targetsBySubId.put(subId, targets);
+        }
+        targets.add(target);
+    }
+
+    /**
+     * Gets the items bound to a device.
+     *
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @return The {@link ItemTarget}s of the items bound to the device, an empty list if there
+     *         are none.
+     */
+    public List<ItemTarget> getTargets(String uid, String subId) {
+        Map<String, List<ItemTarget>> targetsBySubId = targetsByUid.get(uid);
+        if (targetsBySubId == null) {
+            return Collections.emptyList();
+        }
+        List<ItemTarget> targets = targetsBySubId.get(subId);
+        if (targets == null) {
+            return Collections.emptyList();
+        }
+        return targets;
+    }
+
+    /**
+     * An item bound to a device and the converter for its item type.
+     */
+    public static class ItemTarget {
+        private final String itemName;
+        private final ItemStateConverter converter;
+
+        ItemTarget(String itemName, ItemStateConverter converter) {
+            this.itemName = itemName;
+            this.converter = converter;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public ItemStateConverter getConverter() {
+            return converter;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
+import org.openhab.binding.tinkerforge.internal.types.DirectionValue;
+import org.openhab.binding.tinkerforge.internal.types.HSBValue;
+import org.openhab.binding.tinkerforge.internal.types.HighLowValue;
+import org.openhab.binding.tinkerforge.internal.types.OnOffValue;
+import org.openhab.binding.tinkerforge.internal.types.PercentValue;
+import org.openhab.binding.tinkerforge.internal.types.TinkerforgeValue;
+import org.openhab.core.items.Item;
+import org.openhab.core.library.items.ColorItem;
+import org.openhab.core.library.items.ContactItem;
+import org.openhab.core.library.items.DimmerItem;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
+import org.openhab.core.library.items.StringItem;
+import org.openhab.core.library.items.SwitchItem;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.UnDefType;
+
+/**
+ * Converts the {@link TinkerforgeValue}s of a device to the {@link State}s of an item type.
+ *
+ * The checks which state types the item type accepts are done once when the converter is
+ * created, so converting a value doesn't need any reflection. There is one shared converter
+ * per item type.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ItemStateConverter {
+
+    private static final Map<Class<? extends Item>, ItemStateConverter> converters =
+            new ConcurrentHashMap<Class<? extends Item>, ItemStateConverter>();
+
+    private static final DecimalType DECIMAL_ZERO = new DecimalType(BigDecimal.ZERO);
+    private static final DecimalType DECIMAL_ONE = new DecimalType(BigDecimal.ONE);
+
+    private final boolean isNumber;
+    private final boolean isContact;
+    private final boolean isSwitch;
+    private final boolean isPercent;
+    private final boolean isRollershutter;
+    private final boolean isColor;
+
+    private ItemStateConverter(Class<? extends Item> itemType) {
+        isNumber = itemType.isAssignableFrom(NumberItem.class) || itemType.isAssignableFrom(StringItem.class);
+        isContact = itemType.isAssignableFrom(ContactItem.class);
+        isSwitch = itemType.isAssignableFrom(SwitchItem.class);
+        isPercent = itemType.isAssignableFrom(RollershutterItem.class) || itemType.isAssignableFrom(DimmerItem.class);
+        isRollershutter = itemType.isAssignableFrom(RollershutterItem.class);
+        isColor = itemType.isAssignableFrom(ColorItem.class);
+    }
+
+    /**
+     * Gets the converter for an item type.
+     *
+     * @param itemType The class of the item.
+     * @return The shared {@link ItemStateConverter} for the item type.
+     */
+    public static ItemStateConverter getConverter(Class<? extends Item> itemType) {
+        ItemStateConverter converter = converters.get(itemType);
+        if (converter == null) {
+            converter = new ItemStateConverter(itemType);
+            converters.put(itemType, converter);
+        }
+        return converter;
+    }
+
+    /**
+     * Converts a device value to the state of the item.
+     *
+     * @param sensorValue The {@link TinkerforgeValue} of the device, may be {@code null}.
+     * @return The {@link State} to post or {@code null} if the item doesn't accept the value.
+     */
+    public State convert(TinkerforgeValue sensorValue) {
+        if (sensorValue instanceof DecimalValue) {
+            if (isNumber) {
+                return toDecimalType((DecimalValue) sensorValue);
+            } else if (isContact) {
+                return sensorValue.equals(DecimalValue.ZERO) ? OpenClosedType.CLOSED : OpenClosedType.OPEN;
+            } else if (isSwitch) {
+                return sensorValue.equals(DecimalValue.ZERO) ? OnOffType.OFF : OnOffType.ON;
+            }
+            return null;
+        } else if (sensorValue instanceof HighLowValue) {
+            if (isNumber) {
+                return sensorValue == HighLowValue.HIGH ? DECIMAL_ONE : DECIMAL_ZERO;
+            } else if (isContact) {
+                return sensorValue == HighLowValue.HIGH ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            } else if (isSwitch) {
+                return sensorValue == HighLowValue.HIGH ? OnOffType.ON : OnOffType.OFF;
+            }
+            return null;
+        } else if (sensorValue instanceof OnOffValue) {
+            if (isNumber) {
+                return sensorValue == OnOffValue.ON ? DECIMAL_ONE : DECIMAL_ZERO;
+            } else if (isContact) {
+                return sensorValue == OnOffValue.ON ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            } else if (isSwitch) {
+                return sensorValue == OnOffValue.ON ? OnOffType.ON : OnOffType.OFF;
+            }
+            return null;
+        } else if (sensorValue instanceof PercentValue) {
+            BigDecimal percent = ((PercentValue) sensorValue).toBigDecimal();
+            if (isSwitch) {
+                return percent.compareTo(BigDecimal.ZERO) == 1 ? OnOffType.ON : OnOffType.OFF;
+            } else if (isPercent) {
+                return new PercentType(percent);
+            } else if (isContact) {
+                return percent.compareTo(BigDecimal.ZERO) == -1 ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
+            }
+            return null;
+        } else if (sensorValue instanceof DirectionValue) {
+            if (isRollershutter) {
+                return sensorValue == DirectionValue.RIGHT ? UpDownType.UP : UpDownType.DOWN;
+            }
+            return null;
+        } else if (sensorValue instanceof HSBValue) {
+            if (isColor) {
+                return ((HSBValue) sensorValue).getHsbValue();
+            }
+            return UnDefType.UNDEF;
+        }
+        // UnDefValue.UNDEF, null and values without a matching state
+        return UnDefType.UNDEF;
+    }
+
+    /**
+     * Converts without going through a {@code String}. The value is the same as the one of
+     * {@code DecimalType.valueOf(decimalValue.toString())}, which drops a negative scale.
+     */
+    private static DecimalType toDecimalType(DecimalValue decimalValue) {
+        BigDecimal value = decimalValue.bigDecimalValue();
+        if (value.scale() < 0) {
+            value = value.setScale(0);
+        }
+        return new DecimalType(value);
+    }
+}
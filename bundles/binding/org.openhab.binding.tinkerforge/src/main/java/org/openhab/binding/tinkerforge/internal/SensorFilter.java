@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Arrays;
+
+import org.openhab.binding.tinkerforge.internal.config.SensorFilterConfiguration;
+import org.openhab.binding.tinkerforge.internal.config.SensorFilterConfiguration.FilterMode;
+import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
+
+/**
+ * Filters the values of a single sensor according to its {@link SensorFilterConfiguration}.
+ *
+ * Each value is added to a window of the last values, which are aggregated to the average or
+ * median. The aggregated value is sent if it differs from the last sent value by at least the
+ * configured delta and the minimum interval since the last sent value has passed. A value held
+ * back by the interval is kept as pending value, so the latest value is sent once the interval
+ * has passed.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SensorFilter {
+
+    private final SensorFilterConfiguration configuration;
+    private final BigDecimal[] window;
+    private int windowCount;
+    private int windowNext;
+    private DecimalValue lastSent;
+    private long lastSentTime;
+    private DecimalValue pending;
+    private boolean pendingScheduled;
+    private long suppressedByInterval;
+    private long suppressedByDelta;
+
+    public SensorFilter(SensorFilterConfiguration configuration) {
+        this.configuration = configuration;
+        this.window = new BigDecimal[configuration.getWindowSize()];
+    }
+
+    public SensorFilterConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Adds a new sensor value.
+     *
+     * @param value The new value of the sensor.
+     * @param now The current time in milliseconds.
+     * @return The value to send now or {@code null} if the value is held back.
+     */
+    public synchronized DecimalValue add(DecimalValue value, long now) {
+        window[windowNext] = value.bigDecimalValue();
+        windowNext = (windowNext + 1) % window.length;
+        if (windowCount < window.length) {
+            windowCount++;
+        }
+        DecimalValue aggregated = window.length == 1 ? value : new DecimalValue(aggregate());
+        if (isBelowDelta(aggregated)) {
+            suppressedByDelta++;
+            pending = null;
+            return null;
+        }
+        if (lastSent != null && now - lastSentTime < configuration.getMinInterval()) {
+            suppressedByInterval++;
+            pending = aggregated;
+            return null;
+        }
+        return sent(aggregated, now);
+    }
+
+    /**
+     * Gets the value held back by the minimum interval, once the interval has passed.
+     *
+     * @param now The current time in milliseconds.
+     * @return The pending value or {@code null} if there is none or it is still too early.
+     */
+    public synchronized DecimalValue takePending(long now) {
+        pendingScheduled = false;
+        if (pending == null || now - lastSentTime < configuration.getMinInterval()) {
+            return null;
+        }
+        return sent(pending, now);
+    }
+
+    /**
+     * Marks the pending value to be scheduled. {@link #takePending(long)} has to be called when
+     * it is due.
+     *
+     * @return the time in milliseconds when the pending value is due, or -1 if there is none or
+     *         it is already scheduled
+     */
+    public synchronized long schedulePending() {
+        if (pending == null || pendingScheduled) {
+            return -1;
+        }
+        pendingScheduled = true;
+        return lastSentTime + configuration.getMinInterval();
+    }
+
+    /**
+     * Forgets the values seen so far, the next value is sent regardless of the delta and interval.
+     */
+    public synchronized void reset() {
+        Arrays.fill(window, null);
+        windowCount = 0;
+        windowNext = 0;
+        lastSent = null;
+        pending = null;
+    }
+
+    public synchronized long getSuppressedByInterval() {
+        return suppressedByInterval;
+    }
+
+    public synchronized long getSuppressedByDelta() {
+        return suppressedByDelta;
+    }
+
+    private DecimalValue sent(DecimalValue value, long now) {
+        lastSent = value;
+        lastSentTime = now;
+        pending = null;
+        return value;
+    }
+
+    private boolean isBelowDelta(DecimalValue value) {
+        BigDecimal delta = configuration.getDelta();
+        if (delta == null || lastSent == null) {
+            return false;
+        }
+        return value.bigDecimalValue().subtract(lastSent.bigDecimalValue()).abs().compareTo(delta) < 0;
+    }
+
+    /**
+     * Aggregates the values of the window. The result has the largest scale of the values.
+     */
+    private BigDecimal aggregate() {
+        BigDecimal[] values = new BigDecimal[windowCount];
+        int scale = 0;
+        for (int i = 0; i < windowCount; i++) {
+            values[i] = window[i];
+            scale = Math.max(scale, window[i].scale());
+        }
+        if (configuration.getMode() == FilterMode.median) {
+            Arrays.sort(values);
+            int middle = windowCount / 2;
+            if (windowCount % 2 == 1) {
+                return values[middle];
+            }
+            return values[middle - 1].add(values[middle]).divide(BigDecimal.valueOf(2), scale, RoundingMode.HALF_UP);
+        }
+        BigDecimal sum = BigDecimal.ZERO;
+        for (BigDecimal v : values) {
+            sum = sum.add(v);
+        }
+        return sum.divide(BigDecimal.valueOf(windowCount), scale, RoundingMode.HALF_UP);
+    }
+}
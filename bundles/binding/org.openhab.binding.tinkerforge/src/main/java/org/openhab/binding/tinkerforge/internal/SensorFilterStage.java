@@ -0,0 +1,180 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.openhab.binding.tinkerforge.internal.config.SensorFilterConfiguration;
+import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
+import org.openhab.binding.tinkerforge.internal.types.TinkerforgeValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Sits between the {@link org.openhab.binding.tinkerforge.internal.model.Ecosystem} listener and
+ * the item updates and filters the values of the sensors which have a filter configured in
+ * openhab.cfg, see {@link SensorFilterConfiguration}.
+ *
+ * Only decimal values are filtered, all other values and the values of sensors without a filter
+ * are passed on unchanged. Values held back by the minimum interval are sent by a timer once the
+ * interval has passed.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SensorFilterStage {
+
+    private static final Logger logger = LoggerFactory.getLogger(SensorFilterStage.class);
+
+    /**
+     * Receives the values which passed the filters.
+     */
+    public interface Listener {
+        void valueFiltered(String uid, String subId, TinkerforgeValue value);
+    }
+
+    private final Listener listener;
+    private final Map<String, Map<String, SensorFilter>> filtersByUid =
+            new HashMap<String, Map<String, SensorFilter>>();
+    private ScheduledExecutorService scheduler;
+    private boolean isShutdown;
+
+    /**
+     * Creates the filters.
+     *
+     * @param configurations The {@link SensorFilterConfiguration}s from openhab.cfg.
+     * @param listener The {@link Listener} the values are passed to.
+     */
+    public SensorFilterStage(List<SensorFilterConfiguration> configurations, Listener listener) {
+        this.listener = listener;
+        for (SensorFilterConfiguration configuration : configurations) {
+            Map<String, SensorFilter> filtersBySubId = filtersByUid.get(configuration.getUid());
+            if (filtersBySubId == null) {
+                filtersBySubId = new HashMap<String, SensorFilter>();
+                filtersByUid.put(configuration.getUid(), filtersBySubId);
+            }
+            filtersBySubId.put(configuration.getSubId(), new SensorFilter(configuration));
+        }
+    }
+
+    /**
+     * Filters a value and passes it on to the listener if it is not held back.
+     *
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @param value The new value of the device.
+     */
+    public void process(String uid, String subId, TinkerforgeValue value) {
+        SensorFilter filter = getFilter(uid, subId);
+        if (filter == null) {
+            listener.valueFiltered(uid, subId, value);
+            return;
+        }
+        if (!(value instanceof DecimalValue)) {
+            // undef after a disconnect, start again from scratch
+            filter.reset();
+            listener.valueFiltered(uid, subId, value);
+            return;
+        }
+        DecimalValue filtered = filter.add((DecimalValue) value, System.currentTimeMillis());
+        if (filtered != null) {
+            listener.valueFiltered(uid, subId, filtered);
+        } else {
+            logger.trace("{} held back value {} for uid {} subid {}", LoggerConstants.TFMODELUPDATE, value, uid,
+                    subId);
+            schedulePending(uid, subId, filter);
+        }
+    }
+
+    /**
+     * Forgets the values seen so far, so the next value of every sensor is passed on.
+     */
+    public void reset() {
+        for (Map<String, SensorFilter> filtersBySubId : filtersByUid.values()) {
+            for (SensorFilter filter : filtersBySubId.values()) {
+                filter.reset();
+            }
+        }
+    }
+
+    /**
+     * Logs the number of held back values for every filter.
+     */
+    public void logStatistics() {
+        if (!logger.isDebugEnabled()) {
+            return;
+        }
+        for (Map<String, SensorFilter> filtersBySubId : filtersByUid.values()) {
+            for (SensorFilter filter : filtersBySubId.values()) {
+                logger.debug("{} {}: suppressed by interval {}, by delta {}", LoggerConstants.TFMODELUPDATE,
+                        filter.getConfiguration(), filter.getSuppressedByInterval(), filter.getSuppressedByDelta());
+            }
+        }
+    }
+
+    /**
+     * Stops sending held back values.
+     */
+    public synchronized void shutdown() {
+        isShutdown = true;
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    private SensorFilter getFilter(String uid, String subId) {
+        Map<String, SensorFilter> filtersBySubId = filtersByUid.get(uid);
+        return filtersBySubId == null ? null : filtersBySubId.get(subId);
+    }
+
+    private void schedulePending(final String uid, final String subId, final SensorFilter filter) {
+        long pendingTime = filter.schedulePending();
+        if (pendingTime < 0) {
+            return;
+        }
+        ScheduledExecutorService scheduler = getScheduler();
+        if (scheduler == null) {
+            return;
+        }
+        long delay = Math.max(0, pendingTime - System.currentTimeMillis());
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                DecimalValue pending = filter.takePending(System.currentTimeMillis());
+                if (pending != null) {
+                    listener.valueFiltered(uid, subId, pending);
+                } else {
+                    // a newer value has been sent meanwhile, its successor may still be pending
+                    schedulePending(uid, subId, filter);
+                }
+            }
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null && !isShutdown) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "Tinkerforge sensor filter");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return scheduler;
+    }
+}
@@ -8,11 +8,8 @@
  */
 package org.openhab.binding.tinkerforge.internal;
 
-import java.math.BigDecimal;
 import java.util.Dictionary;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Map.Entry;
+import java.util.List;
 
 import org.apache.commons.lang.StringUtils;
 import org.eclipse.emf.common.notify.Notification;
@@ -22,6 +19,7 @@ import org.eclipse.emf.ecore.util.EContentAdapter;
 import org.eclipse.emf.ecore.util.EcoreUtil;
 import org.openhab.binding.tinkerforge.TinkerforgeBindingProvider;
 import org.openhab.binding.tinkerforge.ecosystem.TinkerforgeContextImpl;
+import org.openhab.binding.tinkerforge.internal.ItemDispatchTable.ItemTarget;
 import org.openhab.binding.tinkerforge.internal.config.ConfigurationHandler;
 import org.openhab.binding.tinkerforge.internal.model.ColorActor;
 import org.openhab.binding.tinkerforge.internal.model.DigitalActor;
@@ -52,36 +50,24 @@ import org.openhab.binding.tinkerforge.internal.model.SetPointActor;
 import org.openhab.binding.tinkerforge.internal.model.SimpleColorActor;
 import org.openhab.binding.tinkerforge.internal.model.SwitchSensor;
 import org.openhab.binding.tinkerforge.internal.model.TFConfig;
-import org.openhab.binding.tinkerforge.internal.types.DecimalValue;
-import org.openhab.binding.tinkerforge.internal.types.DirectionValue;
-import org.openhab.binding.tinkerforge.internal.types.HSBValue;
 import org.openhab.binding.tinkerforge.internal.types.HighLowValue;
 import org.openhab.binding.tinkerforge.internal.types.OnOffValue;
-import org.openhab.binding.tinkerforge.internal.types.PercentValue;
 import org.openhab.binding.tinkerforge.internal.types.TinkerforgeValue;
 import org.openhab.binding.tinkerforge.internal.types.UnDefValue;
 import org.openhab.core.binding.AbstractActiveBinding;
 import org.openhab.core.binding.BindingProvider;
 import org.openhab.core.items.Item;
-import org.openhab.core.library.items.ColorItem;
-import org.openhab.core.library.items.ContactItem;
-import org.openhab.core.library.items.DimmerItem;
-import org.openhab.core.library.items.NumberItem;
-import org.openhab.core.library.items.RollershutterItem;
-import org.openhab.core.library.items.StringItem;
 import org.openhab.core.library.items.SwitchItem;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.HSBType;
 import org.openhab.core.library.types.IncreaseDecreaseType;
 import org.openhab.core.library.types.OnOffType;
-import org.openhab.core.library.types.OpenClosedType;
 import org.openhab.core.library.types.PercentType;
 import org.openhab.core.library.types.StopMoveType;
 import org.openhab.core.library.types.StringType;
 import org.openhab.core.library.types.UpDownType;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
-import org.openhab.core.types.UnDefType;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
@@ -156,6 +142,19 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     private OHConfig ohConfig;
     private boolean isConnected;
     private TinkerforgeContextImpl context = (TinkerforgeContextImpl) TinkerforgeContextImpl.getInstance();
+    /**
+     * the items bound to the devices, null if it has to be rebuilt
+     */
+    private volatile ItemDispatchTable dispatchTable;
+    /**
+     * counts the invalidations of the dispatch table, guarded by dispatchTableLock
+     */
+    private long dispatchTableGeneration = 0;
+    private final Object dispatchTableLock = new Object();
+    /**
+     * filters the sensor values according to the filter settings in openhab.cfg
+     */
+    private volatile SensorFilterStage sensorFilterStage;
 
     public TinkerforgeBinding() {
         modelFactory = ModelFactory.eINSTANCE;
@@ -168,6 +167,10 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     @Override
     public void deactivate() {
         disconnectModel();
+        if (sensorFilterStage != null) {
+            sensorFilterStage.shutdown();
+            sensorFilterStage = null;
+        }
     }
 
     /**
@@ -489,7 +492,12 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
         } else {
             logger.trace("{} Notifier found mDevice sensor value for: {}", LoggerConstants.TFMODELUPDATE, uid);
         }
-        postUpdate(uid, subId, newValue);
+        SensorFilterStage filterStage = sensorFilterStage;
+        if (device instanceof MSensor && filterStage != null) {
+            filterStage.process(uid, subId, newValue);
+        } else {
+            postUpdate(uid, subId, newValue);
+        }
     }
 
     /**
@@ -524,39 +532,6 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
         return null;
     }
 
-    /**
-     * Searches the provider which is bound to the device with the given uid and subid.
-     *
-     * @param uid The device uid as {@code String}.
-     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
-     * @return The {@code TinkerforgeBindingProvider} which is bound to the device as {@code Item} or
-     *         {@code null} if no item was found.
-     */
-    private Map<String, TinkerforgeBindingProvider> getBindingProviders(String uid, String subId) {
-        Map<String, TinkerforgeBindingProvider> providerMap = new HashMap<String, TinkerforgeBindingProvider>();
-        for (TinkerforgeBindingProvider provider : providers) {
-            for (String itemName : provider.getItemNames()) {
-                String deviceUid = provider.getUid(itemName);
-                String subDeviceId = provider.getSubId(itemName);
-                String deviceName = provider.getName(itemName);
-                if (deviceName != null) {
-                    OHTFDevice<?, ?> ohtfDevice = ohConfig.getConfigByOHId(deviceName);
-                    deviceUid = ohtfDevice.getUid();
-                    subDeviceId = ohtfDevice.getSubid();
-                    logger.trace("found deviceName {}, uid={}, subId {}", deviceName, deviceUid, subDeviceId);
-                }
-                if (uid.equals(deviceUid)) {
-                    if (subId == null && subDeviceId == null) {
-                        providerMap.put(itemName, provider);
-                    } else if (subId != null && subId.equals(subDeviceId)) {
-                        providerMap.put(itemName, provider);
-                    }
-                }
-            }
-        }
-        return providerMap;
-    }
-
     /**
      * {@inheritDoc}
      */
@@ -588,6 +563,10 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
                 updateItemValues(provider, itemName, true);
             }
         }
+        SensorFilterStage filterStage = sensorFilterStage;
+        if (filterStage != null) {
+            filterStage.logStatistics();
+        }
     }
 
     /**
@@ -634,87 +613,71 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
     @Override
     public void bindingChanged(BindingProvider provider, String itemName) {
         logger.debug("{} bindingChanged item {}", LoggerConstants.ITEMUPDATE, itemName);
+        invalidateDispatchTable();
+        SensorFilterStage filterStage = sensorFilterStage;
+        if (filterStage != null) {
+            // let the current value through to the new item
+            filterStage.reset();
+        }
         updateItemValues((TinkerforgeBindingProvider) provider, itemName, false);
     }
 
     private void postUpdate(String uid, String subId, TinkerforgeValue sensorValue) {
         // TODO undef handling
         logger.trace("postUpdate called for uid {} subid {}", uid, subId);
-        Map<String, TinkerforgeBindingProvider> providerMap = getBindingProviders(uid, subId);
-        if (providerMap.size() == 0) {
+        List<ItemTarget> targets = getDispatchTable().getTargets(uid, subId);
+        if (targets.isEmpty()) {
             logger.debug("{} found no item for uid {}, subid {}", LoggerConstants.TFMODELUPDATE, uid, subId);
         }
-        for (Entry<String, TinkerforgeBindingProvider> entry : providerMap.entrySet()) {
-            String itemName = entry.getKey();
-            TinkerforgeBindingProvider provider = entry.getValue();
-            Class<? extends Item> itemType = provider.getItemType(itemName);
-            State value = UnDefType.UNDEF;
-            if (sensorValue instanceof DecimalValue) {
-                if (itemType.isAssignableFrom(NumberItem.class) || itemType.isAssignableFrom(StringItem.class)) {
-                    value = DecimalType.valueOf(String.valueOf(sensorValue));
-                    logger.trace("found item to update for DecimalValue {}", itemName);
-                } else if (itemType.isAssignableFrom(ContactItem.class)) {
-                    value = sensorValue.equals(DecimalValue.ZERO) ? OpenClosedType.CLOSED : OpenClosedType.OPEN;
-                } else if (itemType.isAssignableFrom(SwitchItem.class)) {
-                    value = sensorValue.equals(DecimalValue.ZERO) ? OnOffType.OFF : OnOffType.ON;
-                } else {
-                    logger.trace("no update for DecimalValue for item {}", itemName);
-                    continue;
-                }
-            } else if (sensorValue instanceof HighLowValue) {
-                if (itemType.isAssignableFrom(NumberItem.class) || itemType.isAssignableFrom(StringItem.class)) {
-                    value = sensorValue == HighLowValue.HIGH ? DecimalType.valueOf("1") : DecimalType.valueOf("0");
-                } else if (itemType.isAssignableFrom(ContactItem.class)) {
-                    value = sensorValue == HighLowValue.HIGH ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
-                } else if (itemType.isAssignableFrom(SwitchItem.class)) {
-                    value = sensorValue == HighLowValue.HIGH ? OnOffType.ON : OnOffType.OFF;
-                } else {
-                    continue;
-                }
-            } else if (sensorValue instanceof OnOffValue) {
-                if (itemType.isAssignableFrom(NumberItem.class) || itemType.isAssignableFrom(StringItem.class)) {
-                    value = sensorValue == OnOffValue.ON ? DecimalType.valueOf("1") : DecimalType.valueOf("0");
-                } else if (itemType.isAssignableFrom(ContactItem.class)) {
-                    value = sensorValue == OnOffValue.ON ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
-                } else if (itemType.isAssignableFrom(SwitchItem.class)) {
-                    value = sensorValue == OnOffValue.ON ? OnOffType.ON : OnOffType.OFF;
-                } else {
-                    continue;
-                }
-            } else if (sensorValue instanceof PercentValue) {
-                if (itemType.isAssignableFrom(SwitchItem.class)) {
-                    value = ((PercentValue) sensorValue).toBigDecimal().compareTo(BigDecimal.ZERO) == 1 ? OnOffType.ON
-                            : OnOffType.OFF;
-                    logger.debug("switch found {}", itemName);
-                } else if (itemType.isAssignableFrom(RollershutterItem.class)
-                        || itemType.isAssignableFrom(DimmerItem.class)) {
-                    value = new PercentType(((PercentValue) sensorValue).toBigDecimal());
-                    logger.debug("Rollershutter or dimmer found {} {}", itemName);
-                } else if (itemType.isAssignableFrom(ContactItem.class)) {
-                    value = ((PercentValue) sensorValue).toBigDecimal().compareTo(BigDecimal.ZERO) == -1
-                            ? OpenClosedType.OPEN : OpenClosedType.CLOSED;
-                    logger.debug("contact found {}", itemName);
-                } else {
-                    continue;
-                }
-            } else if (sensorValue instanceof DirectionValue) {
-                if (itemType.isAssignableFrom(RollershutterItem.class)) {
-                    value = sensorValue == DirectionValue.RIGHT ? UpDownType.UP : UpDownType.DOWN;
-                    logger.trace("found item to update for UpDownValue {}", itemName);
-                } else {
-                    continue;
-                }
-            } else if (sensorValue instanceof HSBValue) {
-                if (itemType.isAssignableFrom(ColorItem.class)) {
-                    logger.trace("found item to update for HSBValue {}", itemName);
-                    value = ((HSBValue) sensorValue).getHsbValue();
-                }
-            } else if (sensorValue == UnDefValue.UNDEF || sensorValue == null) {
-                value = UnDefType.UNDEF;
+        for (int i = 0; i < targets.size(); i++) {
+            ItemTarget target = targets.get(i);
+            String itemName = target.getItemName();
+            State value = target.getConverter().convert(sensorValue);
+            if (value == null) {
+                logger.trace("no update for {} for item {}", sensorValue, itemName);
+                continue;
             }
             eventPublisher.postUpdate(itemName, value);
-            logger.debug("{} postupdate: found sensorValue: {} for item {}", LoggerConstants.TFMODELUPDATE, sensorValue,
-                    itemName);
+            if (logger.isDebugEnabled()) {
+                logger.debug("{} postupdate: found sensorValue: {} for item {}", LoggerConstants.TFMODELUPDATE,
+                        sensorValue, itemName);
+            }
+        }
+    }
+
+    /**
+     * Gets the table of the items bound to the devices, builds it if the item bindings or the
+     * configuration have changed.
+     *
+     * @return The current {@link ItemDispatchTable}.
+     */
+    private ItemDispatchTable getDispatchTable() {
+        ItemDispatchTable table = dispatchTable;
+        if (table == null) {
+            long generation;
+            synchronized (dispatchTableLock) {
+                generation = dispatchTableGeneration;
+            }
+            logger.debug("{} building item dispatch table", LoggerConstants.ITEMUPDATE);
+            table = new ItemDispatchTable(providers, ohConfig);
+            synchronized (dispatchTableLock) {
+                // a table built before an invalidation is used for this update only, publishing it would hide
+                // the change until the next one
+                if (generation == dispatchTableGeneration) {
+                    dispatchTable = table;
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Drops the table of the items bound to the devices, the next update builds a new one.
+     */
+    private void invalidateDispatchTable() {
+        synchronized (dispatchTableLock) {
+            dispatchTableGeneration++;
+            dispatchTable = null;
         }
     }
 
@@ -854,12 +817,20 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
         }
     }
 
+    @Override
+    public void allBindingsChanged(BindingProvider provider) {
+        invalidateDispatchTable();
+        super.allBindingsChanged(provider);
+    }
+
     protected void addBindingProvider(TinkerforgeBindingProvider bindingProvider) {
         super.addBindingProvider(bindingProvider);
+        invalidateDispatchTable();
     }
 
     protected void removeBindingProvider(TinkerforgeBindingProvider bindingProvider) {
         super.removeBindingProvider(bindingProvider);
+        invalidateDispatchTable();
     }
 
     /**
@@ -885,6 +856,17 @@ public class TinkerforgeBinding extends AbstractActiveBinding<TinkerforgeBinding
 
             ConfigurationHandler configurationHandler = new ConfigurationHandler();
             ohConfig = configurationHandler.createConfig(config);
+            invalidateDispatchTable();
+            if (sensorFilterStage != null) {
+                sensorFilterStage.shutdown();
+            }
+            sensorFilterStage = new SensorFilterStage(configurationHandler.getSensorFilterConfigurations(),
+                    new SensorFilterStage.Listener() {
+                        @Override
+                        public void valueFiltered(String uid, String subId, TinkerforgeValue value) {
+                            postUpdate(uid, subId, value);
+                        }
+                    });
 
             // read further config parameters here ...
             logger.debug("{} updated called", LoggerConstants.CONFIG);
@@ -14,6 +14,7 @@ import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -101,6 +102,7 @@ public class ConfigurationHandler {
 
     private ModelFactory modelFactory;
     private OHConfig ohConfig;
+    private List<SensorFilterConfiguration> sensorFilterConfigurations = new ArrayList<SensorFilterConfiguration>();
     private static final Logger logger = LoggerFactory.getLogger(ConfigurationHandler.class);
 
     private static final Pattern UID_PATTERN = Pattern.compile(String.format("^(.*?)\\.(%s)$", ConfigKey.uid.name()));
@@ -214,6 +216,15 @@ public class ConfigurationHandler {
 
     }
 
+    /**
+     * Returns the sensor filter settings found by {@link #createConfig(Dictionary) createConfig}.
+     *
+     * @return The {@link SensorFilterConfiguration}s of all devices which have a filter configured.
+     */
+    public List<SensorFilterConfiguration> getSensorFilterConfigurations() {
+        return sensorFilterConfigurations;
+    }
+
     /**
      * Parses the configuration received from configManagement service and caches it in a map. This
      * map is added to another map with the openhab symbolic device name as key. The symbolic name is
@@ -810,6 +821,13 @@ public class ConfigurationHandler {
             }
         }
 
+        SensorFilterConfiguration sensorFilterConfiguration = SensorFilterConfiguration.create(uid, subid,
+                deviceConfig);
+        if (sensorFilterConfiguration != null) {
+            logger.debug("{} sensor filter {}", LoggerConstants.CONFIG, sensorFilterConfiguration);
+            sensorFilterConfigurations.add(sensorFilterConfiguration);
+        }
+
         ohConfig.getOhTfDevices().add(ohtfDevice);
     }
 
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.tinkerforge.internal.config;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import org.osgi.service.cm.ConfigurationException;
+
+/**
+ * The filter settings of a sensor from openhab.cfg. The settings are common to all sensor types
+ * and look like this: tinkerforge:<openhab symbolic device name>.<filter key>=<value> e.g.
+ * "tinkerforge:distance_garage.filterInterval=1000"
+ *
+ * <ul>
+ * <li>filterInterval: minimum time in milliseconds between two updates of the item</li>
+ * <li>filterWindow: number of values the update is aggregated of</li>
+ * <li>filterMode: "average" or "median", how the values of the window are aggregated</li>
+ * <li>filterDelta: minimum difference to the last update of the item</li>
+ * </ul>
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class SensorFilterConfiguration {
+
+    public enum FilterKey {
+        filterInterval,
+        filterWindow,
+        filterMode,
+        filterDelta
+    }
+
+    public enum FilterMode {
+        average,
+        median
+    }
+
+    private final String uid;
+    private final String subId;
+    private long minInterval;
+    private int windowSize = 1;
+    private FilterMode mode = FilterMode.average;
+    private BigDecimal delta;
+
+    private SensorFilterConfiguration(String uid, String subId) {
+        this.uid = uid;
+        this.subId = subId;
+    }
+
+    /**
+     * Creates the filter settings from the configuration of a device.
+     *
+     * @param uid The device uid as {@code String}.
+     * @param subId The device subid as {@code String} or {@code null} if it is not a sub device.
+     * @param deviceConfig The device configuration as {@code Map} of {@code Strings}.
+     * @return The {@link SensorFilterConfiguration} or {@code null} if no filter is configured.
+     * @throws ConfigurationException if a filter setting is invalid.
+     */
+    public static SensorFilterConfiguration create(String uid, String subId, Map<String, String> deviceConfig)
+            throws ConfigurationException {
+        boolean isConfigured = false;
+        for (FilterKey key : FilterKey.values()) {
+            if (deviceConfig.containsKey(key.name())) {
+                isConfigured = true;
+            }
+        }
+        if (!isConfigured) {
+            return null;
+        }
+        SensorFilterConfiguration configuration = new SensorFilterConfiguration(uid, subId);
+        String value = null;
+        FilterKey key = null;
+        try {
+            key = FilterKey.filterInterval;
+            value = deviceConfig.get(key.name());
+            if (value != null) {
+                configuration.minInterval = Long.parseLong(value.trim());
+            }
+            key = FilterKey.filterWindow;
+            value = deviceConfig.get(key.name());
+            if (value != null) {
+                configuration.windowSize = Integer.parseInt(value.trim());
+            }
+            key = FilterKey.filterMode;
+            value = deviceConfig.get(key.name());
+            if (value != null) {
+                configuration.mode = FilterMode.valueOf(value.trim());
+            }
+            key = FilterKey.filterDelta;
+            value = deviceConfig.get(key.name());
+            if (value != null) {
+                configuration.delta = new BigDecimal(value.trim());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException(key.name(),
+                    String.format("\"%s\" is an invalid value: openhab.cfg has to be fixed!", value));
+        }
+        if (configuration.minInterval < 0 || configuration.windowSize < 1
+                || (configuration.delta != null && configuration.delta.signum() < 0)) {
+            throw new ConfigurationException(String.format("uid: %s subId: %s", uid, subId),
+                    "negative filter setting or filterWindow < 1: openhab.cfg has to be fixed!");
+        }
+        return configuration;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getSubId() {
+        return subId;
+    }
+
+    /**
+     * @return the minimum time in milliseconds between two updates, 0 if not limited
+     */
+    public long getMinInterval() {
+        return minInterval;
+    }
+
+    /**
+     * @return the number of values which are aggregated, 1 if not aggregated
+     */
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    public FilterMode getMode() {
+        return mode;
+    }
+
+    /**
+     * @return the minimum difference to the last update or {@code null} if every change is sent
+     */
+    public BigDecimal getDelta() {
+        return delta;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("uid %s subId %s interval %d window %d mode %s delta %s", uid, subId, minInterval,
+                windowSize, mode, delta);
+    }
+}
@@ -65,6 +65,9 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
     private volatile ZWaveController zController;
     private volatile ZWaveConverterHandler converterHandler;
 
+    // Index of the bound items by node, endpoint and command class
+    private volatile ZWaveItemIndex itemIndex = ZWaveItemIndex.empty();
+
     private Iterator<ZWavePollItem> pollingIterator = null;
     private List<ZWavePollItem> pollingList = new ArrayList<ZWavePollItem>();
 
@@ -145,7 +148,8 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
             }
         }
 
-        // Bindings have changed - rebuild the polling table
+        // Bindings have changed - rebuild the item index and the polling table
+        rebuildItemIndex();
         rebuildPollingTable();
 
         super.bindingChanged(provider, itemName);
@@ -159,10 +163,19 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
         logger.trace("allBindingsChanged");
         super.allBindingsChanged(provider);
 
-        // Bindings have changed - rebuild the polling table
+        // Bindings have changed - rebuild the item index and the polling table
+        rebuildItemIndex();
         rebuildPollingTable();
     }
 
+    /**
+     * This method rebuilds the index of the bound items by node, endpoint and command class.
+     * The index is used to dispatch incoming value events and to build the polling table.
+     */
+    private void rebuildItemIndex() {
+        itemIndex = ZWaveItemIndex.build(providers);
+    }
+
     /**
      * This method rebuilds the polling table. The polling table is a list of items that have
      * polling enabled (ie a refresh interval is set). This list is then checked periodically
@@ -178,34 +191,33 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
             return;
         }
 
-        // Loop all binding providers for the Z-wave binding.
-        for (ZWaveBindingProvider eachProvider : providers) {
-            // Loop all bound items for this provider
-            for (String name : eachProvider.getItemNames()) {
-                // Find the node and check if it's completed initialisation.
-                ZWaveBindingConfig cfg = eachProvider.getZwaveBindingConfig(name);
-                ZWaveNode node = this.zController.getNode(cfg.getNodeId());
-                if (node == null) {
-                    logger.debug("NODE {}: Polling list: can't get node for item {}", cfg.getNodeId(), name);
-                    continue;
-                }
-                if (node.getNodeInitializationStage() != ZWaveNodeInitStage.DONE) {
-                    logger.debug("NODE {}: Polling list: item {} is not completed initialisation", cfg.getNodeId(),
-                            name);
-                    continue;
-                }
-
-                logger.trace("Polling list: Checking {} == {}", name,
-                        converterHandler.getRefreshInterval(eachProvider, name));
-
-                // If this binding is configured to poll - add it to the list
-                if (converterHandler.getRefreshInterval(eachProvider, name) > 0) {
-                    ZWavePollItem item = new ZWavePollItem();
-                    item.item = name;
-                    item.provider = eachProvider;
-                    pollingList.add(item);
-                    logger.trace("Polling list added {}", name);
-                }
+        // Loop all items bound to the Z-wave binding.
+        for (ZWaveItemIndex.Entry entry : itemIndex.getEntries()) {
+            ZWaveBindingProvider eachProvider = entry.getProvider();
+            String name = entry.getItemName();
+
+            // Find the node and check if it's completed initialisation.
+            ZWaveBindingConfig cfg = entry.getBindingConfig();
+            ZWaveNode node = this.zController.getNode(cfg.getNodeId());
+            if (node == null) {
+                logger.debug("NODE {}: Polling list: can't get node for item {}", cfg.getNodeId(), name);
+                continue;
+            }
+            if (node.getNodeInitializationStage() != ZWaveNodeInitStage.DONE) {
+                logger.debug("NODE {}: Polling list: item {} is not completed initialisation", cfg.getNodeId(), name);
+                continue;
+            }
+
+            logger.trace("Polling list: Checking {} == {}", name,
+                    converterHandler.getRefreshInterval(eachProvider, name));
+
+            // If this binding is configured to poll - add it to the list
+            if (converterHandler.getRefreshInterval(eachProvider, name) > 0) {
+                ZWavePollItem item = new ZWavePollItem();
+                item.item = name;
+                item.provider = eachProvider;
+                pollingList.add(item);
+                logger.trace("Polling list added {}", name);
             }
         }
         pollingIterator = null;
@@ -461,27 +473,17 @@ public class ZWaveActiveBinding extends AbstractActiveBinding<ZWaveBindingProvid
      * @param event the incoming Z-Wave event.
      */
     private void handleZWaveCommandClassValueEvent(ZWaveCommandClassValueEvent event) {
-        boolean handled = false;
-
         logger.debug("NODE {}: Got a value event from Z-Wave network, endpoint = {}, command class = {}, value = {}",
                 new Object[] { event.getNodeId(), event.getEndpoint(), event.getCommandClass().getLabel(),
                         event.getValue() });
 
-        for (ZWaveBindingProvider provider : providers) {
-            for (String itemName : provider.getItemNames()) {
-                ZWaveBindingConfig bindingConfig = provider.getZwaveBindingConfig(itemName);
-
-                if (bindingConfig.getNodeId() != event.getNodeId()
-                        || bindingConfig.getEndpoint() != event.getEndpoint()) {
-                    continue;
-                }
-
-                converterHandler.handleEvent(provider, itemName, event);
-                handled = true;
-            }
+        ZWaveItemIndex index = itemIndex;
+        for (ZWaveItemIndex.Entry entry : index.getEntries(event.getNodeId(), event.getEndpoint(),
+                event.getCommandClass())) {
+            converterHandler.handleEvent(entry.getProvider(), entry.getItemName(), event);
         }
 
-        if (!handled) {
+        if (!index.hasEntries(event.getNodeId(), event.getEndpoint())) {
             logger.warn("NODE {}: No item bound for event, endpoint = {}, command class = {}, value = {}, ignoring.",
                     new Object[] { event.getNodeId(), event.getEndpoint(), event.getCommandClass().getLabel(),
                             event.getValue() });
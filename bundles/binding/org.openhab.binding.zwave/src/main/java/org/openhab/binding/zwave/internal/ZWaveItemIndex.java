@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.binding.zwave.internal;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openhab.binding.zwave.ZWaveBindingConfig;
+import org.openhab.binding.zwave.ZWaveBindingProvider;
+import org.openhab.binding.zwave.internal.protocol.commandclass.ZWaveCommandClass.CommandClass;
+
+/**
+ * Index of the bound items by node, endpoint and command class. It is used to
+ * find the items that are interested in an incoming value event without
+ * looking at the binding configuration of every item.
+ *
+ * The index is immutable. When the bindings change a new index is built from
+ * the binding providers.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class ZWaveItemIndex {
+
+    private static final String ANY_COMMAND_CLASS = "";
+    private static final String BASIC_COMMAND_CLASS = CommandClass.BASIC.getLabel().toLowerCase();
+
+    private final List<Entry> entries;
+    private final Map<Integer, Map<String, List<Entry>>> endpoints;
+
+    private ZWaveItemIndex(List<Entry> entries, Map<Integer, Map<String, List<Entry>>> endpoints) {
+        this.entries = entries;
+        this.endpoints = endpoints;
+    }
+
+    /**
+     * Builds the index for all items of the given binding providers.
+     *
+     * @param providers the Z-Wave binding providers
+     * @return the new index
+     */
+    public static ZWaveItemIndex build(Collection<ZWaveBindingProvider> providers) {
+        List<Entry> entries = new ArrayList<Entry>();
+        Map<Integer, Map<String, List<Entry>>> endpoints = new HashMap<Integer, Map<String, List<Entry>>>();
+
+        for (ZWaveBindingProvider provider : providers) {
+            for (String itemName : provider.getItemNames()) {
+                ZWaveBindingConfig bindingConfig = provider.getZwaveBindingConfig(itemName);
+                if (bindingConfig == null) {
+                    continue;
+                }
+
+                Entry entry = new Entry(provider, itemName, bindingConfig);
+                entries.add(entry);
+
+                Integer key = key(bindingConfig.getNodeId(), bindingConfig.getEndpoint());
+                Map<String, List<Entry>> commandClasses = endpoints.get(key);
+                if (commandClasses == null) {
+                    commandClasses = new HashMap<String, List<Entry>>();
+                    endpoints.put(key, commandClasses);
+                }
+
+                // Items without a command class receive the events of all command classes
+                String commandClassName = bindingConfig.getArguments().get("command");
+                commandClassName = commandClassName == null ? ANY_COMMAND_CLASS : commandClassName.toLowerCase();
+                add(commandClasses, commandClassName, entry);
+
+                if ("true".equalsIgnoreCase(bindingConfig.getArguments().get("respond_to_basic"))
+                        && !BASIC_COMMAND_CLASS.equals(commandClassName)
+                        && !ANY_COMMAND_CLASS.equals(commandClassName)) {
+                    add(commandClasses, BASIC_COMMAND_CLASS, entry);
+                }
+            }
+        }
+
+        return new ZWaveItemIndex(Collections.unmodifiableList(entries), endpoints);
+    }
+
+    /**
+     * Returns an empty index.
+     *
+     * @return the empty index
+     */
+    public static ZWaveItemIndex empty() {
+        return new ZWaveItemIndex(Collections.<Entry> emptyList(),
+                Collections.<Integer, Map<String, List<Entry>>> emptyMap());
+    }
+
+    /**
+     * Returns all indexed items.
+     *
+     * @return the items in the order of the binding providers
+     */
+    public List<Entry> getEntries() {
+        return entries;
+    }
+
+    /**
+     * Checks whether any item is bound to the given node and endpoint.
+     *
+     * @param nodeId the node ID
+     * @param endpoint the endpoint
+     * @return true if at least one item is bound to the endpoint
+     */
+    public boolean hasEntries(int nodeId, int endpoint) {
+        return endpoints.containsKey(key(nodeId, endpoint));
+    }
+
+    /**
+     * Returns the items that have to handle a value event of the given node,
+     * endpoint and command class.
+     *
+     * @param nodeId the node ID
+     * @param endpoint the endpoint
+     * @param commandClass the command class of the event
+     * @return the matching items, or an empty list if there are none
+     */
+    public List<Entry> getEntries(int nodeId, int endpoint, CommandClass commandClass) {
+        Map<String, List<Entry>> commandClasses = endpoints.get(key(nodeId, endpoint));
+        if (commandClasses == null) {
+            return Collections.emptyList();
+        }
+
+        List<Entry> matching = commandClasses.get(commandClass.getLabel().toLowerCase());
+        List<Entry> any = commandClasses.get(ANY_COMMAND_CLASS);
+        if (matching == null) {
+            return any == null ? Collections.<Entry> emptyList() : any;
+        }
+        if (any == null) {
+            return matching;
+        }
+
+        List<Entry> result = new ArrayList<Entry>(matching.size() + any.size());
+        result.addAll(matching);
+        result.addAll(any);
+        return result;
+    }
+
+    private static void add(Map<String, List<Entry>> commandClasses, String commandClassName, Entry entry) {
+        List<Entry> list = commandClasses.get(commandClassName);
+        if (list == null) {
+            list = new ArrayList<Entry>(1);
+            commandClasses.put(commandClassName, list);
+        }
+        list.add(entry);
+    }
+
+    private static Integer key(int nodeId, int endpoint) {
+        return (nodeId << 16) | (endpoint & 0xFFFF);
+    }
+
+    /**
+     * An item bound to a Z-Wave node.
+     */
+    public static class Entry {
+        private final ZWaveBindingProvider provider;
+        private final String itemName;
+        private final ZWaveBindingConfig bindingConfig;
+
+        Entry(ZWaveBindingProvider provider, String itemName, ZWaveBindingConfig bindingConfig) {
+            this.provider = provider;
+            this.itemName = itemName;
+            this.bindingConfig = bindingConfig;
+        }
+
+        public ZWaveBindingProvider getProvider() {
+            return provider;
+        }
+
+        public String getItemName() {
+            return itemName;
+        }
+
+        public ZWaveBindingConfig getBindingConfig() {
+            return bindingConfig;
+        }
+    }
+}
@@ -8,6 +8,7 @@
  */
 package org.openhab.io.myopenhab.internal;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -17,9 +18,11 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.util.URIUtil;
+import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
 import org.slf4j.Logger;
@@ -58,6 +61,11 @@ public class MyOHClient {
      * 30 seconds minimum to make it work for long polling requests
      */
     private static final int HTTP_CLIENT_TIMEOUT = 30000;
+    /*
+     * This constant defines the minimum size of a response with known length to be compressed,
+     * smaller responses don't get any smaller by compression
+     */
+    private static final int COMPRESSION_MIN_LENGTH = 256;
     /*
      * This variable holds base URL for my.openHAB cloud connections, has a default
      * value but can be changed
@@ -102,6 +110,20 @@ public class MyOHClient {
      * certain events from my.openHAB cloud back to openHAB
      */
     private MyOHClientListener mListener;
+    /*
+     * This variable holds the queue which collects item updates, item updates are sent
+     * immediately if it is null
+     */
+    private MyOHItemUpdateQueue mItemUpdateQueue;
+    /*
+     * This variable indicates if collected item updates are sent in a single 'itemupdates' event
+     * instead of an 'itemupdate' event per item
+     */
+    private boolean mItemUpdateBatching = false;
+    /*
+     * This variable indicates if proxied responses are gzip compressed for requests which accept it
+     */
+    private boolean mCompressResponses = true;
 
     /**
      * Constructor of MyOHClient
@@ -182,6 +204,9 @@ public class MyOHClient {
             }
         });
         mSocket.connect();
+        if (mItemUpdateQueue != null) {
+            mItemUpdateQueue.start();
+        }
     }
 
     @SuppressWarnings("restriction")
@@ -462,7 +487,9 @@ public class MyOHClient {
      */
 
     public void sendItemUpdate(String itemName, String itemStatus) {
-        if (isConnected()) {
+        if (mItemUpdateQueue != null) {
+            mItemUpdateQueue.add(itemName, itemStatus);
+        } else if (isConnected()) {
             JSONObject itemUpdateMessage = new JSONObject();
             try {
                 itemUpdateMessage.put("itemName", itemName);
@@ -476,6 +503,34 @@ public class MyOHClient {
         }
     }
 
+    /**
+     * Send item updates collected by the item update queue to my.openHAB
+     * 
+     * @param itemUpdates updated item status by item name
+     * 
+     */
+
+    void sendItemUpdates(Map<String, String> itemUpdates) {
+        try {
+            JSONArray itemUpdatesMessage = new JSONArray();
+            for (Map.Entry<String, String> itemUpdate : itemUpdates.entrySet()) {
+                JSONObject itemUpdateMessage = new JSONObject();
+                itemUpdateMessage.put("itemName", itemUpdate.getKey());
+                itemUpdateMessage.put("itemStatus", itemUpdate.getValue());
+                if (mItemUpdateBatching) {
+                    itemUpdatesMessage.put(itemUpdateMessage);
+                } else {
+                    mSocket.emit("itemupdate", itemUpdateMessage);
+                }
+            }
+            if (mItemUpdateBatching) {
+                mSocket.emit("itemupdates", itemUpdatesMessage);
+            }
+        } catch (JSONException e) {
+            logger.error(e.getMessage());
+        }
+    }
+
     /**
      * Returns true if my.openHAB connection is active
      */
@@ -490,11 +545,10 @@ public class MyOHClient {
 
     public void shutdown() {
         logger.info("Shutting down my.openHAB service connection");
-        try {
-            mJettyClient.stop();
-        } catch (Exception e) {
-            logger.error(e.getMessage());
+        if (mItemUpdateQueue != null) {
+            mItemUpdateQueue.stop();
         }
+        stopJetty();
         mSocket.disconnect();
     }
 
@@ -532,6 +586,55 @@ public class MyOHClient {
         this.mListener = mListener;
     }
 
+    /**
+     * Collect item updates and send them once per interval, only the last
+     * update of an item within an interval is sent. Must be called before connect().
+     * 
+     * @param interval interval in milliseconds, 0 sends every item update immediately
+     * @param maxUpdatesPerSecond maximum number of item updates to send per second, 0 means no limit
+     * 
+     */
+
+    public void setItemUpdateInterval(long interval, int maxUpdatesPerSecond) {
+        if (interval > 0) {
+            mItemUpdateQueue = new MyOHItemUpdateQueue(this, interval, maxUpdatesPerSecond);
+        } else {
+            mItemUpdateQueue = null;
+        }
+    }
+
+    public void setItemUpdateBatching(boolean itemUpdateBatching) {
+        this.mItemUpdateBatching = itemUpdateBatching;
+    }
+
+    public void setCompressResponses(boolean compressResponses) {
+        this.mCompressResponses = compressResponses;
+    }
+
+    /**
+     * Returns the number of item updates sent to my.openHAB by the item update queue
+     */
+
+    public long getItemUpdatesSent() {
+        return mItemUpdateQueue != null ? mItemUpdateQueue.getSentCount() : 0;
+    }
+
+    /**
+     * Returns the number of item updates replaced by a newer update of the same item
+     */
+
+    public long getItemUpdatesCoalesced() {
+        return mItemUpdateQueue != null ? mItemUpdateQueue.getCoalescedCount() : 0;
+    }
+
+    /**
+     * Returns the number of item updates dropped because there was no connection
+     */
+
+    public long getItemUpdatesDropped() {
+        return mItemUpdateQueue != null ? mItemUpdateQueue.getDroppedCount() : 0;
+    }
+
     /*
      * An internal class which extends ContentExchange and forwards response
      * headers and data back to my.openHAB
@@ -542,6 +645,12 @@ public class MyOHClient {
 
         private int mRequestId;
         private HashMap<String, String> mResponseHeaders;
+        private boolean mAcceptsGzip;
+        /*
+         * These variables hold the compressor and its output while a response is compressed
+         */
+        private GZIPOutputStream mGzipStream;
+        private ByteArrayOutputStream mGzipBuffer;
 
         public MyOHExchange(int requestId) {
             mRequestId = requestId;
@@ -560,12 +669,61 @@ public class MyOHClient {
                     if (!headerName.equalsIgnoreCase("Content-Length")) {
                         this.setRequestHeader(headerName, headerValue);
                     }
+                    if (headerName.equalsIgnoreCase("Accept-Encoding") && headerValue.contains("gzip")) {
+                        mAcceptsGzip = true;
+                    }
                 } catch (JSONException e) {
                     logger.error("Error processing request headers: {}", e.getMessage());
                 }
             }
         }
 
+        private String getResponseHeader(String name) {
+            for (Map.Entry<String, String> responseHeader : mResponseHeaders.entrySet()) {
+                if (responseHeader.getKey().equalsIgnoreCase(name)) {
+                    return responseHeader.getValue();
+                }
+            }
+            return null;
+        }
+
+        private void removeResponseHeader(String name) {
+            Iterator<String> headerNames = mResponseHeaders.keySet().iterator();
+            while (headerNames.hasNext()) {
+                if (headerNames.next().equalsIgnoreCase(name)) {
+                    headerNames.remove();
+                }
+            }
+        }
+
+        /*
+         * Compress the response if the requester accepts it, openHAB didn't compress it already
+         * and the content is text which is large enough to get smaller
+         */
+
+        private boolean shouldCompress() {
+            if (!mCompressResponses || !mAcceptsGzip || getResponseHeader("Content-Encoding") != null) {
+                return false;
+            }
+            String contentLength = getResponseHeader("Content-Length");
+            if (contentLength != null) {
+                try {
+                    if (Long.parseLong(contentLength.trim()) < COMPRESSION_MIN_LENGTH) {
+                        return false;
+                    }
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+            String contentType = getResponseHeader("Content-Type");
+            if (contentType == null) {
+                return false;
+            }
+            contentType = contentType.toLowerCase();
+            return contentType.startsWith("text/") || contentType.contains("json") || contentType.contains("xml")
+                    || contentType.contains("javascript");
+        }
+
         public JSONObject getJSONHeaders() {
             JSONObject headersJSON = new JSONObject();
             try {
@@ -607,10 +765,33 @@ public class MyOHClient {
         @Override
         public void onResponseContent(Buffer content) {
             logger.debug("Jetty received response content of size " + String.valueOf(content.length()));
+            if (mGzipStream != null) {
+                try {
+                    mGzipStream.write(content.asArray());
+                    // sync flush so long polling responses are relayed without delay
+                    mGzipStream.flush();
+                } catch (IOException e) {
+                    logger.error("Error compressing response content: {}", e.getMessage());
+                }
+                sendCompressedContent();
+            } else {
+                sendContent(content.asArray());
+            }
+        }
+
+        private void sendCompressedContent() {
+            if (mGzipBuffer.size() > 0) {
+                byte[] compressedContent = mGzipBuffer.toByteArray();
+                mGzipBuffer.reset();
+                sendContent(compressedContent);
+            }
+        }
+
+        private void sendContent(byte[] body) {
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
-                responseJson.put("body", content.asArray());
+                responseJson.put("body", body);
                 if (this.getStatus() != STATUS_CANCELLING && this.getStatus() != STATUS_CANCELLED) {
                     mSocket.emit("responseContentBinary", responseJson);
                 }
@@ -629,6 +810,18 @@ public class MyOHClient {
         @Override
         public void onResponseHeaderComplete() {
             logger.debug("Jetty finished receiving response header");
+            if (shouldCompress()) {
+                try {
+                    mGzipBuffer = new ByteArrayOutputStream();
+                    mGzipStream = new GZIPOutputStream(mGzipBuffer, true);
+                    removeResponseHeader("Content-Length");
+                    mResponseHeaders.put("Content-Encoding", "gzip");
+                    logger.debug("Compressing response to request {}", mRequestId);
+                } catch (IOException e) {
+                    logger.error("Error compressing response content: {}", e.getMessage());
+                    mGzipStream = null;
+                }
+            }
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
@@ -650,6 +843,15 @@ public class MyOHClient {
             logger.debug("Jetty request complete {} with status {}", mRequestId, status);
             // Remove this request from list of running requests
             mRunningRequests.remove(mRequestId);
+            if (mGzipStream != null) {
+                try {
+                    mGzipStream.close();
+                } catch (IOException e) {
+                    logger.error("Error compressing response content: {}", e.getMessage());
+                }
+                sendCompressedContent();
+                mGzipStream = null;
+            }
             JSONObject responseJson = new JSONObject();
             try {
                 responseJson.put("id", mRequestId);
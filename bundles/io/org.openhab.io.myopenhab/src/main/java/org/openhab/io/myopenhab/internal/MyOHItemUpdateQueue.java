@@ -0,0 +1,199 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.myopenhab.internal;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class collects item updates for my.openHAB and sends them once per
+ * interval. If an item is updated several times within one interval, only
+ * its last state is sent. The number of updates sent per interval can be
+ * limited, updates above the limit are kept for the next interval.
+ *
+ * @author agent
+ * @since 1.9.0
+ *
+ */
+
+public class MyOHItemUpdateQueue {
+    /*
+     * Logger for this class
+     */
+    private static Logger logger = LoggerFactory.getLogger(MyOHItemUpdateQueue.class);
+    /*
+     * This variable holds the client which sends the collected updates to my.openHAB
+     */
+    private MyOHClient mClient;
+    /*
+     * This variable holds the interval in milliseconds in which collected updates are sent
+     */
+    private long mInterval;
+    /*
+     * This variable holds the maximum number of updates sent per interval, 0 means no limit
+     */
+    private int mMaxUpdatesPerInterval;
+    /*
+     * This map holds the last state of every item updated since the last send, in the order
+     * of the first update
+     */
+    private Map<String, String> mPendingUpdates;
+    /*
+     * This variable holds the executor which periodically sends the collected updates
+     */
+    private ScheduledExecutorService mScheduler;
+    /*
+     * Counters for updates which have been sent, replaced by a newer state of the same item
+     * before being sent and dropped because there was no connection to my.openHAB
+     */
+    private AtomicLong mSentCount = new AtomicLong();
+    private AtomicLong mCoalescedCount = new AtomicLong();
+    private AtomicLong mDroppedCount = new AtomicLong();
+
+    /**
+     * Constructor of MyOHItemUpdateQueue
+     *
+     * @param client client which sends the collected updates to my.openHAB
+     * @param interval interval in milliseconds in which collected updates are sent
+     * @param maxUpdatesPerSecond maximum number of updates to send per second, 0 means no limit
+     *
+     */
+
+    public MyOHItemUpdateQueue(MyOHClient client, long interval, int maxUpdatesPerSecond) {
+        mClient = client;
+        mInterval = interval;
+        if (maxUpdatesPerSecond > 0) {
+            mMaxUpdatesPerInterval = (int) Math.max(1, maxUpdatesPerSecond * interval / 1000);
+        }
+        mPendingUpdates = new LinkedHashMap<String, String>();
+    }
+
+    /**
+     * Start sending the collected updates
+     */
+
+    public synchronized void start() {
+        if (mScheduler == null) {
+            mScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "my.openHAB item updates");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            mScheduler.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        logger.error("Error sending item updates to my.openHAB: {}", e.getMessage());
+                    }
+                }
+            }, mInterval, mInterval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Stop sending, updates which have not been sent yet are discarded
+     */
+
+    public synchronized void stop() {
+        if (mScheduler != null) {
+            mScheduler.shutdownNow();
+            mScheduler = null;
+        }
+        mPendingUpdates.clear();
+        logger.debug("Item updates sent = {}, coalesced = {}, dropped = {}", getSentCount(), getCoalescedCount(),
+                getDroppedCount());
+    }
+
+    /**
+     * Add an item update, a not yet sent update of the same item is replaced
+     *
+     * @param itemName the name of the item
+     * @param itemStatus updated item status
+     *
+     */
+
+    public synchronized void add(String itemName, String itemStatus) {
+        if (mPendingUpdates.put(itemName, itemStatus) != null) {
+            mCoalescedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Send the collected updates, at most the configured number per interval
+     */
+
+    public void flush() {
+        Map<String, String> updates;
+        synchronized (this) {
+            if (mPendingUpdates.isEmpty()) {
+                return;
+            }
+            if (!mClient.isConnected()) {
+                logger.debug("No connection, {} item updates are not sent", mPendingUpdates.size());
+                mDroppedCount.addAndGet(mPendingUpdates.size());
+                mPendingUpdates.clear();
+                return;
+            }
+            if (mMaxUpdatesPerInterval == 0 || mPendingUpdates.size() <= mMaxUpdatesPerInterval) {
+                updates = mPendingUpdates;
+                mPendingUpdates = new LinkedHashMap<String, String>();
+            } else {
+                updates = new LinkedHashMap<String, String>();
+                Iterator<Map.Entry<String, String>> iterator = mPendingUpdates.entrySet().iterator();
+                while (updates.size() < mMaxUpdatesPerInterval) {
+                    Map.Entry<String, String> update = iterator.next();
+                    updates.put(update.getKey(), update.getValue());
+                    iterator.remove();
+                }
+                logger.debug("Item update limit reached, {} item updates are sent later", mPendingUpdates.size());
+            }
+        }
+        mClient.sendItemUpdates(updates);
+        mSentCount.addAndGet(updates.size());
+    }
+
+    /**
+     * Returns the number of item updates sent to my.openHAB
+     */
+
+    public long getSentCount() {
+        return mSentCount.get();
+    }
+
+    /**
+     * Returns the number of item updates which have been replaced by a newer update of the
+     * same item before being sent
+     */
+
+    public long getCoalescedCount() {
+        return mCoalescedCount.get();
+    }
+
+    /**
+     * Returns the number of item updates dropped because there was no connection to my.openHAB
+     */
+
+    public long getDroppedCount() {
+        return mDroppedCount.get();
+    }
+}
@@ -62,6 +62,10 @@ public class MyOpenHABServiceImpl
 
     private String mMyOHBaseUrl;
     private int mLocalPort = 8080;
+    private long mItemUpdateInterval = 1000;
+    private int mItemUpdateRateLimit = 0;
+    private boolean mItemUpdateBatching = false;
+    private boolean mCompressResponses = true;
 
     protected ItemUIRegistry mItemUIRegistry = null;
     protected EventPublisher mEventPublisher = null;
@@ -116,10 +120,29 @@ public class MyOpenHABServiceImpl
             if (StringUtils.isNotBlank(localPortString)) {
                 mLocalPort = Integer.valueOf(localPortString);
             }
+            String itemUpdateIntervalString = (String) config.get("itemUpdateInterval");
+            if (StringUtils.isNotBlank(itemUpdateIntervalString)) {
+                mItemUpdateInterval = Long.valueOf(itemUpdateIntervalString);
+            }
+            String itemUpdateRateLimitString = (String) config.get("itemUpdateRateLimit");
+            if (StringUtils.isNotBlank(itemUpdateRateLimitString)) {
+                mItemUpdateRateLimit = Integer.valueOf(itemUpdateRateLimitString);
+            }
+            String itemUpdateBatchingString = (String) config.get("itemUpdateBatching");
+            if (StringUtils.isNotBlank(itemUpdateBatchingString)) {
+                mItemUpdateBatching = Boolean.valueOf(itemUpdateBatchingString);
+            }
+            String compressResponsesString = (String) config.get("compressResponses");
+            if (StringUtils.isNotBlank(compressResponsesString)) {
+                mCompressResponses = Boolean.valueOf(compressResponsesString);
+            }
         } else {
             logger.debug("config is null");
         }
         logger.debug("UUID = " + getUUID() + ", secret = " + getSecret());
+        if (myOHClient != null) {
+            myOHClient.shutdown();
+        }
         myOHClient = new MyOHClient(getUUID(), getSecret());
         if (mMyOHBaseUrl != null) {
             myOHClient.setMyOHBaseUrl(mMyOHBaseUrl);
@@ -128,6 +151,9 @@ public class MyOpenHABServiceImpl
             myOHClient.setOHBaseUrl("http://localhost:" + String.valueOf(mLocalPort));
         }
         myOHClient.setOpenHABVersion(getVersion());
+        myOHClient.setItemUpdateInterval(mItemUpdateInterval, mItemUpdateRateLimit);
+        myOHClient.setItemUpdateBatching(mItemUpdateBatching);
+        myOHClient.setCompressResponses(mCompressResponses);
         myOHClient.connect();
         myOHClient.setListener(this);
         MyOpenHAB.mMyOpenHABService = this;
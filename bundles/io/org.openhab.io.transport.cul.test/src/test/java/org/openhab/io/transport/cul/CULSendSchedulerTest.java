@@ -0,0 +1,137 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.io.transport.cul.internal.CULSendScheduler;
+
+public class CULSendSchedulerTest {
+
+    private CULSendScheduler sut;
+
+    @Before
+    public void setUp() {
+        sut = new CULSendScheduler(3);
+    }
+
+    @Test
+    public void poll_emptyQueue() throws Exception {
+        assertNull(sut.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void offer_unknownCreditSendsInOrder() throws Exception {
+        sut.offer("F12340011");
+        sut.offer("Zs0B0100");
+
+        assertEquals("F12340011", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("Zs0B0100", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals(0, sut.getQueueLength());
+    }
+
+    @Test
+    public void offer_queriesBeforeRfCommands() throws Exception {
+        sut.offer("T12340142");
+        sut.offer("F12340011");
+        sut.offer("V");
+
+        assertEquals("V", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("F12340011", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("T12340142", sut.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void offer_supersedesCommandForSameDevice() throws Exception {
+        sut.offer("F12340011");
+        sut.offer("F12340111");
+        sut.offer("F12340000\r\n");
+
+        assertEquals(2, sut.getQueueLength());
+        assertEquals(1, sut.getSupersededCount());
+        assertEquals("F12340000\r\n", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("F12340111", sut.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void offer_queuesRelativeFS20Commands() throws Exception {
+        sut.offer("F12340012");
+        sut.offer("F12340013");
+        sut.offer("F12340013");
+
+        assertEquals(3, sut.getQueueLength());
+        assertEquals(0, sut.getSupersededCount());
+        assertEquals("F12340012", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("F12340013", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertEquals("F12340013", sut.poll(0, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void poll_holdsBackUnknownCommandWithoutCredit() throws Exception {
+        sut.setCredit(0);
+        sut.offer("G0031E368");
+        sut.offer("isr6");
+
+        assertEquals("isr6", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(sut.poll(20, TimeUnit.MILLISECONDS));
+        assertEquals(1, sut.getQueueLength());
+    }
+
+    @Test
+    public void offer_dropsWhenFull() throws Exception {
+        assertTrue(sut.offer("F12340011"));
+        assertTrue(sut.offer("F12340111"));
+        assertTrue(sut.offer("F12340211"));
+        assertFalse(sut.offer("F12340311"));
+
+        assertEquals(3, sut.getQueueLength());
+        assertEquals(1, sut.getDroppedCount());
+    }
+
+    @Test
+    public void poll_holdsBackRfCommandWithoutCredit() throws Exception {
+        sut.setCredit(0);
+        sut.offer("F12340011");
+        sut.offer("X");
+
+        assertEquals("X", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertNull(sut.poll(20, TimeUnit.MILLISECONDS));
+        assertEquals(1, sut.getQueueLength());
+
+        sut.setCredit(900);
+        assertEquals("F12340011", sut.poll(0, TimeUnit.MILLISECONDS));
+        assertTrue(sut.getCredit() < 900);
+    }
+
+    @Test
+    public void poll_wakesUpOnCreditReport() throws Exception {
+        sut.setCredit(0);
+        sut.offer("F12340011");
+
+        Thread reporter = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    return;
+                }
+                sut.setCredit(900);
+            }
+        };
+        reporter.start();
+
+        assertEquals("F12340011", sut.poll(5, TimeUnit.SECONDS));
+        reporter.join();
+    }
+}
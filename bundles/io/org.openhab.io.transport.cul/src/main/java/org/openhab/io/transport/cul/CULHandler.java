@@ -49,4 +49,28 @@ public interface CULHandler {
      */
     public int getCredit10ms();
 
+    /**
+     * Get the number of commands waiting to be sent to the CUL. Commands are
+     * held back if the CUL wouldn't have enough transmit credits for them.
+     *
+     * @return number of queued commands
+     */
+    public int getSendQueueLength();
+
+    /**
+     * Get the number of commands which have been dropped because the send
+     * queue was full.
+     *
+     * @return number of dropped commands
+     */
+    public long getDroppedCommands();
+
+    /**
+     * Get the number of received messages which have been dropped because
+     * the listeners couldn't keep up.
+     *
+     * @return number of dropped messages
+     */
+    public long getDroppedReceivedMessages();
+
 }
@@ -12,12 +12,16 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
 import java.net.SocketException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.openhab.io.transport.cul.CULCommunicationException;
 import org.openhab.io.transport.cul.CULDeviceException;
@@ -37,7 +41,14 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     private final static Logger log = LoggerFactory.getLogger(AbstractCULHandler.class);
 
     /**
-     * Thread which sends all queued commands to the CUL.
+     * The maximum number of received messages waiting to be dispatched to the
+     * listeners.
+     */
+    private final static int RECEIVE_QUEUE_LENGTH = 1000;
+
+    /**
+     * Thread which sends all queued commands to the CUL. It blocks until the
+     * send scheduler releases the next command.
      *
      * @author Till Klocke
      * @since 1.4.0
@@ -47,66 +58,94 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
 
         private final Logger logger = LoggerFactory.getLogger(SendThread.class);
 
+        public SendThread() {
+            super("CUL send thread");
+            setDaemon(true);
+        }
+
         @Override
         public void run() {
             while (!isInterrupted()) {
-                String command = sendQueue.poll();
-                if (command != null) {
-                    if (!command.endsWith("\r\n")) {
-                        command = command + "\r\n";
-                    }
-                    try {
-                        writeMessage(command);
-                    } catch (CULCommunicationException e) {
-                        logger.error("Error while writing command to CUL", e);
-                    }
-                }
+                String command;
                 try {
-                    Thread.sleep(10);
+                    command = sendScheduler.take();
                 } catch (InterruptedException e) {
-                    logger.debug("Error while sleeping in SendThread", e);
+                    logger.debug("SendThread interrupted");
+                    break;
+                }
+                if (!command.endsWith("\r\n")) {
+                    command = command + "\r\n";
+                }
+                try {
+                    writeMessage(command);
+                } catch (CULCommunicationException e) {
+                    logger.error("Error while writing command to CUL", e);
                 }
             }
         }
     }
 
     /**
-     * Wrapper class wraps a CULListener and a received Strings and gets
-     * executed by a executor in its own thread.
+     * Wrapper class wraps a received String and notifies all listeners about
+     * it.
      *
      * @author Till Klocke
      * @since 1.4.0
      *
      */
-    private static class NotifyDataReceivedRunner implements Runnable {
+    private class NotifyDataReceivedRunner implements Runnable {
 
         private String message;
-        private CULListener listener;
 
-        public NotifyDataReceivedRunner(CULListener listener, String message) {
+        public NotifyDataReceivedRunner(String message) {
             this.message = message;
-            this.listener = listener;
         }
 
         @Override
         public void run() {
-            listener.dataReceived(message);
+            for (CULListener listener : listeners) {
+                try {
+                    listener.dataReceived(message);
+                } catch (RuntimeException e) {
+                    log.error("Error while notifying listener about CUL message '" + message + "'", e);
+                }
+            }
         }
 
     }
 
     /**
-     * Executor to handle received messages. Every listern should be called in
-     * its own thread.
+     * Executor to handle received messages. All messages are dispatched to the
+     * listeners by a single thread, so they are processed in the order they
+     * have been received. If the listeners can't keep up, further messages are
+     * dropped.
      */
-    protected Executor receiveExecutor = Executors.newCachedThreadPool();
+    protected ExecutorService receiveExecutor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(RECEIVE_QUEUE_LENGTH), new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "CUL receive dispatcher");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            }, new RejectedExecutionHandler() {
+                @Override
+                public void rejectedExecution(Runnable runnable, ThreadPoolExecutor executor) {
+                    if (!executor.isShutdown()) {
+                        log.warn("Receive queue of CUL " + config.getDeviceAddress()
+                                + " is full, dropping received message");
+                        droppedReceivedMessages.incrementAndGet();
+                    }
+                }
+            });
     protected SendThread sendThread = new SendThread();
 
     protected T config;
 
-    protected List<CULListener> listeners = new ArrayList<CULListener>();
+    protected List<CULListener> listeners = new CopyOnWriteArrayList<CULListener>();
 
-    protected Queue<String> sendQueue = new ConcurrentLinkedQueue<String>();
+    protected CULSendScheduler sendScheduler = new CULSendScheduler();
+    protected AtomicLong droppedReceivedMessages = new AtomicLong();
     protected int credit10ms = 0;
     protected BufferedReader br;
     protected BufferedWriter bw;
@@ -144,6 +183,7 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     public void close() {
         sendThread.interrupt();
         closeHardware();
+        receiveExecutor.shutdown();
     }
 
     /**
@@ -161,13 +201,35 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     @Override
     public void send(String command) {
         if (isMessageAllowed(command)) {
-            sendQueue.add(command);
+            queueCommand(command);
         }
     }
 
     @Override
     public void sendWithoutCheck(String message) throws CULCommunicationException {
-        sendQueue.add(message);
+        queueCommand(message);
+    }
+
+    private void queueCommand(String command) {
+        if (!sendScheduler.offer(command)) {
+            log.warn("Send queue of CUL " + config.getDeviceAddress() + " is full, dropping command '"
+                    + command.trim() + "'");
+        }
+    }
+
+    @Override
+    public int getSendQueueLength() {
+        return sendScheduler.getQueueLength();
+    }
+
+    @Override
+    public long getDroppedCommands() {
+        return sendScheduler.getDroppedCount();
+    }
+
+    @Override
+    public long getDroppedReceivedMessages() {
+        return droppedReceivedMessages.get();
     }
 
     /**
@@ -188,13 +250,19 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
     }
 
     /**
-     * Notifies each CULListener about the received data in its own thread.
+     * Notifies the CULListeners about the received data in the receive
+     * dispatcher thread.
      *
      * @param data
      */
     protected void notifyDataReceived(String data) {
-        for (final CULListener listener : listeners) {
-            receiveExecutor.execute(new NotifyDataReceivedRunner(listener, data));
+        if (listeners.isEmpty()) {
+            return;
+        }
+        try {
+            receiveExecutor.execute(new NotifyDataReceivedRunner(data));
+        } catch (RejectedExecutionException e) {
+            log.debug("Receive dispatcher of CUL " + config.getDeviceAddress() + " is shut down");
         }
     }
 
@@ -227,6 +295,8 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
             } else if ("LOVF".equals(data)) {
                 log.warn(
                         "(LOVF) Limit Overflow: Last message lost. You are using more than 1% transmitting time. Reduce the number of rf messages");
+                // the CUL has no credit left, hold back RF commands until the next report
+                sendScheduler.setCredit(0);
                 return;
             } else if (data.matches("^\\d+\\s+\\d+")) {
                 processCreditReport(data);
@@ -260,6 +330,7 @@ public abstract class AbstractCULHandler<T extends CULConfig> implements CULHand
         // Credit report received
         String[] report = data.split(" ");
         credit10ms = Integer.parseInt(report[report.length - 1]);
+        sendScheduler.setCredit(credit10ms);
         log.debug("credit10ms = " + credit10ms);
     }
 
@@ -0,0 +1,387 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.cul.internal;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queues the commands for a CUL and hands them out in an order which respects
+ * the 1% duty cycle of the CUL.
+ *
+ * The scheduler keeps an estimate of the remaining send time (credit) of the
+ * CUL. The estimate is reset with every credit report of the CUL, reduced by
+ * the estimated air time of every command handed out and regenerates with one
+ * 10ms unit per second. A RF command is only handed out if the estimated
+ * credit is sufficient, so the CUL doesn't drop it with LOVF.
+ *
+ * Commands which don't send anything via RF are always handed out first. A
+ * queued FS20, FHT or Intertechno command for a device is replaced by a newer
+ * command for the same device, as only the last one matters. Relative FS20
+ * commands like toggle or dim up are never replaced, as every one of them
+ * changes the state of the device.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class CULSendScheduler {
+
+    /**
+     * The priority of a command, commands with a higher priority are sent
+     * first.
+     */
+    public enum Priority {
+        /** commands which don't use any send time, like queries */
+        HIGH,
+        /** RF commands for actors */
+        NORMAL,
+        /** FHT commands, which are buffered by the CUL anyway */
+        LOW
+    }
+
+    /** the default maximum number of queued commands */
+    public static final int DEFAULT_MAX_QUEUE_LENGTH = 100;
+
+    /** culfw never accumulates more than 9 seconds of send time */
+    static final int MAX_CREDIT_10MS = 900;
+
+    /** a 1% duty cycle earns 10ms of send time per second */
+    private static final long NANOS_PER_CREDIT = TimeUnit.SECONDS.toNanos(1);
+
+    /*
+     * Rough estimates of the air time of a message in 10ms units, including
+     * the repetitions done by culfw.
+     */
+    private static final int COST_FS20 = 20;
+    private static final int COST_FHT = 20;
+    private static final int COST_INTERTECHNO = 40;
+    private static final int COST_ASKSIN = 5;
+    private static final int COST_MAX_BURST = 100;
+    private static final int COST_MAX_FAST = 5;
+    /** unknown commands might send anything, so assume the longest message */
+    private static final int COST_UNKNOWN = COST_MAX_BURST;
+
+    /** the first characters of culfw commands which are handled by the CUL itself */
+    private static final String LOCAL_COMMANDS = "?BCeRltVWXx";
+
+    /** relative FS20 commands, without the extension bit */
+    private static final int FS20_TOGGLE = 0x12;
+    private static final int FS20_DIM_UP_DOWN = 0x15;
+    private static final int FS20_EXTENSION_BIT = 0x20;
+
+    private final int maxQueueLength;
+    private final Map<Priority, ArrayDeque<QueuedCommand>> queues = new EnumMap<Priority, ArrayDeque<QueuedCommand>>(
+            Priority.class);
+    private final Map<String, QueuedCommand> pendingByDevice = new HashMap<String, QueuedCommand>();
+
+    private int queueLength = 0;
+    private long droppedCount = 0;
+    private long supersededCount = 0;
+
+    /** the estimated credit, negative as long as no report has been received */
+    private int credit10ms = -1;
+    private long creditTimestamp = System.nanoTime();
+
+    public CULSendScheduler() {
+        this(DEFAULT_MAX_QUEUE_LENGTH);
+    }
+
+    /**
+     * @param maxQueueLength
+     *            the maximum number of queued commands, further commands are
+     *            dropped
+     */
+    public CULSendScheduler(int maxQueueLength) {
+        this.maxQueueLength = maxQueueLength;
+        for (Priority priority : Priority.values()) {
+            queues.put(priority, new ArrayDeque<QueuedCommand>());
+        }
+    }
+
+    /**
+     * Queues a command. If a command for the same device is already queued, it
+     * is replaced by this command.
+     *
+     * @param command
+     *            the culfw command
+     * @return false if the command has been dropped because the queue is full
+     */
+    public synchronized boolean offer(String command) {
+        String trimmedCommand = command.trim();
+        String deviceKey = getDeviceKey(trimmedCommand);
+        if (deviceKey != null) {
+            QueuedCommand queued = pendingByDevice.get(deviceKey);
+            if (queued != null) {
+                queued.command = command;
+                supersededCount++;
+                return true;
+            }
+        }
+        if (queueLength >= maxQueueLength) {
+            droppedCount++;
+            return false;
+        }
+
+        int cost = estimateCost(trimmedCommand);
+        QueuedCommand queued = new QueuedCommand(command, deviceKey, cost);
+        queues.get(getPriority(trimmedCommand, cost)).add(queued);
+        if (deviceKey != null) {
+            pendingByDevice.put(deviceKey, queued);
+        }
+        queueLength++;
+        notifyAll();
+        return true;
+    }
+
+    /**
+     * Waits until a command may be sent and removes it from the queue.
+     *
+     * @return the next command
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public synchronized String take() throws InterruptedException {
+        String command;
+        while ((command = next(Long.MAX_VALUE)) == null) {
+            // wait again
+        }
+        return command;
+    }
+
+    /**
+     * Waits at most the given time until a command may be sent and removes it
+     * from the queue.
+     *
+     * @param timeout
+     *            the maximum time to wait
+     * @param unit
+     *            the unit of the timeout
+     * @return the next command, or null if the timeout elapsed
+     * @throws InterruptedException
+     *             if the thread is interrupted while waiting
+     */
+    public synchronized String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        String command;
+        while ((command = next(deadline - System.nanoTime())) == null) {
+            if (deadline - System.nanoTime() <= 0) {
+                return null;
+            }
+        }
+        return command;
+    }
+
+    /**
+     * Updates the credit estimate with a credit report of the CUL.
+     *
+     * @param reportedCredit10ms
+     *            the remaining send time in 10ms units
+     */
+    public synchronized void setCredit(int reportedCredit10ms) {
+        credit10ms = Math.max(reportedCredit10ms, 0);
+        creditTimestamp = System.nanoTime();
+        notifyAll();
+    }
+
+    /**
+     * @return the estimated remaining send time in 10ms units, or -1 if the
+     *         CUL hasn't reported its credit yet
+     */
+    public synchronized int getCredit() {
+        return currentCredit();
+    }
+
+    /**
+     * @return the number of queued commands
+     */
+    public synchronized int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * @return the number of commands dropped because the queue was full
+     */
+    public synchronized long getDroppedCount() {
+        return droppedCount;
+    }
+
+    /**
+     * @return the number of queued commands which have been replaced by a
+     *         newer command for the same device
+     */
+    public synchronized long getSupersededCount() {
+        return supersededCount;
+    }
+
+    /**
+     * Removes all queued commands.
+     */
+    public synchronized void clear() {
+        for (ArrayDeque<QueuedCommand> queue : queues.values()) {
+            queue.clear();
+        }
+        pendingByDevice.clear();
+        queueLength = 0;
+    }
+
+    /**
+     * Removes and returns the next command if it may be sent, otherwise waits
+     * at most the given time for a change and returns null.
+     */
+    private String next(long maxWaitNanos) throws InterruptedException {
+        QueuedCommand head = null;
+        for (ArrayDeque<QueuedCommand> queue : queues.values()) {
+            head = queue.peek();
+            if (head != null) {
+                break;
+            }
+        }
+
+        long waitNanos = maxWaitNanos;
+        if (head != null) {
+            int credit = currentCredit();
+            if (head.cost == 0 || credit < 0 || head.cost <= credit) {
+                removeHead(head);
+                if (credit >= 0) {
+                    credit10ms = credit - head.cost;
+                }
+                return head.command;
+            }
+            waitNanos = Math.min(waitNanos, (head.cost - credit) * NANOS_PER_CREDIT);
+        }
+
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.timedWait(this, waitNanos);
+        }
+        return null;
+    }
+
+    private void removeHead(QueuedCommand head) {
+        for (ArrayDeque<QueuedCommand> queue : queues.values()) {
+            if (queue.peek() == head) {
+                queue.poll();
+                break;
+            }
+        }
+        if (head.deviceKey != null) {
+            pendingByDevice.remove(head.deviceKey);
+        }
+        queueLength--;
+    }
+
+    /**
+     * Returns the credit estimate including the send time regenerated since
+     * the last update.
+     */
+    private int currentCredit() {
+        if (credit10ms < 0) {
+            return -1;
+        }
+        long now = System.nanoTime();
+        long earned = (now - creditTimestamp) / NANOS_PER_CREDIT;
+        if (earned > 0) {
+            credit10ms = (int) Math.min(MAX_CREDIT_10MS, credit10ms + earned);
+            creditTimestamp += earned * NANOS_PER_CREDIT;
+        }
+        return credit10ms;
+    }
+
+    /**
+     * Estimates the air time of a culfw command in 10ms units. Commands which
+     * don't send anything via RF cost nothing, unknown commands are assumed to
+     * be expensive.
+     */
+    static int estimateCost(String command) {
+        if (isLocalCommand(command)) {
+            return 0;
+        } else if (command.startsWith("Zs")) {
+            return COST_MAX_BURST;
+        } else if (command.startsWith("Zf")) {
+            return COST_MAX_FAST;
+        } else if (command.startsWith("As")) {
+            return COST_ASKSIN;
+        } else if (command.startsWith("is")) {
+            return COST_INTERTECHNO;
+        } else if (command.startsWith("F") && command.length() >= 9) {
+            return COST_FS20;
+        } else if (isFhtCommand(command)) {
+            return COST_FHT;
+        }
+        return COST_UNKNOWN;
+    }
+
+    /**
+     * Returns a key identifying the target device of commands which are
+     * superseded by newer commands for the same device, or null.
+     */
+    static String getDeviceKey(String command) {
+        if (command.startsWith("F") && command.length() >= 9) {
+            if (isRelativeFS20Command(command)) {
+                return null;
+            }
+            // F + housecode + address + command
+            return command.substring(0, 7);
+        } else if (isFhtCommand(command) && command.length() == 9) {
+            // T + housecode + a single register and its value
+            return command.substring(0, 7);
+        } else if (command.startsWith("is") && command.length() == 14) {
+            // is + 10 address and 2 command tristates
+            return command.substring(0, 12);
+        }
+        return null;
+    }
+
+    private static Priority getPriority(String command, int cost) {
+        if (cost == 0) {
+            return Priority.HIGH;
+        }
+        return isFhtCommand(command) ? Priority.LOW : Priority.NORMAL;
+    }
+
+    private static boolean isLocalCommand(String command) {
+        if (command.isEmpty() || LOCAL_COMMANDS.indexOf(command.charAt(0)) >= 0) {
+            return true;
+        }
+        // short T commands query the CUL itself, the others set receive modes and send parameters
+        return (command.startsWith("T") && command.length() < 9) || command.startsWith("Ar")
+                || command.startsWith("Ax") || command.startsWith("Zr") || command.startsWith("Zx")
+                || command.startsWith("isr") || command.startsWith("it");
+    }
+
+    private static boolean isRelativeFS20Command(String command) {
+        int code;
+        try {
+            code = Integer.parseInt(command.substring(7, 9), 16) & ~FS20_EXTENSION_BIT;
+        } catch (NumberFormatException e) {
+            // not a regular FS20 command, never replace it
+            return true;
+        }
+        return code >= FS20_TOGGLE && code <= FS20_DIM_UP_DOWN;
+    }
+
+    private static boolean isFhtCommand(String command) {
+        // short T commands like T01 query the CUL itself
+        return command.startsWith("T") && command.length() >= 9;
+    }
+
+    private static class QueuedCommand {
+        private String command;
+        private final String deviceKey;
+        private final int cost;
+
+        QueuedCommand(String command, String deviceKey, int cost) {
+            this.command = command;
+            this.deviceKey = deviceKey;
+            this.cost = cost;
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.events.EventPublisher;
 import org.openhab.io.transport.mqtt.internal.MqttBrokerConnection;
+import org.openhab.io.transport.mqtt.internal.MqttMessageDispatcher;
 import org.osgi.service.cm.ConfigurationException;
 import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
@@ -98,6 +99,16 @@ public class MqttService implements ManagedService {
                 conn.setLastWill(will);
             } else if (property.equals("keepAlive")) {
                 conn.setKeepAliveInterval(Integer.parseInt(value));
+            } else if (property.equals("dispatchThreads")) {
+                conn.setDispatchThreads(Integer.parseInt(value));
+            } else if (property.equals("dispatchQueueSize")) {
+                conn.setDispatchQueueSize(Integer.parseInt(value));
+            } else if (property.equals("dispatchOverflow")) {
+                try {
+                    conn.setDispatchOverflow(MqttMessageDispatcher.OverflowPolicy.fromString(value));
+                } catch (IllegalArgumentException e) {
+                    logger.warn("Invalid value '{}' for property {}, use 'block' or 'drop-oldest'", value, key);
+                }
             } else {
                 logger.warn("Unrecognized property: {}", key);
             }
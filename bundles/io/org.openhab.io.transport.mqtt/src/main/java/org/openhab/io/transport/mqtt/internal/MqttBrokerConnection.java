@@ -77,12 +77,23 @@ public class MqttBrokerConnection implements MqttCallback {
 
     private List<MqttMessageConsumer> consumers = new CopyOnWriteArrayList<MqttMessageConsumer>();
 
+    private MqttTopicTrie subscriptions = new MqttTopicTrie();
+
     private List<MqttMessageProducer> producers = new CopyOnWriteArrayList<MqttMessageProducer>();
 
     private Timer reconnectTimer;
 
     private int keepAliveInterval = 60;
 
+    private int dispatchThreads = 1;
+
+    private int dispatchQueueSize = 1000;
+
+    private MqttMessageDispatcher.OverflowPolicy dispatchOverflow = MqttMessageDispatcher.OverflowPolicy.BLOCK;
+
+    // read on the client callback thread
+    private volatile MqttMessageDispatcher dispatcher;
+
     /**
      * Create a new connection with the given name.
      * 
@@ -109,6 +120,11 @@ public class MqttBrokerConnection implements MqttCallback {
         }
 
         logger.info("Starting MQTT broker connection '{}'", name);
+        if (dispatcher == null && dispatchThreads > 0) {
+            dispatcher = new MqttMessageDispatcher(name, subscriptions, dispatchThreads, dispatchQueueSize,
+                    dispatchOverflow);
+            dispatcher.start();
+        }
         openConnection();
 
         if (reconnectTimer != null) {
@@ -445,6 +461,7 @@ public class MqttBrokerConnection implements MqttCallback {
      */
     public synchronized void addConsumer(MqttMessageConsumer subscriber) {
         consumers.add(subscriber);
+        subscriptions.add(subscriber);
         if (started) {
             startConsumer(subscriber);
         }
@@ -497,6 +514,7 @@ public class MqttBrokerConnection implements MqttCallback {
             logger.error("Error unsubscribing topic from broker", e);
         }
         consumers.remove(subscriber);
+        subscriptions.remove(subscriber);
 
     }
 
@@ -513,6 +531,10 @@ public class MqttBrokerConnection implements MqttCallback {
             logger.error("Error closing connection to broker", e);
         }
         started = false;
+        if (dispatcher != null) {
+            dispatcher.stop();
+            dispatcher = null;
+        }
     }
 
     @Override
@@ -546,45 +568,36 @@ public class MqttBrokerConnection implements MqttCallback {
     @Override
     public void messageArrived(String topic, MqttMessage message) throws Exception {
 
-        logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
-        for (MqttMessageConsumer consumer : consumers) {
-            if (isTopicMatch(topic, consumer.getTopic())) {
-                consumer.processMessage(topic, message.getPayload());
-            }
+        if (logger.isTraceEnabled()) {
+            logger.trace("Received message on topic '{}' : {}", topic, new String(message.getPayload()));
+        }
+        MqttMessageDispatcher currentDispatcher = dispatcher;
+        if (currentDispatcher != null) {
+            currentDispatcher.dispatch(topic, message.getPayload());
+        } else if (subscriptions.dispatch(topic, message.getPayload()) == 0) {
+            logger.trace("No consumer found for topic '{}'", topic);
         }
     }
 
     /**
-     * Check if the topic on which a message was received matches provided
-     * target topic. The matching will take into account the + and # wildcards.
-     * 
-     * @param source
-     *            topic from received message
-     * @param target
-     *            topic as defined with possible wildcards.
-     * @return true if both topics match.
+     * @return number of received messages waiting to be passed to the
+     *         consumers.
      */
-    private boolean isTopicMatch(String source, String target) {
-        if (source.equals(target)) {
-            return true;
-        }
-        if (target.indexOf('+') == -1 && target.indexOf('#') == -1) {
-            return false;
-        } else {
-
-            String regex = target;
-            regex = StringUtils.replace(regex, "+", "[^/]*");
-            regex = StringUtils.replace(regex, "#", ".*");
-            boolean result = source.matches(regex);
-            if (result) {
-                logger.trace("Topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return true;
-            } else {
-                logger.trace("No topic match for '{}' and '{}' using regex {}", source, target, regex);
-                return false;
-            }
-        }
+    public int getQueueDepth() {
+        MqttMessageDispatcher currentDispatcher = dispatcher;
+        return currentDispatcher == null ? 0 : currentDispatcher.getQueueDepth();
+    }
 
+    /**
+     * Get the number of messages a consumer has processed and the time it
+     * spent doing so.
+     *
+     * @param consumer
+     *            registered on this connection.
+     * @return statistics or null if the consumer is not registered.
+     */
+    public MqttTopicTrie.Subscription getProcessingStatistics(MqttMessageConsumer consumer) {
+        return subscriptions.getSubscription(consumer);
     }
 
     /**
@@ -599,4 +612,40 @@ public class MqttBrokerConnection implements MqttCallback {
         this.keepAliveInterval = keepAliveInterval;
     }
 
+    /**
+     * Set the number of threads which pass received messages to the
+     * consumers. Messages on the same topic are always handled by the same
+     * thread. Set this to 0 to process the messages on the thread of the MQTT
+     * client. The default is 1 thread. Takes effect the next time the
+     * connection is started.
+     * 
+     * @param dispatchThreads
+     *            number of threads.
+     */
+    public void setDispatchThreads(int dispatchThreads) {
+        this.dispatchThreads = dispatchThreads;
+    }
+
+    /**
+     * Set the maximum number of received messages waiting to be processed.
+     * The default is 1000.
+     * 
+     * @param dispatchQueueSize
+     *            maximum number of queued messages.
+     */
+    public void setDispatchQueueSize(int dispatchQueueSize) {
+        this.dispatchQueueSize = dispatchQueueSize;
+    }
+
+    /**
+     * Set what happens with received messages when the queue is full. The
+     * default is to block the MQTT client until there is free space.
+     * 
+     * @param dispatchOverflow
+     *            policy to use.
+     */
+    public void setDispatchOverflow(MqttMessageDispatcher.OverflowPolicy dispatchOverflow) {
+        this.dispatchOverflow = dispatchOverflow;
+    }
+
 }
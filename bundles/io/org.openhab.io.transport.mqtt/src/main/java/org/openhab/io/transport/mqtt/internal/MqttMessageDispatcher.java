@@ -0,0 +1,239 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Passes received messages from the MQTT client thread to a pool of worker
+ * threads, which deliver them to the consumers. This prevents slow consumers
+ * from blocking the client thread, which also has to handle the keep alive
+ * of the broker connection.
+ *
+ * Every worker has its own bounded queue and all messages of a topic are
+ * processed by the same worker, so that messages on one topic are always
+ * delivered in the order they were received. When a queue is full, the
+ * overflow policy decides whether the client thread waits for free space or
+ * the oldest queued message is dropped.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MqttMessageDispatcher {
+
+    private static Logger logger = LoggerFactory.getLogger(MqttMessageDispatcher.class);
+
+    /**
+     * What to do with a new message when the queue of its worker is full.
+     */
+    public enum OverflowPolicy {
+        /** wait until the worker has taken a message from the queue */
+        BLOCK,
+        /** drop the oldest message of the queue */
+        DROP_OLDEST;
+
+        /**
+         * Parse a policy from its configuration value, e.g. 'block' or
+         * 'drop-oldest'.
+         *
+         * @param value
+         *            configuration value.
+         * @return the policy.
+         * @throws IllegalArgumentException
+         *             if the value is not a known policy.
+         */
+        public static OverflowPolicy fromString(String value) {
+            return valueOf(value.trim().toUpperCase().replace('-', '_'));
+        }
+    }
+
+    private final String name;
+
+    private final MqttTopicTrie subscriptions;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final LinkedBlockingDeque<Message>[] queues;
+
+    private final Thread[] workers;
+
+    private final AtomicLong droppedMessages = new AtomicLong();
+
+    private volatile boolean running;
+
+    /**
+     * Create a new dispatcher.
+     *
+     * @param name
+     *            of the broker connection, used for the thread names.
+     * @param subscriptions
+     *            consumers to deliver the messages to.
+     * @param threads
+     *            number of worker threads.
+     * @param queueSize
+     *            maximum number of queued messages, shared among the
+     *            workers.
+     * @param overflowPolicy
+     *            what to do when a queue is full.
+     */
+    @SuppressWarnings("unchecked")
+    public MqttMessageDispatcher(String name, MqttTopicTrie subscriptions, int threads, int queueSize,
+            OverflowPolicy overflowPolicy) {
+        this.name = name;
+        this.subscriptions = subscriptions;
+        this.overflowPolicy = overflowPolicy;
+
+        int workerCount = Math.max(threads, 1);
+        int capacity = Math.max(queueSize / workerCount, 1);
+        queues = new LinkedBlockingDeque[workerCount];
+        workers = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            queues[i] = new LinkedBlockingDeque<Message>(capacity);
+        }
+    }
+
+    /**
+     * Start the worker threads.
+     */
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Thread(new Worker(queues[i]), "MQTT dispatcher " + name + "-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        logger.debug("Started {} dispatcher threads for broker '{}'", workers.length, name);
+    }
+
+    /**
+     * Stop the worker threads. Messages which are still queued are discarded.
+     */
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        for (Thread worker : workers) {
+            worker.interrupt();
+        }
+        for (int i = 0; i < workers.length; i++) {
+            try {
+                workers[i].join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            workers[i] = null;
+            queues[i].clear();
+        }
+        logger.debug("Stopped dispatcher threads for broker '{}'", name);
+    }
+
+    /**
+     * Queue a received message for delivery to the consumers.
+     *
+     * @param topic
+     *            on which the message was received.
+     * @param payload
+     *            content of the message.
+     * @throws InterruptedException
+     *             if the thread was interrupted while waiting for free space
+     *             in the queue.
+     */
+    public void dispatch(String topic, byte[] payload) throws InterruptedException {
+        Message message = new Message(topic, payload);
+        LinkedBlockingDeque<Message> queue = queues[(topic.hashCode() & Integer.MAX_VALUE) % queues.length];
+
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            if (!queue.offer(message)) {
+                logger.debug("Dispatch queue for broker '{}' is full, waiting for free space", name);
+                queue.put(message);
+            }
+        } else {
+            while (!queue.offer(message)) {
+                Message dropped = queue.pollFirst();
+                if (dropped != null) {
+                    droppedMessages.incrementAndGet();
+                    logger.debug("Dispatch queue for broker '{}' is full, dropped message on topic '{}'", name,
+                            dropped.topic);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return number of messages waiting to be delivered.
+     */
+    public int getQueueDepth() {
+        int depth = 0;
+        for (BlockingQueue<Message> queue : queues) {
+            depth += queue.size();
+        }
+        return depth;
+    }
+
+    /**
+     * @return number of messages dropped because the queue was full.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.get();
+    }
+
+    private class Worker implements Runnable {
+
+        private final BlockingQueue<Message> queue;
+
+        Worker(BlockingQueue<Message> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                Message message;
+                try {
+                    message = queue.poll(1, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    break;
+                }
+                if (message == null) {
+                    continue;
+                }
+                try {
+                    if (subscriptions.dispatch(message.topic, message.payload) == 0) {
+                        logger.trace("No consumer found for topic '{}'", message.topic);
+                    }
+                } catch (Exception e) {
+                    logger.error("Error dispatching message on topic '{}'", message.topic, e);
+                }
+            }
+        }
+    }
+
+    private static class Message {
+
+        private final String topic;
+
+        private final byte[] payload;
+
+        Message(String topic, byte[] payload) {
+            this.topic = topic;
+            this.payload = payload;
+        }
+    }
+
+}
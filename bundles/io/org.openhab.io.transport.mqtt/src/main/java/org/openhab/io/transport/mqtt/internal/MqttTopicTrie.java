@@ -0,0 +1,374 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.io.transport.mqtt.internal;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.io.transport.mqtt.MqttMessageConsumer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Subscription index for the consumers of a broker connection. The topic
+ * filters are split into their levels and stored in a tree, with the + and #
+ * wildcards as special children of a node. A received topic is matched by
+ * walking the tree level by level, so the cost of a lookup depends on the
+ * depth of the topic and not on the number of subscriptions.
+ *
+ * Modifications are synchronized and replace the affected arrays, so lookups
+ * can run concurrently without locking and without creating objects.
+ *
+ * For every consumer the number of processed messages and the time spent in
+ * {@link MqttMessageConsumer#processMessage(String, byte[])} is recorded.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class MqttTopicTrie {
+
+    private static final Logger logger = LoggerFactory.getLogger(MqttTopicTrie.class);
+
+    private static final Node[] NO_NODES = new Node[0];
+
+    private static final Subscription[] NO_SUBSCRIPTIONS = new Subscription[0];
+
+    private final Node root = new Node(null);
+
+    private int size;
+
+    /**
+     * Add a consumer for the topic filter it returns from
+     * {@link MqttMessageConsumer#getTopic()}.
+     *
+     * @param consumer
+     *            to add.
+     */
+    public synchronized void add(MqttMessageConsumer consumer) {
+        Node node = root;
+        for (String level : consumer.getTopic().split("/", -1)) {
+            node = node.getOrCreateChild(level);
+        }
+        node.addConsumer(consumer);
+        size++;
+    }
+
+    /**
+     * Remove a consumer which was added before. Nodes which are no longer
+     * needed are removed from the tree.
+     *
+     * @param consumer
+     *            to remove.
+     * @return true if the consumer was found.
+     */
+    public synchronized boolean remove(MqttMessageConsumer consumer) {
+        String[] levels = consumer.getTopic().split("/", -1);
+        Node[] path = new Node[levels.length + 1];
+        path[0] = root;
+        for (int i = 0; i < levels.length; i++) {
+            path[i + 1] = path[i].getChild(levels[i]);
+            if (path[i + 1] == null) {
+                return false;
+            }
+        }
+        if (!path[levels.length].removeConsumer(consumer)) {
+            return false;
+        }
+        size--;
+        for (int i = levels.length; i > 0 && path[i].isEmpty(); i--) {
+            path[i - 1].removeChild(path[i]);
+        }
+        return true;
+    }
+
+    /**
+     * @return number of registered consumers.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the processing statistics of a consumer.
+     *
+     * @param consumer
+     *            to get the statistics for.
+     * @return statistics or null if the consumer is not registered.
+     */
+    public synchronized Subscription getSubscription(MqttMessageConsumer consumer) {
+        Node node = root;
+        for (String level : consumer.getTopic().split("/", -1)) {
+            node = node.getChild(level);
+            if (node == null) {
+                return null;
+            }
+        }
+        for (Subscription subscription : node.subscriptions) {
+            if (subscription.consumer == consumer) {
+                return subscription;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Pass a received message to all consumers with a topic filter matching
+     * the given topic.
+     *
+     * @param topic
+     *            topic on which the message was received.
+     * @param payload
+     *            content of the message.
+     * @return number of consumers the message was passed to.
+     */
+    public int dispatch(String topic, byte[] payload) {
+        return dispatch(root, topic, 0, payload);
+    }
+
+    /**
+     * Match the level of the topic starting at the given position against the
+     * children of the given node. A position of -1 means that all levels of
+     * the topic have been matched.
+     */
+    private int dispatch(Node node, String topic, int start, byte[] payload) {
+        int count = 0;
+
+        // topics starting with $ are not matched by wildcards on the first
+        // level
+        boolean wildcards = start != 0 || !topic.startsWith("$");
+
+        // # also matches the parent level, so 'a/#' matches 'a'
+        Node multiLevel = node.multiLevel;
+        if (multiLevel != null && wildcards) {
+            count += deliver(multiLevel, topic, payload);
+        }
+        if (start < 0) {
+            return count + deliver(node, topic, payload);
+        }
+
+        int end = topic.indexOf('/', start);
+        int levelEnd = end < 0 ? topic.length() : end;
+        int next = end < 0 ? -1 : end + 1;
+
+        Node child = node.findChild(topic, start, levelEnd);
+        if (child != null) {
+            count += dispatch(child, topic, next, payload);
+        }
+        Node singleLevel = node.singleLevel;
+        if (singleLevel != null && wildcards) {
+            count += dispatch(singleLevel, topic, next, payload);
+        }
+        return count;
+    }
+
+    private int deliver(Node node, String topic, byte[] payload) {
+        Subscription[] subscriptions = node.subscriptions;
+        for (Subscription subscription : subscriptions) {
+            long start = System.nanoTime();
+            try {
+                subscription.consumer.processMessage(topic, payload);
+            } catch (RuntimeException e) {
+                logger.error("Error processing message on topic '{}'", topic, e);
+            }
+            subscription.record(System.nanoTime() - start);
+        }
+        return subscriptions.length;
+    }
+
+    /**
+     * A consumer registered in the trie, together with its processing
+     * statistics.
+     */
+    public static class Subscription {
+
+        private final MqttMessageConsumer consumer;
+
+        private final AtomicLong messageCount = new AtomicLong();
+
+        private final AtomicLong processingTime = new AtomicLong();
+
+        private volatile long maxProcessingTime;
+
+        Subscription(MqttMessageConsumer consumer) {
+            this.consumer = consumer;
+        }
+
+        private void record(long nanos) {
+            messageCount.incrementAndGet();
+            processingTime.addAndGet(nanos);
+            if (nanos > maxProcessingTime) {
+                maxProcessingTime = nanos;
+            }
+        }
+
+        /**
+         * @return number of messages passed to the consumer.
+         */
+        public long getMessageCount() {
+            return messageCount.get();
+        }
+
+        /**
+         * @return total time in nanoseconds spent processing messages.
+         */
+        public long getProcessingTime() {
+            return processingTime.get();
+        }
+
+        /**
+         * @return longest time in nanoseconds spent processing one message.
+         */
+        public long getMaxProcessingTime() {
+            return maxProcessingTime;
+        }
+    }
+
+    /**
+     * A single level of a topic filter. Children are kept in an open
+     * addressing hash table, which allows to look up a level directly from
+     * the received topic string without creating a substring.
+     */
+    private static class Node {
+
+        private final String level;
+
+        private volatile Node[] children = NO_NODES;
+
+        private volatile Node singleLevel;
+
+        private volatile Node multiLevel;
+
+        private volatile Subscription[] subscriptions = NO_SUBSCRIPTIONS;
+
+        private int childCount;
+
+        Node(String level) {
+            this.level = level;
+        }
+
+        Node getChild(String level) {
+            if ("+".equals(level)) {
+                return singleLevel;
+            } else if ("#".equals(level)) {
+                return multiLevel;
+            }
+            return findChild(level, 0, level.length());
+        }
+
+        Node getOrCreateChild(String level) {
+            Node child = getChild(level);
+            if (child == null) {
+                child = new Node(level);
+                if ("+".equals(level)) {
+                    singleLevel = child;
+                } else if ("#".equals(level)) {
+                    multiLevel = child;
+                } else {
+                    childCount++;
+                    Node[] table = new Node[tableSize(childCount)];
+                    for (Node n : children) {
+                        if (n != null) {
+                            insert(table, n);
+                        }
+                    }
+                    insert(table, child);
+                    children = table;
+                }
+            }
+            return child;
+        }
+
+        void removeChild(Node child) {
+            if (child == singleLevel) {
+                singleLevel = null;
+            } else if (child == multiLevel) {
+                multiLevel = null;
+            } else {
+                childCount--;
+                Node[] table = childCount == 0 ? NO_NODES : new Node[tableSize(childCount)];
+                for (Node n : children) {
+                    if (n != null && n != child) {
+                        insert(table, n);
+                    }
+                }
+                children = table;
+            }
+        }
+
+        Node findChild(String topic, int start, int end) {
+            Node[] table = children;
+            if (table.length == 0) {
+                return null;
+            }
+            int length = end - start;
+            int mask = table.length - 1;
+            for (int i = hash(topic, start, end) & mask;; i = (i + 1) & mask) {
+                Node n = table[i];
+                if (n == null) {
+                    return null;
+                }
+                if (n.level.length() == length && n.level.regionMatches(0, topic, start, length)) {
+                    return n;
+                }
+            }
+        }
+
+        void addConsumer(MqttMessageConsumer consumer) {
+            Subscription[] current = subscriptions;
+            Subscription[] updated = new Subscription[current.length + 1];
+            System.arraycopy(current, 0, updated, 0, current.length);
+            updated[current.length] = new Subscription(consumer);
+            subscriptions = updated;
+        }
+
+        boolean removeConsumer(MqttMessageConsumer consumer) {
+            Subscription[] current = subscriptions;
+            for (int i = 0; i < current.length; i++) {
+                if (current[i].consumer == consumer) {
+                    Subscription[] updated = current.length == 1 ? NO_SUBSCRIPTIONS
+                            : new Subscription[current.length - 1];
+                    System.arraycopy(current, 0, updated, 0, i);
+                    System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                    subscriptions = updated;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean isEmpty() {
+            return subscriptions.length == 0 && childCount == 0 && singleLevel == null && multiLevel == null;
+        }
+
+        private static int tableSize(int count) {
+            int size = 4;
+            while (size < count * 2) {
+                size <<= 1;
+            }
+            return size;
+        }
+
+        private static void insert(Node[] table, Node node) {
+            int mask = table.length - 1;
+            int i = hash(node.level, 0, node.level.length()) & mask;
+            while (table[i] != null) {
+                i = (i + 1) & mask;
+            }
+            table[i] = node;
+        }
+
+        private static int hash(String s, int start, int end) {
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + s.charAt(i);
+            }
+            return h ^ (h >>> 16);
+        }
+    }
+
+}
@@ -80,6 +80,9 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     private static final String DIGITAL_VALUE_OFF = "0";
     private static final String DIGITAL_VALUE_ON = "1";
     private static final String VALUE_COLUMN_NAME = "value";
+    private static final String RETENTION_POLICY = "default";
+    private static final long DEFAULT_BATCH_INTERVAL = 1000;
+    private static final int DEFAULT_BUFFER_SIZE = 10000;
     private ItemRegistry itemRegistry;
     private InfluxDB influxDB;
     private static final Logger logger = LoggerFactory.getLogger(InfluxDBPersistenceService.class);
@@ -91,6 +94,10 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     private String password;
     private boolean isProperlyConfigured;
     private boolean connected;
+    private int batchSize;
+    private long batchInterval;
+    private int bufferSize;
+    private volatile InfluxDBBatchWriter batchWriter;
 
     public void setItemRegistry(ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -129,6 +136,27 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             logger.debug("using default db name {}", DEFAULT_DB);
         }
 
+        batchSize = 0;
+        batchInterval = DEFAULT_BATCH_INTERVAL;
+        bufferSize = DEFAULT_BUFFER_SIZE;
+        try {
+            String batchSizeString = (String) config.get("batchSize");
+            if (!isBlank(batchSizeString)) {
+                batchSize = Integer.parseInt(batchSizeString.trim());
+            }
+            String batchIntervalString = (String) config.get("batchInterval");
+            if (!isBlank(batchIntervalString)) {
+                batchInterval = Long.parseLong(batchIntervalString.trim());
+            }
+            String bufferSizeString = (String) config.get("bufferSize");
+            if (!isBlank(bufferSizeString)) {
+                bufferSize = Integer.parseInt(bufferSizeString.trim());
+            }
+        } catch (NumberFormatException e) {
+            logger.error("invalid batch configuration, using the default write mode: {}", e.getMessage());
+            batchSize = 0;
+        }
+
         isProperlyConfigured = true;
 
         connect();
@@ -150,7 +178,14 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
             // reuse an existing InfluxDB object because concerning the database it has no state
             // connection
             influxDB = InfluxDBFactory.connect(url, user, password);
-            influxDB.enableBatch(200, 100, timeUnit);
+            if (batchSize > 0) {
+                InfluxDBBatchWriter writer = new InfluxDBBatchWriter(influxDB, dbName, RETENTION_POLICY, batchSize,
+                        batchInterval, bufferSize);
+                writer.start();
+                batchWriter = writer;
+            } else {
+                influxDB.enableBatch(200, 100, timeUnit);
+            }
         }
         connected = true;
     }
@@ -183,6 +218,11 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     }
 
     private void disconnect() {
+        InfluxDBBatchWriter writer = batchWriter;
+        batchWriter = null;
+        if (writer != null) {
+            writer.stop();
+        }
         influxDB = null;
         connected = false;
     }
@@ -239,8 +279,13 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
         logger.trace("storing {} in influxdb value {}, {}", name, value, item);
         Point point = Point.measurement(name).field(VALUE_COLUMN_NAME, value).time(System.currentTimeMillis(), timeUnit)
                 .build();
+        InfluxDBBatchWriter writer = batchWriter;
+        if (writer != null) {
+            writer.add(point);
+            return;
+        }
         try {
-            influxDB.write(dbName, "default", point);
+            influxDB.write(dbName, RETENTION_POLICY, point);
         } catch (RuntimeException e) {
             logger.error("storing failed with exception for item: {}", name);
             handleDatabaseException(e);
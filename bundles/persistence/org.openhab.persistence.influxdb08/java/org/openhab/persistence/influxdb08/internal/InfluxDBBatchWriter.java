@@ -0,0 +1,245 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.persistence.influxdb08.internal;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.influxdb.InfluxDB;
+import org.influxdb.dto.Serie;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import retrofit.RetrofitError;
+
+/**
+ * Buffers {@link Serie}s in memory and writes them with a single request from a background thread.
+ * A flush is triggered as soon as <code>batchSize</code> series are buffered or <code>batchInterval</code>
+ * milliseconds have passed. The buffer is bounded, if it is full the oldest series are dropped.
+ * While the database is not reachable, the series stay in the buffer and the writes are retried with an
+ * exponential backoff. Series the database rejects are dropped.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class InfluxDBBatchWriter implements Runnable {
+
+  private static final Logger logger = LoggerFactory.getLogger(InfluxDBBatchWriter.class);
+  private static final long MAX_BACKOFF = 60000;
+
+  private final InfluxDB influxDB;
+  private final String dbName;
+  private final int batchSize;
+  private final long batchInterval;
+  private final LinkedBlockingDeque<Serie> buffer;
+
+  private final Object flushLock = new Object();
+  private final AtomicLong writtenSeries = new AtomicLong();
+  private final AtomicLong droppedSeries = new AtomicLong();
+  private volatile long lastFlushLatency;
+  private volatile long maxFlushLatency;
+  private long backoff;
+
+  private Thread thread;
+  private volatile boolean running;
+
+  public InfluxDBBatchWriter(InfluxDB influxDB, String dbName, int batchSize, long batchInterval,
+      int bufferSize) {
+    this.influxDB = influxDB;
+    this.dbName = dbName;
+    this.batchSize = batchSize;
+    this.batchInterval = batchInterval;
+    this.buffer = new LinkedBlockingDeque<Serie>(Math.max(bufferSize, batchSize));
+  }
+
+  public void start() {
+    running = true;
+    thread = new Thread(this, "InfluxDB08 batch writer");
+    thread.setDaemon(true);
+    thread.start();
+    logger.debug("started batch writer with batch size {} and interval {}ms", batchSize, batchInterval);
+  }
+
+  /**
+   * Stops the background thread after a last attempt to write the buffered series.
+   */
+  public void stop() {
+    running = false;
+    synchronized (flushLock) {
+      flushLock.notifyAll();
+    }
+    if (thread != null) {
+      try {
+        thread.join(10000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      thread = null;
+    }
+    if (!buffer.isEmpty()) {
+      logger.warn("dropping {} series which could not be written to influxdb", buffer.size());
+      droppedSeries.addAndGet(buffer.size());
+      buffer.clear();
+    }
+    logger.debug("stopped batch writer, {} series written, {} series dropped", writtenSeries.get(),
+        droppedSeries.get());
+  }
+
+  /**
+   * Adds a serie to the buffer. If the buffer is full, the oldest serie is dropped.
+   */
+  public void add(Serie serie) {
+    while (!buffer.offerLast(serie)) {
+      if (buffer.pollFirst() != null) {
+        droppedSeries.incrementAndGet();
+      }
+    }
+    if (buffer.size() >= batchSize) {
+      synchronized (flushLock) {
+        flushLock.notifyAll();
+      }
+    }
+  }
+
+  @Override
+  public void run() {
+    while (running) {
+      synchronized (flushLock) {
+        try {
+          if (backoff > 0) {
+            flushLock.wait(backoff);
+          } else if (running && buffer.size() < batchSize) {
+            flushLock.wait(batchInterval);
+          }
+        } catch (InterruptedException e) {
+          break;
+        }
+      }
+      flush();
+    }
+    flush();
+  }
+
+  private void flush() {
+    while (!buffer.isEmpty()) {
+      List<Serie> series = new ArrayList<Serie>(batchSize);
+      buffer.drainTo(series, batchSize);
+
+      long start = System.currentTimeMillis();
+      if (!write(series)) {
+        backoff = backoff == 0 ? batchInterval : Math.min(backoff * 2, MAX_BACKOFF);
+        logger.error("influxdb is not reachable, retrying in {}ms", backoff);
+        return;
+      }
+      backoff = 0;
+      lastFlushLatency = System.currentTimeMillis() - start;
+      if (lastFlushLatency > maxFlushLatency) {
+        maxFlushLatency = lastFlushLatency;
+      }
+      logger.trace("wrote {} series in {}ms, {} series buffered", series.size(), lastFlushLatency,
+          buffer.size());
+    }
+  }
+
+  /**
+   * Writes the series. A batch the database rejects is split up to find the bad series, which are dropped,
+   * so they don't block the series behind them.
+   *
+   * @return false if the database is not reachable, the series not written yet are back in the buffer
+   */
+  private boolean write(List<Serie> series) {
+    Deque<List<Serie>> parts = new ArrayDeque<List<Serie>>();
+    parts.push(series);
+    while (!parts.isEmpty()) {
+      List<Serie> part = parts.pop();
+      try {
+        influxDB.write(dbName, TimeUnit.MILLISECONDS, part.toArray(new Serie[part.size()]));
+        writtenSeries.addAndGet(part.size());
+      } catch (RuntimeException e) {
+        if (isTemporary(e)) {
+          logger.debug("writing {} series failed: {}", part.size(), e.getMessage());
+          parts.push(part);
+          requeue(parts);
+          return false;
+        }
+        if (part.size() == 1) {
+          droppedSeries.incrementAndGet();
+          logger.warn("influxdb rejected serie {}: {}", part.get(0), e.getMessage());
+        } else {
+          int half = part.size() / 2;
+          parts.push(part.subList(half, part.size()));
+          parts.push(part.subList(0, half));
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Tells a failure which may go away, like a connection problem, from a batch the database rejects.
+   * The client reports HTTP errors as plain {@link RuntimeException} with the response body as message,
+   * so those are only taken as temporary if the database doesn't answer a ping.
+   */
+  private boolean isTemporary(RuntimeException e) {
+    if (e instanceof RetrofitError) {
+      // no HTTP error response: not reachable, timed out, ...
+      return true;
+    }
+    String message = e.getMessage();
+    if (message != null && message.toLowerCase().contains("timeout")) {
+      return true;
+    }
+    try {
+      influxDB.ping();
+      return false;
+    } catch (RuntimeException pingException) {
+      return true;
+    }
+  }
+
+  /**
+   * Puts series back at the head of the buffer in their original order.
+   */
+  private void requeue(Deque<List<Serie>> parts) {
+    List<Serie> series = new ArrayList<Serie>();
+    for (List<Serie> part : parts) {
+      series.addAll(part);
+    }
+    for (int i = series.size() - 1; i >= 0; i--) {
+      if (!buffer.offerFirst(series.get(i))) {
+        droppedSeries.incrementAndGet();
+      }
+    }
+  }
+
+  public int getBufferDepth() {
+    return buffer.size();
+  }
+
+  public long getWrittenSeries() {
+    return writtenSeries.get();
+  }
+
+  public long getDroppedSeries() {
+    return droppedSeries.get();
+  }
+
+  public long getLastFlushLatency() {
+    return lastFlushLatency;
+  }
+
+  public long getMaxFlushLatency() {
+    return maxFlushLatency;
+  }
+}
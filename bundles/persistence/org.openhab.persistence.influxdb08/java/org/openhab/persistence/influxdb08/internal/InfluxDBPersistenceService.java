@@ -76,6 +76,8 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
   private static final String DIGITAL_VALUE_OFF = "0";
   private static final String DIGITAL_VALUE_ON = "1";
   private static final String VALUE_COLUMN_NAME = "value";
+  private static final long DEFAULT_BATCH_INTERVAL = 1000;
+  private static final int DEFAULT_BUFFER_SIZE = 10000;
   private ItemRegistry itemRegistry;
   private InfluxDB influxDB;
   private static final Logger logger = LoggerFactory.getLogger(InfluxDBPersistenceService.class);
@@ -86,6 +88,10 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
   private String password;
   private boolean isProperlyConfigured;
   private boolean connected;
+  private int batchSize;
+  private long batchInterval;
+  private int bufferSize;
+  private volatile InfluxDBBatchWriter batchWriter;
   
   
   public void setItemRegistry(ItemRegistry itemRegistry) {
@@ -126,6 +132,27 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
 			logger.debug("using default db name {}", DEFAULT_DB);
 		}
 
+		batchSize = 0;
+		batchInterval = DEFAULT_BATCH_INTERVAL;
+		bufferSize = DEFAULT_BUFFER_SIZE;
+		try {
+			String batchSizeString = (String) config.get("batchSize");
+			if (StringUtils.isNotBlank(batchSizeString)) {
+				batchSize = Integer.parseInt(batchSizeString.trim());
+			}
+			String batchIntervalString = (String) config.get("batchInterval");
+			if (StringUtils.isNotBlank(batchIntervalString)) {
+				batchInterval = Long.parseLong(batchIntervalString.trim());
+			}
+			String bufferSizeString = (String) config.get("bufferSize");
+			if (StringUtils.isNotBlank(bufferSizeString)) {
+				bufferSize = Integer.parseInt(bufferSizeString.trim());
+			}
+		} catch (NumberFormatException e) {
+			logger.error("invalid batch configuration, writing values directly: {}", e.getMessage());
+			batchSize = 0;
+		}
+
 		isProperlyConfigured = true;
 
 		connect();
@@ -148,6 +175,12 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
       // reuse an existing InfluxDB object because it has no state concerning the database
       // connection
       influxDB = InfluxDBFactory.connect(url, user, password);
+      if (batchSize > 0) {
+        InfluxDBBatchWriter writer = new InfluxDBBatchWriter(influxDB, dbName, batchSize, batchInterval,
+            bufferSize);
+        writer.start();
+        batchWriter = writer;
+      }
     }
     connected = true;
   }
@@ -178,6 +211,11 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
   }
 
   private void disconnect() {
+    InfluxDBBatchWriter writer = batchWriter;
+    batchWriter = null;
+    if (writer != null) {
+      writer.stop();
+    }
     influxDB = null;
     connected = false;
   }
@@ -230,6 +268,16 @@ public class InfluxDBPersistenceService implements QueryablePersistenceService {
     Object value = stateToObject(state);
     logger.trace("storing {} in influxdb08 {}", name, value);
 
+    InfluxDBBatchWriter writer = batchWriter;
+    if (writer != null) {
+      // buffered values are written later, so the time has to be sent along with the value
+      writer.add(new Serie.Builder(name)
+        .columns(TIME_COLUMN_NAME.toString(), VALUE_COLUMN_NAME)
+        .values(System.currentTimeMillis(), value)
+        .build());
+      return;
+    }
+
     // For now time is calculated by influxdb08, may be this should be configurable?
     Serie serie = new Serie.Builder(name)
       .columns(VALUE_COLUMN_NAME)
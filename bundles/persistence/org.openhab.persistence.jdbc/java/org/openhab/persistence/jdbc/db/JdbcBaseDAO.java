@@ -17,6 +17,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.joda.time.DateTime;
 import org.joda.time.format.DateTimeFormat;
@@ -67,6 +68,10 @@ public class JdbcBaseDAO {
     protected String SQL_GET_ITEM_TABLES;
     protected String SQL_CREATE_ITEM_TABLE;
     protected String SQL_INSERT_ITEM_VALUE;
+    protected String SQL_INSERT_ITEM_VALUE_WITH_TIME;
+
+    // batch insert statements per table, the sql is built only once for every table
+    private final Map<String, String> insertItemValueStatements = new ConcurrentHashMap<String, String>();
 
     /********
      * INIT *
@@ -99,6 +104,7 @@ public class JdbcBaseDAO {
         SQL_GET_ITEM_TABLES = "SELECT table_name FROM information_schema.tables WHERE table_type='BASE TABLE' AND table_schema=#jdbcUriDatabaseName# AND NOT table_name=#itemsManageTable#";
         SQL_CREATE_ITEM_TABLE = "CREATE TABLE IF NOT EXISTS #tableName# (time TIMESTAMP NOT NULL, value #dbType#, PRIMARY KEY(time))";
         SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
+        SQL_INSERT_ITEM_VALUE_WITH_TIME = "INSERT INTO #tableName# (TIME, VALUE) VALUES( ?, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
     }
 
     /**
@@ -276,6 +282,33 @@ public class JdbcBaseDAO {
         Yank.execute(sql, params);
     }
 
+    public ItemVO doPrepareItemValue(Item item, ItemVO vo) {
+        vo = storeItemValueProvider(item, vo);
+        vo.setTime(new Date());
+        return vo;
+    }
+
+    /**
+     * Stores several prepared values of one item table with a single JDBC batch.
+     *
+     * @param tableName the table of the item
+     * @param vol the values prepared by {@link #doPrepareItemValue(Item, ItemVO)}
+     * @return <code>false</code> if the batch could not be executed
+     */
+    public boolean doStoreItemValues(String tableName, List<ItemVO> vol) {
+        String sql = insertItemValueStatements.get(tableName);
+        if (sql == null) {
+            sql = storeItemValuesProvider(vol.get(0));
+            insertItemValueStatements.put(tableName, sql);
+        }
+        Object[][] params = new Object[vol.size()][];
+        for (int i = 0; i < vol.size(); i++) {
+            params[i] = storeItemValuesParams(vol.get(i));
+        }
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, params.length);
+        return Yank.executeBatch(sql, params) != null;
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name) {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name);
@@ -336,6 +369,15 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    protected String storeItemValuesProvider(ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(SQL_INSERT_ITEM_VALUE_WITH_TIME,
+                new String[] { "#tableName#", "#dbType#" }, new String[] { vo.getTableName(), vo.getDbType() });
+    }
+
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        return new Object[] { new Timestamp(vo.getTime().getTime()), vo.getValue(), vo.getValue() };
+    }
+
     protected ItemVO storeItemValueProvider(Item item, ItemVO vo) {
         String itemType = getItemType(item);
 
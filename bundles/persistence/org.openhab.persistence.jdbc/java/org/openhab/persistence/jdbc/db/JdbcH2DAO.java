@@ -8,6 +8,8 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.sql.Timestamp;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -42,6 +44,7 @@ public class JdbcH2DAO extends JdbcBaseDAO {
         // SQL_INSERT_ITEM_VALUE = "INSERT INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) )";
         // http://stackoverflow.com/questions/19768051/h2-sql-database-insert-if-the-record-does-not-exist
         SQL_INSERT_ITEM_VALUE = "MERGE INTO #tableName# (TIME, VALUE) VALUES( NOW(), CAST( ? as #dbType#) )";
+        SQL_INSERT_ITEM_VALUE_WITH_TIME = "MERGE INTO #tableName# (TIME, VALUE) VALUES( ?, CAST( ? as #dbType#) )";
     }
 
     /**
@@ -81,6 +84,11 @@ public class JdbcH2DAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
+    @Override
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        return new Object[] { new Timestamp(vo.getTime().getTime()), vo.getValue() };
+    }
+
 
     /*****************
      * H E L P E R S *
@@ -8,6 +8,8 @@
  */
 package org.openhab.persistence.jdbc.db;
 
+import java.sql.Timestamp;
+
 import org.knowm.yank.Yank;
 import org.openhab.core.items.Item;
 import org.openhab.persistence.jdbc.model.ItemVO;
@@ -49,6 +51,9 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
         SQL_INSERT_ITEM_VALUE = "MERGE INTO #tableName# "
                 + "USING (VALUES NOW(), CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
                 + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
+        SQL_INSERT_ITEM_VALUE_WITH_TIME = "MERGE INTO #tableName# "
+                + "USING (VALUES CAST( ? as TIMESTAMP), CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) "
+                + "WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)";
     }
 
     /**
@@ -114,6 +119,18 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
+    @Override
+    protected String storeItemValuesProvider(ItemVO vo) {
+        return StringUtilsExt.replaceArrayMerge(SQL_INSERT_ITEM_VALUE_WITH_TIME,
+                new String[] { "#tableName#", "#dbType#", "#tableName#" },
+                new String[] { vo.getTableName(), vo.getDbType(), vo.getTableName() });
+    }
+
+    @Override
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        return new Object[] { new Timestamp(vo.getTime().getTime()), vo.getValue() };
+    }
+
 
     /*****************
      * H E L P E R S *
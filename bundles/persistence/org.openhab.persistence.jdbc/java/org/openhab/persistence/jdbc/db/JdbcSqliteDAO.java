@@ -42,6 +42,7 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
         SQL_IF_TABLE_EXISTS = "SELECT name FROM sqlite_master WHERE type='table' AND name='#searchTable#'";
         SQL_CREATE_ITEMS_TABLE_IF_NOT = "CREATE TABLE IF NOT EXISTS #itemsManageTable# (ItemId INTEGER PRIMARY KEY AUTOINCREMENT, #colname# #coltype# NOT NULL)";
         SQL_INSERT_ITEM_VALUE = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( DATETIME('now'), CAST( ? as #dbType#) )";
+        SQL_INSERT_ITEM_VALUE_WITH_TIME = "INSERT OR IGNORE INTO #tableName# (TIME, VALUE) VALUES( DATETIME(?, 'unixepoch'), CAST( ? as #dbType#) )";
     }
 
     /**
@@ -90,6 +91,12 @@ public class JdbcSqliteDAO extends JdbcBaseDAO {
     /****************************
      * SQL generation Providers *
      ****************************/
+    @Override
+    protected Object[] storeItemValuesParams(ItemVO vo) {
+        // DATETIME('now') of the single insert is UTC as well
+        return new Object[] { vo.getTime().getTime() / 1000, vo.getValue() };
+    }
+
 
     /*****************
      * H E L P E R S *
@@ -52,6 +52,11 @@ public class JdbcConfiguration {
 
     private int errReconnectThreshold = 0;
 
+    // write-behind queue, disabled if batchSize is 0
+    private int batchSize = 0;
+    private long batchInterval = 1000;
+    private int batchQueueSize = 10000;
+
     public int timerCount = 0;
     public int time1000Statements = 0;
     public long timer1000 = 0;
@@ -194,6 +199,24 @@ public class JdbcConfiguration {
             rebuildTableNames = "true".equals(rt) ? Boolean.parseBoolean(rt) : false;
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
+        String bs = (String) configuration.get("batchSize");
+        if (StringUtils.isNotBlank(bs)) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (StringUtils.isNotBlank(bi)) {
+            batchInterval = Long.parseLong(bi);
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (StringUtils.isNotBlank(bq)) {
+            batchQueueSize = Integer.parseInt(bq);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (StringUtils.isNotBlank(ac)) {
@@ -290,6 +313,18 @@ public class JdbcConfiguration {
         return errReconnectThreshold;
     }
 
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public long getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
     public boolean getRebuildTableNames() {
         return rebuildTableNames;
     }
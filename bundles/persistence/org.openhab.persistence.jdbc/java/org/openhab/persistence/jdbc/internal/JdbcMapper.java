@@ -29,6 +29,7 @@ public class JdbcMapper {
     protected int errCnt;
     protected boolean initialized = false;
     protected JdbcConfiguration conf = null;
+    protected volatile JdbcWriteQueue writeQueue = null;
     protected Map<String, String> sqlTables = new HashMap<String, String>();
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
@@ -137,6 +138,28 @@ public class JdbcMapper {
         return item;
     }
 
+    public Item queueItemValue(JdbcWriteQueue queue, Item item) {
+        logger.debug("JDBC::queueItemValue: Item={}", item.toString());
+        String tableName = getTable(item);
+        if (tableName == null) {
+            logger.error("JDBC::store: Unable to store item '{}'.", item.getName());
+            return item;
+        }
+        queue.add(conf.getDBDAO().doPrepareItemValue(item, new ItemVO(tableName, null)));
+        return item;
+    }
+
+    public boolean storeItemValues(String tableName, List<ItemVO> vol) {
+        logger.debug("JDBC::storeItemValues: table={} values={}", tableName, vol.size());
+        long timerStart = System.currentTimeMillis();
+        boolean ret = conf.getDBDAO().doStoreItemValues(tableName, vol);
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+        if (ret) {
+            errCnt = 0;
+        }
+        return ret;
+    }
+
     public List<HistoricItem> getHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount, String table,
             Item item) {
         logger.debug(
@@ -172,6 +195,32 @@ public class JdbcMapper {
         return true;
     }
 
+    /**
+     * Replaces the write queue by one for the current configuration. The new queue is in place before
+     * the old one is stopped, so values stored meanwhile are never lost to a missing queue.
+     */
+    protected void restartWriteQueue() {
+        JdbcWriteQueue newQueue = null;
+        if (conf.getBatchSize() > 0) {
+            newQueue = new JdbcWriteQueue(this, conf.getBatchSize(), conf.getBatchInterval(),
+                    conf.getBatchQueueSize());
+            newQueue.start();
+        }
+        JdbcWriteQueue oldQueue = writeQueue;
+        writeQueue = newQueue;
+        if (oldQueue != null) {
+            oldQueue.stop();
+        }
+    }
+
+    protected void stopWriteQueue() {
+        JdbcWriteQueue oldQueue = writeQueue;
+        writeQueue = null;
+        if (oldQueue != null) {
+            oldQueue.stop();
+        }
+    }
+
     protected void closeConnection() {
         logger.debug("JDBC::closeConnection");
         // Closes all open connection pools
@@ -80,6 +80,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
      */
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
+        stopWriteQueue();
         // closeConnection();
         this.bundleContext = null;
         initialized = false;
@@ -123,12 +124,22 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
             logger.warn("JDBC::store: ignore Item '{}' because it is UnDefType", item.getName());
             return;
         }
+        JdbcWriteQueue queue = writeQueue;
+        if (queue != null && sqlTables.containsKey(item.getName())) {
+            // the write queue keeps the value until the database is reachable again
+            queueItemValue(queue, item);
+            return;
+        }
         if (!checkDBAccessability()) {
             logger.warn(
                     "JDBC::store:  No connection to database. Can not persist item '{}'! Will retry connecting to database when error count:{} equals errReconnectThreshold:{}",
                     item, errCnt, conf.getErrReconnectThreshold());
             return;
         }
+        if (queue != null) {
+            queueItemValue(queue, item);
+            return;
+        }
         long timerStart = System.currentTimeMillis();
         storeItemValue(item);
         logger.debug("JDBC: Stored item '{}' as '{}' in SQL database at {} in {}ms.", item.getName(),
@@ -222,6 +233,7 @@ public class JdbcPersistenceService extends JdbcMapper implements QueryablePersi
         } else {
             initialized = false;
         }
+        restartWriteQueue();
 
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getName());
     }
@@ -0,0 +1,265 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.persistence.jdbc.internal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openhab.persistence.jdbc.model.ItemVO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind queue for item values. Values are collected in a bounded queue and
+ * written by a background thread, grouped by item table, as one JDBC batch per table.
+ * A flush is triggered when <code>batchSize</code> values are pending or when
+ * <code>batchInterval</code> has elapsed.
+ *
+ * If the database is unreachable the values are kept in the queue. When the queue is full,
+ * producers wait a short time for space (backpressure) and then spill the oldest value.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class JdbcWriteQueue implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(JdbcWriteQueue.class);
+
+    // maximum time a producer waits for space in a full queue before the oldest value is spilled
+    private static final long OFFER_TIMEOUT = 100;
+
+    private final JdbcMapper mapper;
+    private final int batchSize;
+    private final long batchInterval;
+    private final LinkedBlockingDeque<ItemVO> queue;
+
+    private final Object flushLock = new Object();
+    private final AtomicLong storedCount = new AtomicLong();
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    private Thread thread;
+    private volatile boolean running = false;
+
+    public JdbcWriteQueue(JdbcMapper mapper, int batchSize, long batchInterval, int queueSize) {
+        this.mapper = mapper;
+        this.batchSize = batchSize;
+        this.batchInterval = batchInterval;
+        this.queue = new LinkedBlockingDeque<ItemVO>(Math.max(queueSize, batchSize));
+    }
+
+    public void start() {
+        running = true;
+        thread = new Thread(this, "JDBC write queue");
+        thread.setDaemon(true);
+        thread.start();
+        logger.debug("JDBC::JdbcWriteQueue: started batchSize={} batchInterval={}ms queueSize={}", batchSize,
+                batchInterval, queue.remainingCapacity());
+    }
+
+    /**
+     * Stops the background thread and tries to write all pending values.
+     */
+    public void stop() {
+        running = false;
+        synchronized (flushLock) {
+            flushLock.notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join(batchInterval + 5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            thread = null;
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("JDBC::JdbcWriteQueue: {} values could not be written to the database", queue.size());
+            droppedCount.addAndGet(queue.size());
+            queue.clear();
+        }
+        logger.debug("JDBC::JdbcWriteQueue: stopped stored={} dropped={}", storedCount.get(), droppedCount.get());
+    }
+
+    /**
+     * Adds a prepared value to the queue.
+     *
+     * @param vo the value prepared by the data access object
+     */
+    public void add(ItemVO vo) {
+        try {
+            while (!queue.offer(vo, OFFER_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                ItemVO spilled = queue.pollFirst();
+                if (spilled != null) {
+                    droppedCount.incrementAndGet();
+                    logger.debug("JDBC::JdbcWriteQueue: queue full, dropped value for table '{}'",
+                            spilled.getTableName());
+                }
+            }
+        } catch (InterruptedException e) {
+            droppedCount.incrementAndGet();
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (queue.size() >= batchSize) {
+            synchronized (flushLock) {
+                flushLock.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            synchronized (flushLock) {
+                if (running && queue.size() < batchSize) {
+                    try {
+                        flushLock.wait(batchInterval);
+                    } catch (InterruptedException e) {
+                        break;
+                    }
+                }
+            }
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                logger.error("JDBC::JdbcWriteQueue: error writing values: {}", e.getMessage(), e);
+            }
+        }
+        // write what is left before shutting down
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("JDBC::JdbcWriteQueue: error writing values: {}", e.getMessage(), e);
+        }
+    }
+
+    private void flush() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        if (!isDbReachable()) {
+            logger.debug("JDBC::JdbcWriteQueue: database not reachable, keeping {} values", queue.size());
+            return;
+        }
+
+        while (!queue.isEmpty()) {
+            long timerStart = System.currentTimeMillis();
+            List<ItemVO> values = new ArrayList<ItemVO>(batchSize);
+            queue.drainTo(values, batchSize);
+
+            Map<String, List<ItemVO>> tables = new LinkedHashMap<String, List<ItemVO>>();
+            for (ItemVO vo : values) {
+                List<ItemVO> vol = tables.get(vo.getTableName());
+                if (vol == null) {
+                    vol = new ArrayList<ItemVO>();
+                    tables.put(vo.getTableName(), vol);
+                }
+                vol.add(vo);
+            }
+
+            List<ItemVO> failed = new ArrayList<ItemVO>();
+            for (Map.Entry<String, List<ItemVO>> table : tables.entrySet()) {
+                if (mapper.storeItemValues(table.getKey(), table.getValue())) {
+                    storedCount.addAndGet(table.getValue().size());
+                } else {
+                    failed.addAll(table.getValue());
+                }
+            }
+            logger.debug("JDBC::JdbcWriteQueue: wrote {} values to {} tables in {}ms, {} values pending",
+                    values.size() - failed.size(), tables.size(), System.currentTimeMillis() - timerStart,
+                    queue.size());
+
+            if (!failed.isEmpty()) {
+                if (!isDbAlive()) {
+                    requeue(failed);
+                    return;
+                }
+                // the database rejected a batch, write its rows one by one so only the bad rows are lost
+                if (!storeRowByRow(failed)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes the values of rejected batches one row at a time.
+     *
+     * @return false if the database went away meanwhile, the values not written yet are queued again
+     */
+    private boolean storeRowByRow(List<ItemVO> values) {
+        int rejected = 0;
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                ItemVO vo = values.get(i);
+                if (mapper.storeItemValues(vo.getTableName(), Collections.singletonList(vo))) {
+                    storedCount.incrementAndGet();
+                } else if (isDbAlive()) {
+                    rejected++;
+                } else {
+                    requeue(values.subList(i, values.size()));
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            if (rejected > 0) {
+                droppedCount.addAndGet(rejected);
+                logger.warn("JDBC::JdbcWriteQueue: database rejected {} values", rejected);
+            }
+        }
+    }
+
+    /**
+     * Puts values back at the head of the queue, keeping their order for the next flush.
+     */
+    private void requeue(List<ItemVO> values) {
+        for (int i = values.size() - 1; i >= 0; i--) {
+            if (!queue.offerFirst(values.get(i))) {
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+
+    private boolean isDbReachable() {
+        try {
+            return mapper.checkDBAccessability();
+        } catch (RuntimeException e) {
+            logger.debug("JDBC::JdbcWriteQueue: database check failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean isDbAlive() {
+        try {
+            return mapper.pingDB();
+        } catch (RuntimeException e) {
+            logger.debug("JDBC::JdbcWriteQueue: database ping failed: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    public long getStoredCount() {
+        return storedCount.get();
+    }
+
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+}
@@ -0,0 +1,131 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.types.DecimalType;
+import org.rrd4j.ConsolFun;
+import org.rrd4j.DsType;
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+
+import junit.framework.Assert;
+
+/**
+ * @author agent
+ * @since 1.9.0
+ */
+public class RRD4jServiceTest {
+
+    private File folder;
+    private RRD4jService service;
+    private NumberItem item;
+
+    @Before
+    public void setUp() throws IOException {
+        folder = File.createTempFile("rrd4j", "");
+        folder.delete();
+        folder.mkdirs();
+
+        service = new RRD4jService() {
+            @Override
+            protected RrdDb getDB(String alias) {
+                try {
+                    return RRD4jDbPool.getInstance().requestRrdDb(getPath(alias), createDef(alias));
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
+        service.activate(null);
+        item = new NumberItem("Temperature");
+    }
+
+    @After
+    public void tearDown() {
+        service.deactivate();
+        for (File file : folder.listFiles()) {
+            file.delete();
+        }
+        folder.delete();
+    }
+
+    @Test
+    public void testLastSampleWinsOverPendingSample() throws Exception {
+        waitForNextSecond();
+        store("first", 1);
+        // same second, waits for the write scheduler
+        store("first", 2);
+
+        waitForNextSecond();
+        store("first", 3);
+
+        Thread.sleep(2100);
+        Assert.assertEquals(3.0, getLastValue("first"), 0.0);
+    }
+
+    @Test
+    public void testPendingSampleDoesNotOverwriteNewerSample() throws Exception {
+        waitForNextSecond();
+        store("second", 1);
+        store("second", 2);
+
+        // keep the write scheduler waiting for the database while the next sample is written directly
+        RrdDb db = RRD4jDbPool.getInstance().requestRrdDb(getPath("second"), null);
+        try {
+            waitForNextSecond();
+            Thread.sleep(100);
+            store("second", 3);
+        } finally {
+            RRD4jDbPool.getInstance().release(db);
+        }
+
+        Thread.sleep(2100);
+        Assert.assertEquals(3.0, getLastValue("second"), 0.0);
+        Assert.assertEquals(1, service.getCoalescedSampleCount());
+    }
+
+    private void store(String alias, int value) {
+        item.setState(new DecimalType(value));
+        service.store(item, alias);
+    }
+
+    private double getLastValue(String alias) throws IOException {
+        RrdDb db = RRD4jDbPool.getInstance().requestRrdDb(getPath(alias), null);
+        try {
+            return db.getLastDatasourceValue("state");
+        } finally {
+            RRD4jDbPool.getInstance().release(db);
+        }
+    }
+
+    private String getPath(String alias) {
+        return new File(folder, alias + ".rrd").getAbsolutePath();
+    }
+
+    private RrdDef createDef(String alias) {
+        if (new File(getPath(alias)).exists()) {
+            return null;
+        }
+        RrdDef rrdDef = new RrdDef(getPath(alias), 1);
+        rrdDef.addDatasource("state", DsType.GAUGE, 60, Double.NaN, Double.NaN);
+        rrdDef.addArchive(ConsolFun.AVERAGE, 0.5, 1, 100);
+        return rrdDef;
+    }
+
+    private static void waitForNextSecond() throws InterruptedException {
+        Thread.sleep(1010 - System.currentTimeMillis() % 1000);
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright (c) 2010-2016 by the respective copyright holders.
+ *
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ */
+package org.openhab.persistence.rrd4j.internal;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.rrd4j.core.RrdDb;
+import org.rrd4j.core.RrdDef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A pool of open {@link RrdDb} handles, shared by the persistence service and the chart servlet.
+ * Handles are kept open after use and are only closed when the pool exceeds its capacity, in which
+ * case the least recently used idle handles are closed first. Every handle is guarded by its own lock,
+ * so that callers working on different files do not block each other.
+ *
+ * @author agent
+ * @since 1.9.0
+ */
+public class RRD4jDbPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(RRD4jDbPool.class);
+
+    /** the default maximum number of idle handles which are kept open */
+    public static final int DEFAULT_CAPACITY = 200;
+
+    private static final RRD4jDbPool INSTANCE = new RRD4jDbPool();
+
+    private final Map<String, PooledDb> pool = new LinkedHashMap<String, PooledDb>(16, 0.75f, true);
+
+    private int capacity = DEFAULT_CAPACITY;
+
+    RRD4jDbPool() {
+    }
+
+    public static RRD4jDbPool getInstance() {
+        return INSTANCE;
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    public synchronized void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Returns an open {@link RrdDb} for the given file and locks it for exclusive use by the calling thread.
+     * Every successful call must be paired with a call to {@link #release(RrdDb)}.
+     *
+     * @param path the absolute path of the rrd file
+     * @param rrdDef the definition to create the file from if it does not exist yet, may be <code>null</code>
+     * @return the locked database handle
+     * @throws IOException if the file could not be opened or created
+     */
+    public RrdDb requestRrdDb(String path, RrdDef rrdDef) throws IOException {
+        PooledDb entry;
+        synchronized (this) {
+            entry = pool.get(path);
+            if (entry == null) {
+                entry = new PooledDb();
+                pool.put(path, entry);
+            }
+            entry.refCount++;
+        }
+
+        entry.lock.lock();
+        try {
+            if (entry.db == null || entry.db.isClosed()) {
+                entry.db = rrdDef == null ? new RrdDb(path) : new RrdDb(rrdDef);
+            }
+            return entry.db;
+        } catch (IOException e) {
+            releaseEntry(path, entry);
+            throw e;
+        } catch (RuntimeException e) {
+            releaseEntry(path, entry);
+            throw e;
+        }
+    }
+
+    /**
+     * Releases a handle obtained by {@link #requestRrdDb(String, RrdDef)}, so that other threads can use it.
+     *
+     * @param db the database handle to release
+     */
+    public void release(RrdDb db) {
+        if (db == null) {
+            return;
+        }
+        String path = db.getPath();
+        PooledDb entry;
+        synchronized (this) {
+            entry = pool.get(path);
+        }
+        if (entry == null || entry.db != db) {
+            // the handle has been evicted from the pool in the meantime
+            closeQuietly(db);
+            return;
+        }
+        releaseEntry(path, entry);
+    }
+
+    /**
+     * Closes all idle handles and empties the pool. Handles which are currently in use are closed as soon as
+     * they are released.
+     */
+    public void closeAll() {
+        List<RrdDb> toClose = new ArrayList<RrdDb>();
+        synchronized (this) {
+            for (PooledDb entry : pool.values()) {
+                if (entry.refCount == 0 && entry.db != null) {
+                    toClose.add(entry.db);
+                }
+            }
+            pool.clear();
+        }
+        for (RrdDb db : toClose) {
+            closeQuietly(db);
+        }
+    }
+
+    private void releaseEntry(String path, PooledDb entry) {
+        entry.lock.unlock();
+        List<RrdDb> toClose = new ArrayList<RrdDb>();
+        synchronized (this) {
+            entry.refCount--;
+            if (pool.get(path) != entry) {
+                // the pool has been cleared while the handle was in use
+                if (entry.refCount == 0 && entry.db != null) {
+                    toClose.add(entry.db);
+                }
+            } else if (entry.refCount == 0 && entry.db == null) {
+                pool.remove(path);
+            }
+            evictIdleEntries(toClose);
+        }
+        for (RrdDb db : toClose) {
+            closeQuietly(db);
+        }
+    }
+
+    /**
+     * Removes the least recently used idle entries until the pool size is within its capacity. Must be called
+     * while holding the pool monitor; the removed handles are added to the given list to be closed afterwards.
+     */
+    private void evictIdleEntries(List<RrdDb> toClose) {
+        Iterator<PooledDb> it = pool.values().iterator();
+        while (pool.size() > capacity && it.hasNext()) {
+            PooledDb entry = it.next();
+            if (entry.refCount == 0) {
+                it.remove();
+                if (entry.db != null) {
+                    toClose.add(entry.db);
+                }
+            }
+        }
+    }
+
+    private void closeQuietly(RrdDb db) {
+        try {
+            db.close();
+        } catch (IOException e) {
+            logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        }
+    }
+
+    private static class PooledDb {
+        private final ReentrantLock lock = new ReentrantLock();
+        private RrdDb db;
+        private int refCount;
+    }
+
+}
@@ -13,14 +13,16 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
-import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.apache.commons.lang.StringUtils;
 import org.openhab.core.items.Item;
@@ -69,7 +71,24 @@ public class RRD4jService implements QueryablePersistenceService {
 
     private static final Logger logger = LoggerFactory.getLogger(RRD4jService.class);
 
-    private Map<String, Timer> timers = new HashMap<String, Timer>();
+    private static final String POOL_CAPACITY_KEY = "poolcapacity";
+
+    private final RRD4jDbPool dbPool = RRD4jDbPool.getInstance();
+
+    private final ConcurrentHashMap<String, PendingSample> pendingSamples =
+            new ConcurrentHashMap<String, PendingSample>();
+
+    /** orders the samples by their arrival, so that a parked sample never overwrites a newer one */
+    private final AtomicLong sampleSequence = new AtomicLong();
+
+    /** the sequence number of the sample written last, by alias; only changed while the database is locked */
+    private final Map<String, Long> writtenSequences = new ConcurrentHashMap<String, Long>();
+
+    private final AtomicLong coalescedSamples = new AtomicLong();
+
+    private final AtomicLong droppedSamples = new AtomicLong();
+
+    private ScheduledExecutorService writeScheduler;
 
     protected ItemRegistry itemRegistry;
 
@@ -93,38 +112,69 @@ public class RRD4jService implements QueryablePersistenceService {
      * @{inheritDoc}
      */
     @Override
-    public synchronized void store(final Item item, final String alias) {
-        final String name = alias == null ? item.getName() : alias;
+    public void store(Item item, String alias) {
+        String name = alias == null ? item.getName() : alias;
+        DecimalType state = (DecimalType) item.getStateAs(DecimalType.class);
+        long sequence = sampleSequence.incrementAndGet();
+        if (pendingSamples.remove(name) != null) {
+            // the fresh state supersedes the sample which is still waiting for the next second
+            coalescedSamples.incrementAndGet();
+        }
+        storeSample(name, item.getName(), state, sequence);
+    }
+
+    /**
+     * Writes a sample to the database of the given alias. If the database has already been updated within the
+     * current second, the sample is handed to the write scheduler instead, which stores it at the next step
+     * boundary.
+     *
+     * @param name the alias of the database to write to
+     * @param itemName the name of the item the sample belongs to
+     * @param state the state to store, may be <code>null</code>
+     * @param sequence the sequence number of the sample, a sample older than the last written one is dropped
+     */
+    private void storeSample(String name, String itemName, DecimalType state, long sequence) {
         RrdDb db = getDB(name);
         if (db != null) {
-            ConsolFun function = getConsolidationFunction(db);
-            long now = System.currentTimeMillis() / 1000;
-            if (function != ConsolFun.AVERAGE) {
-                try {
-                    // we store the last value again, so that the value change in the database is not interpolated, but
-                    // happens right at this spot
-                    if (now - 1 > db.getLastUpdateTime()) {
-                        // only do it if there is not already a value
-                        double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                        if (!Double.isNaN(lastValue)) {
-                            Sample sample = db.createSample();
-                            sample.setTime(now - 1);
-                            sample.setValue(DATASOURCE_STATE, lastValue);
-                            sample.update();
-                            logger.debug("Stored '{}' with state '{}' in rrd4j database (again)", name,
-                                    mapToState(lastValue, item.getName()));
+            try {
+                Long writtenSequence = writtenSequences.get(name);
+                if (state != null && writtenSequence != null && writtenSequence.longValue() > sequence) {
+                    // a newer sample has been written while this one was waiting
+                    coalescedSamples.incrementAndGet();
+                    logger.trace("Dropped outdated sample for '{}' with state '{}'", name, state);
+                    return;
+                }
+                long now = System.currentTimeMillis() / 1000;
+                if (state != null && now <= db.getLastUpdateTime()) {
+                    // rrd4j requires at least one second between two updates
+                    schedulePendingSample(name, itemName, state, sequence);
+                    return;
+                }
+                ConsolFun function = getConsolidationFunction(db);
+                if (function != ConsolFun.AVERAGE) {
+                    try {
+                        // we store the last value again, so that the value change in the database is not
+                        // interpolated, but happens right at this spot
+                        if (now - 1 > db.getLastUpdateTime()) {
+                            // only do it if there is not already a value
+                            double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+                            if (!Double.isNaN(lastValue)) {
+                                Sample sample = db.createSample();
+                                sample.setTime(now - 1);
+                                sample.setValue(DATASOURCE_STATE, lastValue);
+                                sample.update();
+                                logger.debug("Stored '{}' with state '{}' in rrd4j database (again)", name,
+                                        mapToState(lastValue, itemName));
+                            }
                         }
+                    } catch (IOException e) {
+                        logger.debug("Error storing last value (again): {}", e.getMessage());
                     }
-                } catch (IOException e) {
-                    logger.debug("Error storing last value (again): {}", e.getMessage());
                 }
-            }
-            try {
-                Sample sample = db.createSample();
-                sample.setTime(now);
-
-                DecimalType state = (DecimalType) item.getStateAs(DecimalType.class);
                 if (state != null) {
+                    Sample sample = db.createSample();
+                    sample.setTime(now);
+
                     double value = state.toBigDecimal().doubleValue();
                     if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) { // counter values must be
                                                                                           // adjusted by stepsize
@@ -132,40 +182,79 @@ public class RRD4jService implements QueryablePersistenceService {
                     }
                     sample.setValue(DATASOURCE_STATE, value);
                     sample.update();
+                    writtenSequences.put(name, sequence);
                     logger.debug("Stored '{}' with state '{}' in rrd4j database", name, state);
                 }
             } catch (IllegalArgumentException e) {
                 if (e.getMessage().contains("at least one second step is required")) {
-
-                    // we try to store the value one second later
-                    TimerTask task = new TimerTask() {
-                        @Override
-                        public void run() {
-                            store(item, name);
-                        }
-                    };
-                    Timer timer = timers.get(name);
-                    if (timer != null) {
-                        timer.cancel();
-                        timers.remove(name);
-                    }
-                    timer = new Timer();
-                    timers.put(name, timer);
-                    timer.schedule(task, 1000);
+                    // we try to store the value at the next step boundary
+                    schedulePendingSample(name, itemName, state, sequence);
                 } else {
                     logger.warn("Could not persist '{}' to rrd4j database: {}", new String[] { name, e.getMessage() });
                 }
             } catch (Exception e) {
                 logger.warn("Could not persist '{}' to rrd4j database: {}", new String[] { name, e.getMessage() });
+            } finally {
+                dbPool.release(db);
             }
-            try {
-                db.close();
-            } catch (IOException e) {
-                logger.debug("Error closing rrd4j database: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Remembers a sample which could not be written yet. Only the newest sample per alias is kept until the
+     * write scheduler flushes it at the beginning of the next second.
+     */
+    private void schedulePendingSample(final String name, String itemName, DecimalType state, long sequence) {
+        PendingSample sample = new PendingSample(itemName, state, sequence);
+        while (true) {
+            PendingSample previous = pendingSamples.putIfAbsent(name, sample);
+            if (previous == null) {
+                break;
+            }
+            if (previous.sequence > sequence) {
+                // a newer sample is already waiting
+                coalescedSamples.incrementAndGet();
+                return;
+            }
+            if (pendingSamples.replace(name, previous, sample)) {
+                coalescedSamples.incrementAndGet();
+                logger.trace("Coalesced pending sample for '{}' with state '{}'", name, state);
+                return;
+            }
+        }
+        long delay = 1000 - System.currentTimeMillis() % 1000;
+        try {
+            writeScheduler.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    PendingSample sample = pendingSamples.remove(name);
+                    if (sample != null) {
+                        storeSample(name, sample.itemName, sample.state, sample.sequence);
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // this happens if the service is shut down
+            if (pendingSamples.remove(name) != null) {
+                droppedSamples.incrementAndGet();
             }
         }
     }
 
+    /**
+     * @return the number of samples which have been replaced by a newer sample before they could be written
+     */
+    public long getCoalescedSampleCount() {
+        return coalescedSamples.get();
+    }
+
+    /**
+     * @return the number of pending samples which have been discarded without being written
+     */
+    public long getDroppedSampleCount() {
+        return droppedSamples.get();
+    }
+
     /**
      * @{inheritDoc}
      */
@@ -230,26 +319,34 @@ public class RRD4jService implements QueryablePersistenceService {
             } catch (IOException e) {
                 logger.warn("Could not query rrd4j database for item '{}': {}",
                         new String[] { itemName, e.getMessage() });
+            } finally {
+                dbPool.release(db);
             }
         }
         return Collections.emptyList();
     }
 
-    protected synchronized RrdDb getDB(String alias) {
+    /**
+     * Returns the pooled database for the given alias and locks it for the calling thread. The returned
+     * instance must be handed back through {@link RRD4jDbPool#release(RrdDb)} when done.
+     *
+     * @param alias the item name or alias to get the database for
+     * @return the locked database or <code>null</code>, if it could not be opened
+     */
+    protected RrdDb getDB(String alias) {
         RrdDb db = null;
         File file = new File(DB_FOLDER + File.separator + alias + ".rrd");
         try {
             if (file.exists()) {
-                // recreate the RrdDb instance from the file
-                db = new RrdDb(file.getAbsolutePath());
+                // reuse the pooled RrdDb instance or recreate it from the file
+                db = dbPool.requestRrdDb(file.getAbsolutePath(), null);
             } else {
                 File folder = new File(DB_FOLDER);
                 if (!folder.exists()) {
                     folder.mkdirs();
                 }
                 // create a new database file
-                // db = new RrdDb(getRrdDef(function, file));
-                db = new RrdDb(getRrdDef(alias, file));
+                db = dbPool.requestRrdDb(file.getAbsolutePath(), getRrdDef(alias, file));
             }
         } catch (IOException e) {
             logger.error("Could not create rrd4j database file '{}': {}",
@@ -346,6 +443,15 @@ public class RRD4jService implements QueryablePersistenceService {
      */
     public void activate(final Map<String, Object> config) {
 
+        writeScheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "RRD4j write scheduler");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+
         // add default configurations
         RrdDefConfig defaultNumeric = new RrdDefConfig("default_numeric");
         defaultNumeric.setDef("GAUGE,60,U,U,60");
@@ -373,6 +479,15 @@ public class RRD4jService implements QueryablePersistenceService {
                 continue;
             }
 
+            if (key.equals(POOL_CAPACITY_KEY)) {
+                try {
+                    dbPool.setCapacity(Integer.parseInt(String.valueOf(config.get(key)).trim()));
+                } catch (NumberFormatException e) {
+                    logger.warn("Ignoring illegal pool capacity '{}'", config.get(key));
+                }
+                continue;
+            }
+
             String[] subkeys = key.split("\\.");
             if (subkeys.length != 2) {
                 logger.debug("config '{}' should have the format 'name.configkey'", key);
@@ -424,6 +539,30 @@ public class RRD4jService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Stops the write scheduler and closes all database handles which are kept open by the pool.
+     */
+    public void deactivate() {
+        writeScheduler.shutdownNow();
+        droppedSamples.addAndGet(pendingSamples.size());
+        pendingSamples.clear();
+        logger.debug("rrd4j write scheduler stopped, {} samples coalesced, {} samples dropped",
+                coalescedSamples.get(), droppedSamples.get());
+        dbPool.closeAll();
+    }
+
+    private static class PendingSample {
+        private final String itemName;
+        private final DecimalType state;
+        private final long sequence;
+
+        public PendingSample(String itemName, DecimalType state, long sequence) {
+            this.itemName = itemName;
+            this.state = state;
+            this.sequence = sequence;
+        }
+    }
+
     private class RrdArchiveDef {
         public ConsolFun fcn;
         public double xff;
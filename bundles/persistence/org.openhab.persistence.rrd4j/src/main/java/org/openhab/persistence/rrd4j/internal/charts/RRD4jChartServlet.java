@@ -30,6 +30,7 @@ import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.library.items.NumberItem;
 import org.openhab.io.net.http.SecureHttpContext;
+import org.openhab.persistence.rrd4j.internal.RRD4jDbPool;
 import org.openhab.persistence.rrd4j.internal.RRD4jService;
 import org.openhab.ui.chart.ChartProvider;
 import org.openhab.ui.items.ItemUIRegistry;
@@ -181,12 +182,15 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
+        RRD4jDbPool dbPool = RRD4jDbPool.getInstance();
+        RrdDb db = null;
         try {
-            RrdDb db = new RrdDb(rrdName);
+            db = dbPool.requestRrdDb(new File(rrdName).getAbsolutePath(), null);
             consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
-            db.close();
         } catch (IOException e) {
             consolFun = ConsolFun.MAX;
+        } finally {
+            dbPool.release(db);
         }
         if (item instanceof NumberItem) {
             // we only draw a line